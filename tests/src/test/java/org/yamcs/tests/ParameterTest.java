@@ -236,6 +236,38 @@ public class ParameterTest extends AbstractIntegrationTest {
         checkPvals(2, values, packetGenerator);
     }
 
+    @Test
+    public void testConflatedSubscription() throws Exception {
+        ParameterSubscription subscription = yamcsClient.createParameterSubscription();
+        ParameterCaptor captor = ParameterCaptor.of(subscription);
+
+        SubscribeParametersRequest request = SubscribeParametersRequest.newBuilder()
+                .setInstance(yamcsInstance)
+                .setProcessor("realtime")
+                .addId(NamedObjectId.newBuilder().setName("/REFMDB/SUBSYS1/IntegerPara1_1_7"))
+                .addId(NamedObjectId.newBuilder().setName("/REFMDB/SUBSYS1/IntegerPara1_1_6"))
+                .setSendFromCache(false)
+                .setMaxUpdateRate(1)
+                .build();
+        subscription.sendMessage(request);
+        subscription.awaitConfirmation();
+
+        for (int i = 0; i < 10; i++) {
+            packetGenerator.pIntegerPara1_1_6 = i;
+            packetGenerator.generate_PKT1_1();
+        }
+
+        // the 10 updates are sent in one message, or two if the interval ended in between
+        List<ParameterValue> values = captor.expectTimely();
+        assertTrue(values.size() <= 2);
+        List<ParameterValue> values2 = captor.poll(1500);
+        if (values2 != null) {
+            values = values2;
+        }
+        checkPvals(2, values, packetGenerator);
+        captor.assertSilence();
+    }
+
     @Test
     public void testBatchGet() throws Exception {
         /*
@@ -26,6 +26,7 @@ import org.yamcs.parameter.ParameterCacheConfig;
 import org.yamcs.parameter.ParameterProcessorManager;
 import org.yamcs.parameter.ParameterRequestManager;
 import org.yamcs.protobuf.ServiceState;
+import org.yamcs.protobuf.Yamcs.ReplayPacingStats;
 import org.yamcs.protobuf.Yamcs.ReplayRequest;
 import org.yamcs.protobuf.Yamcs.ReplaySpeed;
 import org.yamcs.protobuf.Yamcs.ReplaySpeed.ReplaySpeedType;
@@ -467,6 +468,15 @@ public class Processor extends AbstractService {
         return ((ArchiveTmPacketProvider) tmPacketProvider).getReplayState();
     }
 
+    /**
+     * valid only if isArchiveReplay returns true
+     * 
+     * @return the pacing statistics of the replay or null if the replay is not speed limited
+     */
+    public ReplayPacingStats getReplayPacingStats() {
+        return ((ArchiveTmPacketProvider) tmPacketProvider).getPacingStats();
+    }
+
     public ServiceState getState() {
         return ServiceState.valueOf(state().name());
     }
@@ -1,16 +1,22 @@
 package org.yamcs.archive;
 
+import java.util.List;
 import java.util.stream.Collectors;
 
 import org.yamcs.AbstractYamcsService;
 import org.yamcs.InitException;
 import org.yamcs.StreamConfig;
 import org.yamcs.StreamConfig.StreamConfigEntry;
+import org.yamcs.Spec;
+import org.yamcs.Spec.OptionType;
 import org.yamcs.YConfiguration;
 import org.yamcs.utils.parser.ParseException;
+import org.yamcs.yarch.TableDefinition;
 import org.yamcs.yarch.YarchDatabase;
 import org.yamcs.yarch.YarchDatabaseInstance;
 import org.yamcs.yarch.protobuf.Db.Event;
+import org.yamcs.yarch.rocksdb.RdbStorageEngine;
+import org.yamcs.yarch.rocksdb.RdbTable;
 import org.yamcs.yarch.streamsql.StreamSqlException;
 
 /**
@@ -23,6 +29,16 @@ public class EventRecorder extends AbstractYamcsService {
 
     public static final String TABLE_NAME = "events";
     public static final String REALTIME_EVENT_STREAM_NAME = "events_realtime";
+    // the text index contains the words of the event message only: the q parameter of the events API searches the
+    // message, the source is filtered separately on the (primary key) source column and the type is not searchable
+    static final List<String> TEXT_INDEX_COLUMNS = List.of("body.message");
+
+    @Override
+    public Spec getSpec() {
+        Spec spec = new Spec();
+        spec.addOption("textIndex", OptionType.BOOLEAN).withDefault(false);
+        return spec;
+    }
 
     @Override
     public void init(String yamcsInstance, String serviceName, YConfiguration config) throws InitException {
@@ -36,6 +52,7 @@ public class EventRecorder extends AbstractYamcsService {
                         + "(gentime timestamp, source enum, seqNum int, body PROTOBUF('"+Event.class.getName()+"'), primary key(gentime, source, seqNum)) histogram(source)"
                         + " table_format=compressed");
             }
+            configureTextIndex(ydb, config.getBoolean("textIndex"));
 
             StreamConfig sc = StreamConfig.getInstance(yamcsInstance);
             for (StreamConfigEntry sce : sc.getEntries()) {
@@ -48,6 +65,44 @@ public class EventRecorder extends AbstractYamcsService {
         }
     }
 
+    private void configureTextIndex(YarchDatabaseInstance ydb, boolean enabled) {
+        RdbTable table = getRdbTable(ydb);
+        if (table == null) {
+            if (enabled) {
+                log.warn("The text index is only supported for tables stored in RocksDB");
+            }
+            return;
+        }
+        if (enabled) {
+            table.enableTextIndex(TEXT_INDEX_COLUMNS, (tuple, texts) -> {
+                Event ev = tuple.getColumn("body");
+                if (ev != null && ev.hasMessage()) {
+                    texts.add(ev.getMessage());
+                }
+            });
+        } else {
+            table.disableTextIndex();
+        }
+    }
+
+    private static RdbTable getRdbTable(YarchDatabaseInstance ydb) {
+        TableDefinition tblDef = ydb.getTable(TABLE_NAME);
+        if (tblDef == null || !(ydb.getStorageEngine(tblDef) instanceof RdbStorageEngine)) {
+            return null;
+        }
+        return RdbStorageEngine.getInstance().getTablespace(ydb).getTable(tblDef);
+    }
+
+    /**
+     * 
+     * @return true if the event messages of the instance can be searched with the text_match function using the text
+     *         index
+     */
+    public static boolean hasTextIndex(String yamcsInstance) {
+        RdbTable table = getRdbTable(YarchDatabase.getInstance(yamcsInstance));
+        return table != null && table.getTextIndex() != null;
+    }
+
     @Override
     protected void doStart() {
         notifyStarted();
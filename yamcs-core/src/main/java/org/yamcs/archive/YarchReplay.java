@@ -11,6 +11,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.yamcs.YamcsException;
 import org.yamcs.protobuf.Yamcs.EndAction;
+import org.yamcs.protobuf.Yamcs.ReplayPacingStats;
 import org.yamcs.protobuf.Yamcs.ReplayRequest;
 import org.yamcs.protobuf.Yamcs.ReplaySpeed;
 import org.yamcs.protobuf.Yamcs.ReplaySpeed.ReplaySpeedType;
@@ -116,29 +117,38 @@ public class YarchReplay implements StreamSubscriber {
         return state;
     }
 
-    public synchronized void start() {
-        switch (state) {
-        case RUNNING:
-            log.warn("start called when already running, call ignored");
-            return;
-        case INITIALIZATION:
-        case STOPPED:
-            try {
-                initReplay();
+    public void start() {
+        SpeedLimitStream toResume = null;
+        synchronized (this) {
+            switch (state) {
+            case RUNNING:
+                log.warn("start called when already running, call ignored");
+                return;
+            case INITIALIZATION:
+            case STOPPED:
+                try {
+                    initReplay();
+                    state = ReplayState.RUNNING;
+                } catch (Exception e) {
+                    log.error("Got exception when creating the stream: ", e);
+                    errorString = e.toString();
+                    state = ReplayState.ERROR;
+                }
+                break;
+            case PAUSED:
                 state = ReplayState.RUNNING;
-            } catch (Exception e) {
-                log.error("Got exception when creating the stream: ", e);
-                errorString = e.toString();
-                state = ReplayState.ERROR;
+                toResume = getSpeedLimitStream();
+                pausedSemaphore.release();
+                break;
+            case ERROR:
+            case CLOSED:
+                // do nothing?
             }
-            break;
-        case PAUSED:
-            state = ReplayState.RUNNING;
-            pausedSemaphore.release();
-            break;
-        case ERROR:
-        case CLOSED:
-            // do nothing?
+        }
+        // resume outside the monitor: the timer thread emitting the tuples holds the emit lock of the speed limit
+        // stream and may call quit() from onTuple
+        if (toResume != null) {
+            toResume.resume();
         }
     }
 
@@ -215,7 +225,8 @@ public class YarchReplay implements StreamSubscriber {
 
     public void seek(long newReplayTime) throws YamcsException {
         if (state != ReplayState.INITIALIZATION) {
-            boolean wasPaused = (state == ReplayState.PAUSED);
+            // the paused speed limit stream keeps its tuples, there is none waiting in onTuple
+            boolean wasPaused = (state == ReplayState.PAUSED) && getSpeedLimitStream() == null;
             state = ReplayState.INITIALIZATION;
             String query = "CLOSE STREAM " + streamName;
             ignoreClose = true;
@@ -281,9 +292,49 @@ public class YarchReplay implements StreamSubscriber {
     }
 
     public void pause() {
+        SpeedLimitStream sls = getSpeedLimitStream();
+        if (sls != null) {
+            // pause the stream first such that the timer thread releasing its tuples does not wait in onTuple
+            sls.pause();
+        }
         state = ReplayState.PAUSED;
     }
 
+    /**
+     *
+     * @return the pacing statistics of the replay or null if the replay is not speed limited
+     */
+    public SpeedLimitStream.Stats getPacingStats() {
+        SpeedLimitStream sls = getSpeedLimitStream();
+        return sls == null ? null : sls.getStats();
+    }
+
+    /**
+     *
+     * @return the pacing statistics of the replay converted to protobuf or null if the replay is not speed limited
+     */
+    public ReplayPacingStats getPacingStatsProto() {
+        SpeedLimitStream.Stats stats = getPacingStats();
+        if (stats == null) {
+            return null;
+        }
+        return ReplayPacingStats.newBuilder()
+                .setNumReleased(stats.getNumReleased())
+                .setMeanError(stats.getMeanError() / 1e6)
+                .setMaxError(stats.getMaxError() / 1e6)
+                .setLag(stats.getLag() / 1e6)
+                .setQueueSize(stats.getQueueSize())
+                .build();
+    }
+
+    private SpeedLimitStream getSpeedLimitStream() {
+        if (streamName == null) {
+            return null;
+        }
+        Stream s = YarchDatabase.getInstance(instance).getStream(streamName);
+        return (s instanceof SpeedLimitStream) ? (SpeedLimitStream) s : null;
+    }
+
     public synchronized void quit() {
         if (quitting) {
             return;
@@ -324,6 +375,9 @@ public class YarchReplay implements StreamSubscriber {
 
             if (currentRequest.getSpeed().getType() == ReplaySpeedType.STEP_BY_STEP) {
                 // Force user to trigger next step.
+                if (s instanceof SpeedLimitStream) {
+                    ((SpeedLimitStream) s).pause();
+                }
                 state = ReplayState.PAUSED;
                 signalStateChange();
             }
@@ -342,6 +396,9 @@ public class YarchReplay implements StreamSubscriber {
             ignoreClose = false;
             return;
         }
+        if (stream instanceof SpeedLimitStream) {
+            log.debug("Replay pacing: {}", ((SpeedLimitStream) stream).getStats());
+        }
 
         if (currentRequest.getEndAction() == EndAction.QUIT) {
             state = ReplayState.CLOSED;
@@ -370,6 +427,10 @@ public class YarchReplay implements StreamSubscriber {
             if (state == ReplayState.ERROR) {
                 rsb.setErrorMessage(errorString);
             }
+            ReplayPacingStats pacingStats = getPacingStatsProto();
+            if (pacingStats != null) {
+                rsb.setPacingStats(pacingStats);
+            }
             ReplayStatus rs = rsb.build();
             listener.stateChanged(rs);
 
@@ -1,5 +1,6 @@
 package org.yamcs.commanding;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import org.yamcs.logging.Log;
@@ -63,7 +64,9 @@ public class ValueChangeVerifier  extends Verifier implements ParameterConsumer
     }
 
     @Override
-    public void updateItems(int subscriptionId, List<ParameterValue> params) {
+    public void updateItems(int subscriptionId, List<ParameterValue> items) {
+        // the list is reused by the PRM after this call returns
+        List<ParameterValue> params = new ArrayList<>(items);
         timer.submit(() -> params.forEach(pv -> process(pv, false)));
     }
 
@@ -28,6 +28,11 @@ public class Binding {
     private List<String> tlsCerts;
     private String tlsKey;
 
+    // socket options of the client connections, null means system default
+    private boolean tcpNoDelay = true;
+    private Integer sendBufferSize;
+    private Integer receiveBufferSize;
+
     public Binding(int port) {
         this(null, port);
     }
@@ -58,6 +63,43 @@ public class Binding {
         return port;
     }
 
+    /**
+     * Whether to disable the Nagle algorithm on the client connections (TCP_NODELAY). Default: true
+     */
+    public boolean isTcpNoDelay() {
+        return tcpNoDelay;
+    }
+
+    public void setTcpNoDelay(boolean tcpNoDelay) {
+        this.tcpNoDelay = tcpNoDelay;
+    }
+
+    /**
+     *
+     * @return the size in bytes of the socket send buffer (SO_SNDBUF) of the client connections, or null to use the
+     *         system default
+     */
+    public Integer getSendBufferSize() {
+        return sendBufferSize;
+    }
+
+    public void setSendBufferSize(Integer sendBufferSize) {
+        this.sendBufferSize = sendBufferSize;
+    }
+
+    /**
+     *
+     * @return the size in bytes of the socket receive buffer (SO_RCVBUF) of the client connections, or null to use the
+     *         system default
+     */
+    public Integer getReceiveBufferSize() {
+        return receiveBufferSize;
+    }
+
+    public void setReceiveBufferSize(Integer receiveBufferSize) {
+        this.receiveBufferSize = receiveBufferSize;
+    }
+
     SslContext createSslContext() throws SSLException, IOException {
         ByteArrayOutputStream buf = new ByteArrayOutputStream();
         for (String cert : tlsCerts) {
@@ -87,6 +129,15 @@ public class Binding {
             String tlsKey = config.getString("tlsKey");
             binding.setTLS(tlsCerts, tlsKey);
         }
+        if (config.containsKey("tcpNoDelay")) {
+            binding.setTcpNoDelay(config.getBoolean("tcpNoDelay"));
+        }
+        if (config.containsKey("sendBufferSize")) {
+            binding.setSendBufferSize(config.getInt("sendBufferSize"));
+        }
+        if (config.containsKey("receiveBufferSize")) {
+            binding.setReceiveBufferSize(config.getInt("receiveBufferSize"));
+        }
         return binding;
     }
 
@@ -0,0 +1,326 @@
+package org.yamcs.http;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.yamcs.protobuf.Event;
+import org.yamcs.protobuf.ProcessorInfo;
+import org.yamcs.protobuf.ServerMessage;
+import org.yamcs.protobuf.Statistics;
+import org.yamcs.protobuf.links.LinkEvent;
+
+import com.google.protobuf.Any;
+import com.google.protobuf.Message;
+import com.google.protobuf.Timestamp;
+import com.google.protobuf.util.JsonFormat;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufOutputStream;
+
+/**
+ * Keeps the encoded form of the data recently sent on the WebSocket connections, such that a message sent to many
+ * clients subscribed to the same topic is serialized only once per subprotocol.
+ * <p>
+ * The type, call and seq of the {@link ServerMessage} are specific to each subscription so only the
+ * <code>data</code> part is cached:
+ * <ul>
+ * <li>for the protobuf subprotocol, the cached buffer contains the serialized <code>data</code> field of the
+ * ServerMessage; it is appended to the serialized header (protobuf allows concatenating the fields of a message).</li>
+ * <li>for the json subprotocol, the cached buffer contains the JSON of the <code>data</code> field; the rest of the
+ * ServerMessage object is added around it.</li>
+ * </ul>
+ * The entries are looked up by the identity of the data message, so the cache is only useful for the topics passing
+ * the same message instance to all their subscribers: the events, the processor statistics and state changes, the link
+ * events and the time. The types of these messages are listed in {@link #isShared(Message)}; the other messages (e.g.
+ * the parameter data, built separately for each subscription) are not passed through the cache. To avoid keeping the
+ * data specific to one call (e.g. the initial messages of a subscription), a message is cached only when it is seen
+ * the second time; for the first time only its identity hash is remembered.
+ * <p>
+ * The cache is split in a number of stripes, selected by the identity hash of the message, each with its own lock.
+ * <p>
+ * The buffers are reference counted: the cache holds one reference which is released when the entry is evicted and
+ * each frame holds its own reference to a duplicate of the buffer. The entries expire after a short time since the
+ * same message is sent to all the subscribers at about the same moment.
+ */
+public class EncodedMessageCache {
+    static final int NUM_STRIPES = 16;
+    // maximum number of entries in one stripe
+    static final int MAX_ENTRIES = 64;
+    // number of identity hashes of messages seen once remembered in one stripe
+    static final int NUM_SEEN = 64;
+    static final long EXPIRATION_NANOS = TimeUnit.SECONDS.toNanos(1);
+    // larger messages are not cached, they are usually one-off responses (e.g. a full MDB dump)
+    static final int MAX_ENCODED_SIZE = 64 * 1024;
+
+    // types of the messages published as one shared instance to all the subscribers of a topic
+    static final Set<Class<? extends Message>> SHARED_TYPES = Set.of(Event.class, Statistics.class,
+            ProcessorInfo.class, LinkEvent.class, Timestamp.class);
+
+    private final JsonFormat.Printer jsonPrinter;
+    private final ByteBufAllocator allocator;
+    private final Stripe[] stripes = new Stripe[NUM_STRIPES];
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public EncodedMessageCache(JsonFormat.Printer jsonPrinter, ByteBufAllocator allocator) {
+        this.jsonPrinter = jsonPrinter;
+        this.allocator = allocator;
+        for (int i = 0; i < NUM_STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * 
+     * @return true if the message is of a type which is sent as the same instance to many subscribers, such that it is
+     *         worth passing it through the cache
+     */
+    public static boolean isShared(Message data) {
+        return SHARED_TYPES.contains(data.getClass());
+    }
+
+    /**
+     * Encodes a message for the protobuf subprotocol.
+     *
+     * @return a new buffer containing the serialized ServerMessage. The caller is responsible for releasing it.
+     */
+    public ByteBuf encodeBinary(String type, int call, int seq, Message data) throws IOException {
+        ServerMessage header = ServerMessage.newBuilder().setType(type).setCall(call).setSeq(seq).build();
+        ByteBuf headerBuf = allocator.buffer(header.getSerializedSize());
+        try (ByteBufOutputStream bufOut = new ByteBufOutputStream(headerBuf)) {
+            header.writeTo(bufOut);
+        }
+        ByteBuf dataBuf;
+        try {
+            dataBuf = getEncoded(data, true);
+        } catch (IOException | RuntimeException e) {
+            headerBuf.release();
+            throw e;
+        }
+        return allocator.compositeBuffer(2).addComponents(true, headerBuf, dataBuf);
+    }
+
+    /**
+     * Encodes a message for the json subprotocol.
+     *
+     * @return a new buffer containing the UTF-8 JSON of the ServerMessage. The caller is responsible for releasing it.
+     */
+    public ByteBuf encodeJson(String type, int call, int seq, Message data) throws IOException {
+        // same output as the JSON printer which omits the fields with default values
+        StringBuilder sb = new StringBuilder("{\n  \"type\": ");
+        appendQuoted(sb, type);
+        if (call != 0) {
+            sb.append(",\n  \"call\": ").append(call);
+        }
+        if (seq != 0) {
+            sb.append(",\n  \"seq\": ").append(seq);
+        }
+        sb.append(",\n  \"data\": ");
+        ByteBuf headerBuf = allocator.buffer(sb.length());
+        headerBuf.writeCharSequence(sb, StandardCharsets.UTF_8);
+        ByteBuf trailerBuf = allocator.buffer(2);
+        trailerBuf.writeCharSequence("\n}", StandardCharsets.UTF_8);
+
+        ByteBuf dataBuf;
+        try {
+            dataBuf = getEncoded(data, false);
+        } catch (IOException | RuntimeException e) {
+            headerBuf.release();
+            trailerBuf.release();
+            throw e;
+        }
+        return allocator.compositeBuffer(3).addComponents(true, headerBuf, dataBuf, trailerBuf);
+    }
+
+    /**
+     * Returns the encoded data, either from the cache or newly encoded. The result holds its own reference.
+     */
+    private ByteBuf getEncoded(Message data, boolean binary) throws IOException {
+        int hash = System.identityHashCode(data);
+        Stripe stripe = stripes[(hash ^ (hash >>> 16)) & (NUM_STRIPES - 1)];
+        boolean seen;
+        synchronized (stripe) {
+            stripe.expire(System.nanoTime());
+            Entry entry = stripe.entries.get(data);
+            if (entry != null) {
+                ByteBuf buf = binary ? entry.binary : entry.json;
+                if (buf != null) {
+                    hits.incrementAndGet();
+                    return buf.retainedDuplicate();
+                }
+            }
+            seen = entry != null || stripe.checkSeen(hash);
+        }
+        misses.incrementAndGet();
+
+        // encode outside of the lock, such that the channels do not wait for each other
+        ByteBuf encoded = binary ? encodeBinaryData(data) : encodeJsonData(data);
+        if (!seen || encoded.readableBytes() > MAX_ENCODED_SIZE) {
+            return encoded;
+        }
+
+        synchronized (stripe) {
+            Entry entry = stripe.entries.get(data);
+            if (entry == null) {
+                entry = stripe.add(data, System.nanoTime());
+            }
+            ByteBuf cached = binary ? entry.binary : entry.json;
+            if (cached != null) { // encoded in the meanwhile by another channel
+                encoded.release();
+                return cached.retainedDuplicate();
+            }
+            if (binary) {
+                entry.binary = encoded;
+            } else {
+                entry.json = encoded;
+            }
+            return encoded.retainedDuplicate();
+        }
+    }
+
+    private ByteBuf encodeBinaryData(Message data) throws IOException {
+        ServerMessage msg = ServerMessage.newBuilder()
+                .setData(Any.pack(data, HttpServer.TYPE_URL_PREFIX))
+                .build();
+        ByteBuf buf = allocator.buffer(msg.getSerializedSize());
+        try (ByteBufOutputStream bufOut = new ByteBufOutputStream(buf)) {
+            msg.writeTo(bufOut);
+        } catch (IOException | RuntimeException e) {
+            buf.release();
+            throw e;
+        }
+        return buf;
+    }
+
+    private ByteBuf encodeJsonData(Message data) throws IOException {
+        String json = jsonPrinter.print(Any.pack(data, HttpServer.TYPE_URL_PREFIX));
+        ByteBuf buf = allocator.buffer(json.length());
+        buf.writeCharSequence(json, StandardCharsets.UTF_8);
+        return buf;
+    }
+
+    /**
+     * Releases all the cached buffers
+     */
+    public void clear() {
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.clear();
+            }
+        }
+    }
+
+    /**
+     *
+     * @return the number of messages whose data has been found in the cache
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     *
+     * @return the number of messages whose data had to be encoded
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    private static void appendQuoted(StringBuilder sb, String s) {
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20) {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        sb.append('"');
+    }
+
+    /**
+     * Part of the cache; all the methods are called with the stripe lock held.
+     */
+    static class Stripe {
+        final Map<Message, Entry> entries = new IdentityHashMap<>();
+        // insertion order, the oldest entries are at the head
+        final ArrayDeque<Entry> order = new ArrayDeque<>();
+        // identity hashes of the messages seen once, used as a ring buffer
+        final int[] seen = new int[NUM_SEEN];
+        int seenIdx;
+
+        /**
+         * Returns true if the hash is one of the recently seen hashes, otherwise remembers it and returns false
+         */
+        boolean checkSeen(int hash) {
+            for (int h : seen) {
+                if (h == hash) {
+                    return true;
+                }
+            }
+            seen[seenIdx] = hash;
+            seenIdx = (seenIdx + 1) % NUM_SEEN;
+            return false;
+        }
+
+        Entry add(Message data, long now) {
+            Entry entry = new Entry(data, now);
+            entries.put(data, entry);
+            order.addLast(entry);
+            if (order.size() > MAX_ENTRIES) {
+                remove(order.removeFirst());
+            }
+            return entry;
+        }
+
+        void expire(long now) {
+            Entry entry;
+            while ((entry = order.peekFirst()) != null && now - entry.created >= EXPIRATION_NANOS) {
+                remove(order.removeFirst());
+            }
+        }
+
+        private void remove(Entry entry) {
+            entries.remove(entry.data);
+            entry.release();
+        }
+
+        void clear() {
+            entries.values().forEach(Entry::release);
+            entries.clear();
+            order.clear();
+        }
+    }
+
+    static class Entry {
+        final Message data;
+        final long created;
+        ByteBuf binary;
+        ByteBuf json;
+
+        Entry(Message data, long created) {
+            this.data = data;
+            this.created = created;
+        }
+
+        void release() {
+            if (binary != null) {
+                binary.release();
+            }
+            if (json != null) {
+                json.release();
+            }
+        }
+    }
+}
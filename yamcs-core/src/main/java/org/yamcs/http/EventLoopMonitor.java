@@ -0,0 +1,153 @@
+package org.yamcs.http;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.SingleThreadEventExecutor;
+
+/**
+ * Periodically samples the load of the event loops of the HTTP server.
+ * <p>
+ * For each event loop the following are measured:
+ * <ul>
+ * <li>utilization: the fraction of the last sampling interval the event loop thread has spent on the CPU. The thread
+ * does not use any CPU when waiting for I/O so this indicates how busy the loop is.</li>
+ * <li>pending tasks: the number of tasks waiting in the queue of the loop.</li>
+ * <li>task latency: the time between submitting a probe task and its execution, in microseconds.</li>
+ * </ul>
+ * The values are also registered as gauges in the metric registry of the HTTP server.
+ */
+public class EventLoopMonitor {
+    static final long INTERVAL_MILLIS = 5000;
+
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+
+    private final List<LoopStats> loops = new ArrayList<>();
+    private ScheduledFuture<?> future;
+
+    public EventLoopMonitor(EventLoopGroup group, MetricRegistry metricRegistry) {
+        int i = 0;
+        for (EventExecutor executor : group) {
+            LoopStats stats = new LoopStats(executor);
+            loops.add(stats);
+            String prefix = "yamcs.http.eventloop." + (i++);
+            metricRegistry.register(prefix + ".utilization", (Gauge<Double>) () -> stats.utilization);
+            metricRegistry.register(prefix + ".pendingTasks", (Gauge<Integer>) stats::getPendingTasks);
+            metricRegistry.register(prefix + ".taskLatency", (Gauge<Long>) () -> stats.taskLatency);
+        }
+    }
+
+    /**
+     * Starts the sampling, using the given executor for scheduling
+     */
+    public void start(EventLoopGroup scheduler) {
+        future = scheduler.scheduleAtFixedRate(this::sample, INTERVAL_MILLIS, INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        if (future != null) {
+            future.cancel(false);
+        }
+    }
+
+    private void sample() {
+        for (LoopStats stats : loops) {
+            stats.sample();
+        }
+    }
+
+    public List<LoopStats> getLoops() {
+        return Collections.unmodifiableList(loops);
+    }
+
+    public static class LoopStats {
+        final EventExecutor executor;
+        volatile String threadName;
+        volatile long threadId = -1;
+        volatile double utilization;
+        volatile long taskLatency;
+
+        private long lastCpuTime = -1;
+        private long lastSampleTime;
+
+        LoopStats(EventExecutor executor) {
+            this.executor = executor;
+        }
+
+        void sample() {
+            if (executor.isShuttingDown()) {
+                return;
+            }
+            long submitTime = System.nanoTime();
+            executor.execute(() -> {
+                long now = System.nanoTime();
+                taskLatency = TimeUnit.NANOSECONDS.toMicros(now - submitTime);
+                if (threadId == -1) {
+                    Thread thread = Thread.currentThread();
+                    threadId = thread.getId();
+                    threadName = thread.getName();
+                }
+            });
+
+            long id = threadId;
+            if (id == -1 || !THREAD_MX_BEAN.isThreadCpuTimeSupported()) {
+                return;
+            }
+            long cpuTime = THREAD_MX_BEAN.getThreadCpuTime(id);
+            long now = System.nanoTime();
+            if (cpuTime == -1) { // thread terminated or cpu time measurement disabled
+                return;
+            }
+            if (lastCpuTime != -1 && now > lastSampleTime) {
+                utilization = Math.min(1.0, (double) (cpuTime - lastCpuTime) / (now - lastSampleTime));
+            }
+            lastCpuTime = cpuTime;
+            lastSampleTime = now;
+        }
+
+        /**
+         *
+         * @return the name of the event loop thread, or null if not yet known
+         */
+        public String getThreadName() {
+            return threadName;
+        }
+
+        /**
+         *
+         * @return the fraction (between 0 and 1) of the last sampling interval the thread has spent on the CPU
+         */
+        public double getUtilization() {
+            return utilization;
+        }
+
+        /**
+         *
+         * @return the number of tasks waiting to be executed by the event loop, or -1 if unknown
+         */
+        public int getPendingTasks() {
+            if (executor instanceof SingleThreadEventExecutor) {
+                return ((SingleThreadEventExecutor) executor).pendingTasks();
+            }
+            return -1;
+        }
+
+        /**
+         *
+         * @return the latency in microseconds of the last probe task
+         */
+        public long getTaskLatency() {
+            return taskLatency;
+        }
+    }
+}
@@ -74,10 +74,14 @@ import com.google.protobuf.util.JsonFormat;
 import com.google.protobuf.util.JsonFormat.TypeRegistry;
 
 import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBufAllocator;
 import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
 import io.netty.channel.group.ChannelGroup;
 import io.netty.channel.group.DefaultChannelGroup;
 import io.netty.channel.nio.NioEventLoopGroup;
@@ -110,6 +114,14 @@ public class HttpServer extends AbstractYamcsService {
     // Protobuf weirdness. When unspecified it defaults to "type.googleapis.com" ...
     public static final String TYPE_URL_PREFIX = "";
 
+    /**
+     * The Netty transport used for the sockets. AUTO selects EPOLL if the native library is available (Linux), NIO
+     * otherwise.
+     */
+    public enum Transport {
+        AUTO, EPOLL, NIO
+    }
+
     private EventLoopGroup bossGroup;
     private EventLoopGroup workerGroup;
     private ChannelGroup clientChannels;
@@ -127,6 +139,9 @@ public class HttpServer extends AbstractYamcsService {
     private boolean zeroCopyEnabled;
     private boolean reverseLookup;
     private int nThreads;
+    private Transport transport;
+    private ByteBufAllocator allocator;
+    private EventLoopMonitor eventLoopMonitor;
     private List<String> staticRoots = new ArrayList<>(2);
 
     // Cross-origin Resource Sharing (CORS) enables use of the HTTP API in non-official client web applications
@@ -135,6 +150,7 @@ public class HttpServer extends AbstractYamcsService {
     private ProtobufRegistry protobufRegistry = new ProtobufRegistry();
     private JsonFormat.Parser jsonParser;
     private JsonFormat.Printer jsonPrinter;
+    private EncodedMessageCache encodedMessageCache;
 
     // Services (may participate in start-stop events)
     private TokenStore tokenStore;
@@ -175,6 +191,9 @@ public class HttpServer extends AbstractYamcsService {
         bindingSpec.addOption("port", OptionType.INTEGER).withRequired(true);
         bindingSpec.addOption("tlsCert", OptionType.LIST_OR_ELEMENT).withElementType(OptionType.STRING);
         bindingSpec.addOption("tlsKey", OptionType.STRING);
+        bindingSpec.addOption("tcpNoDelay", OptionType.BOOLEAN);
+        bindingSpec.addOption("sendBufferSize", OptionType.INTEGER);
+        bindingSpec.addOption("receiveBufferSize", OptionType.INTEGER);
         bindingSpec.requireTogether("tlsCert", "tlsKey");
 
         Spec spec = new Spec();
@@ -182,6 +201,9 @@ public class HttpServer extends AbstractYamcsService {
         spec.addOption("port", OptionType.INTEGER).withDefault(8090);
         spec.addOption("tlsCert", OptionType.LIST_OR_ELEMENT).withElementType(OptionType.STRING);
         spec.addOption("tlsKey", OptionType.STRING);
+        spec.addOption("tcpNoDelay", OptionType.BOOLEAN);
+        spec.addOption("sendBufferSize", OptionType.INTEGER);
+        spec.addOption("receiveBufferSize", OptionType.INTEGER);
         spec.addOption("contextPath", OptionType.STRING).withDefault("" /* NOT null */);
         spec.addOption("zeroCopyEnabled", OptionType.BOOLEAN).withDefault(true);
         spec.addOption("maxContentLength", OptionType.INTEGER).withDefault(65536);
@@ -192,12 +214,17 @@ public class HttpServer extends AbstractYamcsService {
                 .withSpec(bindingSpec);
         spec.addOption("nThreads", OptionType.INTEGER).withDefault(0);
         spec.addOption("reverseLookup", OptionType.BOOLEAN).withDefault(false);
+        spec.addOption("transport", OptionType.STRING).withChoices(Transport.class).withDefault(Transport.AUTO.name());
+        spec.addOption("directBuffers", OptionType.BOOLEAN).withDefault(true);
 
         // When using multiple bindings, best to avoid confusion and disable the top-level properties
         spec.mutuallyExclusive("address", "bindings");
         spec.mutuallyExclusive("port", "bindings");
         spec.mutuallyExclusive("tlsCert", "bindings");
         spec.mutuallyExclusive("tlsKey", "bindings");
+        spec.mutuallyExclusive("tcpNoDelay", "bindings");
+        spec.mutuallyExclusive("sendBufferSize", "bindings");
+        spec.mutuallyExclusive("receiveBufferSize", "bindings");
 
         spec.requireTogether("tlsCert", "tlsKey");
         return spec;
@@ -267,6 +294,23 @@ public class HttpServer extends AbstractYamcsService {
         }
         nThreads = config.getInt("nThreads");
 
+        transport = config.getEnum("transport", Transport.class);
+        if (transport == Transport.AUTO) {
+            if (Epoll.isAvailable()) {
+                transport = Transport.EPOLL;
+            } else {
+                log.debug("Native epoll transport not available, using NIO", Epoll.unavailabilityCause());
+                transport = Transport.NIO;
+            }
+        } else if (transport == Transport.EPOLL && !Epoll.isAvailable()) {
+            throw new InitException("The epoll transport is not available on this system",
+                    Epoll.unavailabilityCause());
+        }
+
+        // Pooled buffers limit the allocations (and garbage collection) for the many short-lived messages.
+        // Direct buffers avoid an extra copy when writing to the socket.
+        allocator = new PooledByteBufAllocator(config.getBoolean("directBuffers"));
+
         addApi(new AlarmsApi(auditLog));
         addApi(new AuditApi(auditLog));
         addApi(new BucketsApi());
@@ -346,6 +390,7 @@ public class HttpServer extends AbstractYamcsService {
 
         jsonParser = JsonFormat.parser().usingTypeRegistry(typeRegistry);
         jsonPrinter = JsonFormat.printer().usingTypeRegistry(typeRegistry);
+        encodedMessageCache = new EncodedMessageCache(jsonPrinter, allocator);
 
         // Sort in a way that increases chances of a good URI match
         Collections.sort(routes);
@@ -370,12 +415,20 @@ public class HttpServer extends AbstractYamcsService {
         serviceManager.startAsync().awaitHealthy(10, TimeUnit.SECONDS);
 
         StaticFileHandler.init(staticRoots, zeroCopyEnabled);
-        bossGroup = new NioEventLoopGroup(1);
-
         // Note that by default (i.e. with nThreads = 0), Netty will limit the number
         // of worker threads to 2*number of CPU cores
-        workerGroup = new NioEventLoopGroup(nThreads,
-                new ThreadPerTaskExecutor(new DefaultThreadFactory("YamcsHttpServer")));
+        ThreadPerTaskExecutor workerExecutor = new ThreadPerTaskExecutor(new DefaultThreadFactory("YamcsHttpServer"));
+        if (transport == Transport.EPOLL) {
+            bossGroup = new EpollEventLoopGroup(1);
+            workerGroup = new EpollEventLoopGroup(nThreads, workerExecutor);
+        } else {
+            bossGroup = new NioEventLoopGroup(1);
+            workerGroup = new NioEventLoopGroup(nThreads, workerExecutor);
+        }
+        log.debug("Using {} transport", transport);
+
+        eventLoopMonitor = new EventLoopMonitor(workerGroup, metricRegistry);
+        eventLoopMonitor.start(bossGroup);
 
         // Measure global traffic, we also add a channel-specific measurer in channel-init.
         globalTrafficHandler = new GlobalTrafficShapingHandler(workerGroup, 5000);
@@ -396,10 +449,20 @@ public class HttpServer extends AbstractYamcsService {
 
         ServerBootstrap bootstrap = new ServerBootstrap();
         bootstrap.group(bossGroup, workerGroup)
-                .channel(NioServerSocketChannel.class)
+                .channel(transport == Transport.EPOLL ? EpollServerSocketChannel.class : NioServerSocketChannel.class)
                 .handler(new LoggingHandler(HttpServer.class, LogLevel.DEBUG))
-                .childOption(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
+                .option(ChannelOption.ALLOCATOR, allocator)
+                .childOption(ChannelOption.ALLOCATOR, allocator)
+                .childOption(ChannelOption.TCP_NODELAY, binding.isTcpNoDelay())
                 .childHandler(new HttpServerChannelInitializer(this, sslContext, globalTrafficHandler));
+        if (binding.getSendBufferSize() != null) {
+            bootstrap.childOption(ChannelOption.SO_SNDBUF, binding.getSendBufferSize());
+        }
+        if (binding.getReceiveBufferSize() != null) {
+            // set also on the server socket such that the TCP window scaling is negotiated accordingly
+            bootstrap.option(ChannelOption.SO_RCVBUF, binding.getReceiveBufferSize());
+            bootstrap.childOption(ChannelOption.SO_RCVBUF, binding.getReceiveBufferSize());
+        }
 
         // Bind and start to accept incoming connections.
         InetAddress address = binding.getAddress();
@@ -448,6 +511,21 @@ public class HttpServer extends AbstractYamcsService {
         return globalTrafficHandler;
     }
 
+    /**
+     * The transport in use, either {@link Transport#EPOLL} or {@link Transport#NIO}
+     */
+    public Transport getTransport() {
+        return transport;
+    }
+
+    public ByteBufAllocator getAllocator() {
+        return allocator;
+    }
+
+    public EventLoopMonitor getEventLoopMonitor() {
+        return eventLoopMonitor;
+    }
+
     public JsonFormat.Parser getJsonParser() {
         return jsonParser;
     }
@@ -456,6 +534,13 @@ public class HttpServer extends AbstractYamcsService {
         return jsonPrinter;
     }
 
+    /**
+     * Cache of the encoded WebSocket messages, shared by all the connections
+     */
+    public EncodedMessageCache getEncodedMessageCache() {
+        return encodedMessageCache;
+    }
+
     public boolean getReverseLookup() {
         return reverseLookup;
     }
@@ -483,6 +568,10 @@ public class HttpServer extends AbstractYamcsService {
     @Override
     protected void doStop() {
         globalTrafficHandler.release();
+        encodedMessageCache.clear();
+        if (eventLoopMonitor != null) {
+            eventLoopMonitor.stop();
+        }
         ListeningExecutorService closers = listeningDecorator(Executors.newCachedThreadPool());
         ListenableFuture<?> future1 = closers.submit(() -> {
             return workerGroup.shutdownGracefully(0, 5, TimeUnit.SECONDS).get();
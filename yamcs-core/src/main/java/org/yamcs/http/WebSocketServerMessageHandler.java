@@ -1,5 +1,8 @@
 package org.yamcs.http;
 
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
 import org.yamcs.logging.Log;
 import org.yamcs.protobuf.ServerMessage;
 
@@ -20,8 +23,14 @@ import io.netty.handler.codec.http.websocketx.WebSocketFrame;
  * Encodes {@link InternalServerMessage} to either {@link BinaryWebSocketFrame} or {@link TextWebSocketFrame} depending
  * if the protobuf or json has to be sent.
  * <p>
+ * The data of the messages published as one instance to all the subscribers of a topic (see
+ * {@link EncodedMessageCache#isShared(com.google.protobuf.Message)}) is encoded via the {@link EncodedMessageCache}
+ * shared by all the connections, such that it is serialized only once. The other messages are encoded directly.
+ * <p>
  * It takes care of the message priorities, dropping messages with low priority if they would exceed the high water mark
- *
+ * <p>
+ * The number of messages queued (not yet written to the socket) and the number of dropped messages are counted for
+ * monitoring the slow clients.
  */
 public class WebSocketServerMessageHandler extends ChannelOutboundHandlerAdapter {
     public static enum Priority {
@@ -45,6 +54,9 @@ public class WebSocketServerMessageHandler extends ChannelOutboundHandlerAdapter
     // avoid flooding the log with messsages about dropped frames
     boolean logDroppedFrames = true;
 
+    private final AtomicInteger pendingMessages = new AtomicInteger();
+    private final AtomicLong droppedMessages = new AtomicLong();
+
     public WebSocketServerMessageHandler(HttpServer httpServer, boolean protobuf, long highWriteBufferWaterMark) {
         this.httpServer = httpServer;
         this.protobuf = protobuf;
@@ -54,19 +66,28 @@ public class WebSocketServerMessageHandler extends ChannelOutboundHandlerAdapter
     @Override
     public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
         InternalServerMessage imsg = (InternalServerMessage) msg;
-        ServerMessage serverMessage = imsg.toProtobuf();
         Priority priority = imsg.priority;
         WebSocketFrame frame;
 
-        if (protobuf) {
-            ByteBuf buf = ctx.alloc().buffer();
-            try (ByteBufOutputStream bufOut = new ByteBufOutputStream(buf)) {
-                serverMessage.writeTo(bufOut);
+        if (EncodedMessageCache.isShared(imsg.data)) {
+            EncodedMessageCache cache = httpServer.getEncodedMessageCache();
+            if (protobuf) {
+                frame = new BinaryWebSocketFrame(cache.encodeBinary(imsg.type, imsg.call, imsg.seq, imsg.data));
+            } else {
+                frame = new TextWebSocketFrame(cache.encodeJson(imsg.type, imsg.call, imsg.seq, imsg.data));
             }
-            frame = new BinaryWebSocketFrame(buf);
         } else {
-            String json = httpServer.getJsonPrinter().print(serverMessage);
-            frame = new TextWebSocketFrame(json);
+            ServerMessage serverMessage = imsg.toProtobuf();
+            if (protobuf) {
+                ByteBuf buf = ctx.alloc().buffer(serverMessage.getSerializedSize());
+                try (ByteBufOutputStream bufOut = new ByteBufOutputStream(buf)) {
+                    serverMessage.writeTo(bufOut);
+                }
+                frame = new BinaryWebSocketFrame(buf);
+            } else {
+                String json = httpServer.getJsonPrinter().print(serverMessage);
+                frame = new TextWebSocketFrame(json);
+            }
         }
         Channel nettyChannel = ctx.channel();
         long frameLength = frame.content().readableBytes();
@@ -77,9 +98,14 @@ public class WebSocketServerMessageHandler extends ChannelOutboundHandlerAdapter
                 (priority == Priority.LOW && bytesBeforeUnwritable > frameLength);
 
         if (send) {
-            ctx.write(frame, promise);
+            ChannelPromise p = promise.unvoid();
+            pendingMessages.incrementAndGet();
+            p.addListener(f -> pendingMessages.decrementAndGet());
+            ctx.write(frame, p);
             logDroppedFrames = true;
         } else {
+            droppedMessages.incrementAndGet();
+            frame.release();
             if (priority == Priority.LOW) {
                 if (logDroppedFrames) {
                     log.warn("Frame skipped because writing the frame would make the channel not writable "
@@ -100,6 +126,22 @@ public class WebSocketServerMessageHandler extends ChannelOutboundHandlerAdapter
         }
     }
 
+    /**
+     * 
+     * @return the number of messages passed to the channel and not yet written to the socket
+     */
+    public int getPendingMessages() {
+        return pendingMessages.get();
+    }
+
+    /**
+     * 
+     * @return the number of messages dropped since the connection has been established
+     */
+    public long getDroppedMessages() {
+        return droppedMessages.get();
+    }
+
     @SuppressWarnings("serial")
     public static class MessageDroppedException extends Exception {
         final long bytesBeforeUnwritable;
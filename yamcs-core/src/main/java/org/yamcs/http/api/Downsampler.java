@@ -175,6 +175,30 @@ public class Downsampler implements Consumer<ParameterValueArray> {
         }
     }
 
+    /**
+     * Process a pre-aggregated set of values (e.g. from the parameter archive rollups) whose times are all in the
+     * sampling interval starting with t.
+     */
+    public void process(long t, double min, double max, double sum, int n) {
+        if (t > stop || t < start || n == 0) {
+            return;
+        }
+
+        Entry<Long, Sample> entry = samplesByTime.floorEntry(t);
+        if (entry == null) {
+            log.warn("No interval for aggregate at {}", t);
+            return;
+        }
+
+        lastSampleTime = entry.getKey();
+        Sample sample = entry.getValue();
+        if (sample == null) {
+            samplesByTime.put(entry.getKey(), new Sample(entry.getKey(), min, max, sum / n, n));
+        } else {
+            sample.process(min, max, sum, n);
+        }
+    }
+
     public List<Sample> collect() {
         if (samplesByTime == null) {
             return Collections.emptyList();
@@ -231,6 +255,27 @@ public class Downsampler implements Consumer<ParameterValueArray> {
             n = 1;
         }
 
+        // sample from an aggregate
+        Sample(long t, double min, double max, double avg, int n) {
+            this.t = t;
+            this.min = min;
+            this.max = max;
+            this.avg = avg;
+            this.n = n;
+            expireMillis = -1;
+        }
+
+        public void process(double min, double max, double sum, int count) {
+            if (min < this.min) {
+                this.min = min;
+            }
+            if (max > this.max) {
+                this.max = max;
+            }
+            avg = (avg * n + sum) / (n + count);
+            n += count;
+        }
+
         public void process(double value, long expireMillis) {
             this.expireMillis = expireMillis;
             if (value < min) {
@@ -17,6 +17,7 @@ import java.util.Map.Entry;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.yamcs.YamcsServer;
 import org.yamcs.api.HttpBody;
@@ -45,6 +46,7 @@ import org.yamcs.yarch.SqlBuilder;
 import org.yamcs.yarch.Stream;
 import org.yamcs.yarch.StreamSubscriber;
 import org.yamcs.yarch.TableDefinition;
+import org.yamcs.yarch.TextTokenizer;
 import org.yamcs.yarch.Tuple;
 import org.yamcs.yarch.YarchDatabase;
 import org.yamcs.yarch.YarchDatabaseInstance;
@@ -70,6 +72,8 @@ public class EventsApi extends AbstractEventsApi<Context> {
 
     private ConcurrentMap<String, EventProducer> eventProducerMap = new ConcurrentHashMap<>();
     private AtomicInteger eventSequenceNumber = new AtomicInteger();
+    // the last realtime event converted for the subscribers (see toSharedEvent)
+    private final AtomicReference<ConvertedEvent> lastConverted = new AtomicReference<>();
 
     @Override
     public void listEvents(Context ctx, ListEventsRequest request, Observer<ListEventsResponse> observer) {
@@ -102,7 +106,7 @@ public class EventsApi extends AbstractEventsApi<Context> {
         }
 
         if (request.hasQ()) {
-            sqlb.where("body.message like ?", "%" + request.getQ() + "%");
+            addTextFilter(sqlb, instance, request.getQ());
         }
         if (nextToken != null) {
             // TODO this currently ignores the source column (also part of the key)
@@ -248,7 +252,7 @@ public class EventsApi extends AbstractEventsApi<Context> {
             @Override
             public void onTuple(Stream stream, Tuple tuple) {
                 Db.Event event = (Db.Event) tuple.getColumn("body");
-                observer.next(fromDbEvent(event));
+                observer.next(toSharedEvent(event));
             }
 
             @Override
@@ -260,6 +264,20 @@ public class EventsApi extends AbstractEventsApi<Context> {
         stream.addSubscriber(listener);
     }
 
+    /**
+     * Converts the event published on the realtime stream such that all the subscribers receive the same instance and
+     * the WebSocket connections can share its encoded form.
+     */
+    private Event toSharedEvent(Db.Event dbEvent) {
+        ConvertedEvent converted = lastConverted.get();
+        if (converted != null && converted.dbEvent == dbEvent) {
+            return converted.event;
+        }
+        Event event = fromDbEvent(dbEvent);
+        lastConverted.set(new ConvertedEvent(dbEvent, event));
+        return event;
+    }
+
     @Override
     public void streamEvents(Context ctx, StreamEventsRequest request, Observer<Event> observer) {
         String instance = ManagementApi.verifyInstance(request.getInstance());
@@ -282,7 +300,7 @@ public class EventsApi extends AbstractEventsApi<Context> {
         addSeverityFilter(sqlb, severity);
 
         if (request.hasQ()) {
-            sqlb.where("body.message like ?", "%" + request.getQ() + "%");
+            addTextFilter(sqlb, instance, request.getQ());
         }
 
         StreamFactory.stream(instance, sqlb.toString(), sqlb.getQueryArguments(), new StreamSubscriber() {
@@ -328,7 +346,7 @@ public class EventsApi extends AbstractEventsApi<Context> {
         addSeverityFilter(sqlb, severity);
 
         if (request.hasQ()) {
-            sqlb.where("body.message like ?", "%" + request.getQ() + "%");
+            addTextFilter(sqlb, instance, request.getQ());
         }
 
         String sql = sqlb.toString();
@@ -468,6 +486,19 @@ public class EventsApi extends AbstractEventsApi<Context> {
         }
     }
 
+    /**
+     * Searches the words of q using the text index if enabled in the {@link EventRecorder}, the substring q otherwise.
+     * <p>
+     * If q does not contain any word (e.g. only punctuation), the substring is searched also with the text index.
+     */
+    private void addTextFilter(SqlBuilder sqlb, String instance, String q) {
+        if (EventRecorder.hasTextIndex(instance) && !TextTokenizer.tokenize(q).isEmpty()) {
+            sqlb.where("text_match(body.message, ?)", q);
+        } else {
+            sqlb.where("body.message like ?", "%" + q + "%");
+        }
+    }
+
     private void addSeverityFilter(SqlBuilder sqlb, String severity) {
         switch (severity) {
         case INFO:
@@ -521,4 +552,14 @@ public class EventsApi extends AbstractEventsApi<Context> {
         }
         return evb.build();
     }
+
+    static class ConvertedEvent {
+        final Db.Event dbEvent;
+        final Event event;
+
+        ConvertedEvent(Db.Event dbEvent, Event event) {
+            this.dbEvent = dbEvent;
+            this.event = event;
+        }
+    }
 }
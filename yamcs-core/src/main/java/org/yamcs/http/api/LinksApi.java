@@ -1,5 +1,7 @@
 package org.yamcs.http.api;
 
+import java.util.concurrent.atomic.AtomicReference;
+
 import org.yamcs.YamcsServer;
 import org.yamcs.YamcsServerInstance;
 import org.yamcs.api.Observer;
@@ -24,6 +26,9 @@ import org.yamcs.security.SystemPrivilege;
 
 public class LinksApi extends AbstractLinksApi<Context> {
 
+    // the last link event built for the subscribers (see toSharedLinkEvent)
+    private final AtomicReference<LinkEvent> lastLinkEvent = new AtomicReference<>();
+
     public LinksApi(AuditLog auditLog) {
         auditLog.addPrivilegeChecker(getClass().getSimpleName(), user -> {
             return user.hasSystemPrivilege(SystemPrivilege.ReadLinks);
@@ -73,10 +78,7 @@ public class LinksApi extends AbstractLinksApi<Context> {
             @Override
             public void linkRegistered(LinkInfo linkInfo) {
                 if (instance.equals(linkInfo.getInstance())) {
-                    observer.next(LinkEvent.newBuilder()
-                            .setType(LinkEvent.Type.REGISTERED)
-                            .setLinkInfo(linkInfo)
-                            .build());
+                    observer.next(toSharedLinkEvent(LinkEvent.Type.REGISTERED, linkInfo));
                 }
             }
 
@@ -88,10 +90,7 @@ public class LinksApi extends AbstractLinksApi<Context> {
             @Override
             public void linkChanged(LinkInfo linkInfo) {
                 if (instance.equals(linkInfo.getInstance())) {
-                    observer.next(LinkEvent.newBuilder()
-                            .setType(LinkEvent.Type.UPDATED)
-                            .setLinkInfo(linkInfo)
-                            .build());
+                    observer.next(toSharedLinkEvent(LinkEvent.Type.UPDATED, linkInfo));
                 }
             }
         };
@@ -100,6 +99,23 @@ public class LinksApi extends AbstractLinksApi<Context> {
         linkManager.addLinkListener(listener);
     }
 
+    /**
+     * The link manager passes the same {@link LinkInfo} to all its listeners, so the event is built once and the same
+     * instance is delivered to every subscriber, allowing the websocket layer to encode it only once.
+     */
+    private LinkEvent toSharedLinkEvent(LinkEvent.Type type, LinkInfo linkInfo) {
+        LinkEvent linkEvent = lastLinkEvent.get();
+        if (linkEvent != null && linkEvent.getType() == type && linkEvent.getLinkInfo() == linkInfo) {
+            return linkEvent;
+        }
+        linkEvent = LinkEvent.newBuilder()
+                .setType(type)
+                .setLinkInfo(linkInfo)
+                .build();
+        lastLinkEvent.set(linkEvent);
+        return linkEvent;
+    }
+
     @Override
     public void getLink(Context ctx, GetLinkRequest request, Observer<LinkInfo> observer) {
         ctx.checkSystemPrivilege(SystemPrivilege.ReadLinks);
@@ -24,6 +24,7 @@ import org.yamcs.http.api.MdbPageBuilder.MdbPage;
 import org.yamcs.http.api.MdbSearchHelpers.EntryMatch;
 import org.yamcs.http.api.XtceToGpbAssembler.DetailLevel;
 import org.yamcs.logging.Log;
+import org.yamcs.mdb.MdbSearchIndex;
 import org.yamcs.mdb.XtceDbFactory;
 import org.yamcs.parameter.ParameterWithId;
 import org.yamcs.protobuf.AbstractMdbApi;
@@ -199,48 +200,48 @@ public class MdbApi extends AbstractMdbApi<Context> {
                     || ctx.user.hasObjectPrivilege(ObjectPrivilegeType.ReadParameter, p.getQualifiedName());
         };
 
-        // Establish only the parameters and space-systems that the user is authorised for
-        Set<String> allSpaceSystemNames = new HashSet<>();
-        List<Parameter> allParameters = new ArrayList<>();
-        mdb.getParameters().stream().filter(hasPrivilege).forEach(parameter -> {
-            allSpaceSystemNames.add(parameter.getSubsystemName());
-            allParameters.add(parameter);
-        });
-        Set<SpaceSystem> allSpaceSystems = new HashSet<>();
-        for (String spaceSystemName : allSpaceSystemNames) {
-            SpaceSystem spaceSystem = mdb.getSpaceSystem(spaceSystemName);
-            while (!spaceSystem.getName().isEmpty()) {
-                allSpaceSystems.add(spaceSystem);
-                spaceSystem = spaceSystem.getParent();
-            }
-        }
-
         // Determine search scope within the tree
         List<SpaceSystem> spaceSystems = new ArrayList<>();
         final List<Parameter> candidates = new ArrayList<>();
-        if (request.hasSystem()) {
-            if (request.hasQ()) { // get candidates for deep search starting from the system
-                allParameters.forEach(parameter -> {
-                    if (parameter.getQualifiedName().startsWith(request.getSystem())) {
-                        candidates.add(parameter);
-                    }
-                });
-            } else { // get direct children of the system
-                for (SpaceSystem spaceSystem : mdb.getSpaceSystems()) {
-                    if (!allSpaceSystems.contains(spaceSystem)) {
-                        continue;
-                    }
-                    if (spaceSystem.getQualifiedName().equals(request.getSystem())) {
-                        spaceSystem.getParameters().stream().filter(hasPrivilege).forEach(candidates::add);
-                    } else if (spaceSystem.getQualifiedName().startsWith(request.getSystem())) {
-                        if (spaceSystem.getQualifiedName().indexOf('/', request.getSystem().length() + 1) == -1) {
-                            spaceSystems.add(spaceSystem);
-                        }
+        if (request.hasQ()) {
+            // The index returns a superset of the parameters matching the search term (including the ones with
+            // matching members). They are verified below.
+            for (Parameter parameter : MdbSearchIndex.getInstance(mdb).searchParameters(request.getQ())) {
+                if (hasPrivilege.test(parameter) && (!request.hasSystem()
+                        || parameter.getQualifiedName().startsWith(request.getSystem()))) {
+                    candidates.add(parameter);
+                }
+            }
+        } else if (request.hasSystem()) {
+            // Establish only the parameters and space-systems that the user is authorised for
+            Set<String> allSpaceSystemNames = new HashSet<>();
+            mdb.getParameters().stream().filter(hasPrivilege).forEach(parameter -> {
+                allSpaceSystemNames.add(parameter.getSubsystemName());
+            });
+            Set<SpaceSystem> allSpaceSystems = new HashSet<>();
+            for (String spaceSystemName : allSpaceSystemNames) {
+                SpaceSystem spaceSystem = mdb.getSpaceSystem(spaceSystemName);
+                while (!spaceSystem.getName().isEmpty()) {
+                    allSpaceSystems.add(spaceSystem);
+                    spaceSystem = spaceSystem.getParent();
+                }
+            }
+
+            // get direct children of the system
+            for (SpaceSystem spaceSystem : mdb.getSpaceSystems()) {
+                if (!allSpaceSystems.contains(spaceSystem)) {
+                    continue;
+                }
+                if (spaceSystem.getQualifiedName().equals(request.getSystem())) {
+                    spaceSystem.getParameters().stream().filter(hasPrivilege).forEach(candidates::add);
+                } else if (spaceSystem.getQualifiedName().startsWith(request.getSystem())) {
+                    if (spaceSystem.getQualifiedName().indexOf('/', request.getSystem().length() + 1) == -1) {
+                        spaceSystems.add(spaceSystem);
                     }
                 }
             }
         } else {
-            candidates.addAll(allParameters);
+            mdb.getParameters().stream().filter(hasPrivilege).forEach(candidates::add);
         }
 
         // Match parameters
@@ -371,24 +372,24 @@ public class MdbApi extends AbstractMdbApi<Context> {
 
         List<SpaceSystem> spaceSystems = new ArrayList<>();
         List<SequenceContainer> containers = new ArrayList<>();
-        if (request.hasSystem()) {
-            if (request.hasQ()) { // get candidates for deep search starting from the system
-                for (SequenceContainer container : mdb.getSequenceContainers()) {
-                    if (container.getQualifiedName().startsWith(request.getSystem())) {
-                        containers.add(container);
-                    }
+        if (request.hasQ()) {
+            // The index returns a superset of the containers matching the search term, they are verified below
+            for (SequenceContainer container : MdbSearchIndex.getInstance(mdb).searchContainers(request.getQ())) {
+                if (!request.hasSystem() || container.getQualifiedName().startsWith(request.getSystem())) {
+                    containers.add(container);
                 }
-            } else { // get direct children of the system
-                List<SpaceSystem> filteredSpaceSystems = mdb.getSpaceSystems().stream()
-                        .filter(spaceSystem -> spaceSystem.getSequenceContainerCount(true) > 0)
-                        .collect(Collectors.toList());
-                for (SpaceSystem spaceSystem : filteredSpaceSystems) {
-                    if (spaceSystem.getQualifiedName().equals(request.getSystem())) {
-                        containers.addAll(spaceSystem.getSequenceContainers());
-                    } else if (spaceSystem.getQualifiedName().startsWith(request.getSystem())) {
-                        if (spaceSystem.getQualifiedName().indexOf('/', request.getSystem().length() + 1) == -1) {
-                            spaceSystems.add(spaceSystem);
-                        }
+            }
+        } else if (request.hasSystem()) {
+            // get direct children of the system
+            List<SpaceSystem> filteredSpaceSystems = mdb.getSpaceSystems().stream()
+                    .filter(spaceSystem -> spaceSystem.getSequenceContainerCount(true) > 0)
+                    .collect(Collectors.toList());
+            for (SpaceSystem spaceSystem : filteredSpaceSystems) {
+                if (spaceSystem.getQualifiedName().equals(request.getSystem())) {
+                    containers.addAll(spaceSystem.getSequenceContainers());
+                } else if (spaceSystem.getQualifiedName().startsWith(request.getSystem())) {
+                    if (spaceSystem.getQualifiedName().indexOf('/', request.getSystem().length() + 1) == -1) {
+                        spaceSystems.add(spaceSystem);
                     }
                 }
             }
@@ -488,24 +489,25 @@ public class MdbApi extends AbstractMdbApi<Context> {
 
         List<SpaceSystem> spaceSystems = new ArrayList<>();
         final List<MetaCommand> candidates = new ArrayList<>();
-        if (request.hasSystem()) {
-            if (request.hasQ()) { // get candidates for deep search starting from the system
-                allCommands.forEach(command -> {
-                    if (command.getQualifiedName().startsWith(request.getSystem())) {
-                        candidates.add(command);
-                    }
-                });
-            } else { // get direct children of the system
-                for (SpaceSystem spaceSystem : mdb.getSpaceSystems()) {
-                    if (!allSpaceSystems.contains(spaceSystem)) {
-                        continue;
-                    }
-                    if (spaceSystem.getQualifiedName().equals(request.getSystem())) {
-                        spaceSystem.getMetaCommands().stream().filter(hasPrivilege).forEach(candidates::add);
-                    } else if (spaceSystem.getQualifiedName().startsWith(request.getSystem())) {
-                        if (spaceSystem.getQualifiedName().indexOf('/', request.getSystem().length() + 1) == -1) {
-                            spaceSystems.add(spaceSystem);
-                        }
+        if (request.hasQ()) {
+            // The index returns a superset of the commands matching the search term, they are verified below
+            for (MetaCommand command : MdbSearchIndex.getInstance(mdb).searchCommands(request.getQ())) {
+                if (hasPrivilege.test(command) && (!request.hasSystem()
+                        || command.getQualifiedName().startsWith(request.getSystem()))) {
+                    candidates.add(command);
+                }
+            }
+        } else if (request.hasSystem()) {
+            // get direct children of the system
+            for (SpaceSystem spaceSystem : mdb.getSpaceSystems()) {
+                if (!allSpaceSystems.contains(spaceSystem)) {
+                    continue;
+                }
+                if (spaceSystem.getQualifiedName().equals(request.getSystem())) {
+                    spaceSystem.getMetaCommands().stream().filter(hasPrivilege).forEach(candidates::add);
+                } else if (spaceSystem.getQualifiedName().startsWith(request.getSystem())) {
+                    if (spaceSystem.getQualifiedName().indexOf('/', request.getSystem().length() + 1) == -1) {
+                        spaceSystems.add(spaceSystem);
                     }
                 }
             }
@@ -590,24 +592,25 @@ public class MdbApi extends AbstractMdbApi<Context> {
 
         List<SpaceSystem> spaceSystems = new ArrayList<>();
         final List<Algorithm> candidates = new ArrayList<>();
-        if (request.hasSystem()) {
-            if (request.hasQ()) { // get candidates for deep search starting from the system
-                allAlgorithms.forEach(algorithm -> {
-                    if (algorithm.getQualifiedName().startsWith(request.getSystem())) {
-                        candidates.add(algorithm);
-                    }
-                });
-            } else { // get direct children of the system
-                for (SpaceSystem spaceSystem : mdb.getSpaceSystems()) {
-                    if (!allSpaceSystems.contains(spaceSystem)) {
-                        continue;
-                    }
-                    if (spaceSystem.getQualifiedName().equals(request.getSystem())) {
-                        spaceSystem.getAlgorithms().stream().filter(hasPrivilege).forEach(candidates::add);
-                    } else if (spaceSystem.getQualifiedName().startsWith(request.getSystem())) {
-                        if (spaceSystem.getQualifiedName().indexOf('/', request.getSystem().length() + 1) == -1) {
-                            spaceSystems.add(spaceSystem);
-                        }
+        if (request.hasQ()) {
+            // The index returns a superset of the algorithms matching the search term, they are verified below
+            for (Algorithm algorithm : MdbSearchIndex.getInstance(mdb).searchAlgorithms(request.getQ())) {
+                if (hasPrivilege.test(algorithm) && (!request.hasSystem()
+                        || algorithm.getQualifiedName().startsWith(request.getSystem()))) {
+                    candidates.add(algorithm);
+                }
+            }
+        } else if (request.hasSystem()) {
+            // get direct children of the system
+            for (SpaceSystem spaceSystem : mdb.getSpaceSystems()) {
+                if (!allSpaceSystems.contains(spaceSystem)) {
+                    continue;
+                }
+                if (spaceSystem.getQualifiedName().equals(request.getSystem())) {
+                    spaceSystem.getAlgorithms().stream().filter(hasPrivilege).forEach(candidates::add);
+                } else if (spaceSystem.getQualifiedName().startsWith(request.getSystem())) {
+                    if (spaceSystem.getQualifiedName().indexOf('/', request.getSystem().length() + 1) == -1) {
+                        spaceSystems.add(spaceSystem);
                     }
                 }
             }
@@ -33,6 +33,8 @@ import org.yamcs.parameterarchive.ParameterIdDb;
 import org.yamcs.parameterarchive.ParameterIdValueList;
 import org.yamcs.parameterarchive.ParameterInfoRetrieval;
 import org.yamcs.parameterarchive.ParameterRequest;
+import org.yamcs.parameterarchive.RollupRetrieval;
+import org.yamcs.parameterarchive.RollupSegment;
 import org.yamcs.protobuf.AbstractParameterArchiveApi;
 import org.yamcs.protobuf.Archive.GetParameterSamplesRequest;
 import org.yamcs.protobuf.Archive.ListParameterHistoryRequest;
@@ -181,11 +183,20 @@ public class ParameterArchiveApi extends AbstractParameterArchiveApi<Context> {
             pcache = processor.getParameterCache();
         }
 
-        ParameterRequest pr = new ParameterRequest(start, stop, true, !useRawValue, useRawValue, true);
-        SingleParameterRetriever spdr = new SingleParameterRetriever(parchive, pcache, pid, pr);
+        // use the coarsest rollup tier fitting in one sample, if any
+        int tier = -1;
+        if (!useRawValue && pid.getPath() == null && parchive.isRollupsEnabled()) {
+            tier = RollupSegment.getTier((stop - start) / sampleCount);
+        }
         try {
-            spdr.retrieve(sampler);
-        } catch (IOException e) {
+            if (tier >= 0) {
+                sampleFromRollups(parchive, pcache, pid, start, stop, tier, sampler);
+            } else {
+                ParameterRequest pr = new ParameterRequest(start, stop, true, !useRawValue, useRawValue, true);
+                SingleParameterRetriever spdr = new SingleParameterRetriever(parchive, pcache, pid, pr);
+                spdr.retrieve(sampler);
+            }
+        } catch (IOException | RocksDBException e) {
             log.warn("Received exception during parameter retrieval", e);
             throw new InternalServerErrorException(e.toString());
         }
@@ -198,6 +209,46 @@ public class ParameterArchiveApi extends AbstractParameterArchiveApi<Context> {
         observer.complete(series.build());
     }
 
+    /**
+     * Feeds the sampler with the rollups of the archive for the full buckets of the interval and with the values for
+     * the beginning and end of the interval not covered by full buckets.
+     */
+    private void sampleFromRollups(ParameterArchive parchive, ParameterCache pcache, ParameterWithId pid,
+            long start, long stop, int tier, Downsampler sampler) throws IOException, RocksDBException {
+        long bucketSize = RollupSegment.BUCKET_SIZES[tier];
+        long alignedStart = start + Math.floorMod(-start, bucketSize);
+        long alignedStop = stop - Math.floorMod(stop, bucketSize);
+
+        RollupRetrieval rr = new RollupRetrieval(parchive, pid.getQualifiedName(), alignedStart, alignedStop, tier);
+        if (alignedStart >= alignedStop || !rr.isNumeric()) {
+            ParameterRequest pr = new ParameterRequest(start, stop, true, true, false, true);
+            new SingleParameterRetriever(parchive, pcache, pid, pr).retrieve(sampler);
+            return;
+        }
+
+        if (start < alignedStart) {
+            ParameterRequest pr = new ParameterRequest(start, alignedStart, true, true, false, true);
+            new SingleParameterRetriever(parchive, null, pid, pr).retrieve(sampler);
+        }
+
+        MutableLong lastBucketEnd = new MutableLong(alignedStart);
+        rr.retrieve(rs -> {
+            for (int i = 0; i < rs.size(); i++) {
+                long t = rs.getBucketStart(i);
+                if (t >= alignedStart && t < alignedStop) {
+                    sampler.process(t, rs.getMin(i), rs.getMax(i), rs.getSum(i), rs.getCount(i));
+                    if (t + bucketSize > lastBucketEnd.getLong()) {
+                        lastBucketEnd.setLong(t + bucketSize);
+                    }
+                }
+            }
+        });
+
+        // the end of the interval not covered by the archive, together with the values from the cache
+        ParameterRequest pr = new ParameterRequest(lastBucketEnd.getLong(), stop, true, true, false, true);
+        new SingleParameterRetriever(parchive, pcache, pid, pr).retrieve(sampler);
+    }
+
     @Override
     public void getParameterRanges(Context ctx, GetParameterRangesRequest request, Observer<Ranges> observer) {
         YamcsServerInstance ysi = ManagementApi.verifyInstanceObj(request.getInstance());
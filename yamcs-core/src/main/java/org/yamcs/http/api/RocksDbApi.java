@@ -164,12 +164,27 @@ public class RocksDbApi extends AbstractRocksDbApi<Context> {
             sb.append("  dataDir: ").append(tblsp.getDataDir()).append("\n");
             sb.append("  open databases: ").append("\n");
             RDBFactory rdbf = tblsp.getRdbFactory();
-            for (String s : rdbf.getOpenDbPaths()) {
+            List<String> openDbPaths = rdbf.getOpenDbPaths();
+            for (String s : openDbPaths) {
                 if (s.isEmpty()) {
                     s = "<root>";
                 }
                 sb.append("    ").append(s).append("\n");
             }
+            // the block cache is shared by all the databases of the tablespace
+            YRDB yrdb = openDbPaths.isEmpty() ? null : rdbf.getOpenRdb(openDbPaths.get(0));
+            if (yrdb != null) {
+                try {
+                    sb.append("  block cache:\n");
+                    for (String line : yrdb.getBlockCacheStats().split("\n")) {
+                        sb.append("    ").append(line).append("\n");
+                    }
+                } catch (RocksDBException e) {
+                    log.warn("Error when getting the block cache statistics", e);
+                } finally {
+                    rdbf.dispose(yrdb);
+                }
+            }
         }
 
         HttpBody body = HttpBody.newBuilder()
@@ -205,7 +220,7 @@ public class RocksDbApi extends AbstractRocksDbApi<Context> {
         }
 
         try {
-            String s = yrdb.getProperties();
+            String s = yrdb.getProperties() + "============== Block Cache ========\n" + yrdb.getBlockCacheStats();
 
             HttpBody body = HttpBody.newBuilder()
                     .setContentType(MediaType.PLAIN_TEXT.toString())
@@ -25,6 +25,8 @@ import org.yamcs.YamcsVersion;
 import org.yamcs.api.HttpBody;
 import org.yamcs.api.Observer;
 import org.yamcs.http.Context;
+import org.yamcs.http.EventLoopMonitor;
+import org.yamcs.http.EventLoopMonitor.LoopStats;
 import org.yamcs.http.ForbiddenException;
 import org.yamcs.http.HttpRequestHandler;
 import org.yamcs.http.HttpServer;
@@ -34,9 +36,11 @@ import org.yamcs.http.Route;
 import org.yamcs.http.RpcDescriptor;
 import org.yamcs.http.Topic;
 import org.yamcs.http.WebSocketFrameHandler;
+import org.yamcs.http.WebSocketServerMessageHandler;
 import org.yamcs.protobuf.AbstractServerApi;
 import org.yamcs.protobuf.ClientConnectionInfo;
 import org.yamcs.protobuf.ClientConnectionInfo.HttpRequestInfo;
+import org.yamcs.protobuf.EventLoopInfo;
 import org.yamcs.protobuf.GetServerInfoResponse;
 import org.yamcs.protobuf.GetServerInfoResponse.CommandOptionInfo;
 import org.yamcs.protobuf.GetServerInfoResponse.PluginInfo;
@@ -230,6 +234,23 @@ public class ServerApi extends AbstractServerApi<Context> {
             }
         }
 
+        if (httpServer.getTransport() != null) {
+            responseb.setTransport(httpServer.getTransport().name());
+        }
+        EventLoopMonitor eventLoopMonitor = httpServer.getEventLoopMonitor();
+        if (eventLoopMonitor != null) {
+            for (LoopStats stats : eventLoopMonitor.getLoops()) {
+                EventLoopInfo.Builder loopb = EventLoopInfo.newBuilder()
+                        .setUtilization(stats.getUtilization())
+                        .setPendingTasks(stats.getPendingTasks())
+                        .setTaskLatency(stats.getTaskLatency());
+                if (stats.getThreadName() != null) {
+                    loopb.setName(stats.getThreadName());
+                }
+                responseb.addEventLoops(loopb);
+            }
+        }
+
         List<ClientConnectionInfo> result = new ArrayList<>();
         for (Channel channel : httpServer.getClientChannels()) {
             HttpRequest httpRequest = channel.attr(HttpRequestHandler.CTX_HTTP_REQUEST).get();
@@ -269,6 +290,12 @@ public class ServerApi extends AbstractServerApi<Context> {
             if (channel.pipeline().get(WebSocketFrameHandler.class) != null) {
                 protocol = "WebSocket";
             }
+            WebSocketServerMessageHandler wsMessageHandler = channel.pipeline()
+                    .get(WebSocketServerMessageHandler.class);
+            if (wsMessageHandler != null) {
+                connectionb.setPendingMessages(wsMessageHandler.getPendingMessages());
+                connectionb.setDroppedMessages(wsMessageHandler.getDroppedMessages());
+            }
             HttpRequestInfo.Builder httpRequestb = HttpRequestInfo.newBuilder()
                     .setKeepAlive(HttpUtil.isKeepAlive(httpRequest))
                     .setProtocol(protocol)
@@ -4,16 +4,20 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.yamcs.InvalidIdentification;
 import org.yamcs.NoPermissionException;
 import org.yamcs.Processor;
+import org.yamcs.YamcsServer;
 import org.yamcs.api.Observer;
 import org.yamcs.http.BadRequestException;
 import org.yamcs.logging.Log;
@@ -29,9 +33,18 @@ import org.yamcs.protobuf.Yamcs.NamedObjectList;
 import org.yamcs.security.User;
 import org.yamcs.utils.StringConverter;
 
+/**
+ * Handles the parameter subscription of one client.
+ * <p>
+ * By default each update received from the processor is sent immediately. If the client requests a maximum update
+ * rate, the updates are conflated: only the latest value of each parameter is kept and the values are sent in one
+ * message at the end of each interval.
+ */
 public class SubscribeParameterObserver implements Observer<SubscribeParametersRequest> {
 
     private static final Log log = new Log(SubscribeParameterObserver.class);
+    // the shortest conflation interval, corresponding to the maximum accepted update rate
+    static final long MIN_CONFLATION_INTERVAL_MICROS = 1000;
 
     private User user;
     private Observer<SubscribeParametersData> responseObserver;
@@ -42,6 +55,13 @@ public class SubscribeParameterObserver implements Observer<SubscribeParametersR
     private ConcurrentMap<NamedObjectId, Integer> numericIdMap = new ConcurrentHashMap<>();
     private AtomicInteger numericIdGenerator = new AtomicInteger();
 
+    // conflation mode: latest value by numeric id, null if the updates are not conflated
+    private final Object conflationLock = new Object();
+    private Map<Integer, ParameterValue> conflatedValues;
+    private ScheduledFuture<?> flushFuture;
+    private double maxUpdateRate = 0;
+    private long numConflated;
+
     public SubscribeParameterObserver(User user, Observer<SubscribeParametersData> responseObserver) {
         this.user = user;
         this.responseObserver = responseObserver;
@@ -56,6 +76,9 @@ public class SubscribeParameterObserver implements Observer<SubscribeParametersR
                 if (params.isEmpty()) {
                     return;
                 }
+                if (conflate(params)) {
+                    return;
+                }
                 SubscribeParametersData.Builder datab = SubscribeParametersData.newBuilder();
                 for (ParameterValueWithId pvwi : params) {
                     ParameterValue pval = pvwi.getParameterValue();
@@ -67,6 +90,9 @@ public class SubscribeParameterObserver implements Observer<SubscribeParametersR
                 responseObserver.next(datab.build());
             });
         }
+        if (request.hasMaxUpdateRate()) {
+            setMaxUpdateRate(request.getMaxUpdateRate());
+        }
 
         Action action = Action.REPLACE;
         if (request.hasAction()) {
@@ -140,6 +166,90 @@ public class SubscribeParameterObserver implements Observer<SubscribeParametersR
         }
     }
 
+    private void setMaxUpdateRate(double rate) {
+        if (rate < 0 || Double.isNaN(rate)) {
+            throw new BadRequestException("Invalid maxUpdateRate " + rate);
+        }
+        Map<Integer, ParameterValue> remaining = null;
+        synchronized (conflationLock) {
+            if (rate == maxUpdateRate) {
+                return;
+            }
+            maxUpdateRate = rate;
+            if (flushFuture != null) {
+                flushFuture.cancel(false);
+                flushFuture = null;
+            }
+            if (rate > 0) {
+                if (conflatedValues == null) {
+                    conflatedValues = new LinkedHashMap<>();
+                }
+                long intervalMicros = Math.max(MIN_CONFLATION_INTERVAL_MICROS, (long) (1_000_000 / rate));
+                flushFuture = YamcsServer.getServer().getThreadPoolExecutor().scheduleAtFixedRate(
+                        this::flushConflated, intervalMicros, intervalMicros, TimeUnit.MICROSECONDS);
+            } else {
+                remaining = conflatedValues;
+                conflatedValues = null;
+            }
+        }
+        if (remaining != null && !remaining.isEmpty()) {
+            responseObserver.next(toData(remaining));
+        }
+    }
+
+    /**
+     * Keeps the latest value of each parameter if in conflation mode.
+     * 
+     * @return true if the values have been conflated, false if they have to be sent immediately
+     */
+    private boolean conflate(List<ParameterValueWithId> params) {
+        synchronized (conflationLock) {
+            if (conflatedValues == null) {
+                return false;
+            }
+            for (ParameterValueWithId pvwi : params) {
+                Integer numericId = numericIdMap.get(pvwi.getId());
+                if (numericId != null && conflatedValues.put(numericId, pvwi.getParameterValue()) != null) {
+                    numConflated++;
+                }
+            }
+            return true;
+        }
+    }
+
+    private void flushConflated() {
+        SubscribeParametersData data;
+        synchronized (conflationLock) {
+            if (conflatedValues == null || conflatedValues.isEmpty()) {
+                return;
+            }
+            data = toData(conflatedValues);
+            conflatedValues.clear();
+        }
+        if (!responseObserver.isCancelled()) {
+            responseObserver.next(data);
+        }
+    }
+
+    private static SubscribeParametersData toData(Map<Integer, ParameterValue> values) {
+        SubscribeParametersData.Builder datab = SubscribeParametersData.newBuilder();
+        for (Map.Entry<Integer, ParameterValue> me : values.entrySet()) {
+            datab.addValues(me.getValue().toGpb(me.getKey()));
+        }
+        return datab.build();
+    }
+
+    private void stopConflation() {
+        synchronized (conflationLock) {
+            if (flushFuture != null) {
+                flushFuture.cancel(false);
+                flushFuture = null;
+                log.debug("Conflation stopped, {} values have been replaced by newer ones", numConflated);
+            }
+            conflatedValues = null;
+        }
+    }
+
     private void updateSubscription(Action action, List<NamedObjectId> idList, boolean updateOnExpiration)
             throws NoPermissionException, InvalidIdentification {
         if (action == Action.REPLACE) {
@@ -164,6 +274,7 @@ public class SubscribeParameterObserver implements Observer<SubscribeParametersR
     @Override
     public void completeExceptionally(Throwable t) {
         log.error("Parameter subscription errored", t);
+        stopConflation();
         if (pidrm != null) {
             pidrm.quit();
         }
@@ -171,6 +282,7 @@ public class SubscribeParameterObserver implements Observer<SubscribeParametersR
 
     @Override
     public void complete() {
+        stopConflation();
         if (pidrm != null) {
             pidrm.quit();
         }
@@ -22,6 +22,7 @@ import org.yamcs.management.ManagementService;
 import org.yamcs.management.TableStreamListener;
 import org.yamcs.protobuf.AbstractTableApi;
 import org.yamcs.protobuf.StreamEvent;
+import org.yamcs.protobuf.Table.AggregateTableDataRequest;
 import org.yamcs.protobuf.Table.ColumnData;
 import org.yamcs.protobuf.Table.ColumnInfo;
 import org.yamcs.protobuf.Table.EnumValue;
@@ -79,8 +80,11 @@ import org.yamcs.yarch.TupleDefinition;
 import org.yamcs.yarch.YarchDatabaseInstance;
 import org.yamcs.yarch.YarchException;
 import org.yamcs.yarch.rocksdb.HistogramRebuilder;
+import org.yamcs.yarch.rocksdb.RdbConfig;
 import org.yamcs.yarch.rocksdb.RdbStorageEngine;
 import org.yamcs.yarch.rocksdb.Tablespace;
+import org.yamcs.yarch.streamsql.Expression;
+import org.yamcs.yarch.streamsql.GroupByTimeStatement;
 import org.yamcs.yarch.streamsql.ResultListener;
 import org.yamcs.yarch.streamsql.StreamSqlException;
 import org.yamcs.yarch.streamsql.StreamSqlStatement;
@@ -92,6 +96,7 @@ import com.google.protobuf.Struct;
 
 public class TableApi extends AbstractTableApi<Context> {
     private static final long MAX_NUM_ROWS = 2000;
+    private static final long MAX_NUM_AGGREGATE_ROWS = 100_000;
 
     private static final Log log = new Log(TableApi.class);
 
@@ -845,6 +850,86 @@ public class TableApi extends AbstractTableApi<Context> {
         return result;
     }
 
+    @Override
+    public void aggregateTableData(Context ctx, AggregateTableDataRequest request, Observer<ResultSet> observer) {
+        ctx.checkSystemPrivilege(SystemPrivilege.ReadTables);
+
+        YarchDatabaseInstance ydb = DatabaseApi.verifyDatabase(request.getInstance());
+        TableDefinition table = verifyTable(ydb, request.getTable());
+        if (!request.hasTimeColumn()) {
+            throw new BadRequestException("No time column specified");
+        }
+        if (!request.hasBucketSize() || request.getBucketSize() <= 0) {
+            throw new BadRequestException("The bucket size has to be strictly positive");
+        }
+        if (request.hasScanParallelism()) {
+            int maxParallelism = RdbConfig.getInstance().getScanThreads();
+            if (request.getScanParallelism() < 1 || request.getScanParallelism() > maxParallelism) {
+                throw new BadRequestException("The scan parallelism has to be between 1 and " + maxParallelism);
+            }
+        }
+        TimeInterval interval = new TimeInterval();
+        if (request.hasStart()) {
+            interval.setStart(TimeEncoding.fromProtobufTimestamp(request.getStart()));
+        }
+        if (request.hasStop()) {
+            interval.setEnd(TimeEncoding.fromProtobufTimestamp(request.getStop()));
+        }
+
+        try {
+            List<Expression> groupBy = new ArrayList<>();
+            for (String s : request.getGroupByList()) {
+                groupBy.add(GroupByTimeStatement.parseExpression(s));
+            }
+            Expression where = request.hasWhere() ? GroupByTimeStatement.parseExpression(request.getWhere()) : null;
+            GroupByTimeStatement stmt = new GroupByTimeStatement(table.getName(), request.getTimeColumn(),
+                    request.getBucketSize(), groupBy, where);
+            stmt.setTimeInterval(interval);
+            if (request.hasScanParallelism()) {
+                stmt.setScanParallelism(request.getScanParallelism());
+            }
+
+            ResultSet.Builder rsBuilder = ResultSet.newBuilder();
+            ydb.execute(stmt, new ResultListener() {
+                TupleDefinition tdef;
+
+                @Override
+                public void start(TupleDefinition tdef) {
+                    for (int i = 0; i < tdef.size(); i++) {
+                        ColumnDefinition cdef = tdef.getColumn(i);
+                        rsBuilder.addColumns(ColumnInfo.newBuilder().setName(cdef.getName()));
+                    }
+                    this.tdef = tdef;
+                }
+
+                @Override
+                public void next(Tuple tuple) {
+                    if (rsBuilder.getRowsCount() == MAX_NUM_AGGREGATE_ROWS) {
+                        // the query is limited to one more row, just to know that there are more
+                        rsBuilder.setTruncated(true);
+                        return;
+                    }
+                    rsBuilder.addRows(ListValue.newBuilder()
+                            .addAllValues(getTupleValues(tdef, tuple)));
+                }
+
+                @Override
+                public void completeExceptionally(Throwable t) {
+                    observer.completeExceptionally(t);
+                }
+
+                @Override
+                public void complete() {
+                    observer.complete(rsBuilder.build());
+                }
+            }, MAX_NUM_AGGREGATE_ROWS + 1);
+        } catch (ParseException e) {
+            throw new BadRequestException(e);
+        } catch (StreamSqlException e) {
+            throw new BadRequestException(e.getMessage());
+        }
+    }
+
     @Override
     public void rebuildHistogram(Context ctx, RebuildHistogramRequest request,
             Observer<RebuildHistogramResponse> observer) {
@@ -1,6 +1,10 @@
 package org.yamcs.http.api;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
 import org.yamcs.YamcsServer;
@@ -22,6 +26,9 @@ import com.google.protobuf.Timestamp;
 
 public class TimeApi extends AbstractTimeApi<Context> {
 
+    // one ticker per time source (processor or instance time service), shared by its subscribers
+    private final Map<Object, TimeTicker> tickers = new HashMap<>();
+
     @Override
     public void getLeapSeconds(Context ctx, Empty request, Observer<LeapSecondsTable> observer) {
         LeapSecondsTable.Builder b = LeapSecondsTable.newBuilder();
@@ -71,27 +78,69 @@ public class TimeApi extends AbstractTimeApi<Context> {
     @Override
     public void subscribeTime(Context ctx, SubscribeTimeRequest request, Observer<Timestamp> observer) {
         var instance = ManagementApi.verifyInstance(request.getInstance());
+        Object source;
         TimeProvider provider;
         if (request.hasProcessor()) {
             var processor = ProcessingApi.verifyProcessor(request.getInstance(), request.getProcessor());
+            source = processor;
             provider = () -> processor.getCurrentTime();
         } else {
             var yamcs = YamcsServer.getServer();
             var timeService = yamcs.getInstance(instance).getTimeService();
+            source = timeService;
             provider = () -> timeService.getMissionTime();
         }
 
-        var exec = YamcsServer.getServer().getThreadPoolExecutor();
-        var future = exec.scheduleAtFixedRate(() -> {
-            var time = provider.getTime();
-            observer.next(TimeEncoding.toProtobufTimestamp(time));
-        }, 0, 1, TimeUnit.SECONDS);
+        // The first value is sent right away, the following ones come from the ticker shared by all subscribers of
+        // the same time source.
+        observer.next(TimeEncoding.toProtobufTimestamp(provider.getTime()));
+        addTimeObserver(source, provider, observer);
+        observer.setCancelHandler(() -> removeTimeObserver(source, observer));
+    }
+
+    private void addTimeObserver(Object source, TimeProvider provider, Observer<Timestamp> observer) {
+        synchronized (tickers) {
+            var ticker = tickers.get(source);
+            if (ticker == null) {
+                ticker = new TimeTicker(provider);
+                tickers.put(source, ticker);
+            }
+            ticker.observers.add(observer);
+        }
+    }
 
-        observer.setCancelHandler(() -> future.cancel(false));
+    private void removeTimeObserver(Object source, Observer<Timestamp> observer) {
+        synchronized (tickers) {
+            var ticker = tickers.get(source);
+            if (ticker != null) {
+                ticker.observers.remove(observer);
+                if (ticker.observers.isEmpty()) {
+                    ticker.future.cancel(false);
+                    tickers.remove(source);
+                }
+            }
+        }
     }
 
     @FunctionalInterface
     private static interface TimeProvider {
         long getTime();
     }
+
+    /**
+     * Publishes the time of one source every second. The same {@link Timestamp} instance is sent to all the observers,
+     * so that the websocket layer can encode it once for all of them.
+     */
+    private static class TimeTicker {
+        final List<Observer<Timestamp>> observers = new CopyOnWriteArrayList<>();
+        final ScheduledFuture<?> future;
+
+        TimeTicker(TimeProvider provider) {
+            var exec = YamcsServer.getServer().getThreadPoolExecutor();
+            future = exec.scheduleAtFixedRate(() -> {
+                var timestamp = TimeEncoding.toProtobufTimestamp(provider.getTime());
+                observers.forEach(observer -> observer.next(timestamp));
+            }, 1, 1, TimeUnit.SECONDS);
+        }
+    }
 }
@@ -7,6 +7,7 @@ import org.yamcs.mdb.ProcessingStatistics;
 import org.yamcs.protobuf.ProcessorInfo;
 import org.yamcs.protobuf.Statistics;
 import org.yamcs.protobuf.TmStatistics;
+import org.yamcs.protobuf.Yamcs.ReplayPacingStats;
 import org.yamcs.utils.TimeEncoding;
 import org.yamcs.utils.TimestampUtil;
 
@@ -40,6 +41,10 @@ public final class ManagementGpbHelper {
         if (processor.isReplay()) {
             processorb.setReplayRequest(processor.getReplayRequest());
             processorb.setReplayState(processor.getReplayState());
+            ReplayPacingStats pacingStats = processor.getReplayPacingStats();
+            if (pacingStats != null) {
+                processorb.setReplayPacingStats(pacingStats);
+            }
         }
         return processorb.build();
     }
@@ -0,0 +1,70 @@
+package org.yamcs.mdb;
+
+import org.yamcs.parameter.ContainerParameterValue;
+import org.yamcs.parameter.Value;
+import org.yamcs.utils.BitBuffer;
+import org.yamcs.xtce.ParameterEntry;
+import org.yamcs.xtce.SequenceEntry;
+
+/**
+ * Base class for the extractors generated by the {@link ContainerExtractorCompiler} for the containers having a
+ * static layout.
+ * <p>
+ * A compiled extractor replaces the loop over the entries performed by the {@link SequenceContainerProcessor}; the
+ * inheriting containers are still processed by the {@link SequenceContainerProcessor}.
+ */
+public abstract class CompiledContainerExtractor {
+    protected final ParameterEntry[] entries;
+
+    protected CompiledContainerExtractor(ParameterEntry[] entries) {
+        this.entries = entries;
+    }
+
+    /**
+     * Extracts the entries of the container starting at the current position in the buffer.
+     * <p>
+     * The position of the buffer is left where the interpretive processing would have left it, namely at the end
+     * of the last entry or at the start of the first entry found outside the buffer if the
+     * {@code ignoreOutOfContainerEntries} option is set.
+     *
+     * @return the maximum position reached by any entry
+     * @throws XtceProcessingException
+     *             if an entry falls beyond the end of the buffer
+     */
+    public abstract int extract(ContainerProcessingContext pcontext, BitBuffer buf,
+            boolean ignoreOutOfContainerEntries);
+
+    /**
+     * Builds the parameter value for the entry with the given index, calibrates it and adds it to the result
+     */
+    protected final void addValue(ContainerProcessingContext pcontext, int idx, int position, int bitSize,
+            Value rawValue) {
+        ParameterEntry pe = entries[idx];
+        ContainerProcessingResult result = pcontext.result;
+        pcontext.currentEntry = pe;
+
+        ContainerParameterValue pv = new ContainerParameterValue(pe.getParameter(), pcontext.buffer.offset(),
+                position);
+        pv.setRawValue(rawValue);
+        pv.setBitSize(bitSize);
+
+        pcontext.proccessorData.parameterTypeProcessor.calibrate(result, pv);
+
+        pv.setAcquisitionTime(result.acquisitionTime);
+        pv.setGenerationTime(result.generationTime);
+        pv.setExpireMillis(result.expireMillis);
+        pv.setSequenceEntry(pe);
+        result.addTmParam(pv);
+        pcontext.currentEntry = null;
+    }
+
+    protected final XtceProcessingException outOfContainer(int idx, int position, BitBuffer buf) {
+        SequenceEntry se = entries[idx];
+        return new XtceProcessingException(
+                "Could not extract parameter " + entries[idx].getParameter().getQualifiedName()
+                        + " from container " + se.getContainer().getQualifiedName()
+                        + " at position " + position
+                        + " because it falls beyond the end of the container. Container size in bits: "
+                        + buf.sizeInBits());
+    }
+}
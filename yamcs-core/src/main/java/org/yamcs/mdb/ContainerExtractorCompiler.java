@@ -0,0 +1,265 @@
+package org.yamcs.mdb;
+
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.codehaus.janino.SimpleCompiler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.yamcs.xtce.BaseDataType;
+import org.yamcs.xtce.BooleanDataEncoding;
+import org.yamcs.xtce.DataEncoding;
+import org.yamcs.xtce.FloatDataEncoding;
+import org.yamcs.xtce.IntegerDataEncoding;
+import org.yamcs.xtce.ParameterEntry;
+import org.yamcs.xtce.ParameterType;
+import org.yamcs.xtce.SequenceContainer;
+import org.yamcs.xtce.SequenceEntry;
+import org.yamcs.xtce.SequenceEntry.ReferenceLocationType;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+/**
+ * Generates with Janino specialised extractors for the containers having a static layout.
+ * <p>
+ * A list of entries has a static layout if all the entries are parameter entries without include condition and
+ * without repeat, of a base data type with a fixed size integer, float or boolean encoding without custom decoding
+ * algorithm. The position of each entry is then a constant relative to the start of the container (or to the start
+ * of the packet for the entries located relative to the container start) and the raw value decoding can be inlined.
+ * <p>
+ * The extractors are cached by list of entries such that all the processors share the same class.
+ */
+public class ContainerExtractorCompiler {
+    static final Logger log = LoggerFactory.getLogger(ContainerExtractorCompiler.class);
+    static final String PACKAGE = "org.yamcs.mdb.cce";
+
+    // used to cache the lists that cannot be compiled
+    static final CompiledContainerExtractor NOT_COMPILABLE = new CompiledContainerExtractor(null) {
+        @Override
+        public int extract(ContainerProcessingContext pcontext, org.yamcs.utils.BitBuffer buf,
+                boolean ignoreOutOfContainerEntries) {
+            throw new UnsupportedOperationException();
+        }
+    };
+
+    static final Cache<List<SequenceEntry>, CompiledContainerExtractor> cache = CacheBuilder.newBuilder()
+            .maximumSize(10000).build();
+    static final AtomicInteger counter = new AtomicInteger();
+
+    /**
+     * Returns the compiled extractor for the given entries of the container or null if the entries do not have a
+     * static layout.
+     */
+    public static CompiledContainerExtractor getExtractor(SequenceContainer container, List<SequenceEntry> entries) {
+        List<SequenceEntry> key = new ArrayList<>(entries);
+        try {
+            CompiledContainerExtractor cce = cache.get(key, () -> compile(container, key));
+            return cce == NOT_COMPILABLE ? null : cce;
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            log.warn("Failed to compile the extractor for container {}", container.getQualifiedName(), e.getCause());
+            cache.put(key, NOT_COMPILABLE);
+            return null;
+        }
+    }
+
+    static CompiledContainerExtractor compile(SequenceContainer container, List<SequenceEntry> entries)
+            throws Exception {
+        if (entries.isEmpty() || !isStatic(entries)) {
+            return NOT_COMPILABLE;
+        }
+        String className = "Extractor" + counter.incrementAndGet();
+        String source = generateSource(className, entries);
+        log.trace("Compiling extractor for {}:\n{}", container.getQualifiedName(), source);
+
+        SimpleCompiler compiler = new SimpleCompiler();
+        compiler.setParentClassLoader(ContainerExtractorCompiler.class.getClassLoader());
+        compiler.cook(source);
+        Class<?> c = compiler.getClassLoader().loadClass(PACKAGE + "." + className);
+
+        ParameterEntry[] pentries = entries.toArray(new ParameterEntry[0]);
+        return (CompiledContainerExtractor) c.getConstructor(ParameterEntry[].class).newInstance((Object) pentries);
+    }
+
+    static boolean isStatic(List<SequenceEntry> entries) {
+        // the offset of each entry is computed relative to the container start and it should not become negative
+        boolean absolute = false;
+        int offset = 0;
+        for (SequenceEntry se : entries) {
+            if (se.getClass() != ParameterEntry.class || se.getIncludeCondition() != null
+                    || se.getRepeatEntry() != null) {
+                return false;
+            }
+            ParameterType ptype = ((ParameterEntry) se).getParameter().getParameterType();
+            if (!(ptype instanceof BaseDataType)) {
+                return false;
+            }
+            DataEncoding de = ((BaseDataType) ptype).getEncoding();
+            int size = getSizeInBits(de);
+            if (size < 0) {
+                return false;
+            }
+            if (se.getReferenceLocation() == ReferenceLocationType.CONTAINER_START) {
+                absolute = true;
+                offset = se.getLocationInContainerInBits();
+            } else {
+                offset += se.getLocationInContainerInBits();
+            }
+            if (offset < 0 || (absolute && offset + size < 0)) {
+                return false;
+            }
+            offset += size;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the number of bits read by the {@link DataEncodingDecoder} for the encoding or -1 if the encoding is
+     * not supported by the compiled extractors.
+     */
+    static int getSizeInBits(DataEncoding de) {
+        if (de == null || de.getFromBinaryTransformAlgorithm() != null) {
+            return -1;
+        }
+        if (de instanceof IntegerDataEncoding) {
+            IntegerDataEncoding ide = (IntegerDataEncoding) de;
+            if (ide.getEncoding() == IntegerDataEncoding.Encoding.STRING) {
+                return -1;
+            }
+            int n = ide.getSizeInBits();
+            return (n > 0 && n <= 64) ? n : -1;
+        } else if (de instanceof FloatDataEncoding) {
+            FloatDataEncoding fde = (FloatDataEncoding) de;
+            switch (fde.getEncoding()) {
+            case IEEE754_1985:
+            case MILSTD_1750A:
+                // the decoder reads 64 bits if the size is not 32
+                return fde.getSizeInBits() == 32 ? 32 : 64;
+            default:
+                return -1;
+            }
+        } else if (de instanceof BooleanDataEncoding) {
+            return 1;
+        } else {
+            return -1;
+        }
+    }
+
+    static String generateSource(String className, List<SequenceEntry> entries) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("package ").append(PACKAGE).append(";\n")
+                .append("import org.yamcs.mdb.ContainerProcessingContext;\n")
+                .append("import org.yamcs.utils.BitBuffer;\n")
+                .append("import org.yamcs.utils.ValueUtility;\n")
+                .append("import org.yamcs.xtce.ParameterEntry;\n")
+                .append("public class ").append(className)
+                .append(" extends org.yamcs.mdb.CompiledContainerExtractor {\n")
+                .append("  public ").append(className).append("(ParameterEntry[] entries) {\n")
+                .append("    super(entries);\n")
+                .append("  }\n")
+                .append("  public int extract(ContainerProcessingContext ctx, BitBuffer buf, boolean ignoreOut) {\n")
+                .append("    int p0 = buf.getPosition();\n")
+                .append("    int size = buf.sizeInBits();\n")
+                .append("    int maxPos = p0;\n")
+                .append("    int pos;\n")
+                .append("    long v;\n");
+
+        boolean absolute = false;
+        int offset = 0;
+        for (int i = 0; i < entries.size(); i++) {
+            ParameterEntry pe = (ParameterEntry) entries.get(i);
+            DataEncoding de = ((BaseDataType) pe.getParameter().getParameterType()).getEncoding();
+            int n = getSizeInBits(de);
+            if (pe.getReferenceLocation() == ReferenceLocationType.CONTAINER_START) {
+                absolute = true;
+                offset = pe.getLocationInContainerInBits();
+            } else {
+                offset += pe.getLocationInContainerInBits();
+            }
+            String start = absolute ? Integer.toString(offset) : "p0 + " + offset;
+            sb.append("    // ").append(pe.getParameter().getQualifiedName()).append("\n")
+                    .append("    pos = ").append(start).append(";\n")
+                    .append("    if (ignoreOut && pos >= size) {\n")
+                    .append("      buf.setPosition(pos);\n")
+                    .append("      return maxPos;\n")
+                    .append("    }\n")
+                    .append("    if (pos + ").append(n).append(" > size) {\n")
+                    .append("      throw outOfContainer(").append(i).append(", pos, buf);\n")
+                    .append("    }\n")
+                    .append("    buf.setPosition(pos);\n");
+            appendDecoding(sb, i, n, de);
+            offset += n;
+            sb.append("    if (pos + ").append(n).append(" > maxPos) {\n")
+                    .append("      maxPos = pos + ").append(n).append(";\n")
+                    .append("    }\n");
+        }
+        sb.append("    buf.setPosition(").append(absolute ? Integer.toString(offset) : "p0 + " + offset).append(");\n")
+                .append("    return maxPos;\n")
+                .append("  }\n")
+                .append("}\n");
+        return sb.toString();
+    }
+
+    // the code below has to give the same results as the DataEncodingDecoder
+    private static void appendDecoding(StringBuilder sb, int idx, int n, DataEncoding de) {
+        String rawValue;
+        if (de instanceof IntegerDataEncoding) {
+            IntegerDataEncoding ide = (IntegerDataEncoding) de;
+            appendByteOrder(sb, de);
+            sb.append("    v = buf.getBits(").append(n).append(");\n");
+            switch (ide.getEncoding()) {
+            case UNSIGNED:
+                break;
+            case TWOS_COMPLEMENT:
+                sb.append("    v = (v << ").append(64 - n).append(") >> ").append(64 - n).append(";\n");
+                break;
+            case SIGN_MAGNITUDE:
+                sb.append("    if (((v >>> ").append(n - 1).append(") & 1L) == 1L) {\n")
+                        .append("      v = -(v & ((1 << ").append(n - 1).append(") - 1));\n")
+                        .append("    }\n");
+                break;
+            case ONES_COMPLEMENT:
+                sb.append("    if (((v >>> ").append(n - 1).append(") & 1L) == 1L) {\n")
+                        .append("      v = -(~((v << ").append(64 - n).append(") >> ").append(64 - n)
+                        .append("));\n")
+                        .append("    }\n");
+                break;
+            default:
+                throw new IllegalStateException();
+            }
+            boolean unsigned = ide.getEncoding() == IntegerDataEncoding.Encoding.UNSIGNED;
+            if (n <= 32) {
+                rawValue = unsigned ? "ValueUtility.getUint32Value((int) v)" : "ValueUtility.getSint32Value((int) v)";
+            } else {
+                rawValue = unsigned ? "ValueUtility.getUint64Value(v)" : "ValueUtility.getSint64Value(v)";
+            }
+        } else if (de instanceof FloatDataEncoding) {
+            FloatDataEncoding fde = (FloatDataEncoding) de;
+            appendByteOrder(sb, de);
+            boolean ieee = fde.getEncoding() == FloatDataEncoding.Encoding.IEEE754_1985;
+            if (n == 32) {
+                rawValue = ieee ? "ValueUtility.getFloatValue(Float.intBitsToFloat((int) buf.getBits(32)))"
+                        : "ValueUtility.getFloatValue((float) org.yamcs.utils.MilStd1750A.decode32("
+                                + "(int) buf.getBits(32)))";
+            } else {
+                rawValue = ieee ? "ValueUtility.getDoubleValue(Double.longBitsToDouble(buf.getBits(64)))"
+                        : "ValueUtility.getDoubleValue(org.yamcs.utils.MilStd1750A.decode48(buf.getBits(64)))";
+            }
+        } else {
+            // the boolean decoding does not set the byte order
+            rawValue = "ValueUtility.getBooleanValue(buf.getBits(1) != 0)";
+        }
+        sb.append("    addValue(ctx, ").append(idx).append(", pos, ").append(n).append(", ").append(rawValue)
+                .append(");\n");
+    }
+
+    private static void appendByteOrder(StringBuilder sb, DataEncoding de) {
+        sb.append("    buf.setByteOrder(java.nio.ByteOrder.")
+                .append(de.getByteOrder() == ByteOrder.LITTLE_ENDIAN ? "LITTLE_ENDIAN" : "BIG_ENDIAN")
+                .append(");\n");
+    }
+}
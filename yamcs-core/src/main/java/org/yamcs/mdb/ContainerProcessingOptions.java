@@ -29,11 +29,43 @@ public class ContainerProcessingOptions {
 
     int maxArraySize = 10000;
 
+    /**
+     * If set to true, the containers having a static layout are extracted using generated code (see
+     * {@link ContainerExtractorCompiler}) instead of interpreting the container definition for each packet.
+     */
+    boolean compileExtractors = false;
+
+    /**
+     * Number of threads used to extract the packets in parallel in the {@link XtceTmProcessor}; 0 means that the
+     * packets are extracted on the thread delivering them.
+     */
+    int extractionThreads = 0;
+
+    /**
+     * How the packets are distributed on the extraction threads; the packets having the same key are extracted in
+     * order by the same thread.
+     */
+    ShardKey shardKey = ShardKey.APID;
+
+    public enum ShardKey {
+        /**
+         * The APID read from the CCSDS primary header
+         */
+        APID,
+        /**
+         * The container the extraction starts with
+         */
+        CONTAINER
+    }
+
     public ContainerProcessingOptions(YConfiguration config) {
         if (config != null) {
             ignoreOutOfContainerEntries = config.getBoolean("ignoreOutOfContainerEntries", false);
             expirationTolerance = config.getDouble("expirationTolerance", expirationTolerance);
             maxArraySize = config.getInt("maxArraySize", maxArraySize);
+            compileExtractors = config.getBoolean("compileExtractors", compileExtractors);
+            extractionThreads = config.getInt("extractionThreads", extractionThreads);
+            shardKey = config.getEnum("shardKey", ShardKey.class, shardKey);
         }
     }
 
@@ -42,6 +74,9 @@ public class ContainerProcessingOptions {
         spec.addOption("ignoreOutOfContainerEntries", OptionType.BOOLEAN).withDefault(false);
         spec.addOption("expirationTolerance", OptionType.FLOAT).withDefault(1.9);
         spec.addOption("maxArraySize", OptionType.INTEGER).withDefault(10000);
+        spec.addOption("compileExtractors", OptionType.BOOLEAN).withDefault(false);
+        spec.addOption("extractionThreads", OptionType.INTEGER).withDefault(0);
+        spec.addOption("shardKey", OptionType.STRING).withChoices(ShardKey.class).withDefault(ShardKey.APID.name());
 
         return spec;
     }
@@ -80,4 +115,28 @@ public class ContainerProcessingOptions {
     public int getMaxArraySize() {
         return maxArraySize;
     }
+
+    public boolean compileExtractors() {
+        return compileExtractors;
+    }
+
+    public void setCompileExtractors(boolean compileExtractors) {
+        this.compileExtractors = compileExtractors;
+    }
+
+    public int getExtractionThreads() {
+        return extractionThreads;
+    }
+
+    public void setExtractionThreads(int extractionThreads) {
+        this.extractionThreads = extractionThreads;
+    }
+
+    public ShardKey getShardKey() {
+        return shardKey;
+    }
+
+    public void setShardKey(ShardKey shardKey) {
+        this.shardKey = shardKey;
+    }
 }
@@ -0,0 +1,126 @@
+package org.yamcs.mdb;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import org.yamcs.logging.Log;
+import org.yamcs.xtce.AggregateDataType;
+import org.yamcs.xtce.Algorithm;
+import org.yamcs.xtce.ArrayDataType;
+import org.yamcs.xtce.DataType;
+import org.yamcs.xtce.MdbChangeListener;
+import org.yamcs.xtce.Member;
+import org.yamcs.xtce.MetaCommand;
+import org.yamcs.xtce.Parameter;
+import org.yamcs.xtce.SequenceContainer;
+import org.yamcs.xtce.XtceDb;
+
+/**
+ * Search indices of the parameters, containers, commands and algorithms of one {@link XtceDb}.
+ * <p>
+ * The parameters are indexed also by the names of the aggregate members of their types (at any depth, including the
+ * members of the array elements), such that the index can be used to search the member paths.
+ * <p>
+ * The indices are built when the MDB is loaded by the {@link XtceDbFactory} and are updated when parameters and
+ * commands are added to the MDB.
+ */
+public class MdbSearchIndex implements MdbChangeListener {
+    private static final Log log = new Log(MdbSearchIndex.class);
+
+    private static final Map<XtceDb, MdbSearchIndex> indices = new WeakHashMap<>();
+
+    private final NameDescriptionSearchIndex<Parameter> parameterIndex = new NameDescriptionSearchIndex<>(
+            (p, texts) -> addMemberNames(p.getParameterType(), texts,
+                    Collections.newSetFromMap(new IdentityHashMap<>())));
+    private final NameDescriptionSearchIndex<SequenceContainer> containerIndex = new NameDescriptionSearchIndex<>();
+    private final NameDescriptionSearchIndex<MetaCommand> commandIndex = new NameDescriptionSearchIndex<>();
+    private final NameDescriptionSearchIndex<Algorithm> algorithmIndex = new NameDescriptionSearchIndex<>();
+
+    private MdbSearchIndex() {
+    }
+
+    /**
+     * Returns the index of the MDB, building it if required
+     */
+    public static MdbSearchIndex getInstance(XtceDb mdb) {
+        synchronized (indices) {
+            MdbSearchIndex index = indices.get(mdb);
+            if (index == null) {
+                index = build(mdb);
+                indices.put(mdb, index);
+            }
+            return index;
+        }
+    }
+
+    private static MdbSearchIndex build(XtceDb mdb) {
+        long t0 = System.currentTimeMillis();
+        MdbSearchIndex index = new MdbSearchIndex();
+        // register first such that the parameters added while building are not missed
+        mdb.addChangeListener(index);
+        index.parameterIndex.addAll(mdb.getParameters());
+        index.containerIndex.addAll(mdb.getSequenceContainers());
+        index.commandIndex.addAll(mdb.getMetaCommands());
+        index.algorithmIndex.addAll(mdb.getAlgorithms());
+        log.debug("MDB search index built in {} ms: {} parameters, {} distinct words",
+                System.currentTimeMillis() - t0, index.parameterIndex.size(), index.parameterIndex.getWordCount());
+        return index;
+    }
+
+    private static void addMemberNames(DataType type, List<String> texts, Set<DataType> visited) {
+        if (type == null || !visited.add(type)) {
+            return;
+        }
+        if (type instanceof AggregateDataType) {
+            for (Member m : ((AggregateDataType) type).getMemberList()) {
+                texts.add(m.getName());
+                addMemberNames(m.getType(), texts, visited);
+            }
+        } else if (type instanceof ArrayDataType) {
+            addMemberNames(((ArrayDataType) type).getElementType(), texts, visited);
+        }
+    }
+
+    @Override
+    public void parameterChanged(Parameter parameter) {
+        parameterIndex.add(parameter);
+    }
+
+    @Override
+    public void metaCommandAdded(MetaCommand command) {
+        commandIndex.add(command);
+    }
+
+    /**
+     * @return a superset of the parameters matching the search term, including the parameters having aggregate
+     *         members matching the term
+     */
+    public List<Parameter> searchParameters(String searchTerm) {
+        return parameterIndex.search(searchTerm);
+    }
+
+    /**
+     * @return a superset of the sequence containers matching the search term
+     */
+    public List<SequenceContainer> searchContainers(String searchTerm) {
+        return containerIndex.search(searchTerm);
+    }
+
+    /**
+     * @return a superset of the commands matching the search term
+     */
+    public List<MetaCommand> searchCommands(String searchTerm) {
+        return commandIndex.search(searchTerm);
+    }
+
+    /**
+     * @return a superset of the algorithms matching the search term
+     */
+    public List<Algorithm> searchAlgorithms(String searchTerm) {
+        return algorithmIndex.search(searchTerm);
+    }
+}
@@ -0,0 +1,277 @@
+package org.yamcs.mdb;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+
+import org.yamcs.utils.IntArray;
+import org.yamcs.xtce.NameDescription;
+
+/**
+ * In-memory index used to find the MDB objects whose qualified name, short description or aliases contain the words of
+ * a search term.
+ * <p>
+ * The texts of the objects are split into words (sequences of letters and digits, lower case). Each distinct word
+ * maps to the list of objects containing it, and each trigram of a word maps to the list of words containing it.
+ * <p>
+ * A search term matching a text as a substring (case insensitive) has all its letter-digit sequences contained in some
+ * words of the text. The index finds the words containing each such sequence via the trigrams (or by scanning the
+ * dictionary for sequences shorter than 3 characters) and returns the objects having such words for all the
+ * sequences.
+ * <p>
+ * The result of {@link #search(String)} is a superset of the objects matching the term; the caller is expected to
+ * verify the candidates, for example with the <code>NameDescriptionSearchMatcher</code>.
+ * <p>
+ * Objects can be added at any time; adding an object with the same qualified name as an existing one replaces it.
+ */
+public class NameDescriptionSearchIndex<T extends NameDescription> {
+    static final int NGRAM_LENGTH = 3;
+
+    // adds to the list additional texts of the object to be indexed (e.g. member names of aggregates)
+    private final BiConsumer<T, List<String>> extraTexts;
+
+    // indexed objects by id; null if replaced
+    private final List<T> objects = new ArrayList<>();
+    private final Map<String, Integer> objectIds = new HashMap<>();
+    private int size;
+
+    // distinct words by id
+    private final List<String> words = new ArrayList<>();
+    private final Map<String, Integer> wordIds = new HashMap<>();
+    // ids of the objects containing each word, in increasing order
+    private final List<IntArray> wordObjects = new ArrayList<>();
+    // ids of the words containing each trigram, in increasing order
+    private final Map<String, IntArray> ngramWords = new HashMap<>();
+
+    private final ReadWriteLock rwLock = new ReentrantReadWriteLock();
+
+    public NameDescriptionSearchIndex() {
+        this(null);
+    }
+
+    public NameDescriptionSearchIndex(BiConsumer<T, List<String>> extraTexts) {
+        this.extraTexts = extraTexts;
+    }
+
+    /**
+     * Adds the objects to the index, replacing the objects with the same qualified name
+     */
+    public void addAll(Collection<? extends T> objs) {
+        rwLock.writeLock().lock();
+        try {
+            for (T o : objs) {
+                doAdd(o);
+            }
+        } finally {
+            rwLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds an object to the index, replacing the object with the same qualified name if any
+     */
+    public void add(T o) {
+        rwLock.writeLock().lock();
+        try {
+            doAdd(o);
+        } finally {
+            rwLock.writeLock().unlock();
+        }
+    }
+
+    private void doAdd(T o) {
+        int id = objects.size();
+        Integer oldId = objectIds.put(o.getQualifiedName(), id);
+        if (oldId != null) {
+            // the old id remains in the word lists and is skipped when searching
+            objects.set(oldId, null);
+            size--;
+        }
+        objects.add(o);
+        size++;
+
+        List<String> texts = new ArrayList<>();
+        texts.add(o.getQualifiedName());
+        if (o.getShortDescription() != null) {
+            texts.add(o.getShortDescription());
+        }
+        if (o.getAliasSet() != null) {
+            texts.addAll(o.getAliasSet().getAliases().values());
+        }
+        if (extraTexts != null) {
+            extraTexts.accept(o, texts);
+        }
+
+        Set<String> objWords = new HashSet<>();
+        for (String text : texts) {
+            tokenize(text, objWords);
+        }
+        for (String w : objWords) {
+            wordObjects.get(getWordId(w)).add(id);
+        }
+    }
+
+    private int getWordId(String word) {
+        Integer wordId = wordIds.get(word);
+        if (wordId == null) {
+            wordId = words.size();
+            words.add(word);
+            wordIds.put(word, wordId);
+            wordObjects.add(new IntArray(2));
+            Set<String> ngrams = new HashSet<>();
+            for (int i = 0; i + NGRAM_LENGTH <= word.length(); i++) {
+                ngrams.add(word.substring(i, i + NGRAM_LENGTH));
+            }
+            for (String ngram : ngrams) {
+                ngramWords.computeIfAbsent(ngram, k -> new IntArray(2)).add(wordId);
+            }
+        }
+        return wordId;
+    }
+
+    /**
+     * Finds the candidates objects matching all the whitespace separated terms of the search term.
+     * <p>
+     * The content between square brackets (array indexes) is not used to select the candidates.
+     *
+     * @return a superset of the objects whose qualified name, short description, aliases or extra texts contain each
+     *         term.
+     */
+    public List<T> search(String searchTerm) {
+        List<String> pieces = new ArrayList<>();
+        for (String term : searchTerm.toLowerCase().replaceAll("\\[[^\\]]*\\]", " ").split("\\s+")) {
+            pieces.addAll(tokenize(term, new HashSet<>()));
+        }
+
+        rwLock.readLock().lock();
+        try {
+            BitSet result = null;
+            for (String piece : pieces) {
+                BitSet bs = findObjects(piece);
+                if (result == null) {
+                    result = bs;
+                } else {
+                    result.and(bs);
+                }
+                if (result.isEmpty()) {
+                    return Collections.emptyList();
+                }
+            }
+            List<T> candidates = new ArrayList<>(result == null ? size : result.cardinality());
+            if (result == null) {
+                for (T o : objects) {
+                    if (o != null) {
+                        candidates.add(o);
+                    }
+                }
+            } else {
+                for (int id = result.nextSetBit(0); id >= 0; id = result.nextSetBit(id + 1)) {
+                    T o = objects.get(id);
+                    if (o != null) {
+                        candidates.add(o);
+                    }
+                }
+            }
+            return candidates;
+        } finally {
+            rwLock.readLock().unlock();
+        }
+    }
+
+    // returns the ids of the objects having a word containing the piece
+    private BitSet findObjects(String piece) {
+        BitSet bs = new BitSet(objects.size());
+        if (piece.length() < NGRAM_LENGTH) {
+            for (int wordId = 0; wordId < words.size(); wordId++) {
+                if (words.get(wordId).contains(piece)) {
+                    addObjects(bs, wordId);
+                }
+            }
+            return bs;
+        }
+        // the words containing the piece contain all its trigrams, use the smallest list
+        IntArray smallest = null;
+        for (int i = 0; i + NGRAM_LENGTH <= piece.length(); i++) {
+            IntArray a = ngramWords.get(piece.substring(i, i + NGRAM_LENGTH));
+            if (a == null) {
+                return bs;
+            }
+            if (smallest == null || a.size() < smallest.size()) {
+                smallest = a;
+            }
+        }
+        for (int i = 0; i < smallest.size(); i++) {
+            int wordId = smallest.get(i);
+            if (words.get(wordId).contains(piece)) {
+                addObjects(bs, wordId);
+            }
+        }
+        return bs;
+    }
+
+    private void addObjects(BitSet bs, int wordId) {
+        IntArray a = wordObjects.get(wordId);
+        for (int i = 0; i < a.size(); i++) {
+            bs.set(a.get(i));
+        }
+    }
+
+    /**
+     *
+     * @return the number of indexed objects
+     */
+    public int size() {
+        rwLock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            rwLock.readLock().unlock();
+        }
+    }
+
+    /**
+     *
+     * @return the number of distinct words
+     */
+    public int getWordCount() {
+        rwLock.readLock().lock();
+        try {
+            return words.size();
+        } finally {
+            rwLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Adds to the set the lower case sequences of letters and digits of the text
+     *
+     * @return the set
+     */
+    static Set<String> tokenize(String text, Set<String> tokens) {
+        String s = text.toLowerCase();
+        int n = s.length();
+        int i = 0;
+        while (i < n) {
+            while (i < n && !Character.isLetterOrDigit(s.charAt(i))) {
+                i++;
+            }
+            int start = i;
+            while (i < n && Character.isLetterOrDigit(s.charAt(i))) {
+                i++;
+            }
+            if (i > start) {
+                tokens.add(s.substring(start, i));
+            }
+        }
+        return tokens;
+    }
+}
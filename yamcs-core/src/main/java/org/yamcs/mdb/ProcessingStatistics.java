@@ -1,6 +1,9 @@
 package org.yamcs.mdb;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
@@ -8,15 +11,21 @@ import org.yamcs.protobuf.TmStatistics;
 import org.yamcs.utils.DataRateMeter;
 import org.yamcs.utils.TimeEncoding;
 
+/**
+ * Statistics of the TM packets processed by one extractor.
+ * <p>
+ * The statistics are updated by one thread (the one extracting the packets) and can be read by other threads. When the
+ * packets are extracted in parallel, each extraction thread has its own statistics and {@link #aggregate(List)} is
+ * used to combine them.
+ */
 public class ProcessingStatistics {
 
-    long lastUpdated; // local java time of the last update
+    volatile long lastUpdated; // local java time of the last update
     public ConcurrentHashMap<String, TmStats> stats = new ConcurrentHashMap<>();
 
     public void newPacket(String pname, int subscribedParameterCount, long acquisitionTime,
             long generationTime, int sizeInBits) {
-        TmStats s = stats.computeIfAbsent(pname, p -> new TmStats());
-        s.pname = pname;
+        TmStats s = stats.computeIfAbsent(pname, p -> new TmStats(pname));
         s.receivedPackets++;
         s.subscribedParameterCount = subscribedParameterCount;
         s.lastReceived = acquisitionTime;
@@ -36,26 +45,106 @@ public class ProcessingStatistics {
 
     public List<TmStatistics> snapshot() {
         return stats.values().stream()
-                .map(t -> TmStatistics.newBuilder()
-                        .setPacketName(t.pname)
-                        .setQualifiedName(t.pname)
-                        .setReceivedPackets(t.receivedPackets)
-                        .setSubscribedParameterCount(t.subscribedParameterCount)
-                        .setLastPacketTime(TimeEncoding.toProtobufTimestamp(t.lastPacketTime))
-                        .setLastReceived(TimeEncoding.toProtobufTimestamp(t.lastReceived))
-                        .setPacketRate(Math.round(t.packetRateMeter.getFiveSecondsRate()))
-                        .setDataRate(Math.round(t.dataRateMeter.getFiveSecondsRate()))
-                        .build())
+                .map(t -> toProto(t.pname, t.receivedPackets, t.subscribedParameterCount, t.lastPacketTime,
+                        t.lastReceived, t.packetRateMeter.getFiveSecondsRate(), t.dataRateMeter.getFiveSecondsRate()))
                 .collect(Collectors.toList());
     }
 
+    private static TmStatistics toProto(String pname, int receivedPackets, int subscribedParameterCount,
+            long lastPacketTime, long lastReceived, double packetRate, double dataRate) {
+        return TmStatistics.newBuilder()
+                .setPacketName(pname)
+                .setQualifiedName(pname)
+                .setReceivedPackets(receivedPackets)
+                .setSubscribedParameterCount(subscribedParameterCount)
+                .setLastPacketTime(TimeEncoding.toProtobufTimestamp(lastPacketTime))
+                .setLastReceived(TimeEncoding.toProtobufTimestamp(lastReceived))
+                .setPacketRate(Math.round(packetRate))
+                .setDataRate(Math.round(dataRate))
+                .build();
+    }
+
+    /**
+     * Returns a view combining the statistics of multiple extractors: the packet counts and rates are summed up and
+     * the latest times are kept.
+     * <p>
+     * Resetting the view resets all the underlying statistics; the view itself cannot be updated.
+     */
+    public static ProcessingStatistics aggregate(List<ProcessingStatistics> list) {
+        return new AggregatedStatistics(new ArrayList<>(list));
+    }
+
     private static class TmStats {
-        String pname;
-        int receivedPackets;
-        int subscribedParameterCount;
-        long lastReceived;
-        long lastPacketTime;
-        DataRateMeter packetRateMeter = new DataRateMeter();
-        DataRateMeter dataRateMeter = new DataRateMeter();
+        final String pname;
+        volatile int receivedPackets;
+        volatile int subscribedParameterCount;
+        volatile long lastReceived;
+        volatile long lastPacketTime;
+        final DataRateMeter packetRateMeter = new DataRateMeter();
+        final DataRateMeter dataRateMeter = new DataRateMeter();
+
+        TmStats(String pname) {
+            this.pname = pname;
+        }
+    }
+
+    static class AggregatedStatistics extends ProcessingStatistics {
+        final List<ProcessingStatistics> list;
+
+        AggregatedStatistics(List<ProcessingStatistics> list) {
+            this.list = list;
+        }
+
+        @Override
+        public void newPacket(String pname, int subscribedParameterCount, long acquisitionTime,
+                long generationTime, int sizeInBits) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void reset() {
+            for (ProcessingStatistics ps : list) {
+                ps.reset();
+            }
+        }
+
+        @Override
+        public long getLastUpdated() {
+            long lu = 0;
+            for (ProcessingStatistics ps : list) {
+                lu = Math.max(lu, ps.getLastUpdated());
+            }
+            return lu;
+        }
+
+        @Override
+        public List<TmStatistics> snapshot() {
+            Map<String, List<TmStats>> byName = new HashMap<>();
+            for (ProcessingStatistics ps : list) {
+                for (TmStats t : ps.stats.values()) {
+                    byName.computeIfAbsent(t.pname, k -> new ArrayList<>()).add(t);
+                }
+            }
+            List<TmStatistics> result = new ArrayList<>(byName.size());
+            for (Map.Entry<String, List<TmStats>> me : byName.entrySet()) {
+                int receivedPackets = 0;
+                int subscribedParameterCount = 0;
+                long lastPacketTime = TimeEncoding.INVALID_INSTANT;
+                long lastReceived = TimeEncoding.INVALID_INSTANT;
+                double packetRate = 0;
+                double dataRate = 0;
+                for (TmStats t : me.getValue()) {
+                    receivedPackets += t.receivedPackets;
+                    subscribedParameterCount = Math.max(subscribedParameterCount, t.subscribedParameterCount);
+                    lastPacketTime = Math.max(lastPacketTime, t.lastPacketTime);
+                    lastReceived = Math.max(lastReceived, t.lastReceived);
+                    packetRate += t.packetRateMeter.getFiveSecondsRate();
+                    dataRate += t.dataRateMeter.getFiveSecondsRate();
+                }
+                result.add(toProto(me.getKey(), receivedPackets, subscribedParameterCount, lastPacketTime,
+                        lastReceived, packetRate, dataRate));
+            }
+            return result;
+        }
     }
 }
@@ -5,6 +5,7 @@ import static org.yamcs.xtce.XtceDb.YAMCS_SPACESYSTEM_NAME;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
@@ -66,13 +67,16 @@ public class ProcessorData {
     final EventProducer eventProducer;
     final String processorName;
 
-    private Map<String, Object> userData = new HashMap<>();
+    // concurrent map because it is shared with the extraction threads of the ShardedTmExtractor
+    private Map<String, Object> userData = new ConcurrentHashMap<>();
 
     final private LastValueCache lastValueCache;
     /**
      * used to store parameter types which are changed dynamically (so they don't correspond anymore to MDB)
+     * <p>
+     * concurrent map because it is shared with the extraction threads of the {@link ShardedTmExtractor}
      */
-    Map<Parameter, ParameterType> typeOverrides = new HashMap<>();
+    Map<Parameter, ParameterType> typeOverrides = new ConcurrentHashMap<>();
     String yamcsInstance;
 
     private ProcessorConfig processorConfig;
@@ -136,6 +140,25 @@ public class ProcessorData {
 
     }
 
+    /**
+     * Creates a view of the given processor data for one extraction thread of the {@link ShardedTmExtractor}.
+     * <p>
+     * The view shares the configuration, the last value cache, the type overrides and the user data but has its own
+     * calibrators, decoders, encoders and match criteria evaluators, such that these are not used concurrently.
+     */
+    ProcessorData(ProcessorData pdata) {
+        this.yamcsInstance = pdata.yamcsInstance;
+        this.xtcedb = pdata.xtcedb;
+        this.processorConfig = pdata.processorConfig;
+        this.processorName = pdata.processorName;
+        this.log = pdata.log;
+        this.eventProducer = pdata.eventProducer;
+        this.lastValueCache = pdata.lastValueCache;
+        this.typeOverrides = pdata.typeOverrides;
+        this.userData = pdata.userData;
+        parameterTypeProcessor = new ParameterTypeProcessor(this);
+    }
+
     private ParameterValue getInitialValue(long genTime, Parameter p) {
         ParameterType ptype = p.getParameterType();
 
@@ -169,12 +192,20 @@ public class ProcessorData {
 
     /**
      * Set some object to be shared with all the users of this processor data
+     * <p>
+     * The user data can be set and read from multiple threads (e.g. by the calibrators and decoders running on the
+     * extraction threads of the {@link ShardedTmExtractor}); the objects stored have to be thread safe themselves.
      * 
      * @param key
      * @param value
+     *            the object to be stored; null removes the existing object
      */
     public <T> void setUserData(String key, T value) {
-        userData.put(key, value);
+        if (value == null) {
+            userData.remove(key);
+        } else {
+            userData.put(key, value);
+        }
     }
 
     /**
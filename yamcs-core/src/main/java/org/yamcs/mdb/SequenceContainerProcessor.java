@@ -2,6 +2,7 @@ package org.yamcs.mdb;
 
 import java.nio.BufferOverflowException;
 import java.nio.BufferUnderflowException;
+import java.util.Collections;
 import java.util.List;
 
 import org.yamcs.ContainerExtractionResult;
@@ -41,7 +42,12 @@ public class SequenceContainerProcessor {
         int maxposition = buf.getPosition();
 
         // then extract the entries
-        List<SequenceEntry> entries = subscribedContainer.entries;
+        CompiledContainerExtractor cce = options.compileExtractors() ? subscribedContainer.getCompiledExtractor()
+                : null;
+        List<SequenceEntry> entries = cce == null ? subscribedContainer.entries : Collections.emptyList();
+        if (cce != null) {
+            maxposition = cce.extract(pcontext, buf, options.ignoreOutOfContainerEntries());
+        }
         for (SequenceEntry se : entries) {
             int position = buf.getPosition();
             try {
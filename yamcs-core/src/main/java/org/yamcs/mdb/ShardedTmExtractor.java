@@ -0,0 +1,210 @@
+package org.yamcs.mdb;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.yamcs.TmPacket;
+import org.yamcs.logging.Log;
+import org.yamcs.mdb.ContainerProcessingOptions.ShardKey;
+import org.yamcs.xtce.Parameter;
+import org.yamcs.xtce.SequenceContainer;
+import org.yamcs.xtce.XtceDb;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Extracts the TM packets in parallel on a number of threads (shards).
+ * <p>
+ * Each shard has its own {@link XtceTmExtractor} (with its own subscription, kept identical with the others) and a
+ * single thread such that the packets with the same shard key (APID or start container) are extracted in the order
+ * in which they have been received. The extractors of the shards use their own {@link ProcessorData} view with
+ * separate caches of decoders, calibrators and match criteria evaluators (which are not required to be thread safe)
+ * and collect their own statistics, aggregated by {@link #getStatistics()}.
+ * <p>
+ * The extraction results are delivered to the consumer on one delivery thread in the order in which the packets have
+ * been received, regardless of the shard that has extracted them. This way the parameter processing following the
+ * extraction (algorithms, alarms, distribution to the subscribers) sees the same sequence of packets as with the
+ * serial extraction.
+ * <p>
+ * The number of packets extracted but not yet delivered is limited; if the limit is reached, the thread submitting
+ * the packets is blocked.
+ */
+public class ShardedTmExtractor {
+    static final int MAX_PENDING = 1024;
+
+    final XtceTmExtractor[] extractors;
+    final ExecutorService[] executors;
+    final ShardKey shardKey;
+    final Consumer<ContainerProcessingResult> consumer;
+    final ProcessingStatistics stats;
+    final BlockingQueue<CompletableFuture<ContainerProcessingResult>> pending = new ArrayBlockingQueue<>(
+            MAX_PENDING);
+    final Thread deliveryThread;
+    final Log log;
+
+    // signals the delivery thread to quit
+    static final CompletableFuture<ContainerProcessingResult> END_SIGNAL = new CompletableFuture<>();
+
+    /**
+     * 
+     * @param xtcedb
+     * @param pdata
+     *            processor data; its configuration gives the number of threads and the shard key
+     * @param extractionOptions
+     *            options used by the extractors of all the shards
+     * @param consumer
+     *            receives the extraction results on the delivery thread
+     */
+    public ShardedTmExtractor(XtceDb xtcedb, ProcessorData pdata, ContainerProcessingOptions extractionOptions,
+            Consumer<ContainerProcessingResult> consumer) {
+        ContainerProcessingOptions options = pdata.getProcessorConfig().getContainerProcessingOptions();
+        int n = options.getExtractionThreads();
+        if (n < 1) {
+            throw new IllegalArgumentException("The number of extraction threads has to be positive");
+        }
+        this.shardKey = options.getShardKey();
+        this.consumer = consumer;
+        log = new Log(getClass(), pdata.getYamcsInstance());
+        log.setContext(pdata.getProcessorName());
+
+        String name = pdata.getYamcsInstance() + "." + pdata.getProcessorName();
+        extractors = new XtceTmExtractor[n];
+        executors = new ExecutorService[n];
+        List<ProcessingStatistics> shardStats = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            extractors[i] = new XtceTmExtractor(xtcedb, new ProcessorData(pdata));
+            extractors[i].setOptions(extractionOptions);
+            shardStats.add(extractors[i].getStatistics());
+            executors[i] = Executors.newSingleThreadExecutor(
+                    new ThreadFactoryBuilder().setNameFormat("TmExtractor-" + name + "-" + i).build());
+        }
+        stats = ProcessingStatistics.aggregate(shardStats);
+        deliveryThread = new Thread(this::deliver, "TmDelivery-" + name);
+    }
+
+    public void start() {
+        deliveryThread.start();
+    }
+
+    /**
+     * Submits the packet for extraction.
+     * <p>
+     * Blocks if the maximum number of pending packets has been reached.
+     */
+    public void process(TmPacket pkt, SequenceContainer sc, long rectime) {
+        int shard = getShard(pkt, sc);
+        XtceTmExtractor extractor = extractors[shard];
+        try {
+            // the put is done while holding the lock such that the packets submitted concurrently are delivered in
+            // the same order as they are extracted by the shards
+            synchronized (this) {
+                pending.put(CompletableFuture.supplyAsync(
+                        () -> extractor.processPacket(pkt.getPacket(), pkt.getGenerationTime(), rectime, sc),
+                        executors[shard]));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Interrupted while waiting to submit the packet, packet dropped");
+        }
+    }
+
+    int getShard(TmPacket pkt, SequenceContainer sc) {
+        int n = extractors.length;
+        if (n == 1) {
+            return 0;
+        }
+        int key;
+        byte[] b = pkt.getPacket();
+        if (shardKey == ShardKey.APID && b.length >= 2) {
+            key = ((b[0] & 0x07) << 8) | (b[1] & 0xFF);
+        } else {
+            key = sc == null ? 0 : sc.getQualifiedName().hashCode();
+        }
+        return Math.floorMod(key, n);
+    }
+
+    private void deliver() {
+        while (true) {
+            CompletableFuture<ContainerProcessingResult> cf;
+            try {
+                cf = pending.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (cf == END_SIGNAL) {
+                return;
+            }
+            try {
+                consumer.accept(cf.join());
+            } catch (Exception e) {
+                log.error("Error delivering the extraction result", e);
+            }
+        }
+    }
+
+    /**
+     * Waits for the pending packets to be delivered and stops all the threads
+     */
+    public void stop() {
+        try {
+            synchronized (this) {
+                pending.put(END_SIGNAL);
+            }
+            deliveryThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (ExecutorService executor : executors) {
+            executor.shutdown();
+        }
+        for (ExecutorService executor : executors) {
+            try {
+                executor.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    public void startProviding(Parameter param) {
+        for (XtceTmExtractor extractor : extractors) {
+            extractor.startProviding(param);
+        }
+    }
+
+    public void startProviding(SequenceContainer container) {
+        for (XtceTmExtractor extractor : extractors) {
+            extractor.startProviding(container);
+        }
+    }
+
+    public void provideAll() {
+        for (XtceTmExtractor extractor : extractors) {
+            extractor.provideAll();
+        }
+    }
+
+    /**
+     *
+     * @return the statistics of all the shards
+     */
+    public ProcessingStatistics getStatistics() {
+        return stats;
+    }
+
+    public void resetStatistics() {
+        stats.reset();
+    }
+
+    public int getNumShards() {
+        return extractors.length;
+    }
+}
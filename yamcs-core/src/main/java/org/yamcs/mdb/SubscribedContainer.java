@@ -16,6 +16,11 @@ public class SubscribedContainer {
     List<InheritingContainer> inheritingContainers = new ArrayList<>();
     boolean allEntriesAdded = false;
 
+    // incremented each time the entries change
+    int version = 0;
+    private CompiledContainerExtractor compiledExtractor;
+    private int compiledVersion = -1;
+
     public SubscribedContainer(SequenceContainer sc) {
         this.conainerDef = sc;
     }
@@ -28,6 +33,7 @@ public class SubscribedContainer {
         int idx = Collections.binarySearch(entries, se);
         if (idx < 0) {
             entries.add(-idx - 1, se);
+            version++;
         }
     }
 
@@ -36,6 +42,18 @@ public class SubscribedContainer {
             return;
         }
         entries = conainerDef.getEntryList();
+        version++;
+    }
+
+    /**
+     * Returns the compiled extractor for the current entries or null if the entries do not have a static layout.
+     */
+    CompiledContainerExtractor getCompiledExtractor() {
+        if (compiledVersion != version) {
+            compiledExtractor = ContainerExtractorCompiler.getExtractor(conainerDef, entries);
+            compiledVersion = version;
+        }
+        return compiledExtractor;
     }
 
     public void addIneriting(SubscribedContainer child) {
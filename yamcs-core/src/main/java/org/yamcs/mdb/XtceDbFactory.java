@@ -511,6 +511,8 @@ public class XtceDbFactory {
                 db = getInstanceByConfig(yamcsInstance, instanceConfig.getString("mdb"));
                 instance2Db.put(yamcsInstance, db);
             }
+            // build the search index now rather than on the first search request
+            MdbSearchIndex.getInstance(db);
         }
         return db;
     }
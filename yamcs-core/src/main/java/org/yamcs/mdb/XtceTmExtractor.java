@@ -21,7 +21,7 @@ import org.yamcs.xtce.XtceDb;
 public class XtceTmExtractor {
     private static final Logger log = LoggerFactory.getLogger(XtceTmExtractor.class);
     protected final Subscription subscription;
-    private ProcessingStatistics stats = new ProcessingStatistics();
+    private final ProcessingStatistics stats = new ProcessingStatistics();
 
     public final XtceDb xtcedb;
     final SequenceContainer rootContainer;
@@ -42,12 +42,24 @@ public class XtceTmProcessor extends AbstractProcessorService
     public final XtceDb xtcedb;
     final XtceTmExtractor tmExtractor;
 
+    // used instead of the tmExtractor if the extraction is performed in parallel
+    final ShardedTmExtractor shardedExtractor;
+
     public XtceTmProcessor(Processor processor) {
         this.processor = processor;
         this.xtcedb = processor.getXtceDb();
         log = new Log(getClass(), processor.getInstance());
         log.setContext(processor.getName());
-        tmExtractor = new XtceTmExtractor(xtcedb, processor.getProcessorData());
+        ProcessorData pdata = processor.getProcessorData();
+        tmExtractor = new XtceTmExtractor(xtcedb, pdata);
+        ContainerProcessingOptions options = pdata.getProcessorConfig().getContainerProcessingOptions();
+        tmExtractor.getOptions().setCompileExtractors(options.compileExtractors());
+        if (options.getExtractionThreads() > 0) {
+            // the shards extract the packets with the same options as the main extractor
+            shardedExtractor = new ShardedTmExtractor(xtcedb, pdata, tmExtractor.getOptions(), this::deliver);
+        } else {
+            shardedExtractor = null;
+        }
     }
 
     /**
@@ -60,6 +72,7 @@ public class XtceTmProcessor extends AbstractProcessorService
         this.xtcedb = xtcedb;
         log = new Log(getClass());
         tmExtractor = new XtceTmExtractor(xtcedb, new ProcessorData(null, "XTCEPROC", xtcedb, pconfig));
+        shardedExtractor = null;
     }
 
     @Override
@@ -88,6 +101,9 @@ public class XtceTmProcessor extends AbstractProcessorService
     @Override
     public void startProviding(Parameter param) {
         tmExtractor.startProviding(param);
+        if (shardedExtractor != null) {
+            shardedExtractor.startProviding(param);
+        }
     }
 
     /**
@@ -96,6 +112,9 @@ public class XtceTmProcessor extends AbstractProcessorService
     @Override
     public void startProvidingAll() {
         tmExtractor.provideAll();
+        if (shardedExtractor != null) {
+            shardedExtractor.provideAll();
+        }
     }
 
     @Override
@@ -134,14 +153,23 @@ public class XtceTmProcessor extends AbstractProcessorService
 
     @Override
     public void processPacket(TmPacket pwrt, SequenceContainer sc) {
-        try {
-            long rectime = pwrt.getReceptionTime();
-            if (rectime == TimeEncoding.INVALID_INSTANT) {
-                rectime = TimeEncoding.getWallclockTime();
-            }
-            ContainerProcessingResult result = tmExtractor.processPacket(pwrt.getPacket(), pwrt.getGenerationTime(),
-                    rectime, sc);
+        long rectime = pwrt.getReceptionTime();
+        if (rectime == TimeEncoding.INVALID_INSTANT) {
+            rectime = TimeEncoding.getWallclockTime();
+        }
+        if (shardedExtractor != null) {
+            // the result is passed to the deliver method on the delivery thread
+            shardedExtractor.process(pwrt, sc, rectime);
+        } else {
+            deliver(tmExtractor.processPacket(pwrt.getPacket(), pwrt.getGenerationTime(), rectime, sc));
+        }
+    }
 
+    /**
+     * Passes the extraction result to the parameter processor and to the container listener
+     */
+    private void deliver(ContainerProcessingResult result) {
+        try {
             ParameterValueList paramResult = result.getTmParams();
             List<ContainerExtractionResult> containerResult = result.containers;
 
@@ -164,11 +192,19 @@ public class XtceTmProcessor extends AbstractProcessorService
     }
 
     public void resetStatistics() {
-        tmExtractor.resetStatistics();
+        if (shardedExtractor != null) {
+            shardedExtractor.resetStatistics();
+        } else {
+            tmExtractor.resetStatistics();
+        }
     }
 
     public ProcessingStatistics getStatistics() {
-        return tmExtractor.getStatistics();
+        if (shardedExtractor != null) {
+            return shardedExtractor.getStatistics();
+        } else {
+            return tmExtractor.getStatistics();
+        }
     }
 
     @Override
@@ -179,6 +215,9 @@ public class XtceTmProcessor extends AbstractProcessorService
     @Override
     public void startProviding(SequenceContainer container) {
         tmExtractor.startProviding(container);
+        if (shardedExtractor != null) {
+            shardedExtractor.startProviding(container);
+        }
     }
 
     @Override
@@ -188,7 +227,7 @@ public class XtceTmProcessor extends AbstractProcessorService
 
     @Override
     public void startProvidingAllContainers() {
-        tmExtractor.provideAll();
+        startProvidingAll();
     }
 
     @Override
@@ -206,11 +245,18 @@ public class XtceTmProcessor extends AbstractProcessorService
 
     @Override
     protected void doStart() {
+        if (shardedExtractor != null) {
+            shardedExtractor.start();
+        }
         notifyStarted();
     }
 
     @Override
     protected void doStop() {
+        if (shardedExtractor != null) {
+            // delivers the packets still being extracted
+            shardedExtractor.stop();
+        }
         notifyStopped();
     }
 
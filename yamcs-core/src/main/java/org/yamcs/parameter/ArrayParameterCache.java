@@ -9,6 +9,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
@@ -25,6 +26,10 @@ import org.yamcs.xtce.Parameter;
  * {@link Value}).
  * <p>
  * It should consume less memory than {@link ParameterCacheImpl} in case of large number of parameter values.
+ * <p>
+ * If {@link ParameterCacheConfig#maxMemory} is set, the tables stop growing once the (estimated) memory used by all of
+ * them reaches the limit; from then on they overwrite their oldest rows as if they had reached the maximum number of
+ * entries.
  *
  */
 public class ArrayParameterCache implements ParameterCache {
@@ -34,6 +39,8 @@ public class ArrayParameterCache implements ParameterCache {
     ConcurrentHashMap<SortedIntArray, ParameterValueTable> tables = new ConcurrentHashMap<>();
     final ConcurrentHashMap<Parameter, Boolean> parametersToCache;
     final ParameterCacheConfig cacheConfig;
+    // estimated memory used by the arrays of all tables
+    final AtomicLong memoryUsage = new AtomicLong();
 
     ArrayParameterCache(String instance, ParameterCacheConfig cacheConfig) {
         log = new Log(this.getClass(), instance);
@@ -74,7 +81,8 @@ public class ArrayParameterCache implements ParameterCache {
         SortedIntArray sia = pvList.getParameterIdArray();
         ParameterValueTable table = tables.get(sia);
         if (table == null) {
-            table = new ParameterValueTable(sia, cacheConfig.maxDuration, cacheConfig.maxNumEntries);
+            table = new ParameterValueTable(sia, cacheConfig.maxDuration, cacheConfig.maxNumEntries, memoryUsage,
+                    cacheConfig.maxMemory);
             ParameterValueTable table1 = tables.putIfAbsent(sia, table);
             if (table1 != null) {
                 table = table1;
@@ -410,10 +418,15 @@ public class ArrayParameterCache implements ParameterCache {
         int tail = head;
         int maxNumEntries = MAX_NUM_ENTRIES;
         final SortedIntArray pids;
+        final AtomicLong memoryUsage;
+        final long maxMemory;
+        // estimated number of bytes required by one row
+        long rowSize;
 
         ReadWriteLock lock = new ReentrantReadWriteLock();
 
-        ParameterValueTable(SortedIntArray pids, long timeToCache, int maxNumEntries) {
+        ParameterValueTable(SortedIntArray pids, long timeToCache, int maxNumEntries, AtomicLong memoryUsage,
+                long maxMemory) {
             this.numParams = pids.size();
             this.pids = pids;
             this.rawValueColumns = new Object[numParams];
@@ -422,23 +435,30 @@ public class ArrayParameterCache implements ParameterCache {
             this.acquisitionTimeColumns = new long[numParams][];
             this.timeToCache = timeToCache;
             this.maxNumEntries = maxNumEntries;
+            this.memoryUsage = memoryUsage;
+            this.maxMemory = maxMemory;
         }
 
         private void init(List<ParameterValue> sortedPvList) {
             this.generationTimeColumn = new long[INITIAL_CAPACITY];
+            rowSize = 8;
             for (int i = 0; i < sortedPvList.size(); i++) {
                 ParameterValue pv = sortedPvList.get(i);
                 Value v = pv.getEngValue();
                 if (v != null) {
                     engValueColumns[i] = getNewColumn(v.getType());
+                    rowSize += getCellSize(v.getType());
                 }
                 Value rawV = pv.getRawValue();
                 if (rawV != null) {
                     rawValueColumns[i] = getNewColumn(rawV.getType());
+                    rowSize += getCellSize(rawV.getType());
                 }
                 statusColumns[i] = new ParameterStatus[INITIAL_CAPACITY];
                 acquisitionTimeColumns[i] = new long[INITIAL_CAPACITY];
+                rowSize += 16;
             }
+            memoryUsage.addAndGet(INITIAL_CAPACITY * rowSize);
         }
 
         public void add(long t, List<ParameterValue> sortedPvList) {
@@ -676,6 +696,9 @@ public class ArrayParameterCache implements ParameterCache {
             if (capacity >= maxNumEntries) {
                 return false;
             }
+            if (!reserveMemory(capacity * rowSize)) {
+                return false;
+            }
 
             int newCapacity = 2 * capacity;
 
@@ -707,6 +730,34 @@ public class ArrayParameterCache implements ParameterCache {
             return true;
         }
 
+        private boolean reserveMemory(long size) {
+            while (true) {
+                long used = memoryUsage.get();
+                if (maxMemory >= 0 && used + size > maxMemory) {
+                    return false;
+                }
+                if (memoryUsage.compareAndSet(used, used + size)) {
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * the size of one value in a column; for the types stored as objects, only the reference is counted
+         */
+        private static int getCellSize(Type type) {
+            switch (type) {
+            case BOOLEAN:
+                return 0;
+            case FLOAT:
+            case SINT32:
+            case UINT32:
+                return 4;
+            default:
+                return 8;
+            }
+        }
+
         private Object growCapacity(Object o, int newCapacity) {
             if (o instanceof int[]) {
                 int[] o1 = (int[]) o;
@@ -749,5 +800,16 @@ public class ArrayParameterCache implements ParameterCache {
     @Override
     public void clear() {
         tables.clear();
+        memoryUsage.set(0);
+    }
+
+    /**
+     * Returns the estimated memory in bytes used by the cached values.
+     * <p>
+     * The values stored as objects (strings, binaries, aggregates, arrays and enumerations) are counted only for the
+     * size of the reference.
+     */
+    public long getMemoryUsage() {
+        return memoryUsage.get();
     }
 }
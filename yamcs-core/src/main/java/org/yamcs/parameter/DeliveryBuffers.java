@@ -0,0 +1,186 @@
+package org.yamcs.parameter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * Reusable per subscription delivery lists used by the {@link ParameterRequestManager} to split one delivery among
+ * the subscribers.
+ * <p>
+ * The lists are indexed by the subscription id in an open addressing hash table with primitive int keys. After each
+ * delivery the lists are cleared but kept, such that in steady state building a delivery does not allocate.
+ * <p>
+ * Not thread safe, the PRM keeps one instance for each thread delivering parameters.
+ *
+ */
+class DeliveryBuffers {
+    // lists larger than this are not kept from one delivery to the next
+    static final int MAX_RETAINED_SIZE = 4096;
+
+    private int[] keys;
+    private ArrayList<ParameterValue>[] buffers;
+    private int count;
+
+    // the subscriptions which have received something in the current delivery, in order
+    private int[] touched;
+    private int numTouched;
+
+    // value of the PRM remove counter when the buffers have last been pruned
+    int removeCount;
+
+    DeliveryBuffers() {
+        this(16);
+    }
+
+    @SuppressWarnings("unchecked")
+    DeliveryBuffers(int capacity) {
+        int n = ParameterValueList.roundUpToPowerOfTwo(Math.max(capacity, 2));
+        keys = new int[n];
+        buffers = new ArrayList[n];
+        touched = new int[n];
+    }
+
+    /**
+     * Returns the delivery list for the subscription, creating it if it does not exist.
+     * <p>
+     * The subscription is marked as part of the current delivery.
+     */
+    ArrayList<ParameterValue> get(int subscriptionId) {
+        int idx = indexOf(subscriptionId);
+        ArrayList<ParameterValue> al;
+        if (buffers[idx] == null) {
+            al = new ArrayList<>();
+            insert(idx, subscriptionId, al);
+        } else {
+            al = buffers[idx];
+        }
+        if (al.isEmpty()) {
+            markTouched(subscriptionId);
+        }
+        return al;
+    }
+
+    /**
+     * Returns the number of subscriptions part of the current delivery
+     */
+    int numTouched() {
+        return numTouched;
+    }
+
+    /**
+     * Returns the id of the i-th subscription part of the current delivery
+     */
+    int touched(int i) {
+        return touched[i];
+    }
+
+    /**
+     * Returns the delivery list for the subscription or null if there is none.
+     */
+    ArrayList<ParameterValue> peek(int subscriptionId) {
+        return buffers[indexOf(subscriptionId)];
+    }
+
+    /**
+     * Clears the lists of all the subscriptions part of the current delivery, making them ready for the next one.
+     */
+    void reset() {
+        for (int i = 0; i < numTouched; i++) {
+            int idx = indexOf(touched[i]);
+            ArrayList<ParameterValue> al = buffers[idx];
+            if (al.size() > MAX_RETAINED_SIZE) {
+                buffers[idx] = new ArrayList<>();
+            } else {
+                al.clear();
+            }
+        }
+        numTouched = 0;
+    }
+
+    /**
+     * Removes the lists of the subscriptions for which the predicate returns false.
+     * <p>
+     * Should not be called in the middle of a delivery.
+     */
+    void retainAll(IntPredicate predicate) {
+        int i = 0;
+        while (i < keys.length) {
+            if (buffers[i] != null && !predicate.test(keys[i])) {
+                // the slot is refilled by shifting back; examine it again
+                deleteSlot(i);
+            } else {
+                i++;
+            }
+        }
+    }
+
+    int size() {
+        return count;
+    }
+
+    private void markTouched(int subscriptionId) {
+        if (numTouched == touched.length) {
+            touched = Arrays.copyOf(touched, 2 * touched.length);
+        }
+        touched[numTouched++] = subscriptionId;
+    }
+
+    private int indexOf(int subscriptionId) {
+        int mask = keys.length - 1;
+        int idx = mix(subscriptionId) & mask;
+        while (buffers[idx] != null && keys[idx] != subscriptionId) {
+            idx = (idx + 1) & mask;
+        }
+        return idx;
+    }
+
+    private void insert(int idx, int subscriptionId, ArrayList<ParameterValue> al) {
+        keys[idx] = subscriptionId;
+        buffers[idx] = al;
+        count++;
+        if (2 * count > keys.length) {
+            rehash(2 * keys.length);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void rehash(int newCapacity) {
+        int[] oldKeys = keys;
+        ArrayList<ParameterValue>[] oldBuffers = buffers;
+        keys = new int[newCapacity];
+        buffers = new ArrayList[newCapacity];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldBuffers[i] != null) {
+                int idx = indexOf(oldKeys[i]);
+                keys[idx] = oldKeys[i];
+                buffers[idx] = oldBuffers[i];
+            }
+        }
+    }
+
+    // backward shift deletion for linear probing
+    private void deleteSlot(int idx) {
+        int mask = keys.length - 1;
+        buffers[idx] = null;
+        count--;
+        int i = idx;
+        int j = (i + 1) & mask;
+        while (buffers[j] != null) {
+            int home = mix(keys[j]) & mask;
+            // move j to i if its home position is not in the cyclic interval (i, j]
+            if (((j - home) & mask) >= ((j - i) & mask)) {
+                keys[i] = keys[j];
+                buffers[i] = buffers[j];
+                buffers[j] = null;
+                i = j;
+            }
+            j = (j + 1) & mask;
+        }
+    }
+
+    private static int mix(int x) {
+        int h = x * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -1,10 +1,11 @@
 package org.yamcs.parameter;
 
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 import org.yamcs.xtce.DataSource;
 import org.yamcs.xtce.Parameter;
@@ -14,15 +15,15 @@ import org.yamcs.xtce.Parameter;
  * <p>
  * Can also stored a number of n values for certain parameters (required by algorithms and match criterias)
  * <p>
- * it uses a readwrite lock to synchronize access from multiple threads.
+ * Each parameter is resolved to a slot ({@link ParamBuffer}) which is created the first time a value is added or
+ * buffering is enabled and never replaced afterwards. The slots are kept in a {@link ConcurrentHashMap} and the
+ * values are updated with a volatile write (for the slots holding only the last value) or with compare and swap (for
+ * the buffered slots) such that neither the readers nor the writers take any lock.
  *
  */
 public class LastValueCache {
-    HashMap<Parameter, ParameterValue> constants = new HashMap<>();
-    HashMap<Parameter, ParameterValue> params = new HashMap<>();
-    HashMap<Parameter, ParamBuffer> bufferedParams = new HashMap<>();
-
-    ReadWriteLock lock = new ReentrantReadWriteLock();
+    final HashMap<Parameter, ParameterValue> constants = new HashMap<>();
+    final ConcurrentHashMap<Parameter, ParamBuffer> slots = new ConcurrentHashMap<>();
 
     public LastValueCache() {
     }
@@ -33,7 +34,7 @@ public class LastValueCache {
 
     /**
      * Returns the latest known value for p or null if there is none.
-     * 
+     *
      * @param param
      * @return
      */
@@ -41,18 +42,8 @@ public class LastValueCache {
         if (param.getDataSource() == DataSource.CONSTANT) {
             return constants.get(param);
         }
-
-        lock.readLock().lock();
-        try {
-            ParamBuffer pb = bufferedParams.get(param);
-            if (pb != null) {
-                return pb.end();
-            } else {
-                return params.get(param);
-            }
-        } finally {
-            lock.readLock().unlock();
-        }
+        ParamBuffer pb = slots.get(param);
+        return pb == null ? null : pb.end();
     }
 
     /**
@@ -62,7 +53,7 @@ public class LastValueCache {
      * <p>
      * If n<0 but buffering is not enabled for the parameter or the buffer capacity is smaller than -n+1, an
      * IllegalStateException will be thrown
-     * 
+     *
      * @throws IllegalArgumentException
      *             if n>0 or if n<0 and the parameter is constant
      * @throws IllegalStateException
@@ -79,32 +70,26 @@ public class LastValueCache {
                 return constants.get(param);
             }
         }
+        if (n == 0) {
+            return getValue(param);
+        }
 
-        lock.readLock().lock();
-        try {
-            if (n == 0) {
-                return getValue(param);
-            }
-
-            ParamBuffer pb = bufferedParams.get(param);
-            if (pb == null) {
-                throw new IllegalStateException("Buffering not enabled for " + param.getQualifiedName());
-            }
-            if (pb.capacity() < -n + 1) {
-                throw new IllegalStateException("Buffering enabled for " + param.getQualifiedName()
-                        + " but it's capacity " + pb.capacity() + " is smaller than " + (n + 1));
-            }
-            return pb.nth(n);
-        } finally {
-            lock.readLock().unlock();
+        ParamBuffer pb = slots.get(param);
+        if (pb == null || pb.capacity() == 1) {
+            throw new IllegalStateException("Buffering not enabled for " + param.getQualifiedName());
         }
+        if (pb.capacity() < -n + 1) {
+            throw new IllegalStateException("Buffering enabled for " + param.getQualifiedName()
+                    + " but it's capacity " + pb.capacity() + " is smaller than " + (n + 1));
+        }
+        return pb.nth(n);
     }
 
     /**
      * Configure the parameter cache to remember at least capacity values for the parameter.
      * <p>
      * The size has to be at least 2 (because size 1 is by default)
-     * 
+     *
      * @throws IllegalArgumentException
      *             if the capacity is smaller than 2 or the parameter is a constant.
      */
@@ -115,174 +100,218 @@ public class LastValueCache {
         if (param.getDataSource() == DataSource.CONSTANT) {
             throw new IllegalArgumentException("Cannot enable buffering for constant parameters");
         }
-        lock.writeLock().lock();
-        try {
-
-            ParamBuffer pb = bufferedParams.get(param);
-            if (pb == null) {
-                pb = new ParamBuffer(capacity);
-                ParameterValue pv = params.remove(param);
-                if (pv != null) {
-                    pb.add(pv);
-                }
-                bufferedParams.put(param, pb);
-            } else {
-                if (capacity <= pb.capacity()) {
-                    return;
-                } else {
-                    ParamBuffer pb1 = new ParamBuffer(pb, capacity);
-
-                    bufferedParams.put(param, pb1);
-                }
-            }
-        } finally {
-            lock.writeLock().unlock();
-        }
+        getSlot(param).ensureCapacity(capacity);
     }
 
     /**
      * Adds a new value. If buffering is enabled, the value is added to the buffer, otherwise it replaces the old value
      * (if any)
-     * 
+     *
      * @param pv
      */
     public void add(ParameterValue pv) {
-        lock.writeLock().lock();
-        try {
-            doAdd(pv);
-        } finally {
-            lock.writeLock().unlock();
-        }
-    }
-
-    private void doAdd(ParameterValue pv) {
         Parameter param = pv.getParameter();
         if (param.getDataSource() == DataSource.CONSTANT) {
             throw new IllegalArgumentException("Cannot add constants (they can only be added in the constructor)");
         }
-        ParamBuffer pb = bufferedParams.get(param);
-        if (pb == null) {
-            params.put(param, pv);
-        } else {
-            pb.add(pv);
-        }
+        getSlot(param).add(pv);
     }
 
     /**
      * Add all parameters to the cache
-     * 
+     *
      * @param newValues
      */
     public void addAll(Collection<ParameterValue> newValues) {
-        lock.writeLock().lock();
-        try {
-            newValues.forEach(pv -> doAdd(pv));
-        } finally {
-            lock.writeLock().unlock();
+        for (ParameterValue pv : newValues) {
+            add(pv);
         }
     }
 
     public int size() {
-        lock.readLock().lock();
-        try {
-            return constants.size() + params.size() + bufferedParams.size();
-        } finally {
-            lock.readLock().unlock();
-        }
+        return constants.size() + slots.size();
     }
 
     /**
      * returns all the values from the cache
-     * 
+     *
      * @return
      */
     public Collection<ParameterValue> getValues() {
-        lock.readLock().lock();
-        try {
-            return params.values();
-        } finally {
-            lock.readLock().unlock();
+        List<ParameterValue> values = new ArrayList<>(slots.size());
+        for (ParamBuffer pb : slots.values()) {
+            ParameterValue pv = pb.end();
+            if (pv != null) {
+                values.add(pv);
+            }
+        }
+        return values;
+    }
+
+    private ParamBuffer getSlot(Parameter param) {
+        ParamBuffer pb = slots.get(param);
+        if (pb == null) {
+            pb = new ParamBuffer(1);
+            ParamBuffer pb1 = slots.putIfAbsent(param, pb);
+            if (pb1 != null) {
+                pb = pb1;
+            }
         }
+        return pb;
     }
 
-    // fixed size circular buffer
+    /**
+     * Lock free fixed size history of values.
+     * <p>
+     * With a capacity of 1 (the default) only the last value is kept, in a volatile field which is simply overwritten
+     * by each update.
+     * <p>
+     * With a larger capacity the values are kept in an immutable linked list starting with the newest value. A new
+     * value is added by swapping the head of the list, after which the list is truncated to the capacity.
+     */
     static class ParamBuffer {
-        final ParameterValue[] data;
-        int end = -1;
+        static final AtomicReferenceFieldUpdater<ParamBuffer, Node> HEAD_UPDATER = AtomicReferenceFieldUpdater
+                .newUpdater(ParamBuffer.class, Node.class, "head");
+
+        // used when the capacity is 1
+        volatile ParameterValue last;
+        // used when the capacity is greater than 1
+        volatile Node head;
+        volatile int capacity;
 
         ParamBuffer(int capacity) {
-            this.data = new ParameterValue[capacity];
+            this.capacity = capacity;
         }
 
-        ParamBuffer(ParamBuffer pb1, int capacity) {
-            this.data = Arrays.copyOf(pb1.data, capacity);
-            this.end = pb1.end;
+        public int capacity() {
+            return capacity;
         }
 
-        public int capacity() {
-            return data.length;
+        synchronized void ensureCapacity(int c) {
+            if (c <= capacity) {
+                return;
+            }
+            if (capacity == 1) {
+                // move the last value into the list; the head is set before the capacity such that the readers seeing
+                // the new capacity find the value in the list
+                ParameterValue pv = last;
+                if (pv != null) {
+                    addNode(pv, c, false);
+                }
+                capacity = c;
+                // a value added in the meanwhile by a writer which has not seen the new capacity
+                pv = last;
+                if (pv != null) {
+                    addNode(pv, c, true);
+                }
+            } else {
+                capacity = c;
+            }
         }
 
         public ParameterValue end() {
-            return end == -1 ? null : data[end];
+            if (capacity == 1) {
+                return last;
+            }
+            Node h = head;
+            return h == null ? null : h.pv;
         }
 
         /**
-         * Return the element end+n (n is negative)
-         * 
+         * Return the element end+n (n is negative) or null if there are not that many values
          */
         public ParameterValue nth(int n) {
             assert (n <= 0);
-
-            int k = end + n;
-            if (k < 0) {
-                k += data.length;
+            if (capacity == 1) {
+                return n == 0 ? last : null;
+            }
+            while (true) {
+                Node h = head;
+                Node node = h;
+                for (int i = n; i < 0 && node != null; i++) {
+                    node = node.prev;
+                }
+                if (node != null) {
+                    return node.pv;
+                }
+                // the list may have been truncated by a writer while walking it
+                if (head == h) {
+                    return null;
+                }
             }
-            return data[k];
         }
 
         public void add(ParameterValue pv) {
-            end = incr(end);
-            data[end] = pv;
+            if (capacity == 1) {
+                last = pv;
+                if (capacity == 1) {
+                    return;
+                }
+                // buffering has been enabled in the meanwhile, the value may or may not have been moved to the list
+                addNode(pv, capacity, true);
+            } else {
+                addNode(pv, capacity, false);
+            }
         }
 
-        private int incr(int k) {
-            int k1 = k + 1;
-            return k1 < data.length ? k1 : k1 - data.length;
+        /**
+         * Adds the value to the head of the list. If ifAbsent is true, the value is not added if it is already the head
+         * (used when moving the last value to the list while enabling the buffering)
+         */
+        private void addNode(ParameterValue pv, int c, boolean ifAbsent) {
+            Node h;
+            Node newHead = new Node(pv);
+            do {
+                h = head;
+                if (ifAbsent && h != null && h.pv == pv) {
+                    return;
+                }
+                newHead.prev = h;
+            } while (!HEAD_UPDATER.compareAndSet(this, h, newHead));
+
+            // keep one extra value for the readers which have started walking from the previous head
+            Node node = newHead;
+            for (int i = 0; i < c && node != null; i++) {
+                node = node.prev;
+            }
+            if (node != null) {
+                node.prev = null;
+            }
         }
 
         public boolean isEmpty() {
-            return end == -1;
+            return end() == null;
         }
 
         @Override
         public String toString() {
-
-            if (end == -1) {
-                return "[]";
-            }
             StringBuilder sb = new StringBuilder();
             sb.append("[");
-            int k = end;
-            while (true) {
-                ParameterValue pv = data[k];
-                if (pv == null) {
-                    sb.append("null");
-                } else {
-                    sb.append(pv.getParameter().getName())
-                            .append("(")
-                            .append(pv.getRawValue())
-                            .append(", ")
-                            .append(pv.getEngValue())
-                            .append(")");
+            Node node = capacity == 1 ? (last == null ? null : new Node(last)) : head;
+            for (int i = 0; i < capacity && node != null; i++) {
+                if (i > 0) {
+                    sb.append(", ");
                 }
-                k = incr(k);
-                if (k == end) {
-                    break;
-                }
-
+                ParameterValue pv = node.pv;
+                sb.append(pv.getParameter().getName())
+                        .append("(")
+                        .append(pv.getRawValue())
+                        .append(", ")
+                        .append(pv.getEngValue())
+                        .append(")");
+                node = node.prev;
             }
+            sb.append("]");
             return sb.toString();
         }
     }
+
+    static final class Node {
+        final ParameterValue pv;
+        volatile Node prev;
+
+        Node(ParameterValue pv) {
+            this.pv = pv;
+        }
+    }
 }
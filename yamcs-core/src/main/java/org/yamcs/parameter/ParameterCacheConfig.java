@@ -13,12 +13,20 @@ public class ParameterCacheConfig {
     //maximum duration of the cache
     final long maxDuration;
     final int maxNumEntries;
+    // maximum memory (in bytes) used by the cache for storing values, -1 means no limit
+    final long maxMemory;
     
     public ParameterCacheConfig(boolean enabled, boolean cacheAll, long duration, int maxNumEntries) {
+        this(enabled, cacheAll, duration, maxNumEntries, -1);
+    }
+
+    public ParameterCacheConfig(boolean enabled, boolean cacheAll, long duration, int maxNumEntries,
+            long maxMemory) {
         this.enabled = enabled;
         this.cacheAll = cacheAll;
         this.maxDuration = duration;
         this.maxNumEntries = maxNumEntries;
+        this.maxMemory = maxMemory;
     }
     
     public ParameterCacheConfig() {
@@ -26,6 +34,7 @@ public class ParameterCacheConfig {
         this.cacheAll = false;
         this.maxDuration = 0;
         this.maxNumEntries = 0;
+        this.maxMemory = -1;
     }
 
     public ParameterCacheConfig(YConfiguration cacheConfig, Log log) {
@@ -43,11 +52,13 @@ public class ParameterCacheConfig {
         cacheAll = cacheConfig.getBoolean("cacheAll", false);
         maxDuration = 1000L * cacheConfig.getInt("duration", 300);
         maxNumEntries = cacheConfig.getInt("maxNumEntries", 512);
+        int maxMemoryMb = cacheConfig.getInt("maxMemory", -1);
+        maxMemory = maxMemoryMb < 0 ? -1 : 1024L * 1024 * maxMemoryMb;
     }
 
     @Override
     public String toString() {
         return "ParameterCacheConfig [enabled=" + enabled + ", cacheAll=" + cacheAll + ", maxDuration=" + maxDuration
-                + ", maxNumEntries=" + maxNumEntries + "]";
+                + ", maxNumEntries=" + maxNumEntries + ", maxMemory=" + maxMemory + "]";
     }
 }
@@ -9,5 +9,15 @@ import java.util.List;
  *
  */
 public interface ParameterConsumer {
+    /**
+     * Called with the values of the parameters part of the subscription.
+     * <p>
+     * The list is owned by the caller and it is only valid for the duration of the call: it is reused for the next
+     * delivery. The consumers which process the values asynchronously have to make a copy.
+     * 
+     * @param subscriptionId
+     * @param items
+     *            unmodifiable list of values
+     */
     void updateItems(int subscriptionId, List<ParameterValue> items);
 }
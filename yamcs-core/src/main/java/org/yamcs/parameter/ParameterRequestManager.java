@@ -2,7 +2,6 @@ package org.yamcs.parameter;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -38,6 +37,12 @@ public class ParameterRequestManager {
 
     private static AtomicInteger lastSubscriptionId = new AtomicInteger();
 
+    // reusable delivery lists, one set for each thread calling update
+    private final ThreadLocal<DeliveryBuffers> deliveryBuffers = ThreadLocal.withInitial(DeliveryBuffers::new);
+
+    // incremented each time a subscription is removed, used to prune the delivery buffers
+    private final AtomicInteger removeCount = new AtomicInteger();
+
     public final Processor processor;
 
     LastValueCache lastValueCache;
@@ -255,6 +260,7 @@ public class ParameterRequestManager {
             }
         }
         request2ParameterConsumerMap.remove(subscriptionId);
+        removeCount.incrementAndGet();
         return result;
     }
 
@@ -314,65 +320,59 @@ public class ParameterRequestManager {
      */
     public void update(ParameterValueList pvlist) {
         // build the customised lists for the subscribers and send it to them
-        HashMap<Integer, ArrayList<ParameterValue>> subscription = new HashMap<>();
-        updateSubscription(subscription, pvlist);
+        DeliveryBuffers buffers = deliveryBuffers.get();
+        int rc = removeCount.get();
+        if (buffers.removeCount != rc) {
+            buffers.removeCount = rc;
+            buffers.retainAll(request2ParameterConsumerMap::containsKey);
+        }
+        try {
+            updateSubscription(buffers, pvlist);
 
-        for (Map.Entry<Integer, ArrayList<ParameterValue>> entry : subscription.entrySet()) {
-            Integer subscriptionId = entry.getKey();
+            for (int i = 0; i < buffers.numTouched(); i++) {
+                int subscriptionId = buffers.touched(i);
+                deliver(subscriptionId, buffers.peek(subscriptionId));
+            }
+        } finally {
+            buffers.reset();
+        }
 
-            ArrayList<ParameterValue> al = entry.getValue();
-            ParameterConsumer consumer = request2ParameterConsumerMap.get(subscriptionId);
-            if (consumer == null) {
-                log.warn("subscriptionId {} appears in the delivery list, but there is no consumer for it",
-                        subscriptionId);
-            } else {
-                consumer.updateItems(subscriptionId, al);
+        // the subscribeAll subscriptions receive the whole delivery
+        int[] subscribeAll = subscribeAllConsumers.getArray();
+        if (subscribeAll.length > 0) {
+            List<ParameterValue> all = pvlist.listView();
+            for (int id : subscribeAll) {
+                deliver(id, all);
             }
         }
     }
 
+    private void deliver(int subscriptionId, List<ParameterValue> items) {
+        ParameterConsumer consumer = request2ParameterConsumerMap.get(subscriptionId);
+        if (consumer == null) {
+            log.warn("subscriptionId {} appears in the delivery list, but there is no consumer for it",
+                    subscriptionId);
+        } else {
+            consumer.updateItems(subscriptionId, items);
+        }
+    }
+
     /**
-     * adds the passed parameters to the subscription
+     * adds the passed parameters to the subscription buffers
      * 
-     * @param subscription
+     * @param buffers
      * @param currentDelivery
      */
-    private void updateSubscription(HashMap<Integer, ArrayList<ParameterValue>> subscription,
-            Collection<ParameterValue> currentDelivery) {
-        if (currentDelivery == null) {
-            return;
-        }
-
-        for (Iterator<ParameterValue> it = currentDelivery.iterator(); it.hasNext();) {
-            ParameterValue pv = it.next();
-            Parameter pDef = pv.getParameter();
-            SubscriptionArray cowal = param2RequestMap.get(pDef);
+    private void updateSubscription(DeliveryBuffers buffers, ParameterValueList currentDelivery) {
+        for (ParameterValue pv : currentDelivery) {
+            SubscriptionArray cowal = param2RequestMap.get(pv.getParameter());
             // now walk through the requests and add this item to their delivery list
             if (cowal == null) {
                 continue;
             }
 
             for (int s : cowal.getArray()) {
-                ArrayList<ParameterValue> al = subscription.get(s);
-                if (al == null) {
-                    al = new ArrayList<>();
-                    subscription.put(s, al);
-                }
-                al.add(pv);
-            }
-        }
-
-        // update the subscribeAll subscriptions
-        for (int id : subscribeAllConsumers.getArray()) {
-            ArrayList<ParameterValue> al = subscription.get(id);
-
-            if (al == null) {
-                al = new ArrayList<>();
-                subscription.put(id, al);
-            }
-
-            for (ParameterValue pv : currentDelivery) {
-                al.add(pv);
+                buffers.get(s).add(pv);
             }
         }
     }
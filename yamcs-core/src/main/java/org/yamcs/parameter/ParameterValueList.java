@@ -1,8 +1,10 @@
 package org.yamcs.parameter;
 
+import java.util.AbstractList;
 import java.util.Collection;
 import java.util.ConcurrentModificationException;
 import java.util.Iterator;
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.function.Consumer;
 
@@ -518,6 +520,38 @@ public class ParameterValueList implements Collection<ParameterValue> {
         }
     }
 
+    private final class ListView extends AbstractList<ParameterValue> {
+        // cursor used to speed up the sequential get
+        Entry cur = head;
+        int curIdx = -1;
+
+        @Override
+        public ParameterValue get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + " size: " + size);
+            }
+            if (index < curIdx) {
+                cur = head;
+                curIdx = -1;
+            }
+            while (curIdx < index) {
+                cur = cur.after;
+                curIdx++;
+            }
+            return cur.pv;
+        }
+
+        @Override
+        public Iterator<ParameterValue> iterator() {
+            return new Iter(false);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
     private final class Iter implements Iterator<ParameterValue> {
         Entry cur;
         int expectedRmCount;
@@ -551,6 +585,18 @@ public class ParameterValueList implements Collection<ParameterValue> {
         }
     }
 
+    /**
+     * Returns an unmodifiable {@link List} view of this collection, without copying the values.
+     * <p>
+     * The iteration is in insertion order; {@link List#get(int)} is efficient only when accessing the elements
+     * sequentially.
+     * <p>
+     * The view reflects the additions made to the underlying collection; removing elements will invalidate it.
+     */
+    public List<ParameterValue> listView() {
+        return new ListView();
+    }
+
     public static ParameterValueList asList(ParameterValue... pvs) {
         ParameterValueList pvl = new ParameterValueList();
         for (ParameterValue pv : pvs) {
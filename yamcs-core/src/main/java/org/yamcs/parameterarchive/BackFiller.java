@@ -53,8 +53,8 @@ public class BackFiller implements StreamSubscriber {
     private final Log log;
     final ScheduledThreadPoolExecutor executor;
 
-    // set of segments that have to be rebuilt following monitoring of streams
-    private Set<Long> streamUpdates;
+    // set of segments that have to be rebuilt following monitoring of streams or data dropped by the realtime filler
+    private final Set<Long> streamUpdates = new HashSet<>();
     // streams which are monitored
     private List<Stream> subscribedStreams;
     // how often (in seconds) the fillup based on the stream monitoring is started
@@ -115,11 +115,9 @@ public class BackFiller implements StreamSubscriber {
                 }, t0 - now, TimeUnit.MILLISECONDS);
             }
         }
-        if (subscribedStreams != null && !subscribedStreams.isEmpty()) {
-            executor.scheduleAtFixedRate(() -> {
-                checkStreamUpdates();
-            }, streamUpdateFillFrequency, streamUpdateFillFrequency, TimeUnit.SECONDS);
-        }
+        executor.scheduleAtFixedRate(() -> {
+            checkStreamUpdates();
+        }, streamUpdateFillFrequency, streamUpdateFillFrequency, TimeUnit.SECONDS);
     }
 
     private void parseConfig(YConfiguration config) {
@@ -148,7 +146,6 @@ public class BackFiller implements StreamSubscriber {
             sc.getEntries(StandardStreamType.PARAM).forEach(sce -> monitoredStreams.add(sce.getName()));
         }
         if (!monitoredStreams.isEmpty()) {
-            streamUpdates = new HashSet<>();
             subscribedStreams = new ArrayList<>(monitoredStreams.size());
             YarchDatabaseInstance ydb = YarchDatabase.getInstance(parchive.getYamcsInstance());
             for (String streamName : monitoredStreams) {
@@ -218,6 +215,17 @@ public class BackFiller implements StreamSubscriber {
         runTask(start, stop);
     }
 
+    /**
+     * Called by the realtime filler when it had to drop data. The interval containing t will be rebuilt at the next
+     * check of the stream updates.
+     */
+    void addIntervalToRebuild(long t) {
+        long t0 = ParameterArchive.getIntervalStart(t);
+        synchronized (streamUpdates) {
+            streamUpdates.add(t0);
+        }
+    }
+
     private void checkStreamUpdates() {
         long[] a;
         synchronized (streamUpdates) {
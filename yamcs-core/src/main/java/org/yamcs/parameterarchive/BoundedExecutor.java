@@ -0,0 +1,79 @@
+package org.yamcs.parameterarchive;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Executes tasks on another (shared) executor, limiting the number of tasks running at the same time.
+ * <p>
+ * It is used to limit the number of threads used by one retrieval, such that one large request does not starve the
+ * other ones.
+ */
+class BoundedExecutor implements Executor {
+    final Executor executor;
+    final int maxRunning;
+
+    // guarded by this
+    final ArrayDeque<Runnable> pending = new ArrayDeque<>();
+    int running;
+
+    BoundedExecutor(Executor executor, int maxRunning) {
+        if (maxRunning < 1) {
+            throw new IllegalArgumentException("maxRunning has to be at least 1");
+        }
+        this.executor = executor;
+        this.maxRunning = maxRunning;
+    }
+
+    @Override
+    public void execute(Runnable r) {
+        synchronized (this) {
+            if (running >= maxRunning) {
+                pending.add(r);
+                return;
+            }
+            running++;
+        }
+        try {
+            executor.execute(() -> run(r));
+        } catch (RejectedExecutionException e) {
+            synchronized (this) {
+                running--;
+            }
+            throw e;
+        }
+    }
+
+    private void run(Runnable r) {
+        try {
+            r.run();
+        } finally {
+            done();
+        }
+    }
+
+    private void done() {
+        while (true) {
+            Runnable next;
+            synchronized (this) {
+                next = pending.poll();
+                if (next == null) {
+                    running--;
+                    return;
+                }
+            }
+            try {
+                executor.execute(() -> run(next));
+                return;
+            } catch (RejectedExecutionException e) {
+                // the executor has been shut down; run the task here such that it does not get lost
+                next.run();
+            }
+        }
+    }
+
+    synchronized int numRunning() {
+        return running;
+    }
+}
@@ -1,19 +1,33 @@
 package org.yamcs.parameterarchive;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.PriorityQueue;
+import java.util.concurrent.Executor;
 import java.util.function.Consumer;
 
 import org.rocksdb.RocksDBException;
 import org.yamcs.logging.Log;
 import org.yamcs.parameter.ParameterValue;
 import org.yamcs.protobuf.Pvalue.ParameterStatus;
+import org.yamcs.utils.IntArray;
 import org.yamcs.utils.TimeEncoding;
 
+/**
+ * Retrieves the values of multiple parameters from the parameter archive, merging them in time order.
+ * <p>
+ * Each (parameter, group) is read with its own iterator; if the parallel retrieval is enabled in the parameter
+ * archive, the iterators read ahead in background on the retrieval thread pool and only the merging is done on the
+ * calling thread. The number of threads used by one retrieval is limited by the maxRequestParallelism option.
+ */
 public class MultiParameterRetrieval {
+    // number of batches read in advance by each iterator in parallel mode
+    static final int PREFETCH_BATCHES = 4;
+
     final ParameterArchive parchive;
     final MultipleParameterRequest mpvr;
     final AggrrayBuilder[] aggarrayBuilders;
@@ -32,37 +46,64 @@ public class MultiParameterRetrieval {
         log.trace("Starting a parameter retrieval: {}", mpvr);
 
         ParameterGroupIdDb pgDb = parchive.getParameterGroupIdDb();
-        PriorityQueue<ParameterIterator> queue = new PriorityQueue<>(new IteratorComparator(mpvr.ascending));
         int[] parameterGroupIds = mpvr.parameterGroupIds;
 
+        List<ParameterId> streamPids = new ArrayList<>();
+        IntArray streamPgids = new IntArray();
 
         for (int i = 0; i < mpvr.parameterIds.length; i++) {
             ParameterId paraId = mpvr.parameterIds[i];
-
-            ParameterRequest req = new ParameterRequest(mpvr.start, mpvr.stop, mpvr.ascending, mpvr.retrieveEngValues,
-                    mpvr.retrieveRawValues && paraId.hasRawValue(), mpvr.retrieveParamStatus);
-
             if (parameterGroupIds != null) {
-                queueIterator(queue, paraId, parameterGroupIds[i], req);
+                streamPids.add(paraId);
+                streamPgids.add(parameterGroupIds[i]);
             } else {
                 int pid0 = paraId.isSimple() ? paraId.getPid() : paraId.getComponents().get(0);
                 for (int pgid : pgDb.getAllGroups(pid0)) {
-                    queueIterator(queue, paraId, pgid, req);
+                    streamPids.add(paraId);
+                    streamPgids.add(pgid);
                 }
             }
         }
-        log.trace("Got {} parallel iterators", queue.size());
 
+        // with more than one (parameter, group) to read, the reading is done in parallel if enabled
+        Executor executor = null;
+        if (streamPids.size() > 1 && parchive.getRetrievalExecutor() != null) {
+            executor = new BoundedExecutor(parchive.getRetrievalExecutor(), parchive.getMaxRequestParallelism());
+        }
+
+        List<ParameterIterator> iterators = new ArrayList<>(streamPids.size());
+        PriorityQueue<ParameterIterator> queue = new PriorityQueue<>(new IteratorComparator(mpvr.ascending));
         Merger merger = new Merger(mpvr, consumer);
 
-        ParameterIterator it = null;
         try {
+            for (int i = 0; i < streamPids.size(); i++) {
+                ParameterId paraId = streamPids.get(i);
+                ParameterRequest req = new ParameterRequest(mpvr.start, mpvr.stop, mpvr.ascending,
+                        mpvr.retrieveEngValues, mpvr.retrieveRawValues && paraId.hasRawValue(),
+                        mpvr.retrieveParamStatus);
+                int pgid = streamPgids.get(i);
+                if (executor == null) {
+                    iterators.add(createIterator(paraId, pgid, req));
+                } else {
+                    iterators.add(new PrefetchingParameterIterator(paraId, pgid,
+                            () -> createIterator(paraId, pgid, req), executor, PREFETCH_BATCHES));
+                }
+            }
+            // in parallel mode this waits for the first batch of each iterator
+            for (ParameterIterator it : iterators) {
+                if (it.isValid()) {
+                    queue.add(it);
+                }
+            }
+            log.trace("Got {} parallel iterators", queue.size());
+
             while (!queue.isEmpty()) {
-                it = queue.poll();
+                ParameterIterator it = queue.poll();
                 merger.process(it.getParameterId(), it.getParameterGroupId(), it.value());
 
-                if (merger.sentEnough())
+                if (merger.sentEnough()) {
                     return;
+                }
 
                 it.next();
                 if (it.isValid()) {
@@ -73,26 +114,16 @@ public class MultiParameterRetrieval {
         } catch (ConsumerAbortException e) {
             log.debug("Stopped early due to receiving ConsumerAbortException");
         } finally {
-            if (it != null) {
-                it.close();
-            }
-            queue.forEach(it1 -> it1.close());
+            iterators.forEach(it -> it.close());
         }
         log.trace("Retrieval finished");
     }
 
-    private void queueIterator(PriorityQueue<ParameterIterator> queue,
-            ParameterId paraId, int pgid, ParameterRequest req) {
-        ParameterIterator it;
+    private ParameterIterator createIterator(ParameterId paraId, int pgid, ParameterRequest req) {
         if (paraId.isSimple()) {
-            it = new SimpleParameterIterator(parchive, paraId, pgid, req);
-        } else {
-            it = new AggrrayIterator(parchive, paraId, pgid, req);
-        }
-        if (it.isValid()) {
-            queue.add(it);
+            return new SimpleParameterIterator(parchive, paraId, pgid, req);
         } else {
-            it.close();
+            return new AggrrayIterator(parchive, paraId, pgid, req);
         }
     }
 
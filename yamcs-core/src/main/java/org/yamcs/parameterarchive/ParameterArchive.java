@@ -8,6 +8,8 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.Future;
 
 import org.rocksdb.RocksDB;
@@ -22,6 +24,7 @@ import org.yamcs.Spec;
 import org.yamcs.Spec.OptionType;
 import org.yamcs.YConfiguration;
 import org.yamcs.YamcsServer;
+import org.yamcs.parameter.ValueArray;
 import org.yamcs.time.TimeService;
 import org.yamcs.utils.ByteArrayUtils;
 import org.yamcs.utils.DatabaseCorruptionException;
@@ -94,6 +97,11 @@ public class ParameterArchive extends AbstractYamcsService {
     boolean realtimeFillerEnabled;
     boolean backFillerEnabled;
     int maxSegmentSize;
+    boolean rollupsEnabled;
+
+    // used to read in parallel the data of the different parameters/groups of one retrieval
+    private ForkJoinPool retrievalPool;
+    int maxRequestParallelism;
 
     @Override
     public Spec getSpec() {
@@ -103,6 +111,9 @@ public class ParameterArchive extends AbstractYamcsService {
         spec.addOption("partitioningSchema", OptionType.STRING).withDefault("YYYY")
                 .withChoices("YYYY/DOY", "YYYY/MM", "YYYY", "none");
         spec.addOption("maxSegmentSize", OptionType.INTEGER).withDefault(5000);
+        spec.addOption("rollups", OptionType.BOOLEAN).withDefault(true);
+        spec.addOption("retrievalThreads", OptionType.INTEGER).withDefault(0);
+        spec.addOption("maxRequestParallelism", OptionType.INTEGER).withDefault(4);
 
         return spec;
     }
@@ -115,6 +126,16 @@ public class ParameterArchive extends AbstractYamcsService {
         YarchDatabaseInstance ydb = YarchDatabase.getInstance(yamcsInstance);
         tablespace = RdbStorageEngine.getInstance().getTablespace(ydb);
         this.maxSegmentSize = config.getInt("maxSegmentSize");
+        this.rollupsEnabled = config.getBoolean("rollups");
+        int retrievalThreads = config.getInt("retrievalThreads");
+        if (retrievalThreads > 0) {
+            retrievalPool = new ForkJoinPool(retrievalThreads, ForkJoinPool.defaultForkJoinWorkerThreadFactory, null,
+                    true);
+        }
+        this.maxRequestParallelism = config.getInt("maxRequestParallelism");
+        if (maxRequestParallelism < 1) {
+            throw new ConfigurationException("maxRequestParallelism has to be at least 1");
+        }
 
         if (config.containsKey("backFiller")) {
             backFillerConfig = config.getConfig("backFiller");
@@ -269,6 +290,9 @@ public class ParameterArchive extends AbstractYamcsService {
                     SegmentKey.TYPE_ENG_VALUE).encode();
             byte[] engValue = vsEncoder.encode(vs);
             writeBatch.put(engKey, engValue);
+            if (rollupsEnabled) {
+                writeRollups(writeBatch, pgs, parameterId, timeSegment, vs);
+            }
             if (STORE_RAW_VALUES && consolidatedRawValues != null) {
                 BaseSegment rvs = consolidatedRawValues.get(i);
                 if (rvs != null) {
@@ -304,6 +328,24 @@ public class ParameterArchive extends AbstractYamcsService {
         }
     }
 
+    private void writeRollups(WriteBatch writeBatch, PGSegment pgs, int parameterId, SortedTimeSegment timeSegment,
+            BaseSegment vs) throws RocksDBException {
+        if (!(vs instanceof IntValueSegment || vs instanceof LongValueSegment || vs instanceof FloatValueSegment
+                || vs instanceof DoubleValueSegment)) {
+            return;
+        }
+        ValueArray values = ((ValueSegment) vs).getRange(0, vs.size(), true);
+        for (int tier = 0; tier < RollupSegment.BUCKET_SIZES.length; tier++) {
+            RollupSegment rs = RollupSegment.build(timeSegment, values, RollupSegment.BUCKET_SIZES[tier]);
+            if (rs == null) {
+                return;
+            }
+            byte[] key = new SegmentKey(parameterId, pgs.getParameterGroupId(), pgs.getSegmentStart(),
+                    RollupSegment.getKeyType(tier)).encode();
+            writeBatch.put(key, vsEncoder.encode(rs));
+        }
+    }
+
     private void removeOldOverlappingSegments(WriteBatch writeBatch, PGSegment pgs) throws RocksDBException {
         long segStart = pgs.getSegmentStart();
         long segEnd = pgs.getSegmentEnd();
@@ -402,6 +444,9 @@ public class ParameterArchive extends AbstractYamcsService {
             if (realtimeFiller != null) {
                 realtimeFiller.shutDown();
             }
+            if (retrievalPool != null) {
+                retrievalPool.shutdown();
+            }
         } catch (Exception e) {
             log.error("Error stopping realtime filler", e);
             notifyFailed(e);
@@ -509,10 +554,36 @@ public class ParameterArchive extends AbstractYamcsService {
         return maxSegmentSize;
     }
 
+    /**
+     * Returns true if the rollups (see {@link RollupSegment}) are written together with the value segments
+     */
+    public boolean isRollupsEnabled() {
+        return rollupsEnabled;
+    }
+
     public RealtimeArchiveFiller getRealtimeFiller() {
         return realtimeFiller;
     }
 
+    /**
+     * Returns the executor used to read in parallel the data of one retrieval or null if the parallel retrieval is not
+     * enabled.
+     */
+    public Executor getRetrievalExecutor() {
+        return retrievalPool;
+    }
+
+    /**
+     * Returns the maximum number of retrieval threads used by one request
+     */
+    public int getMaxRequestParallelism() {
+        return maxRequestParallelism;
+    }
+
+    public BackFiller getBackFiller() {
+        return backFiller;
+    }
+
     public void compact() {
 
         try {
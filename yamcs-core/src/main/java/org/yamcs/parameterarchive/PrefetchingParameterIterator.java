@@ -0,0 +1,234 @@
+package org.yamcs.parameterarchive;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Iterator reading in background the values of another iterator.
+ * <p>
+ * The values are read in batches by tasks running on an executor; at most {@code prefetch} batches are kept in memory
+ * after which the reading stops until the consumer takes some of them.
+ * <p>
+ * The underlying iterator is created and used only by the background tasks and there is at most one task running at a
+ * time for one iterator. The methods of this class are meant to be called from one consumer thread; they block if the
+ * data has not yet been read.
+ */
+class PrefetchingParameterIterator implements ParameterIterator {
+    static final int BATCH_SIZE = 512;
+
+    final ParameterId parameterId;
+    final int parameterGroupId;
+    final Executor executor;
+    final int prefetch;
+
+    // used only by the background tasks
+    Supplier<ParameterIterator> supplier;
+    ParameterIterator it;
+
+    // guarded by this
+    final ArrayDeque<List<TimedValue>> batches = new ArrayDeque<>();
+    boolean running;
+    boolean eof;
+    boolean closed;
+    Throwable error;
+
+    // used only by the consumer
+    List<TimedValue> batch;
+    int pos;
+    TimedValue current;
+    boolean started;
+
+    /**
+     * Creates the iterator and starts reading in background.
+     *
+     * @param parameterId
+     * @param parameterGroupId
+     * @param supplier
+     *            creates the underlying iterator; called from the executor
+     * @param executor
+     * @param prefetch
+     *            maximum number of batches read in advance
+     */
+    PrefetchingParameterIterator(ParameterId parameterId, int parameterGroupId,
+            Supplier<ParameterIterator> supplier, Executor executor, int prefetch) {
+        this.parameterId = parameterId;
+        this.parameterGroupId = parameterGroupId;
+        this.supplier = supplier;
+        this.executor = executor;
+        this.prefetch = prefetch;
+        synchronized (this) {
+            running = true;
+        }
+        schedule();
+    }
+
+    @Override
+    public boolean isValid() {
+        if (!started) {
+            started = true;
+            advance();
+        }
+        return current != null;
+    }
+
+    @Override
+    public TimedValue value() {
+        if (!isValid()) {
+            throw new NoSuchElementException();
+        }
+        return current;
+    }
+
+    @Override
+    public void next() {
+        if (!isValid()) {
+            throw new NoSuchElementException();
+        }
+        advance();
+    }
+
+    @Override
+    public ParameterId getParameterId() {
+        return parameterId;
+    }
+
+    @Override
+    public int getParameterGroupId() {
+        return parameterGroupId;
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+            batches.clear();
+            if (!running) {
+                closeIterator();
+            }
+        }
+        batch = null;
+        current = null;
+    }
+
+    private void advance() {
+        if (batch != null && pos < batch.size()) {
+            current = batch.get(pos++);
+            return;
+        }
+        batch = takeBatch();
+        pos = 0;
+        current = batch == null ? null : batch.get(pos++);
+    }
+
+    private List<TimedValue> takeBatch() {
+        List<TimedValue> l;
+        boolean resume = false;
+        synchronized (this) {
+            while (batches.isEmpty() && !eof && error == null && !closed) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new ParameterArchiveException("Interrupted while waiting for data", e);
+                }
+            }
+            if (error != null) {
+                if (error instanceof RuntimeException) {
+                    throw (RuntimeException) error;
+                }
+                throw new ParameterArchiveException("Failed to retrieve data", error);
+            }
+            l = batches.poll();
+            if (!running && !eof && !closed) {
+                running = true;
+                resume = true;
+            }
+        }
+        if (resume) {
+            schedule();
+        }
+        return l;
+    }
+
+    private void schedule() {
+        try {
+            executor.execute(this::fill);
+        } catch (RejectedExecutionException e) {
+            synchronized (this) {
+                error = e;
+                running = false;
+                closeIterator();
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Runs in background, reads batches until the prefetch limit is reached or the data is finished
+     */
+    private void fill() {
+        while (true) {
+            synchronized (this) {
+                if (closed) {
+                    running = false;
+                    closeIterator();
+                    return;
+                }
+            }
+            List<TimedValue> l = new ArrayList<>(BATCH_SIZE);
+            boolean finished;
+            try {
+                if (it == null) {
+                    it = supplier.get();
+                    supplier = null;
+                }
+                while (it.isValid() && l.size() < BATCH_SIZE) {
+                    l.add(it.value());
+                    it.next();
+                }
+                finished = !it.isValid();
+            } catch (Exception e) {
+                synchronized (this) {
+                    error = e;
+                    running = false;
+                    closeIterator();
+                    notifyAll();
+                }
+                return;
+            }
+
+            synchronized (this) {
+                if (!l.isEmpty() && !closed) {
+                    batches.add(l);
+                }
+                if (finished) {
+                    eof = true;
+                }
+                notifyAll();
+                if (finished || closed) {
+                    running = false;
+                    closeIterator();
+                    return;
+                }
+                if (batches.size() >= prefetch) {
+                    running = false;
+                    return;
+                }
+            }
+        }
+    }
+
+    // called with the lock held and when no background task is running
+    private void closeIterator() {
+        if (it != null) {
+            it.close();
+            it = null;
+        }
+        supplier = null;
+    }
+}
@@ -4,14 +4,18 @@ import static org.yamcs.parameterarchive.ParameterArchive.getInterval;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Function;
 
 import org.rocksdb.RocksDBException;
@@ -22,8 +26,14 @@ import org.yamcs.YConfiguration;
 import org.yamcs.YamcsServer;
 import org.yamcs.Spec.OptionType;
 import org.yamcs.parameter.BasicParameterValue;
+import org.yamcs.parameter.ParameterValue;
+import org.yamcs.parameter.SystemParametersProducer;
+import org.yamcs.parameter.SystemParametersService;
+import org.yamcs.protobuf.Yamcs.Value.Type;
 import org.yamcs.utils.IntArray;
 import org.yamcs.utils.TimeEncoding;
+import org.yamcs.xtce.Parameter;
+import org.yamcs.xtce.UnitType;
 
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
@@ -43,17 +53,41 @@ import com.google.common.util.concurrent.ThreadFactoryBuilder;
  * <p>
  * If the group reaches its max size, it is archived and a new one opened.
  * 
+ * <p>
+ * The number of segments kept in memory for each group is limited; the {@link QueueFullPolicy} configures what happens
+ * if the writing to the archive cannot keep up with the incoming data.
+ * 
  * @author nm
  *
  */
-public class RealtimeArchiveFiller extends AbstractArchiveFiller {
+public class RealtimeArchiveFiller extends AbstractArchiveFiller implements SystemParametersProducer {
+
+    /**
+     * What to do with new data when the queue of a parameter group is full
+     */
+    public enum QueueFullPolicy {
+        /**
+         * drop the new data
+         */
+        DROP,
+        /**
+         * block the processor until there is space in the queue; the oldest segment in the queue is sent to the
+         * archive if required
+         */
+        BLOCK,
+        /**
+         * drop the new data and schedule the back filler to rebuild the interval containing it
+         */
+        BACKFILL
+    }
 
     String processorName = "realtime";
     final String yamcsInstance;
     Processor realtimeProcessor;
     int subscriptionId;
     ExecutorService executor;
-    Map<Integer, SegmentQueue> queues = new HashMap<>();
+    // the queues are accessed by the processor thread and by the retrieval threads
+    Map<Integer, SegmentQueue> queues = new ConcurrentHashMap<>();
     private YamcsServer yamcsServer;
 
     // int flushInterval; // seconds
@@ -66,6 +100,20 @@ public class RealtimeArchiveFiller extends AbstractArchiveFiller {
 
     int numThreads;
 
+    QueueFullPolicy queueFullPolicy;
+    // maximum time to block the processor with the BLOCK policy
+    long maxBlockTime;
+    BackFiller backFiller;
+
+    // statistics published as system parameters
+    final AtomicInteger pendingWrites = new AtomicInteger();
+    final LongAdder numDroppedRecords = new LongAdder();
+    final LongAdder writeLatencySum = new LongAdder();
+    final LongAdder writeCount = new LongAdder();
+    final AtomicLong maxWriteLatency = new AtomicLong();
+    Parameter spQueuedSegments, spMaxQueueSize, spPendingWrites, spDroppedRecords, spAvgWriteLatency,
+            spMaxWriteLatency;
+
     public RealtimeArchiveFiller(ParameterArchive parameterArchive, YConfiguration config) {
         super(parameterArchive);
         this.yamcsInstance = parameterArchive.getYamcsInstance();
@@ -75,6 +123,8 @@ public class RealtimeArchiveFiller extends AbstractArchiveFiller {
         sortingThreshold = config.getInt("sortingThreshold");
         numThreads = config.getInt("numThreads", getDefaultNumThreads());
         pastJumpThreshold = config.getLong("pastJumpThreshold") * 1000;
+        queueFullPolicy = config.getEnum("queueFullPolicy", QueueFullPolicy.class, QueueFullPolicy.DROP);
+        maxBlockTime = config.getLong("maxBlockTime", 10000);
     }
 
     static Spec getSpec() {
@@ -89,6 +139,15 @@ public class RealtimeArchiveFiller extends AbstractArchiveFiller {
                         + "by more than this threshold in seconds, the old segments are flushed to archinve and a new one is started. "
                         + "This is to avoid that the data is rejected because the time is reinitialized on-board for example.")
                 .withDefault(86400);
+        spec.addOption("queueFullPolicy", OptionType.STRING)
+                .withDescription("What to do when data for a parameter group is received faster than it can be "
+                        + "written to the archive")
+                .withChoices(QueueFullPolicy.class)
+                .withDefault(QueueFullPolicy.DROP.name());
+        spec.addOption("maxBlockTime", OptionType.INTEGER)
+                .withDescription("With the BLOCK policy, maximum time in milliseconds to block the processor "
+                        + "waiting for space in the queue, after which the data is dropped")
+                .withDefault(10000);
 
         return spec;
     }
@@ -129,15 +188,31 @@ public class RealtimeArchiveFiller extends AbstractArchiveFiller {
                     + "to false in processor.yaml",
                     processorName);
         }
-        subscriptionId = realtimeProcessor.getParameterRequestManager().subscribeAll(this);
-
+        if (queueFullPolicy == QueueFullPolicy.BACKFILL) {
+            backFiller = parameterArchive.getBackFiller();
+            if (backFiller == null) {
+                throw new ConfigurationException(
+                        "The realtime filler queueFullPolicy is BACKFILL but the backFiller is not enabled");
+            }
+        }
         log.debug("Starting executor for archive writing with {} threads", numThreads);
         executor = Executors.newFixedThreadPool(numThreads,
                 new ThreadFactoryBuilder().setNameFormat("realtime-parameter-archive-writer-%d").build());
+
+        SystemParametersService sps = SystemParametersService.getInstance(yamcsInstance);
+        if (sps != null) {
+            setupSystemParameters(sps);
+            sps.registerProducer(this);
+        }
+        subscriptionId = realtimeProcessor.getParameterRequestManager().subscribeAll(this);
     }
 
     public void shutDown() throws InterruptedException {
         realtimeProcessor.getParameterRequestManager().unsubscribeAll(subscriptionId);
+        SystemParametersService sps = SystemParametersService.getInstance(yamcsInstance);
+        if (sps != null) {
+            sps.unregisterProducer(this);
+        }
 
         log.info("Shutting down, writing all pending segments");
         for (SegmentQueue queue : queues.values()) {
@@ -182,27 +257,98 @@ public class RealtimeArchiveFiller extends AbstractArchiveFiller {
             }
 
             if (!segQueue.addRecord(t, pvList.getValues())) {
-                log.warn("Realtime parameter archive queue full."
-                        + "Consider increasing the writerThreads (if CPUs are available) or using a back filler");
+                queueFull(segQueue, t, pvList);
             }
         }
 
     }
 
+    private void queueFull(SegmentQueue segQueue, long t, BasicParameterList pvList) {
+        if (queueFullPolicy == QueueFullPolicy.BLOCK) {
+            try {
+                if (segQueue.addRecordBlocking(t, pvList.getValues(), pgs -> scheduleWriteToArchive(pgs),
+                        maxBlockTime)) {
+                    return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        numDroppedRecords.increment();
+        if (queueFullPolicy == QueueFullPolicy.BACKFILL) {
+            log.debug("Realtime parameter archive queue full, scheduling the back filler for {}",
+                    TimeEncoding.toString(t));
+            backFiller.addIntervalToRebuild(t);
+        } else {
+            log.warn("Realtime parameter archive queue full."
+                    + "Consider increasing the numThreads (if CPUs are available) or using a back filler");
+        }
+    }
+
     private CompletableFuture<Void> scheduleWriteToArchive(PGSegment pgs) {
+        long t0 = System.nanoTime();
+        pendingWrites.incrementAndGet();
         return CompletableFuture.supplyAsync(() -> {
             try {
-                long t0 = System.nanoTime();
+                long t1 = System.nanoTime();
                 parameterArchive.writeToArchive(pgs);
-                long d = System.nanoTime() - t0;
+                long d = System.nanoTime() - t1;
                 log.debug("Wrote segment {} to archive in {} millisec", pgs, d / 1000_000);
             } catch (RocksDBException | IOException e) {
                 log.error("Error writing segment to the parameter archive", e);
             }
+            pendingWrites.decrementAndGet();
+            // the latency includes the time waiting for a free writer thread
+            long latency = (System.nanoTime() - t0) / 1000_000;
+            writeLatencySum.add(latency);
+            writeCount.increment();
+            maxWriteLatency.accumulateAndGet(latency, Math::max);
             return null;
         }, executor);
     }
 
+    private void setupSystemParameters(SystemParametersService sps) {
+        UnitType msunit = new UnitType("ms");
+        String prefix = "parameterArchive/realtimeFiller/";
+        spQueuedSegments = sps.createSystemParameter(prefix + "queuedSegments", Type.UINT32,
+                "Number of segments in the memory of the realtime filler, not yet sent to the archive");
+        spMaxQueueSize = sps.createSystemParameter(prefix + "maxQueueSize", Type.UINT32,
+                "Maximum number of segments queued for one parameter group (the limit is "
+                        + SegmentQueue.QSIZE + ")");
+        spPendingWrites = sps.createSystemParameter(prefix + "pendingWrites", Type.UINT32,
+                "Number of segments sent to the archive but not yet written");
+        spDroppedRecords = sps.createSystemParameter(prefix + "droppedRecords", Type.UINT64,
+                "Total number of records dropped because the parameter group queue was full");
+        spAvgWriteLatency = sps.createSystemParameter(prefix + "avgWriteLatency", Type.UINT64, msunit,
+                "Average time between sending a segment to the archive and having it written, "
+                        + "over the last collection interval");
+        spMaxWriteLatency = sps.createSystemParameter(prefix + "maxWriteLatency", Type.UINT64, msunit,
+                "Maximum time between sending a segment to the archive and having it written, "
+                        + "over the last collection interval");
+    }
+
+    @Override
+    public Collection<ParameterValue> getSystemParameters(long gentime) {
+        int queuedSegments = 0;
+        int maxQueueSize = 0;
+        for (SegmentQueue queue : queues.values()) {
+            int n = queue.size();
+            queuedSegments += n;
+            maxQueueSize = Math.max(maxQueueSize, n);
+        }
+        long n = writeCount.sumThenReset();
+        long sum = writeLatencySum.sumThenReset();
+
+        List<ParameterValue> pvlist = new ArrayList<>();
+        pvlist.add(SystemParametersService.getUnsignedIntPV(spQueuedSegments, gentime, queuedSegments));
+        pvlist.add(SystemParametersService.getUnsignedIntPV(spMaxQueueSize, gentime, maxQueueSize));
+        pvlist.add(SystemParametersService.getUnsignedIntPV(spPendingWrites, gentime, pendingWrites.get()));
+        pvlist.add(SystemParametersService.getPV(spDroppedRecords, gentime, numDroppedRecords.sum()));
+        pvlist.add(SystemParametersService.getPV(spAvgWriteLatency, gentime, n == 0 ? 0 : sum / n));
+        pvlist.add(SystemParametersService.getPV(spMaxWriteLatency, gentime, maxWriteLatency.getAndSet(0)));
+        return pvlist;
+    }
+
     /**
      * Called when risking running out of memory, drop all data
      */
@@ -351,7 +497,31 @@ public class RealtimeArchiveFiller extends AbstractArchiveFiller {
             return true;
         }
 
-
+        /**
+         * Add the record to the queue, waiting for space if the queue is full.
+         * <p>
+         * If all the segments in the queue are waiting for more data, the oldest one is sent to the archive to make
+         * room.
+         * <p>
+         * Returns true if the record has been added or false if the queue was still full after the timeout.
+         */
+        synchronized boolean addRecordBlocking(long t, List<BasicParameterValue> values,
+                Function<PGSegment, CompletableFuture<Void>> f, long timeoutMillis) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + timeoutMillis;
+            while (!addRecord(t, values)) {
+                if (inc(tail) == head) {
+                    int _head = head;
+                    head = inc(head);
+                    toArchive(_head, f);
+                }
+                long w = deadline - System.currentTimeMillis();
+                if (w <= 0) {
+                    return false;
+                }
+                wait(w);
+            }
+            return true;
+        }
 
         /**
          * send to archive all segments which are either from an older interval than t1 or are full and their end is
@@ -386,7 +556,10 @@ public class RealtimeArchiveFiller extends AbstractArchiveFiller {
             PGSegment seg = segments[idx];
 
             f.apply(seg).thenAccept(v -> {
-                segments[idx] = null;
+                synchronized (this) {
+                    segments[idx] = null;
+                    notifyAll();
+                }
             });
         }
 
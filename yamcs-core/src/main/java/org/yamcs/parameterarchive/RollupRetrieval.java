@@ -0,0 +1,159 @@
+package org.yamcs.parameterarchive;
+
+import static org.yamcs.parameterarchive.ParameterArchive.getIntervalEnd;
+import static org.yamcs.parameterarchive.ParameterArchive.getIntervalStart;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+
+import org.rocksdb.RocksDBException;
+import org.yamcs.parameterarchive.ParameterArchive.Partition;
+import org.yamcs.utils.DatabaseCorruptionException;
+import org.yamcs.utils.DecodingException;
+import org.yamcs.utils.TimeEncoding;
+import org.yamcs.yarch.rocksdb.AscendingRangeIterator;
+
+/**
+ * Retrieves the rollups (see {@link RollupSegment}) of the engineering values of one parameter, in all the groups in
+ * which the parameter appears.
+ * <p>
+ * The segments written without rollups (e.g. before the rollups were enabled) and the segments not yet written by the
+ * realtime filler are rolled up on the fly from the values.
+ * <p>
+ * The rollup segments are sent in ascending order for each parameter group but not across groups: the buckets having
+ * the same start have to be merged by the consumer. The segments are sent whole, the consumer has to ignore the buckets
+ * outside the requested interval.
+ */
+public class RollupRetrieval {
+    final ParameterArchive parchive;
+    final String parameterFqn;
+    final long start;
+    final long stop;
+    final int tier;
+    final long bucketSize;
+    final ParameterId[] pids;
+    final SegmentEncoderDecoder segmentEncoder = new SegmentEncoderDecoder();
+
+    /**
+     * @param parchive
+     * @param parameterFqn
+     * @param start
+     * @param stop
+     * @param tier
+     *            index in {@link RollupSegment#BUCKET_SIZES}
+     */
+    public RollupRetrieval(ParameterArchive parchive, String parameterFqn, long start, long stop, int tier) {
+        if (tier < 0 || tier >= RollupSegment.BUCKET_SIZES.length) {
+            throw new IllegalArgumentException("Invalid tier " + tier);
+        }
+        this.parchive = parchive;
+        this.parameterFqn = parameterFqn;
+        this.start = start;
+        this.stop = stop;
+        this.tier = tier;
+        this.bucketSize = RollupSegment.BUCKET_SIZES[tier];
+        this.pids = parchive.getParameterIdDb().get(parameterFqn);
+    }
+
+    /**
+     * Returns true if the parameter exists in the archive and all its values are numeric (i.e. have been rolled up)
+     */
+    public boolean isNumeric() {
+        if (pids == null) {
+            return false;
+        }
+        for (ParameterId pid : pids) {
+            if (!pid.isSimple() || !RollupSegment.isNumeric(pid.getEngType())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void retrieve(Consumer<RollupSegment> consumer) throws RocksDBException, IOException {
+        if (pids == null) {
+            return;
+        }
+        for (ParameterId pid : pids) {
+            if (!pid.isSimple() || !RollupSegment.isNumeric(pid.getEngType())) {
+                continue;
+            }
+            for (int pgid : parchive.getParameterGroupIdDb().getAllGroups(pid.getPid())) {
+                retrieve(pid.getPid(), pgid, consumer);
+            }
+        }
+    }
+
+    private void retrieve(int pid, int pgid, Consumer<RollupSegment> consumer) throws RocksDBException, IOException {
+        byte rollupType = RollupSegment.getKeyType(tier);
+        byte[] rangeStart = new SegmentKey(pid, pgid, getIntervalStart(start), (byte) 0).encode();
+        byte[] rangeStop = new SegmentKey(pid, pgid, stop, Byte.MAX_VALUE).encode();
+        long lastSegmentStart = TimeEncoding.INVALID_INSTANT;
+
+        for (Partition p : parchive.getPartitions(getIntervalStart(start), getIntervalEnd(stop), true)) {
+            try (AscendingRangeIterator it = new AscendingRangeIterator(parchive.getIterator(p), rangeStart,
+                    rangeStop)) {
+                while (it.isValid()) {
+                    long segStart = SegmentKey.decode(it.key()).segmentStart;
+                    byte[] engValue = null;
+                    byte[] rollup = null;
+                    while (it.isValid()) {
+                        SegmentKey key = SegmentKey.decode(it.key());
+                        if (key.segmentStart != segStart) {
+                            break;
+                        }
+                        if (key.type == SegmentKey.TYPE_ENG_VALUE) {
+                            engValue = it.value();
+                        } else if (key.type == rollupType) {
+                            rollup = it.value();
+                        }
+                        it.next();
+                    }
+                    RollupSegment rs = decode(p, pgid, segStart, engValue, rollup);
+                    if (rs != null) {
+                        consumer.accept(rs);
+                    }
+                    lastSegmentStart = segStart;
+                }
+            }
+        }
+
+        RealtimeArchiveFiller rtfiller = parchive.getRealtimeFiller();
+        if (rtfiller != null) {
+            for (ParameterValueSegment pvs : rtfiller.getSegments(pid, pgid, true)) {
+                // the segments being written may be found also in the archive
+                if (pvs.getSegmentStart() <= lastSegmentStart || pvs.getSegmentStart() > stop
+                        || pvs.getSegmentEnd() < start || pvs.engValueSegment == null) {
+                    continue;
+                }
+                RollupSegment rs = RollupSegment.build(pvs.timeSegment,
+                        pvs.engValueSegment.getRange(0, pvs.engValueSegment.size(), true), bucketSize);
+                if (rs != null) {
+                    consumer.accept(rs);
+                }
+            }
+        }
+    }
+
+    private RollupSegment decode(Partition p, int pgid, long segStart, byte[] engValue, byte[] rollup)
+            throws RocksDBException, IOException {
+        try {
+            if (rollup != null) {
+                return (RollupSegment) segmentEncoder.decode(rollup, segStart);
+            }
+            if (engValue == null) {
+                return null;
+            }
+            // no rollup stored for this segment, compute it from the values
+            SortedTimeSegment timeSegment = parchive.getTimeSegment(p, segStart, pgid);
+            if (timeSegment == null) {
+                throw new DatabaseCorruptionException("Cannot find a time segment for parameterGroupId=" + pgid
+                        + " segmentStart = " + segStart);
+            }
+            ValueSegment vs = (ValueSegment) segmentEncoder.decode(engValue, segStart);
+            return RollupSegment.build(timeSegment, vs.getRange(0, vs.size(), true), bucketSize);
+        } catch (DecodingException e) {
+            throw new DatabaseCorruptionException(e);
+        }
+    }
+}
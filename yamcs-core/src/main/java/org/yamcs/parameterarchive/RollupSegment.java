@@ -0,0 +1,255 @@
+package org.yamcs.parameterarchive;
+
+import java.nio.ByteBuffer;
+
+import org.yamcs.parameter.ValueArray;
+import org.yamcs.protobuf.Yamcs.Value.Type;
+import org.yamcs.utils.DecodingException;
+import org.yamcs.utils.DoubleArray;
+import org.yamcs.utils.IntArray;
+import org.yamcs.utils.LongArray;
+import org.yamcs.utils.UnsignedLong;
+import org.yamcs.utils.VarIntUtil;
+
+/**
+ * Pre-aggregated (min, max, sum, count) values of a numeric parameter over fixed size time buckets.
+ * <p>
+ * One rollup segment is stored for each value segment and each tier (see {@link #BUCKET_SIZES}) and covers the same
+ * time range as the value segment. The buckets are aligned to multiples of the bucket size such that the buckets from
+ * different segments (or different parameter groups) having the same start can be merged.
+ * <p>
+ * Because the segments never cross an interval boundary (2^23 millis), the buckets at the beginning and end of a
+ * segment may be partial.
+ */
+public class RollupSegment extends BaseSegment {
+    final static byte SUBFORMAT_ID_RAW = 0;
+
+    /**
+     * The bucket size in milliseconds of each tier. The key type of the tier i is {@link #getKeyType(int)}.
+     */
+    public static final long[] BUCKET_SIZES = { 60_000L, 3_600_000L };
+
+    final long segmentStart;
+    final long bucketSize;
+
+    LongArray bucketStarts;
+    DoubleArray min;
+    DoubleArray max;
+    DoubleArray sum;
+    IntArray count;
+
+    RollupSegment(long segmentStart, long bucketSize) {
+        super(FORMAT_ID_RollupSegment);
+        this.segmentStart = segmentStart;
+        this.bucketSize = bucketSize;
+        bucketStarts = new LongArray();
+        min = new DoubleArray();
+        max = new DoubleArray();
+        sum = new DoubleArray();
+        count = new IntArray();
+    }
+
+    /**
+     * Returns the key type under which the rollup segments of the given tier are stored
+     */
+    public static byte getKeyType(int tier) {
+        return (byte) (SegmentKey.TYPE_ROLLUP_MINUTE + tier);
+    }
+
+    /**
+     * Returns the index of the coarsest tier whose bucket size is smaller or equal than the given resolution or -1 if
+     * the resolution is smaller than all the bucket sizes.
+     */
+    public static int getTier(long resolution) {
+        for (int i = BUCKET_SIZES.length - 1; i >= 0; i--) {
+            if (BUCKET_SIZES[i] <= resolution) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Builds the rollup of the values.
+     *
+     * @param timeSegment
+     *            the timestamps of the values, in ascending order
+     * @param values
+     * @param bucketSize
+     * @return the rollup segment or null if the values are not numeric
+     */
+    static RollupSegment build(SortedTimeSegment timeSegment, ValueArray values, long bucketSize) {
+        if (!isNumeric(values)) {
+            return null;
+        }
+        RollupSegment rs = new RollupSegment(timeSegment.getSegmentStart(), bucketSize);
+        for (int i = 0; i < timeSegment.size(); i++) {
+            rs.add(timeSegment.getTime(i), toDouble(values, i));
+        }
+        return rs;
+    }
+
+    static boolean isNumeric(ValueArray values) {
+        return isNumeric(values.getType());
+    }
+
+    /**
+     * Returns true if the values of this type can be rolled up
+     */
+    public static boolean isNumeric(Type type) {
+        if (type == null) {
+            return false;
+        }
+        switch (type) {
+        case FLOAT:
+        case DOUBLE:
+        case SINT32:
+        case UINT32:
+        case SINT64:
+        case UINT64:
+            return true;
+        default:
+            return false;
+        }
+    }
+
+    private static double toDouble(ValueArray va, int idx) {
+        switch (va.getType()) {
+        case FLOAT:
+            return va.getFloatArray()[idx];
+        case DOUBLE:
+            return va.getDoubleArray()[idx];
+        case SINT32:
+            return va.getIntArray()[idx];
+        case UINT32:
+            return va.getIntArray()[idx] & 0xFFFFFFFFL;
+        case SINT64:
+            return va.getLongArray()[idx];
+        case UINT64:
+            return UnsignedLong.toDouble(va.getLongArray()[idx]);
+        default:
+            throw new IllegalStateException("Not a numeric type: " + va.getType());
+        }
+    }
+
+    /**
+     * Adds a value to the rollup. The values have to be added in ascending order of time.
+     */
+    void add(long t, double v) {
+        if (Double.isNaN(v)) {
+            return;
+        }
+        long bstart = t - Math.floorMod(t, bucketSize);
+        int n = bucketStarts.size();
+        if (n > 0 && bucketStarts.get(n - 1) == bstart) {
+            int k = n - 1;
+            if (v < min.get(k)) {
+                min.set(k, v);
+            }
+            if (v > max.get(k)) {
+                max.set(k, v);
+            }
+            sum.set(k, sum.get(k) + v);
+            count.set(k, count.get(k) + 1);
+        } else {
+            bucketStarts.add(bstart);
+            min.add(v);
+            max.add(v);
+            sum.add(v);
+            count.add(1);
+        }
+    }
+
+    public long getBucketSize() {
+        return bucketSize;
+    }
+
+    public long getBucketStart(int idx) {
+        return bucketStarts.get(idx);
+    }
+
+    public double getMin(int idx) {
+        return min.get(idx);
+    }
+
+    public double getMax(int idx) {
+        return max.get(idx);
+    }
+
+    public double getSum(int idx) {
+        return sum.get(idx);
+    }
+
+    public int getCount(int idx) {
+        return count.get(idx);
+    }
+
+    @Override
+    public int size() {
+        return bucketStarts.size();
+    }
+
+    @Override
+    public void writeTo(ByteBuffer bb) {
+        bb.put(SUBFORMAT_ID_RAW);
+        VarIntUtil.writeVarInt64(bb, bucketSize);
+        int n = bucketStarts.size();
+        VarIntUtil.writeVarInt32(bb, n);
+        // the bucket starts are written as number of buckets from the previous one; the first one relative to the
+        // bucket containing the segment start
+        long prev = segmentStart - Math.floorMod(segmentStart, bucketSize);
+        for (int i = 0; i < n; i++) {
+            long bstart = bucketStarts.get(i);
+            VarIntUtil.writeVarInt64(bb, (bstart - prev) / bucketSize);
+            prev = bstart;
+            bb.putDouble(min.get(i));
+            bb.putDouble(max.get(i));
+            bb.putDouble(sum.get(i));
+            VarIntUtil.writeVarInt32(bb, count.get(i));
+        }
+    }
+
+    private void parse(ByteBuffer bb) throws DecodingException {
+        int n = VarIntUtil.readVarInt32(bb);
+        bucketStarts = new LongArray(n);
+        min = new DoubleArray(n);
+        max = new DoubleArray(n);
+        sum = new DoubleArray(n);
+        count = new IntArray(n);
+
+        long prev = segmentStart - Math.floorMod(segmentStart, bucketSize);
+        for (int i = 0; i < n; i++) {
+            long bstart = prev + VarIntUtil.readVarInt64(bb) * bucketSize;
+            bucketStarts.add(bstart);
+            prev = bstart;
+            min.add(bb.getDouble());
+            max.add(bb.getDouble());
+            sum.add(bb.getDouble());
+            count.add(VarIntUtil.readVarInt32(bb));
+        }
+    }
+
+    public static RollupSegment parseFrom(ByteBuffer bb, long segmentStart) throws DecodingException {
+        byte fid = bb.get();
+        if (fid != SUBFORMAT_ID_RAW) {
+            throw new DecodingException("Uknown sub format id: " + fid);
+        }
+        long bucketSize = VarIntUtil.readVarInt64(bb);
+        if (bucketSize <= 0) {
+            throw new DecodingException("Invalid bucket size " + bucketSize);
+        }
+        RollupSegment r = new RollupSegment(segmentStart, bucketSize);
+        r.parse(bb);
+        return r;
+    }
+
+    @Override
+    public int getMaxSerializedSize() {
+        return 16 + 39 * bucketStarts.size();
+    }
+
+    @Override
+    public String toString() {
+        return "RollupSegment [segmentStart=" + segmentStart + ", bucketSize=" + bucketSize + ", size=" + size() + "]";
+    }
+}
@@ -18,6 +18,9 @@ public class SegmentKey {
     public static final byte TYPE_ENG_VALUE = 0;
     public static final byte TYPE_RAW_VALUE = 1;
     public static final byte TYPE_PARAMETER_STATUS = 2;
+    // rollups of the engineering values, see RollupSegment
+    public static final byte TYPE_ROLLUP_MINUTE = 3;
+    public static final byte TYPE_ROLLUP_HOUR = 4;
     
     public SegmentKey(int parameterId, int parameterGroupId, long segmentStart, byte type) {
         this.parameterId = parameterId;
@@ -2,9 +2,11 @@ package org.yamcs.replication;
 
 import static org.yamcs.replication.ReplicationServer.workerGroup;
 
+import java.io.UncheckedIOException;
 import java.nio.ByteBuffer;
 import java.util.Iterator;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.yamcs.logging.Log;
 import org.yamcs.replication.ReplicationMaster.SlaveServer;
@@ -20,6 +22,8 @@ import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.handler.ssl.SslHandler;
 import io.netty.util.concurrent.ScheduledFuture;
 
 /**
@@ -28,6 +32,9 @@ import io.netty.util.concurrent.ScheduledFuture;
  *
  */
 public class MasterChannelHandler extends ChannelInboundHandlerAdapter {
+    // below this size the data is sent from the memory mapped buffer even for full files
+    static final int MIN_FILE_REGION_SIZE = 64 * 1024;
+
     final ReplicationMaster replMaster;
     final TimeService timeService;
     final Log log;
@@ -40,7 +47,9 @@ public class MasterChannelHandler extends ChannelInboundHandlerAdapter {
     ReplicationTail fileTail;
     SlaveServer slaveServer;
     private ScheduledFuture<?> timeMsgFuture;
-
+    // set when all the data has been sent and we wait for new data to be written in the file
+    private final AtomicBoolean waitingForData = new AtomicBoolean();
+    private boolean useFileRegion;
 
     // called when we are TCP client
     public MasterChannelHandler(TimeService timeService, ReplicationMaster master, SlaveServer slaveServer) {
@@ -127,6 +136,10 @@ public class MasterChannelHandler extends ChannelInboundHandlerAdapter {
             nextTxToSend = 0;
         }
         scheduleTimeMsgs();
+        // the file regions cannot be encrypted by the SslHandler
+        useFileRegion = replMaster.zeroCopy && channelHandlerContext.channel() instanceof SocketChannel
+                && channelHandlerContext.pipeline().get(SslHandler.class) == null;
+        replMaster.registerChannelHandler(this);
         goToNextFile();
     }
 
@@ -181,12 +194,12 @@ public class MasterChannelHandler extends ChannelInboundHandlerAdapter {
         if (fileTail.nextTxId == nextTxToSend) {// no more data available
             if (fileTail.eof) { // file, full, go to next file
                 goToNextFile();
-            } else { // check back in 200 millisec
-                workerGroup.schedule(() -> sendMoreData(), 200, TimeUnit.MILLISECONDS);
+            } else { // check back when the master notifies new data or at the latest in 200 millisec
+                waitingForData.set(true);
+                workerGroup.schedule(() -> resume(), 200, TimeUnit.MILLISECONDS);
             }
         } else {// got some data, send it and check back for more once the data has been sent
-            ByteBuf buf = Unpooled.wrappedBuffer(fileTail.buf);
-            dataHandlingFuture = channelHandlerContext.writeAndFlush(buf).addListener(a -> {
+            dataHandlingFuture = channelHandlerContext.writeAndFlush(getData()).addListener(a -> {
                 fileTail.buf.position(fileTail.buf.limit());
                 nextTxToSend = fileTail.nextTxId;
                 sendMoreData();
@@ -194,6 +207,36 @@ public class MasterChannelHandler extends ChannelInboundHandlerAdapter {
         }
     }
 
+    /**
+     * If the file is full (i.e. the slave is catching up from an older file), the data is sent as a file region,
+     * otherwise it is sent directly from the memory mapped buffer.
+     */
+    private Object getData() {
+        if (useFileRegion && fileTail.eof && fileTail.buf.remaining() >= MIN_FILE_REGION_SIZE) {
+            try {
+                return currentFile.newFileRegion(fileTail);
+            } catch (UncheckedIOException e) {
+                log.warn("Failed to open {} for sending, sending from the mapped buffer", currentFile.getPath(), e);
+            }
+        }
+        return Unpooled.wrappedBuffer(fileTail.buf);
+    }
+
+    /**
+     * Called by the master after writing new data to the file (once per batch if the group commit is enabled).
+     */
+    void dataAvailable() {
+        if (waitingForData.get()) {
+            workerGroup.execute(() -> resume());
+        }
+    }
+
+    private void resume() {
+        if (waitingForData.compareAndSet(true, false)) {
+            sendMoreData();
+        }
+    }
+
     public long getNextTxId() {
         return nextTxToSend;
     }
@@ -233,6 +276,7 @@ public class MasterChannelHandler extends ChannelInboundHandlerAdapter {
     public void channelInactive(ChannelHandlerContext ctx) throws Exception {
         log.info("Replication connection {} closed", ctx.channel().remoteAddress());
         super.channelInactive(ctx);
+        replMaster.unregisterChannelHandler(this);
         if (dataHandlingFuture != null) {
             dataHandlingFuture.cancel(true);
         }
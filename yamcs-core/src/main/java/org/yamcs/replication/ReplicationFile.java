@@ -14,6 +14,7 @@ import java.nio.file.StandardOpenOption;
 import java.time.Instant;
 import java.util.Arrays;
 import java.util.Iterator;
+import java.util.List;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.zip.CRC32;
@@ -21,6 +22,9 @@ import java.util.zip.CRC32;
 import org.yamcs.logging.Log;
 import org.yamcs.utils.StringConverter;
 
+import io.netty.channel.DefaultFileRegion;
+import io.netty.channel.FileRegion;
+
 /**
  * Stores transactions in a memory mapped file. The data is split into pages, each page has a fixed number of
  * transactions.
@@ -378,82 +382,129 @@ public class ReplicationFile implements Closeable {
      * @return
      */
     public long writeData(Transaction tx, boolean sync) {
-        if (readOnly) {
-            throw new IllegalStateException("Read only file");
-        } else if (!fc.isOpen()) {
-            throw new IllegalStateException("The file is closed");
-        }
+        checkWritable();
 
         rwlock.writeLock().lock();
         try {
-            int txStartPos = buf.position();
-
-            if (fileFull) {
+            long txid = doWriteData(tx);
+            if (txid == -1) {
                 return -1;
-            } else if (hdr2.numFullPages == hdr1.maxPages) {
-                return abortWriteFileFull(txStartPos);
-            } else if (buf.remaining() < MIN_RECORD_SIZE) {
-                return abortWriteFileFull(txStartPos);
             }
+            syncCount--;
+            if (sync || syncCount <= 0) {
+                doForceWrite();
+                syncCount = syncNumTx;
+            }
+            return txid;
+        } finally {
+            rwlock.writeLock().unlock();
+        }
+    }
 
-            long txid = hdr1.firstId + hdr2.numTx();
-            log.trace("Writing transaction {} at position {}", txid, buf.position());
+    /**
+     * Write a batch of transactions to the file, acquiring the write lock only once for the whole batch.
+     * <p>
+     * The transactions are written in order until the end of the list or until the file becomes full. Returns the
+     * number of transactions written; if that is smaller than the size of the list, the file is full and the remaining
+     * transactions have to be written in a new file.
+     * 
+     * @param txList
+     * @param sync
+     *            if true, forces the write to disk after the batch has been written
+     * @return the number of transactions written
+     */
+    public int writeData(List<Transaction> txList, boolean sync) {
+        checkWritable();
 
-            buf.putInt(0);// this is where the the type and size is written below
-            buf.putInt(tx.getInstanceId());
-            buf.putLong(txid);
+        rwlock.writeLock().lock();
+        try {
+            int n = 0;
+            for (Transaction tx : txList) {
+                if (doWriteData(tx) == -1) {
+                    break;
+                }
+                n++;
+            }
+            syncCount -= n;
+            if (n > 0 && (sync || syncCount <= 0)) {
+                doForceWrite();
+                syncCount = syncNumTx;
+            }
+            return n;
+        } finally {
+            rwlock.writeLock().unlock();
+        }
+    }
 
-            byte type = tx.getType();
+    private void checkWritable() {
+        if (readOnly) {
+            throw new IllegalStateException("Read only file");
+        } else if (!fc.isOpen()) {
+            throw new IllegalStateException("The file is closed");
+        }
+    }
 
-            if (Transaction.isMetadata(type)) {
-                buf.putInt(0);// next meatadata position
-            }
+    // called with the write lock held
+    private long doWriteData(Transaction tx) {
+        int txStartPos = buf.position();
 
-            try {
-                tx.marshall(buf);
-            } catch (BufferOverflowException | IndexOutOfBoundsException e) {// end of file
-                return abortWriteFileFull(txStartPos);
-            }
+        if (fileFull) {
+            return -1;
+        } else if (hdr2.numFullPages == hdr1.maxPages) {
+            return abortWriteFileFull(txStartPos);
+        } else if (buf.remaining() < MIN_RECORD_SIZE) {
+            return abortWriteFileFull(txStartPos);
+        }
 
-            if (buf.remaining() < 4) {// no space left for CRC
-                return abortWriteFileFull(txStartPos);
-            }
+        long txid = hdr1.firstId + hdr2.numTx();
+        log.trace("Writing transaction {} at position {}", txid, buf.position());
 
-            int size = buf.position() - txStartPos;
-            buf.putInt(txStartPos, (type << 24) | (size));
-            int crc = compute_crc(buf, txStartPos);
-            buf.putInt(crc);
+        buf.putInt(0);// this is where the the type and size is written below
+        buf.putInt(tx.getInstanceId());
+        buf.putLong(txid);
 
-            if (Transaction.isMetadata(type)) {
-                buf.putInt(lastMetadataTxStart + METADATA_POS_OFFSET, txStartPos);
+        byte type = tx.getType();
 
-                // update crc of the modified metadata record
-                if (lastMetadataTxStart >= hdr2.endOffset()) {
-                    updateCrc(lastMetadataTxStart);
-                }
-                if (log.isTraceEnabled()) {
-                    log.trace("Wrote at offset {} the pointer to the next metadata at {}",
-                            lastMetadataTxStart + METADATA_POS_OFFSET, txStartPos);
-                }
+        if (Transaction.isMetadata(type)) {
+            buf.putInt(0);// next meatadata position
+        }
 
-                lastMetadataTxStart = txStartPos;
-            }
+        try {
+            tx.marshall(buf);
+        } catch (BufferOverflowException | IndexOutOfBoundsException e) {// end of file
+            return abortWriteFileFull(txStartPos);
+        }
 
-            hdr2.lastMod = System.currentTimeMillis();
-            log.trace("Wrote transaction {} of type {} at position {}, total size: {}", txid, type, txStartPos,
-                    size + 4);
-            hdr2.incrNumTx();
+        if (buf.remaining() < 4) {// no space left for CRC
+            return abortWriteFileFull(txStartPos);
+        }
 
-            syncCount--;
-            if (sync || syncCount == 0) {
-                doForceWrite();
-                syncCount = syncNumTx;
+        int size = buf.position() - txStartPos;
+        buf.putInt(txStartPos, (type << 24) | (size));
+        int crc = compute_crc(buf, txStartPos);
+        buf.putInt(crc);
+
+        if (Transaction.isMetadata(type)) {
+            buf.putInt(lastMetadataTxStart + METADATA_POS_OFFSET, txStartPos);
+
+            // update crc of the modified metadata record
+            if (lastMetadataTxStart >= hdr2.endOffset()) {
+                updateCrc(lastMetadataTxStart);
+            }
+            if (log.isTraceEnabled()) {
+                log.trace("Wrote at offset {} the pointer to the next metadata at {}",
+                        lastMetadataTxStart + METADATA_POS_OFFSET, txStartPos);
             }
 
-            return txid;
-        } finally {
-            rwlock.writeLock().unlock();
+            lastMetadataTxStart = txStartPos;
         }
+
+        hdr2.lastMod = System.currentTimeMillis();
+        log.trace("Wrote transaction {} of type {} at position {}, total size: {}", txid, type, txStartPos,
+                size + 4);
+        hdr2.incrNumTx();
+
+        return txid;
     }
 
     // starts from latest known transaction (according to the header) and checks for new ones
@@ -626,6 +677,30 @@ public class ReplicationFile implements Closeable {
         return pos + 4 + (typeSize & 0xFFFFFF);
     }
 
+    /**
+     * Returns a {@link FileRegion} covering the data between the position and the limit of the tail buffer.
+     * <p>
+     * The region can be written to a socket channel to send the data using the {@code sendfile} system call, without
+     * copying it through the user space. The region uses its own file channel which is closed when the region is
+     * released, so it can be sent even if this file is closed in the meanwhile.
+     * 
+     * @param tail
+     *            a tail obtained from this file
+     * @return
+     */
+    public FileRegion newFileRegion(ReplicationTail tail) {
+        try {
+            FileChannel fc1 = FileChannel.open(path, StandardOpenOption.READ);
+            return new DefaultFileRegion(fc1, tail.buf.position(), tail.buf.remaining());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
     public boolean isFull() {
         return fileFull;
     }
@@ -15,8 +15,12 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -39,6 +43,7 @@ import org.yamcs.yarch.ColumnSerializerFactory;
 import org.yamcs.yarch.Stream;
 import org.yamcs.yarch.StreamSubscriber;
 import org.yamcs.yarch.Tuple;
+import org.yamcs.yarch.TupleBatch;
 import org.yamcs.yarch.TupleDefinition;
 import org.yamcs.yarch.YarchDatabase;
 import org.yamcs.yarch.YarchDatabaseInstance;
@@ -83,6 +88,14 @@ public class ReplicationMaster extends AbstractYamcsService {
     Pattern filePattern;
     int maxTupleSize;
     long timeMsgFreqMillis;
+    boolean zeroCopy;
+    int maxBatchSize;
+    long maxBatchLatencyMillis;
+    // null if the group commit is not enabled
+    TransactionBatcher batcher;
+    private ScheduledFuture<?> batchFlushFuture;
+    // the channels sending data to the slaves, notified when new data is written
+    final Set<MasterChannelHandler> channelHandlers = new CopyOnWriteArraySet<>();
 
     @Override
     public void init(String yamcsInstance, String serviceName, YConfiguration config) throws InitException {
@@ -97,6 +110,15 @@ public class ReplicationMaster extends AbstractYamcsService {
         maxFileSize = 1024 * config.getInt("maxFileSizeKB", 100 * 1024);
         this.maxTupleSize = config.getInt("maxTupleSize");
         this.timeMsgFreqMillis = config.getLong("timeMsgFreqSec") * 1000;
+        this.zeroCopy = config.getBoolean("zeroCopy");
+        this.maxBatchSize = config.getInt("maxBatchSize");
+        this.maxBatchLatencyMillis = config.getLong("maxBatchLatencyMillis");
+        if (maxBatchSize > 1) {
+            if (maxBatchLatencyMillis <= 0) {
+                throw new InitException("maxBatchLatencyMillis has to be positive");
+            }
+            batcher = new TransactionBatcher(maxBatchSize);
+        }
 
         int hdrSize = ReplicationFile.headerSize(pageSize, maxPages);
         if (maxFileSize < hdrSize) {
@@ -184,6 +206,15 @@ public class ReplicationMaster extends AbstractYamcsService {
                 .withDescription("Maximum size of the serialized tuple");
         spec.addOption("timeMsgFreqSec", OptionType.INTEGER).withDefault(10)
                 .withDescription("How often (in seconds) to send the time message to the slaves");
+        spec.addOption("zeroCopy", OptionType.BOOLEAN).withDefault(true)
+                .withDescription("Send the data of the full replication files to the slaves without copying it"
+                        + " through the user space. Not used for TLS connections");
+        spec.addOption("maxBatchSize", OptionType.INTEGER).withDefault(1)
+                .withDescription("Maximum number of tuples written together to the replication file."
+                        + " A value greater than 1 enables the group commit");
+        spec.addOption("maxBatchLatencyMillis", OptionType.INTEGER).withDefault(20)
+                .withDescription("If the group commit is enabled, the maximum time (in milliseconds) a tuple"
+                        + " can wait before being written to the replication file");
 
         return spec;
     }
@@ -228,6 +259,10 @@ public class ReplicationMaster extends AbstractYamcsService {
             }
             translators.add(new StreamToFile(s, i));
         }
+        if (batcher != null) {
+            batchFlushFuture = YamcsServer.getServer().getThreadPoolExecutor().scheduleAtFixedRate(
+                    () -> batcher.flush(), maxBatchLatencyMillis, maxBatchLatencyMillis, TimeUnit.MILLISECONDS);
+        }
         if (tcpRole == TcpRole.CLIENT) {
             // connect to all slaves
             for (SlaveServer sa : slaves) {
@@ -247,6 +282,12 @@ public class ReplicationMaster extends AbstractYamcsService {
         for (StreamToFile stf : translators) {
             stf.quit();
         }
+        if (batcher != null) {
+            if (batchFlushFuture != null) {
+                batchFlushFuture.cancel(false);
+            }
+            batcher.flush();
+        }
 
         for (ReplFileAccess rf : replFiles.values()) {
             if (rf.rf != null) {
@@ -319,8 +360,46 @@ public class ReplicationMaster extends AbstractYamcsService {
                         "New file cannot accomodate a single transaction. Please increase the maxFileSize. Consider the header size "
                                 + ReplicationFile.headerSize(pageSize, maxPages));
                 abort("maxFileSize too small; cannot accomodate a single transaction");
+                return;
             }
         }
+        notifyChannelHandlers();
+    }
+
+    /**
+     * Writes a batch of transactions, continuing in a new file if the current one becomes full.
+     */
+    private void writeToFile(List<Transaction> txList) {
+        ReplicationFile cf = currentFile;
+        int n = cf.writeData(txList, false);
+        while (n < txList.size()) {// file full
+            openNewFile(cf);
+            cf = currentFile;
+            int k = cf.writeData(txList.subList(n, txList.size()), false);
+            if (k == 0) {
+                log.error(
+                        "New file cannot accomodate a single transaction. Please increase the maxFileSize. Consider the header size "
+                                + ReplicationFile.headerSize(pageSize, maxPages));
+                abort("maxFileSize too small; cannot accomodate a single transaction");
+                return;
+            }
+            n += k;
+        }
+        notifyChannelHandlers();
+    }
+
+    private void notifyChannelHandlers() {
+        for (MasterChannelHandler mch : channelHandlers) {
+            mch.dataAvailable();
+        }
+    }
+
+    void registerChannelHandler(MasterChannelHandler mch) {
+        channelHandlers.add(mch);
+    }
+
+    void unregisterChannelHandler(MasterChannelHandler mch) {
+        channelHandlers.remove(mch);
     }
 
     private void abort(String msg) {
@@ -390,8 +469,26 @@ public class ReplicationMaster extends AbstractYamcsService {
         @Override
         public void onTuple(Stream s, Tuple tuple) {
             ensureIndices(tuple.getDefinition());
+            write(toTransaction(tuple));
+        }
 
-            Transaction tx = new Transaction() {
+        // the indices are verified only when the definition changes, usually the tuples of a batch share it
+        @Override
+        public void onTuples(Stream s, TupleBatch tuples) {
+            TupleDefinition tdef = null;
+            int tdefSize = 0;
+            for (Tuple tuple : tuples) {
+                if (tuple.getDefinition() != tdef || tdef.size() != tdefSize) {
+                    tdef = tuple.getDefinition();
+                    tdefSize = tdef.size();
+                    ensureIndices(tdef);
+                }
+                write(toTransaction(tuple));
+            }
+        }
+
+        private Transaction toTransaction(Tuple tuple) {
+            return new Transaction() {
                 @Override
                 public void marshall(ByteBuffer buf) {
 
@@ -424,7 +521,14 @@ public class ReplicationMaster extends AbstractYamcsService {
                     return instanceId;
                 }
             };
-            writeToFile(tx);
+        }
+
+        private void write(Transaction tx) {
+            if (batcher == null) {
+                writeToFile(tx);
+            } else {
+                batcher.add(tx);
+            }
         }
 
         private synchronized void ensureIndices(TupleDefinition tdef) {
@@ -479,6 +583,67 @@ public class ReplicationMaster extends AbstractYamcsService {
         }
     }
 
+    /**
+     * Accumulates the data transactions from all streams and writes them to the file in batches (group commit).
+     * <p>
+     * A batch is written when it reaches the maximum size or at the latest after {@link #maxBatchLatencyMillis} by
+     * the periodic flush.
+     * <p>
+     * The producers continue filling the next batch while the previous one is written. The write lock is acquired
+     * before releasing the monitor such that the batches are written in the order in which they have been filled.
+     */
+    class TransactionBatcher {
+        final int maxSize;
+        final ReentrantLock writeLock = new ReentrantLock();
+        private List<Transaction> pending;
+
+        TransactionBatcher(int maxSize) {
+            this.maxSize = maxSize;
+            this.pending = new ArrayList<>(maxSize);
+        }
+
+        void add(Transaction tx) {
+            List<Transaction> batch;
+            synchronized (this) {
+                pending.add(tx);
+                if (pending.size() < maxSize) {
+                    return;
+                }
+                batch = swap();
+            }
+            write(batch);
+        }
+
+        void flush() {
+            List<Transaction> batch;
+            synchronized (this) {
+                if (pending.isEmpty()) {
+                    return;
+                }
+                batch = swap();
+            }
+            write(batch);
+        }
+
+        // called with the monitor held
+        private List<Transaction> swap() {
+            List<Transaction> batch = pending;
+            pending = new ArrayList<>(maxSize);
+            writeLock.lock();
+            return batch;
+        }
+
+        private void write(List<Transaction> batch) {
+            try {
+                writeToFile(batch);
+            } catch (Exception e) {
+                log.error("Failed to write {} transactions to the replication file", batch.size(), e);
+            } finally {
+                writeLock.unlock();
+            }
+        }
+    }
+
     /**
      * Get the file where startTxId transaction is or the earliest file available if the transaction is in the past
      * <p>
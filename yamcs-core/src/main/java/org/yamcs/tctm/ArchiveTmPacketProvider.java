@@ -1,6 +1,7 @@
 package org.yamcs.tctm;
 
 import org.yamcs.TmPacketProvider;
+import org.yamcs.protobuf.Yamcs.ReplayPacingStats;
 import org.yamcs.protobuf.Yamcs.ReplayRequest;
 import org.yamcs.protobuf.Yamcs.ReplaySpeed;
 import org.yamcs.protobuf.Yamcs.ReplayStatus.ReplayState;
@@ -13,6 +14,11 @@ public interface ArchiveTmPacketProvider extends TmPacketProvider {
     public void changeSpeed(ReplaySpeed speed);
     
     public ReplayState getReplayState();
+
+    /**
+     * @return the pacing statistics of the replay or null if not available
+     */
+    public ReplayPacingStats getPacingStats();
     
     public ReplaySpeed getSpeed();
 
@@ -43,6 +43,7 @@ import org.yamcs.protobuf.Yamcs.NamedObjectId;
 import org.yamcs.protobuf.Yamcs.NamedObjectList;
 import org.yamcs.protobuf.Yamcs.PacketReplayRequest;
 import org.yamcs.protobuf.Yamcs.PpReplayRequest;
+import org.yamcs.protobuf.Yamcs.ReplayPacingStats;
 import org.yamcs.protobuf.Yamcs.ReplayRequest;
 import org.yamcs.protobuf.Yamcs.ReplaySpeed;
 import org.yamcs.protobuf.Yamcs.ReplaySpeed.ReplaySpeedType;
@@ -420,6 +421,12 @@ public class ReplayService extends AbstractProcessorService
         }
     }
 
+    @Override
+    public ReplayPacingStats getPacingStats() {
+        YarchReplay replay = yarchReplay;
+        return replay == null ? null : replay.getPacingStatsProto();
+    }
+
     @Override
     public long getReplayTime() {
         return replayTime;
@@ -244,6 +244,14 @@ public class ByteArray {
         position += bp.length;
     }
 
+    /**
+     * Advances the read position by n bytes.
+     */
+    public void skip(int n) {
+        rangeCheck(position + n);
+        position += n;
+    }
+
     public <T extends MessageLite.Builder> void getSizePrefixedProto(T builder) {
         int size = getInt();
         try {
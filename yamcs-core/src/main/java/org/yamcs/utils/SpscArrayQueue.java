@@ -0,0 +1,109 @@
+package org.yamcs.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded lock-free queue for exactly one producer thread and one consumer thread.
+ * <p>
+ * {@link #offer(Object)} shall be called only by the producer and {@link #peek()}/{@link #poll()} only by the
+ * consumer; the other methods can be called from any thread. The producer and consumer threads may change over time
+ * as long as there is a happens-before relation between the successive ones (e.g. established by a lock or an
+ * atomic variable).
+ * <p>
+ * The capacity is rounded up to a power of 2.
+ */
+public class SpscArrayQueue<T> {
+    private final Object[] buffer;
+    private final int mask;
+
+    // index of the next element to be read, written by the consumer
+    private final AtomicLong head = new AtomicLong();
+    // index of the next element to be written, written by the producer
+    private final AtomicLong tail = new AtomicLong();
+
+    // producer local copy of the head
+    private long headCache;
+    // consumer local copy of the tail
+    private long tailCache;
+
+    public SpscArrayQueue(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity has to be strictly positive");
+        }
+        int c = Integer.highestOneBit(capacity);
+        if (c < capacity) {
+            c <<= 1;
+        }
+        this.buffer = new Object[c];
+        this.mask = c - 1;
+    }
+
+    /**
+     * Adds an element at the end of the queue.
+     * <p>
+     * The new tail is published with a volatile write such that a consumer reading the tail after observing any
+     * subsequent volatile write of the producer is guaranteed to see the element.
+     *
+     * @return false if the queue is full
+     */
+    public boolean offer(T e) {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+        long t = tail.get();
+        if (t - headCache >= buffer.length) {
+            headCache = head.get();
+            if (t - headCache >= buffer.length) {
+                return false;
+            }
+        }
+        buffer[(int) t & mask] = e;
+        tail.set(t + 1);
+        return true;
+    }
+
+    /**
+     *
+     * @return the element at the head of the queue or null if the queue is empty
+     */
+    @SuppressWarnings("unchecked")
+    public T peek() {
+        long h = head.get();
+        if (h >= tailCache) {
+            tailCache = tail.get();
+            if (h >= tailCache) {
+                return null;
+            }
+        }
+        return (T) buffer[(int) h & mask];
+    }
+
+    /**
+     * Removes and returns the element at the head of the queue.
+     *
+     * @return the removed element or null if the queue is empty
+     */
+    public T poll() {
+        T e = peek();
+        if (e != null) {
+            long h = head.get();
+            buffer[(int) h & mask] = null;
+            head.lazySet(h + 1);
+        }
+        return e;
+    }
+
+    public boolean isEmpty() {
+        return head.get() >= tail.get();
+    }
+
+    public int size() {
+        // read the head first such that the result is never negative
+        long h = head.get();
+        return (int) (tail.get() - h);
+    }
+
+    public int capacity() {
+        return buffer.length;
+    }
+}
@@ -37,6 +37,10 @@ public abstract class AbstractTableWalker implements TableWalker {
   
     volatile protected boolean running = false;
 
+    // number of partitions read in parallel, see TableWalker#setParallelism
+    protected int parallelism = 1;
+    protected boolean ordered = true;
+
     protected final YarchDatabaseInstance ydb;
     protected final ExecutionContext ctx;
 
@@ -61,18 +65,28 @@ public abstract class AbstractTableWalker implements TableWalker {
         running = true;
         Iterator<PartitionManager.Interval> partitionIterator = getIntervalIterator();
         try {
-            while (isRunning() && partitionIterator.hasNext()) {
-                PartitionManager.Interval interval = partitionIterator.next();
-                boolean endReached = walkInterval(interval, range, visitor);
-                if (endReached) {
-                    break;
-                }
-            }
+            walkIntervals(partitionIterator, range, visitor);
         } finally {
             close();
         }
     }
 
+    /**
+     * Walks the intervals one after the other until the end condition is reached.
+     * <p>
+     * Can be overridden to walk multiple intervals in parallel.
+     */
+    protected void walkIntervals(Iterator<PartitionManager.Interval> partitionIterator, DbRange range,
+            TableVisitor visitor) throws YarchException, StreamSqlException {
+        while (isRunning() && partitionIterator.hasNext()) {
+            PartitionManager.Interval interval = partitionIterator.next();
+            boolean endReached = walkInterval(interval, range, visitor);
+            if (endReached) {
+                break;
+            }
+        }
+    }
+
 
     private Iterator<PartitionManager.Interval> getIntervalIterator() {
         PartitionManager partitionManager = ydb.getPartitionManager(tableDefinition);
@@ -135,6 +149,12 @@ public abstract class AbstractTableWalker implements TableWalker {
         this.partitionTimeFilter = partitionTimeFilter;
     }
 
+    @Override
+    public void setParallelism(int parallelism, boolean ordered) {
+        this.parallelism = parallelism;
+        this.ordered = ordered;
+    }
+
     @Override
     public void setPrimaryIndexRange(DbRange range) {
         if(range == null) {
@@ -41,6 +41,20 @@ public interface ColumnSerializer<T> {
      */
     T deserialize(ByteBuffer byteBuf, ColumnDefinition cd);
 
+    /**
+     * Skips over one column value without building it. Used when only some columns of a row are required.
+     * <p>
+     * By default the value is deserialized and discarded.
+     * 
+     * @param array
+     *            - array used for the input
+     * @param cd
+     *            the column definition for the involved column
+     */
+    default void skip(ByteArray array, ColumnDefinition cd) {
+        deserialize(array, cd);
+    }
+
     /**
      * @param array
      * @param v
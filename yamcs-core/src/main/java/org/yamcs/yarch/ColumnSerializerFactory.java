@@ -221,6 +221,11 @@ public class ColumnSerializerFactory {
             return byteArray.get() != 0;
         }
 
+        @Override
+        public void skip(ByteArray byteArray, ColumnDefinition cd) {
+            byteArray.skip(1);
+        }
+
         @Override
         public Boolean deserialize(ByteBuffer buf, ColumnDefinition cd) {
             return buf.get() != 0;
@@ -244,6 +249,11 @@ public class ColumnSerializerFactory {
             return byteArray.get();
         }
 
+        @Override
+        public void skip(ByteArray byteArray, ColumnDefinition cd) {
+            byteArray.skip(1);
+        }
+
         @Override
         public Byte deserialize(ByteBuffer byteBuf, ColumnDefinition cd) {
             return byteBuf.get();
@@ -270,6 +280,12 @@ public class ColumnSerializerFactory {
             }
         }
 
+        @Override
+        public void skip(ByteArray byteArray, ColumnDefinition cd) {
+            while (byteArray.get() != 0) {
+            }
+        }
+
         @Override
         public String deserialize(ByteBuffer byteBuf, ColumnDefinition cd) {
             return decodeUTF(byteBuf, true);
@@ -298,6 +314,11 @@ public class ColumnSerializerFactory {
             }
         }
 
+        @Override
+        public void skip(ByteArray byteArray, ColumnDefinition cd) {
+            byteArray.skip(byteArray.getShort() & 0xFFFF);
+        }
+
         @Override
         public String deserialize(ByteBuffer byteBuf, ColumnDefinition cd) {
             int len = byteBuf.getShort();
@@ -396,6 +417,11 @@ public class ColumnSerializerFactory {
             return bp;
         }
 
+        @Override
+        public void skip(ByteArray byteArray, ColumnDefinition cd) {
+            byteArray.skip(byteArray.getInt());
+        }
+
         @Override
         public byte[] deserialize(ByteBuffer byteBuf, ColumnDefinition cd) {
             int length = byteBuf.getInt();
@@ -440,6 +466,11 @@ public class ColumnSerializerFactory {
             }
         }
 
+        @Override
+        public void skip(ByteArray byteArray, ColumnDefinition cd) {
+            byteArray.skip(byteArray.getInt());
+        }
+
         @Override
         public MessageLite deserialize(ByteBuffer byteBuf, ColumnDefinition cd) {
             int length = byteBuf.getInt();
@@ -525,6 +556,11 @@ public class ColumnSerializerFactory {
             return getValue(byteArray.getShort());
         }
 
+        @Override
+        public void skip(ByteArray byteArray, ColumnDefinition cd) {
+            byteArray.skip(2);
+        }
+
         @Override
         public String deserialize(ByteBuffer byteBuf, ColumnDefinition cd) {
             return getValue(byteBuf.getShort());
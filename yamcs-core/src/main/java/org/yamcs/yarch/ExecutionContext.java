@@ -22,6 +22,8 @@ public class ExecutionContext implements AutoCloseable {
     final static Log log = new Log(ExecutionContext.class);
     // used to keep a stack trace when created. to remove
     Exception e;
+    int scanParallelism = 1;
+    boolean scanOrdered = true;
 
     public ExecutionContext(YarchDatabaseInstance db) {
         this.db = db;
@@ -43,6 +45,31 @@ public class ExecutionContext implements AutoCloseable {
         return tablespace;
     }
 
+    /**
+     * Sets the number of table partitions read in parallel by the table selects of the query.
+     * 
+     * @param parallelism
+     *            the maximum number of partitions read at the same time; 1 means sequential read
+     * @param ordered
+     *            if false, the records of the partitions read in parallel may be interleaved
+     * @see TableWalker#setParallelism(int, boolean)
+     */
+    public void setScanParallelism(int parallelism, boolean ordered) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("The parallelism has to be at least 1");
+        }
+        this.scanParallelism = parallelism;
+        this.scanOrdered = ordered;
+    }
+
+    public int getScanParallelism() {
+        return scanParallelism;
+    }
+
+    public boolean isScanOrdered() {
+        return scanOrdered;
+    }
+
     public synchronized Snapshot getSnapshot(YRDB rdb) {
         if (snapshots == null) {
             snapshots = new HashMap<>();
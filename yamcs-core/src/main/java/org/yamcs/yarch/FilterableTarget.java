@@ -1,5 +1,6 @@
 package org.yamcs.yarch;
 
+import java.util.List;
 import java.util.Set;
 
 import org.yamcs.yarch.streamsql.ColumnExpression;
@@ -28,4 +29,16 @@ public interface FilterableTarget {
      * @throws StreamSqlException
      */
     public void addInFilter(ColumnExpression cexpr, boolean negation, Set<Object> values) throws StreamSqlException;
+
+    /**
+     * Adds a restriction to the rows containing all the words in the given columns, resulted from a text_match
+     * condition. It is used if the table has a text index covering the columns.
+     * 
+     * @param columns
+     * @param words
+     *            the words as returned by the {@link TextTokenizer}
+     * @throws StreamSqlException
+     */
+    public default void addTextFilter(List<String> columns, Set<String> words) throws StreamSqlException {
+    }
 }
@@ -1,23 +1,63 @@
 package org.yamcs.yarch;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.HashMap;
+import java.lang.invoke.VarHandle;
+import java.util.IdentityHashMap;
 import java.util.Map;
-import java.util.PriorityQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
+import org.yamcs.utils.SpscArrayQueue;
 import org.yamcs.yarch.streamsql.StreamSqlException;
 
-public class MergeStream extends Stream implements StreamSubscriber, Runnable {
-    private Map<Stream, LinkedBlockingQueue<Tuple>> tupleQueues;
-    private PriorityQueue<TupleQueuePair> orderedQueue;
-    Stream[] streams;
-    private Tuple queueEndMark = new Tuple(new TupleDefinition(), new ArrayList<>());
+/**
+ * Merges the tuples of multiple streams ordered by the merge column into one ordered stream.
+ * <p>
+ * Each input stream passes its tuples in batches through a bounded queue. The table reader streams emit their tuples
+ * from one thread and use a lock-free single producer/single consumer ring; the other streams may emit from multiple
+ * threads and use a (locking) array blocking queue.
+ * <p>
+ * There is no thread dedicated to the merge: after passing a batch, the input thread performs itself the merge as far
+ * as possible, unless another input thread is already doing it. The merge is performed with a loser tree, requiring
+ * log2(k) comparisons for each output tuple, k being the number of inputs.
+ * <p>
+ * The merge blocks when one of the inputs does not have any available tuple; the other inputs are then blocked when
+ * their queue is full, until the merge takes a batch from it.
+ */
+public class MergeStream extends Stream implements StreamSubscriber {
+    // number of batches that each input can pass in advance
+    static final int QUEUE_SIZE = 16;
+    // how long a producer waits to be woken up before checking again if the stream is quitting
+    static final long MAX_WAIT_MILLIS = 100;
+
+    static final TupleBatch END_MARK = new TupleBatch(0);
     static AtomicInteger counter = new AtomicInteger();
+
+    Stream[] streams;
     private final String mergeColumn;
+    private final boolean ascending;
+
+    private final Input[] inputs;
+    private final Map<Stream, Input> inputMap = new IdentityHashMap<>();
+
+    // the producers waiting for space in a full queue wait on the notFull condition; the merge signals it only if
+    // there are waiting producers
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notFull = lock.newCondition();
+    private final AtomicInteger numWaiting = new AtomicInteger();
+
+    // held by the thread performing the merge; all the fields below are accessed only while holding it
+    private final AtomicBoolean merging = new AtomicBoolean();
+
+    // tree[0] is the index of the input having the next tuple, tree[1..k-1] are the losers of the internal nodes
+    private final int[] tree;
+    private boolean treeBuilt = false;
+    // index of the input whose next tuple is awaited to continue the merge or -1
+    private int blocked = -1;
+    private TupleBatch out = new TupleBatch();
 
     public MergeStream(YarchDatabaseInstance ydb, Stream[] streams, String mergeColumn, boolean ascending)
             throws StreamSqlException {
@@ -25,19 +65,14 @@ public class MergeStream extends Stream implements StreamSubscriber, Runnable {
         super(ydb, getStreamName(streams), streams[0].getDefinition());
         this.streams = streams;
         this.mergeColumn = mergeColumn;
+        this.ascending = ascending;
 
-        if (ascending) {
-            orderedQueue = new PriorityQueue<>();
-        } else {
-            orderedQueue = new PriorityQueue<>(REVERSE_COMPARATOR);
-        }
-
-        Map<Stream, LinkedBlockingQueue<Tuple>> t = new HashMap<>();
-
-        for (Stream s : streams) {
-            t.put(s, new LinkedBlockingQueue<Tuple>(50));
+        inputs = new Input[streams.length];
+        for (int i = 0; i < streams.length; i++) {
+            inputs[i] = new Input(streams[i] instanceof TableReaderStream);
+            inputMap.put(streams[i], inputs[i]);
         }
-        tupleQueues = Collections.unmodifiableMap(t);
+        tree = new int[streams.length];
 
         for (Stream s : streams) {
             s.addSubscriber(this);
@@ -55,11 +90,15 @@ public class MergeStream extends Stream implements StreamSubscriber, Runnable {
 
     @Override
     public void onTuple(Stream s, Tuple tuple) {
-        try {
-            tupleQueues.get(s).put(tuple);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            log.info("got InterruptedException when writing data to the queue");
+        TupleBatch batch = new TupleBatch(1);
+        batch.add(tuple);
+        put(inputMap.get(s), batch);
+    }
+
+    @Override
+    public void onTuples(Stream s, TupleBatch tuples) {
+        if (!tuples.isEmpty()) {
+            put(inputMap.get(s), tuples);
         }
     }
 
@@ -69,88 +108,270 @@ public class MergeStream extends Stream implements StreamSubscriber, Runnable {
             return;
         }
         log.debug("Got stream closed for {}", s);
-        try {
-            tupleQueues.get(s).put(queueEndMark);
-        } catch (InterruptedException e) {
-            log.info("got InterruptedException when writing the end mark to the queue");
-            Thread.currentThread().interrupt();
+        put(inputMap.get(s), END_MARK);
+    }
+
+    // called by the input stream thread
+    private void put(Input input, TupleBatch batch) {
+        while (!input.offer(batch)) {
+            merge();
+            if (input.offer(batch)) {
+                break;
+            }
+            if (quitting()) {
+                return;
+            }
+            // the merge signals after taking a batch if it sees the counter incremented; the offer is retried after
+            // incrementing it such that a batch taken in between is not missed
+            numWaiting.incrementAndGet();
+            lock.lock();
+            try {
+                if (input.offer(batch)) {
+                    break;
+                }
+                notFull.await(MAX_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.info("Got interrupted while waiting to pass the data to the merge");
+                return;
+            } finally {
+                lock.unlock();
+                numWaiting.decrementAndGet();
+            }
+        }
+        merge();
+    }
+
+    // called by the merge after taking a batch from a queue
+    private void signalNotFull() {
+        // the ring publishes the removal with a lazy set, make sure it is visible before reading the counter
+        VarHandle.fullFence();
+        if (numWaiting.get() > 0) {
+            lock.lock();
+            try {
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
         }
-        // tupleQueues.remove(s);
     }
 
     @Override
     public void doStart() {
         log.debug("Starting merge stream with {} substreams", streams.length);
-        // first start all the substreams
         for (Stream s : streams) {
             s.start();
         }
-        // now start the thread that collects data from the substreams
-        new Thread(this).start();
     }
 
-    @Override
-    public void run() {
-        try {
-            // first wait for all the queues to have at least a tuple
-            log.debug("waiting for at least one tuple in each queue");
-            for (LinkedBlockingQueue<Tuple> q : tupleQueues.values()) {
-                Tuple t = q.take();
-                if (t == queueEndMark) {
-                    continue;// this queue is finished, ignore it
-                }
-                orderedQueue.add(new TupleQueuePair(q, t));
+    /**
+     * Performs the merge until one of the inputs does not have data, unless another thread is already doing it.
+     * <p>
+     * After releasing the merge, it checks again if it can continue; this ensures that the data passed by other
+     * threads while the merge was busy is not left behind.
+     */
+    private void merge() {
+        while (merging.compareAndSet(false, true)) {
+            try {
+                doMerge();
+            } finally {
+                merging.set(false);
+            }
+            if (!canContinue()) {
+                break;
             }
-            log.debug("got one tuple from each stream, starting the business");
+        }
+    }
 
-            // now continue publishing the first element from the priority queue till it becomes empty
-            while (orderedQueue.size() > 0) {
-                TupleQueuePair tq = orderedQueue.poll();
-                if (getState() == QUITTING) {
-                    break;
-                }
-                emitTuple(tq.t);
-                // get a new tuple from the queue from which the previous one has been sent
-                Tuple t = tq.q.take();
-                if (t == queueEndMark) {
-                    continue;// this queue is finished, ignore it
+    // true if the merge is not finished and the input it waits for has data
+    private boolean canContinue() {
+        if (quitting()) {
+            return false;
+        }
+        if (!treeBuilt) {
+            for (Input in : inputs) {
+                if (!in.hasTuple() && !in.finished && in.isEmpty()) {
+                    return false;
                 }
-                if (!t.hasColumn(mergeColumn)) {
-                    log.warn("Ignoring tuple because it does not have column {}", mergeColumn);
+            }
+            return true;
+        }
+        return blocked >= 0 && !inputs[blocked].isEmpty();
+    }
+
+    private void doMerge() {
+        if (quitting()) {
+            return;
+        }
+        if (!treeBuilt) {
+            for (int i = 0; i < inputs.length; i++) {
+                if (!inputs[i].fill()) {
+                    return;
                 }
+            }
+            log.debug("got data from each stream, starting the merge");
+            buildTree();
+            treeBuilt = true;
+        } else if (blocked >= 0) {
+            if (!inputs[blocked].fill()) {
+                return;
+            }
+            replay(blocked);
+            blocked = -1;
+        }
 
-                orderedQueue.add(new TupleQueuePair(tq.q, t));
+        while (!quitting()) {
+            int w = tree[0];
+            Input in = inputs[w];
+            if (in.finished) { // the finished inputs are last in the tree so all are finished
+                flush();
+                close();
+                return;
             }
-            close();
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            log.info("Got interrupted exception, quitting");
-            return;
+            out.add(in.next());
+            if (out.isFull()) {
+                flush();
+            }
+            if (!in.fill()) {
+                blocked = w;
+                flush();
+                return;
+            }
+            replay(w);
+        }
+    }
+
+    private void flush() {
+        if (!out.isEmpty()) {
+            TupleBatch b = out;
+            out = new TupleBatch();
+            emitTuples(b);
+        }
+    }
+
+    private void buildTree() {
+        int k = inputs.length;
+        int[] winners = new int[2 * k];
+        for (int i = 0; i < k; i++) {
+            winners[k + i] = i;
+        }
+        for (int n = k - 1; n >= 1; n--) {
+            int a = winners[2 * n];
+            int b = winners[2 * n + 1];
+            if (before(a, b)) {
+                winners[n] = a;
+                tree[n] = b;
+            } else {
+                winners[n] = b;
+                tree[n] = a;
+            }
+        }
+        tree[0] = winners[1];
+    }
+
+    // called after the current tuple of the input i has changed
+    private void replay(int i) {
+        int winner = i;
+        for (int n = (inputs.length + i) >> 1; n >= 1; n >>= 1) {
+            if (before(tree[n], winner)) {
+                int tmp = tree[n];
+                tree[n] = winner;
+                winner = tmp;
+            }
+        }
+        tree[0] = winner;
+    }
+
+    // true if the current tuple of input a comes before the current tuple of input b
+    private boolean before(int a, int b) {
+        Input ia = inputs[a];
+        Input ib = inputs[b];
+        if (ia.finished || ib.finished) {
+            return !ia.finished && ib.finished || (ia.finished == ib.finished && a < b);
+        }
+        int c = DataType.compare(ia.current().getColumn(mergeColumn), ib.current().getColumn(mergeColumn));
+        if (!ascending) {
+            c = -c;
         }
+        return c < 0 || (c == 0 && a < b);
     }
 
     @Override
     protected void doClose() {
+        lock.lock();
+        try {
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
         for (Stream s : streams) {
             s.close();
         }
     }
 
-    private static final Comparator<TupleQueuePair> REVERSE_COMPARATOR = (o1, o2) -> -o1.compareTo(o2);
+    class Input {
+        // exactly one of them is used
+        final SpscArrayQueue<TupleBatch> ring;
+        final ArrayBlockingQueue<TupleBatch> queue;
+        // the following are accessed only while holding the merge
+        TupleBatch batch;
+        int pos;
+        boolean finished;
+
+        Input(boolean singleProducer) {
+            ring = singleProducer ? new SpscArrayQueue<>(QUEUE_SIZE) : null;
+            queue = singleProducer ? null : new ArrayBlockingQueue<>(QUEUE_SIZE);
+        }
+
+        boolean offer(TupleBatch b) {
+            return ring != null ? ring.offer(b) : queue.offer(b);
+        }
+
+        // called only while holding the merge
+        TupleBatch poll() {
+            return ring != null ? ring.poll() : queue.poll();
+        }
+
+        boolean isEmpty() {
+            return ring != null ? ring.isEmpty() : queue.isEmpty();
+        }
 
-    class TupleQueuePair implements Comparable<TupleQueuePair> {
+        boolean hasTuple() {
+            return batch != null && pos < batch.size();
+        }
 
-        LinkedBlockingQueue<Tuple> q;
-        Tuple t;
+        Tuple current() {
+            return batch.get(pos);
+        }
 
-        TupleQueuePair(LinkedBlockingQueue<Tuple> q, Tuple t) {
-            this.q = q;
-            this.t = t;
+        Tuple next() {
+            return batch.get(pos++);
         }
 
-        @Override
-        public int compareTo(TupleQueuePair o) {
-            return DataType.compare(t.getColumn(mergeColumn), o.t.getColumn(mergeColumn));
+        /**
+         * Makes sure that there is a current tuple, taking the next batch from the queue if necessary.
+         *
+         * @return false if the merge has to wait for more data
+         */
+        boolean fill() {
+            while (!finished && !hasTuple()) {
+                TupleBatch b = poll();
+                if (b == null) {
+                    return false;
+                }
+                signalNotFull();
+                if (b == END_MARK) {
+                    finished = true;
+                    batch = null;
+                } else {
+                    batch = b;
+                    pos = 0;
+                    if (!current().hasColumn(mergeColumn)) {
+                        log.warn("Tuple does not have the merge column {}", mergeColumn);
+                    }
+                }
+            }
+            return true;
         }
     }
 }
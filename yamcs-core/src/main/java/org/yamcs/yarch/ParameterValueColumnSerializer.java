@@ -27,6 +27,11 @@ public class ParameterValueColumnSerializer implements ColumnSerializer<Paramete
         return fromProto(cd.getName(), gpvb.build());
     }
 
+    @Override
+    public void skip(ByteArray byteArray, ColumnDefinition cd) {
+        byteArray.skip(byteArray.getInt());
+    }
+
     @Override
     public ParameterValue deserialize(ByteBuffer byteBuf, ColumnDefinition cd) {
         int size = byteBuf.getInt();
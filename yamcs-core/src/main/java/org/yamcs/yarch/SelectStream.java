@@ -81,6 +81,30 @@ public class SelectStream extends Stream implements StreamSubscriber {
         }
     }
 
+    /**
+     * Without window processing, the tuples passing the where clause are emitted as one batch.
+     */
+    @Override
+    public void onTuples(Stream stream, TupleBatch tuples) {
+        if (windowProc != null) {
+            StreamSubscriber.super.onTuples(stream, tuples);
+            return;
+        }
+        TupleBatch out = new TupleBatch(tuples.size());
+        for (Tuple t : tuples) {
+            if (whereExp != null) {
+                Boolean v = (Boolean) whereExp.getValue(t);
+                if (!v) {
+                    continue;
+                }
+            }
+            out.add(select(t));
+        }
+        if (!out.isEmpty()) {
+            emitTuples(out);
+        }
+    }
+
     private void processWindow(Tuple tuple) {
         if (aggInputList != null) {
             Object[] v = new Object[aggInputList.size()];
@@ -95,9 +119,12 @@ public class SelectStream extends Stream implements StreamSubscriber {
     }
 
     private void processSelectList(Tuple tuple) {
+        emitTuple(select(tuple));
+    }
+
+    private Tuple select(Tuple tuple) {
         if (selectList == null) {
-            emitTuple(tuple);
-            return;
+            return tuple;
         }
         ArrayList<Object> v = new ArrayList<>();
         TupleDefinition tdef = new TupleDefinition();
@@ -112,8 +139,7 @@ public class SelectStream extends Stream implements StreamSubscriber {
                 v.add(ce.getValue(tuple));
             }
         }
-        tuple = new Tuple(tdef, v);
-        emitTuple(tuple);
+        return new Tuple(tdef, v);
     }
 
     @Override
@@ -1,18 +1,66 @@
 package org.yamcs.yarch;
 
-public class SpeedLimitStream extends Stream implements StreamSubscriber {
+import java.util.ArrayDeque;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
-    Stream input;
-    volatile SpeedSpec speedSpec;
-    private long ltst = -1; // time when the last tuple has been sent
-    private long ltt = -1; // time of the last tuple sent
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
+/**
+ * Limits the speed at which the tuples of the input stream are passed on.
+ * <p>
+ * The tuples are queued and released by a timer shared between all the speed limit streams; each tuple is released
+ * once its due time has passed, all the tuples due at the same time being released together. The due times are
+ * computed from the previous due time (not from the time when the previous tuple has been actually released) such
+ * that the delays of the timer do not accumulate.
+ * <p>
+ * The input stream is blocked when the queue is full.
+ * <p>
+ * The release can be paused; the tuples are not released until resumed. The speed limit stream does not wait in the
+ * timer threads so the subscribers should pause it instead of waiting when receiving a tuple.
+ * <p>
+ * In AFAP mode the tuples are passed on directly from the input thread.
+ */
+public class SpeedLimitStream extends Stream implements StreamSubscriber {
     /**
      * maximum time to wait if SPEED is ORIGINAL meaning that if there is a gap in the data longer than this, we
      * continue)
      */
     public final static long MAX_WAIT_TIME = 60000;
 
+    // maximum number of tuples queued before blocking the input stream
+    static final int MAX_QUEUE_SIZE = 1024;
+
+    static final ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(
+            Runtime.getRuntime().availableProcessors(),
+            new ThreadFactoryBuilder().setNameFormat("SpeedLimitStream-%d").setDaemon(true).build());
+
+    Stream input;
+    volatile SpeedSpec speedSpec;
+
+    // held while emitting; taken before the queue lock
+    private final Object emitLock = new Object();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notFull = lock.newCondition();
+    // the following are guarded by the lock
+    private final ArrayDeque<Tuple> queue = new ArrayDeque<>();
+    private boolean scheduled = false; // true if the release is scheduled or running
+    private boolean paused = false;
+    private boolean inputClosed = false;
+
+    // the following are modified while holding both the emitLock and the lock such that the statistics can be read
+    // with the lock only (the emitLock is held while emitting and may be held for long)
+    private boolean rebase = true; // if true, the next tuple is released without waiting
+    private long prevDue; // due time of the last tuple released (System.nanoTime)
+    private long prevTime; // time of the last tuple released (for ORIGINAL speed)
+    private long prevRelease; // actual release time of the last tuple
+    private long numReleased;
+    private long totalError;
+    private long maxError;
+
     public SpeedLimitStream(YarchDatabaseInstance dict, String name, TupleDefinition definition, SpeedSpec speedSpec) {
         super(dict, name, definition);
         this.speedSpec = speedSpec;
@@ -29,51 +77,203 @@ public class SpeedLimitStream extends Stream implements StreamSubscriber {
 
     @Override
     public void onTuple(Stream s, Tuple t) {
-        long waitTime = 0;
-        try {
-            switch (speedSpec.getType()) {
-            case AFAP:
-                break;
-            case FIXED_DELAY:
-                long ctime = System.currentTimeMillis();
-                if (ltst != -1) {
-                    waitTime = (long) (speedSpec.getFixedDelay() - (ctime - ltst));
-                }
-                break;
-            case ORIGINAL:
-                long time = (Long) t.getColumn(speedSpec.column);
-                if (ltt != -1) {
-                    waitTime = (long) ((time - ltt) / speedSpec.getMultiplier());
+        SpeedSpec.Type type = speedSpec.getType();
+        if (type == SpeedSpec.Type.AFAP || type == SpeedSpec.Type.STEP_BY_STEP) {
+            synchronized (emitLock) {
+                boolean direct;
+                lock.lock();
+                try {
+                    direct = !paused && queue.isEmpty();
+                } finally {
+                    lock.unlock();
                 }
-                if (waitTime > MAX_WAIT_TIME) {
-                    waitTime = MAX_WAIT_TIME;
+                if (direct) {
+                    emitTuple(t);
+                    return;
                 }
-                ltt = time;
-                break;
-            case STEP_BY_STEP: // TODO ? Currently implemented at YarchReplay level
-                break;
             }
-            if (waitTime > 0) {
-                Thread.sleep(waitTime);
+        }
+
+        lock.lock();
+        try {
+            while (queue.size() >= MAX_QUEUE_SIZE) {
+                if (quitting()) {
+                    return;
+                }
+                notFull.await(100, TimeUnit.MILLISECONDS);
             }
+            queue.add(t);
+            scheduleRelease();
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             log.debug("Interrupt received ", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // called with the lock held
+    private void scheduleRelease() {
+        if (!scheduled && !paused && !quitting()) {
+            scheduled = true;
+            timer.execute(this::release);
+        }
+    }
+
+    /**
+     * Runs in the timer: releases all the tuples whose due time has passed and schedules itself for the next one.
+     */
+    private void release() {
+        boolean finished = false;
+        synchronized (emitLock) {
+            while (true) {
+                Tuple t;
+                lock.lock();
+                try {
+                    t = queue.peek();
+                    if (t == null || paused || quitting()) {
+                        scheduled = false;
+                        finished = (t == null && inputClosed);
+                        break;
+                    }
+                    long now = System.nanoTime();
+                    long due = getDueTime(t, now);
+                    if (due > now) {
+                        timer.schedule(this::release, due - now, TimeUnit.NANOSECONDS);
+                        break;
+                    }
+                    queue.poll();
+                    notFull.signal();
+                    released(t, due, now);
+                } finally {
+                    lock.unlock();
+                }
+                emitTuple(t);
+            }
+        }
+        if (finished) {
+            close();
+        }
+    }
+
+    private long getDueTime(Tuple t, long now) {
+        if (rebase) {
+            return now;
+        }
+        SpeedSpec ss = speedSpec;
+        switch (ss.getType()) {
+        case FIXED_DELAY:
+            return prevRelease + TimeUnit.MILLISECONDS.toNanos(ss.getFixedDelay());
+        case ORIGINAL:
+            long time = (Long) t.getColumn(ss.column);
+            double waitTime = (time - prevTime) / ss.getMultiplier();
+            if (waitTime > MAX_WAIT_TIME) {
+                waitTime = MAX_WAIT_TIME;
+            } else if (waitTime < 0) {
+                waitTime = 0;
+            }
+            return prevDue + (long) (waitTime * 1000_000);
+        default:
+            return now;
+        }
+    }
+
+    private void released(Tuple t, long due, long now) {
+        rebase = false;
+        prevDue = due;
+        prevRelease = now;
+        SpeedSpec ss = speedSpec;
+        if (ss.getType() == SpeedSpec.Type.ORIGINAL) {
+            prevTime = (Long) t.getColumn(ss.column);
+        }
+        long error = now - due;
+        numReleased++;
+        totalError += error;
+        if (error > maxError) {
+            maxError = error;
+        }
+    }
+
+    /**
+     * Stops releasing tuples. When the method returns, no tuple is being emitted (unless called from a subscriber
+     * while receiving a tuple) and none will be emitted until {@link #resume()} is called.
+     */
+    public void pause() {
+        synchronized (emitLock) {
+            lock.lock();
+            try {
+                paused = true;
+            } finally {
+                lock.unlock();
+            }
         }
-        ltst = System.currentTimeMillis();
-        emitTuple(t);
     }
 
     /**
-     * Called when the subcribed stream is closed we close this stream also.
+     * Resumes releasing the tuples. The first tuple is released immediately, the following ones are paced from it.
+     */
+    public void resume() {
+        synchronized (emitLock) {
+            lock.lock();
+            try {
+                rebase = true;
+                paused = false;
+                if (!queue.isEmpty() || inputClosed) {
+                    scheduleRelease();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Called when the subcribed stream is closed; this stream is closed after all the queued tuples have been released.
      */
     @Override
     public void streamClosed(Stream stream) {
-        close();
+        lock.lock();
+        try {
+            inputClosed = true;
+            if (!paused) {
+                scheduleRelease();
+            }
+        } finally {
+            lock.unlock();
+        }
     }
 
     public void setSpeedSpec(SpeedSpec speedSpec) {
-        this.speedSpec = speedSpec;
+        synchronized (emitLock) {
+            lock.lock();
+            try {
+                this.speedSpec = speedSpec;
+                rebase = true;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     *
+     * @return statistics about the difference between the times when the tuples have been released and their due
+     *         times
+     */
+    public Stats getStats() {
+        long lag = 0;
+        lock.lock();
+        try {
+            Tuple t = queue.peek();
+            if (t != null && !paused && !rebase) {
+                long now = System.nanoTime();
+                lag = Math.max(0, now - getDueTime(t, now));
+            }
+            return new Stats(numReleased, numReleased == 0 ? 0 : totalError / numReleased, maxError, lag,
+                    queue.size());
+        } finally {
+            lock.unlock();
+        }
     }
 
     @Override
@@ -83,10 +283,80 @@ public class SpeedLimitStream extends Stream implements StreamSubscriber {
 
     @Override
     protected void doClose() {
+        lock.lock();
+        try {
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
         input.close(); // TODO replace with removeSubscriber
+        if (log.isDebugEnabled()) {
+            log.debug("Closed speed limit stream {}: {}", getName(), getStats());
+        }
     }
 
     public void changeSpeed(SpeedSpec speedSpec) {
-        this.speedSpec = speedSpec;
+        setSpeedSpec(speedSpec);
+    }
+
+    /**
+     * Pacing statistics of a speed limit stream. The times are in nanoseconds.
+     */
+    public static class Stats {
+        final long numReleased;
+        final long meanError;
+        final long maxError;
+        final long lag;
+        final int queueSize;
+
+        Stats(long numReleased, long meanError, long maxError, long lag, int queueSize) {
+            this.numReleased = numReleased;
+            this.meanError = meanError;
+            this.maxError = maxError;
+            this.lag = lag;
+            this.queueSize = queueSize;
+        }
+
+        /**
+         *
+         * @return the number of tuples released by the timer
+         */
+        public long getNumReleased() {
+            return numReleased;
+        }
+
+        /**
+         *
+         * @return the mean delay between the due time and the release time of the tuples
+         */
+        public long getMeanError() {
+            return meanError;
+        }
+
+        /**
+         *
+         * @return the maximum delay between the due time and the release time of the tuples
+         */
+        public long getMaxError() {
+            return maxError;
+        }
+
+        /**
+         *
+         * @return how late is the next tuple in the queue, 0 if it is not yet due
+         */
+        public long getLag() {
+            return lag;
+        }
+
+        public int getQueueSize() {
+            return queueSize;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("released: %d, mean error: %.3f ms, max error: %.3f ms, lag: %.3f ms, queued: %d",
+                    numReleased, meanError / 1e6, maxError / 1e6, lag / 1e6, queueSize);
+        }
     }
 }
@@ -1,6 +1,7 @@
 package org.yamcs.yarch;
 
 import java.util.List;
+import java.util.Set;
 
 import org.yamcs.utils.TimeInterval;
 import org.yamcs.yarch.TableWriter.InsertMode;
@@ -110,6 +111,19 @@ public interface StorageEngine {
     public TableWalker newSecondaryIndexTableWalker(YarchDatabaseInstance ydb, TableDefinition tableDefinition,
             boolean ascending, boolean follow);
 
+    /**
+     * Returns a walker iterating only through the rows containing all the given words in the given columns, using a
+     * text index.
+     * <p>
+     * The walker may return also rows not matching the condition, so the condition has to be verified on the result.
+     * 
+     * @return the walker or null if there is no usable text index covering the columns
+     */
+    public default TableWalker newTextIndexTableWalker(YarchDatabaseInstance ydb, TableDefinition tableDefinition,
+            List<String> columns, Set<String> words, boolean ascending) {
+        return null;
+    }
+
     /**
      * Gets the list of sequences togehter with their latest values
      */
@@ -65,6 +65,30 @@ public abstract class Stream {
         }
     }
 
+    /**
+     * Emits a batch of tuples to the subscribers, see {@link StreamSubscriber#onTuples(Stream, TupleBatch)}.
+     * <p>
+     * If an exception handler is set, the tuples are emitted one by one such that the handler knows which tuple has
+     * caused the exception.
+     */
+    public void emitTuples(TupleBatch tuples) {
+        if (handler != null) {
+            for (Tuple t : tuples) {
+                emitTuple(t);
+            }
+            return;
+        }
+        dataCount.addAndGet(tuples.size());
+        for (StreamSubscriber s : subscribers) {
+            try {
+                s.onTuples(this, tuples);
+            } catch (Exception e) {
+                log.warn("Exception received when emitting tuples to subscriber " + s, e);
+                throw e;
+            }
+        }
+    }
+
     public String getName() {
         return name;
     }
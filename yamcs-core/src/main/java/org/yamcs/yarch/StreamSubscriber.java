@@ -5,6 +5,24 @@ public interface StreamSubscriber {
 
     void onTuple(Stream stream, Tuple tuple);
 
+    /**
+     * Called when the stream emits a batch of tuples.
+     * <p>
+     * By default the tuples are passed one by one to {@link #onTuple(Stream, Tuple)}, stopping if the stream is
+     * closed in the meanwhile. Subscribers which can process the batch at once should override this method.
+     * <p>
+     * Note that {@link Stream#getDataCount()} is incremented with the size of the batch before the batch is passed to
+     * the subscribers.
+     */
+    default void onTuples(Stream stream, TupleBatch tuples) {
+        for (Tuple t : tuples) {
+            if (stream.isClosed()) {
+                return;
+            }
+            onTuple(stream, t);
+        }
+    }
+
     default void streamClosed(Stream stream) {
     }
 }
@@ -4,6 +4,7 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -582,6 +583,77 @@ public class TableDefinition {
         return new Tuple(tdef, cols);
     }
 
+    /**
+     * Same as {@link #deserialize(byte[], byte[])} but only the given columns are deserialized, the other ones are
+     * skipped over.
+     * <p>
+     * The returned tuple contains the requested columns in the order in which they appear in the row; the columns not
+     * having a value in the row are missing.
+     */
+    public Tuple deserialize(byte[] k, byte[] v, Set<String> columns) {
+        TupleDefinition tdef = new TupleDefinition();
+        ArrayList<Object> cols = new ArrayList<>(columns.size());
+        int remaining = columns.size();
+
+        try {
+            // deserialize the key up to the last required column
+            int lastKeyIdx = -1;
+            for (int i = 0; i < keyDef.size(); i++) {
+                if (columns.contains(keyDef.get(i).getName())) {
+                    lastKeyIdx = i;
+                }
+            }
+            ByteArray byteArray = ByteArray.wrap(k);
+            for (int i = 0; i <= lastKeyIdx; i++) {
+                TableColumnDefinition tcd = keyDef.get(i);
+                if (columns.contains(tcd.getName())) {
+                    tdef.addColumn(tcd);
+                    cols.add(tcd.deserializeValue(byteArray));
+                    remaining--;
+                } else {
+                    tcd.skipValue(byteArray);
+                }
+            }
+
+            // deserialize the value until all the required columns have been found
+            byteArray = ByteArray.wrap(v);
+            while (remaining > 0) {
+                int cidx = byteArray.getInt(); // column index
+                if (cidx == -1) {
+                    break;
+                }
+                byte dt = (byte) (cidx >>> 24);
+                cidx &= 0xFFFFFF;
+                if (cidx >= valueDef.size()) {
+                    throw new DatabaseCorruptionException("Reference to index " + cidx
+                            + " found in table" + name + " but the table definition does not have this column");
+                }
+
+                TableColumnDefinition tcd = valueDef.get(cidx);
+                if (formatVersion >= 3 && tcd.getType().getTypeId() != dt) {
+                    throw new DatabaseCorruptionException(String.format(
+                            "Data type for table %s, column %s (id: %d) does not match the data read: expected %d, read: %d",
+                            name, tcd.getName(), cidx, tcd.getType().getTypeId(), dt));
+                }
+                if (columns.contains(tcd.getName())) {
+                    tdef.addColumn(tcd);
+                    cols.add(tcd.deserializeValue(byteArray));
+                    remaining--;
+                } else {
+                    tcd.skipValue(byteArray);
+                }
+            }
+        } catch (IOException e) {
+            throw new DatabaseCorruptionException(
+                    "Cannot deserialize row from " + name + " "
+                            + "(key:" + StringConverter.byteBufferToHexString(ByteBuffer.wrap(k))
+                            + ", value: " + StringConverter.byteBufferToHexString(ByteBuffer.wrap(v)) + ")",
+                    e);
+        }
+
+        return new Tuple(tdef, cols);
+    }
+
     public boolean isCompressed() {
         return compressed;
     }
@@ -15,6 +15,7 @@ public class TableReaderStream extends Stream implements Runnable, TableVisitor
     
     protected TableDefinition tableDefinition;;
     Thread thread;
+    TupleBatch batch = new TupleBatch();
     
     public TableReaderStream(YarchDatabaseInstance ydb, TableDefinition tblDef, TableWalker iterator) {
        super(ydb, tblDef.getName() + "_" + count.getAndIncrement(),
@@ -34,6 +35,7 @@ public class TableReaderStream extends Stream implements Runnable, TableVisitor
         log.debug("starting a table stream from table {} ", tableDefinition.getName());
         try {
             tblIterator.walk(this);
+            emitBatch();
         } catch (Exception e) {
             log.error("got exception ", e);
         } finally {
@@ -44,10 +46,22 @@ public class TableReaderStream extends Stream implements Runnable, TableVisitor
 
     @Override
     public Action visit(byte[] key, byte[] value) {
-        emitTuple(dataToTuple(key, value));
+        batch.add(dataToTuple(key, value));
+        if (batch.isFull()) {
+            emitBatch();
+        }
         return ACTION_CONTINUE;
     }
 
+    private void emitBatch() {
+        if (batch.isEmpty() || quitting()) {
+            return;
+        }
+        TupleBatch b = batch;
+        batch = new TupleBatch();
+        emitTuples(b);
+    }
+
 
     protected Tuple dataToTuple(byte[] k, byte[] v) {
         return tableDefinition.deserialize(k, v);
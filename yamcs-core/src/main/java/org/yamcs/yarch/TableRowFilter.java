@@ -0,0 +1,109 @@
+package org.yamcs.yarch;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Condition evaluated by the table walkers on the serialized rows, before the rows are passed to the visitor.
+ * <p>
+ * The condition is a conjunction of compiled boolean expressions. For each of them only the columns it uses are
+ * deserialized, such that the rows not matching are discarded without building the full tuple. The expressions using
+ * only the key columns are evaluated first, followed by those using columns cheap to deserialize; this way the
+ * protobuf or binary columns are decoded only for the rows passing the other conditions.
+ * <p>
+ * The compiled expressions do not keep state between evaluations so the filter can be used from multiple threads at
+ * the same time.
+ */
+public class TableRowFilter {
+    final TableDefinition tableDefinition;
+    final List<Condition> conditions = new ArrayList<>();
+
+    public TableRowFilter(TableDefinition tableDefinition) {
+        this.tableDefinition = tableDefinition;
+    }
+
+    /**
+     * Adds one condition to the conjunction.
+     *
+     * @param expression
+     *            boolean expression compiled against the table tuple definition
+     * @param columns
+     *            the names of the table columns used in the expression
+     */
+    public void addCondition(CompiledExpression expression, Set<String> columns) {
+        conditions.add(new Condition(expression, columns, cost(columns)));
+        conditions.sort(Comparator.comparingInt(c -> c.cost));
+    }
+
+    /**
+     *
+     * @return true if the row with the given serialized key and value matches all the conditions
+     */
+    public boolean matches(byte[] key, byte[] value) {
+        for (Condition c : conditions) {
+            Tuple t = tableDefinition.deserialize(key, value, c.columns);
+            // null (unknown) does not match
+            if (!Boolean.TRUE.equals(c.expression.getValue(t))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int size() {
+        return conditions.size();
+    }
+
+    // rough estimation of the cost of deserializing the columns
+    private int cost(Set<String> columns) {
+        int cost = 0;
+        for (String cname : columns) {
+            TableColumnDefinition tcd = tableDefinition.getColumnDefinition(cname);
+            if (tableDefinition.hasKey(cname)) {
+                cost += 1;
+            } else {
+                switch (tcd.getType().val) {
+                case PROTOBUF:
+                case PARAMETER_VALUE:
+                case BINARY:
+                case ARRAY:
+                    cost += 100;
+                    break;
+                case STRING:
+                    cost += 10;
+                    break;
+                default:
+                    cost += 5;
+                }
+            }
+        }
+        return cost;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("TableRowFilter[table=").append(tableDefinition.getName()).append(", conditions on: ");
+        for (int i = 0; i < conditions.size(); i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(conditions.get(i).columns);
+        }
+        return sb.append("]").toString();
+    }
+
+    static class Condition {
+        final CompiledExpression expression;
+        final Set<String> columns;
+        final int cost;
+
+        Condition(CompiledExpression expression, Set<String> columns, int cost) {
+            this.expression = expression;
+            this.columns = columns;
+            this.cost = cost;
+        }
+    }
+}
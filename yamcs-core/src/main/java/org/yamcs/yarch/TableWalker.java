@@ -31,4 +31,29 @@ public interface TableWalker {
 
     void setBatchUpdates(boolean batchUpdates);
 
+    /**
+     * Read up to parallelism partitions at the same time, each with its own iterator.
+     * <p>
+     * If ordered is true, the records are passed to the visitor in the same order as for the sequential walk, the
+     * next partitions being prefetched while the current one is visited. Otherwise the records of the partitions read
+     * in parallel are interleaved; this can be used for aggregations and exports where the order does not matter.
+     * <p>
+     * The visitor is always called from the thread calling {@link #walk(TableVisitor)} but it cannot update or delete
+     * the records in parallel mode.
+     * <p>
+     * By default the partitions are read sequentially.
+     */
+    default void setParallelism(int parallelism, boolean ordered) {
+    }
+
+    /**
+     * Evaluate the given filter on the serialized rows and pass to the visitor only the rows matching it.
+     * 
+     * @return true if the walker applies the filter, false if it does not support filtering in which case the filter
+     *         has to be applied on the resulting tuples.
+     */
+    default boolean setRowFilter(TableRowFilter rowFilter) {
+        return false;
+    }
+
 }
@@ -0,0 +1,48 @@
+package org.yamcs.yarch;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Splits the text into words for the text indices and the text_match function.
+ * <p>
+ * A word is a sequence of letters or digits; everything else is a separator. The words are converted to lower case
+ * and truncated to {@link #MAX_TOKEN_LENGTH} characters.
+ */
+public class TextTokenizer {
+    public static final int MAX_TOKEN_LENGTH = 32;
+
+    /**
+     *
+     * @return the distinct words of the text, in the order in which they first appear
+     */
+    public static Set<String> tokenize(String text) {
+        Set<String> tokens = new LinkedHashSet<>();
+        tokenize(text, tokens);
+        return tokens;
+    }
+
+    /**
+     * Adds the words of the text to the given set
+     */
+    public static void tokenize(String text, Set<String> tokens) {
+        if (text == null) {
+            return;
+        }
+        int n = text.length();
+        int i = 0;
+        while (i < n) {
+            while (i < n && !Character.isLetterOrDigit(text.charAt(i))) {
+                i++;
+            }
+            int start = i;
+            while (i < n && Character.isLetterOrDigit(text.charAt(i))) {
+                i++;
+            }
+            if (i > start) {
+                int end = Math.min(i, start + MAX_TOKEN_LENGTH);
+                tokens.add(text.substring(start, end).toLowerCase());
+            }
+        }
+    }
+}
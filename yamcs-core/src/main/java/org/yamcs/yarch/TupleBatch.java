@@ -0,0 +1,182 @@
+package org.yamcs.yarch;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A sequence of tuples emitted at once by a stream, see {@link Stream#emitTuples(TupleBatch)}.
+ * <p>
+ * The tuples do not need to have the same definition. The values of the fixed-size numeric columns can be retrieved
+ * as primitive arrays; these are built on first access and cached.
+ * <p>
+ * A batch is filled by the emitting stream and shall not be modified once emitted.
+ */
+public class TupleBatch implements Iterable<Tuple> {
+    public static final int DEFAULT_CAPACITY = 256;
+
+    private final List<Tuple> tuples;
+    private final int capacity;
+    private Map<String, Object> columns;
+    private Map<String, BitSet> nullMasks;
+
+    public TupleBatch() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public TupleBatch(int capacity) {
+        this.capacity = capacity;
+        this.tuples = new ArrayList<>(capacity);
+    }
+
+    public void add(Tuple tuple) {
+        tuples.add(tuple);
+        columns = null;
+        nullMasks = null;
+    }
+
+    /**
+     *
+     * @return true if the number of tuples in the batch has reached the capacity
+     */
+    public boolean isFull() {
+        return tuples.size() >= capacity;
+    }
+
+    public boolean isEmpty() {
+        return tuples.isEmpty();
+    }
+
+    public int size() {
+        return tuples.size();
+    }
+
+    public Tuple get(int idx) {
+        return tuples.get(idx);
+    }
+
+    public List<Tuple> getTuples() {
+        return Collections.unmodifiableList(tuples);
+    }
+
+    @Override
+    public Iterator<Tuple> iterator() {
+        return getTuples().iterator();
+    }
+
+    /**
+     * Returns the values of a BYTE, SHORT or INT column.
+     * <p>
+     * The element corresponding to a tuple not having the column or having a null value is 0, see
+     * {@link #getNullMask(String)}.
+     *
+     * @throws ClassCastException
+     *             if the column values are not numbers
+     */
+    public int[] getIntColumn(String colName) {
+        int[] r = (int[]) getCachedColumn("I" + colName);
+        if (r == null) {
+            r = new int[tuples.size()];
+            for (int i = 0; i < r.length; i++) {
+                Number n = getValue(i, colName);
+                if (n != null) {
+                    r[i] = n.intValue();
+                }
+            }
+            cacheColumn("I" + colName, r);
+        }
+        return r;
+    }
+
+    /**
+     * Returns the values of a LONG or TIMESTAMP column.
+     * <p>
+     * The element corresponding to a tuple not having the column or having a null value is 0, see
+     * {@link #getNullMask(String)}.
+     *
+     * @throws ClassCastException
+     *             if the column values are not numbers
+     */
+    public long[] getLongColumn(String colName) {
+        long[] r = (long[]) getCachedColumn("L" + colName);
+        if (r == null) {
+            r = new long[tuples.size()];
+            for (int i = 0; i < r.length; i++) {
+                Number n = getValue(i, colName);
+                if (n != null) {
+                    r[i] = n.longValue();
+                }
+            }
+            cacheColumn("L" + colName, r);
+        }
+        return r;
+    }
+
+    /**
+     * Returns the values of a DOUBLE column.
+     * <p>
+     * The element corresponding to a tuple not having the column or having a null value is 0, see
+     * {@link #getNullMask(String)}.
+     *
+     * @throws ClassCastException
+     *             if the column values are not numbers
+     */
+    public double[] getDoubleColumn(String colName) {
+        double[] r = (double[]) getCachedColumn("D" + colName);
+        if (r == null) {
+            r = new double[tuples.size()];
+            for (int i = 0; i < r.length; i++) {
+                Number n = getValue(i, colName);
+                if (n != null) {
+                    r[i] = n.doubleValue();
+                }
+            }
+            cacheColumn("D" + colName, r);
+        }
+        return r;
+    }
+
+    /**
+     *
+     * @return a bit set having the bit i set if the tuple i does not have the column or its value is null
+     */
+    public BitSet getNullMask(String colName) {
+        if (nullMasks == null) {
+            nullMasks = new HashMap<>();
+        }
+        return nullMasks.computeIfAbsent(colName, k -> {
+            BitSet bs = new BitSet(tuples.size());
+            for (int i = 0; i < tuples.size(); i++) {
+                if (getValue(i, colName) == null) {
+                    bs.set(i);
+                }
+            }
+            return bs;
+        });
+    }
+
+    private <T> T getValue(int idx, String colName) {
+        return tuples.get(idx).getColumn(colName);
+    }
+
+    // the key is the column name prefixed by the array type
+    private Object getCachedColumn(String key) {
+        return columns == null ? null : columns.get(key);
+    }
+
+    private void cacheColumn(String key, Object values) {
+        if (columns == null) {
+            columns = new HashMap<>();
+        }
+        columns.put(key, values);
+    }
+
+    @Override
+    public String toString() {
+        return "TupleBatch[size=" + tuples.size() + "]";
+    }
+}
@@ -5,14 +5,21 @@ import static org.yamcs.yarch.rocksdb.RdbHistogramInfo.histoDbKey;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 import org.rocksdb.RocksDBException;
 import org.rocksdb.Snapshot;
+import org.rocksdb.WriteBatch;
+import org.rocksdb.WriteOptions;
+import org.yamcs.logging.Log;
 import org.yamcs.utils.ByteArrayWrapper;
+import org.yamcs.utils.IntArray;
 import org.yamcs.yarch.HistogramSegment;
 import org.yamcs.yarch.Row;
 import org.yamcs.yarch.TableDefinition;
@@ -26,6 +33,10 @@ import org.yamcs.yarch.YarchException;
  * The {@link HistogramRebuilder} will use another writer during build
  * 
  * <p>
+ * The histogram data is accumulated in memory and written to the database at most {@value #FLUSH_INTERVAL}
+ * milliseconds later; the data not yet written is lost if the server crashes.
+ * 
+ * <p>
  * It does allow concurrent access
  * 
  * @author nm
@@ -33,16 +44,22 @@ import org.yamcs.yarch.YarchException;
  */
 public abstract class HistogramWriter {
     static final int CLEANUP_INTERVAL = 60_000;
+    static final int FLUSH_INTERVAL = 1000;
+    // number of records accumulated in memory after which the histograms are written without waiting
+    static final int MAX_PENDING = 100_000;
     final protected Tablespace tablespace;
     final protected TableDefinition tableDefinition;
     final protected RdbTable table;
     final protected List<ColumnHistogramWriter> columnWriters = new ArrayList<>();
+    final protected Log log;
+    private ScheduledFuture<?> flushFuture;
 
     public HistogramWriter(RdbTable table) {
         this.table = table;
         this.tableDefinition =  table.getDefinition();
         this.tablespace = table.getTablespace();
-
+        this.log = new Log(getClass(), table.yamcsInstance);
+        log.setContext(tableDefinition.getName());
     }
 
     public abstract void addHistogram(Row sertuple) throws IOException, RocksDBException;
@@ -79,15 +96,60 @@ public abstract class HistogramWriter {
             throw new UnsupportedOperationException("multi column histograms not implemented yet");
         }
     }
+    /**
+     * Writes to the database the histogram data accumulated in memory.
+     * <p>
+     * Called periodically, before reading the histograms and when the tablespace is closed.
+     */
+    public synchronized void flush() {
+        if (flushFuture != null) {
+            flushFuture.cancel(false);
+            flushFuture = null;
+        }
+        for (ColumnHistogramWriter chw : columnWriters) {
+            chw.flush();
+        }
+    }
+
+    /**
+     * Drops the histogram data not yet written; called when the table is removed.
+     */
+    public synchronized void discard() {
+        if (flushFuture != null) {
+            flushFuture.cancel(false);
+            flushFuture = null;
+        }
+        for (ColumnHistogramWriter chw : columnWriters) {
+            chw.pending.clear();
+            chw.numPending = 0;
+        }
+    }
+
+    // called with the lock held when adding data to an empty writer
+    private void scheduleFlush() {
+        if (flushFuture == null) {
+            flushFuture = tablespace.getExecutor().schedule(() -> {
+                try {
+                    flush();
+                } catch (Exception e) {
+                    log.error("Failed to write the histograms", e);
+                }
+            }, FLUSH_INTERVAL, TimeUnit.MILLISECONDS);
+        }
+    }
+
     /**
      * handles histogram writes for one column.
      * <p>
-     * Keeps a cache of recent modified histogram segments to avoid retrieving them from the db each time.
+     * The records are accumulated in memory and written periodically in one batch for each partition, such that the
+     * segments modified by many records are read and written only once.
+     * <p>
+     * Keeps also a cache of recent modified histogram segments to avoid retrieving them from the db at each flush.
      * 
      */
     class ColumnHistogramWriter {
         final String columnName;
-        int MAX_ENTRIES = 100;
+        int MAX_ENTRIES = 1000;
 
         private LinkedHashMap<ByteArrayWrapper, HistogramSegment> segments = new LinkedHashMap<ByteArrayWrapper, HistogramSegment>() {
             protected boolean removeEldestEntry(Map.Entry<ByteArrayWrapper, HistogramSegment> eldest) {
@@ -95,36 +157,75 @@ public abstract class HistogramWriter {
             };
         };
 
+        // the times (relative to the segment start) added to each segment since the last flush
+        final Map<ByteArrayWrapper, PendingSegment> pending = new HashMap<>();
+        int numPending;
+
         public ColumnHistogramWriter(String columnName) {
             this.columnName = columnName;
         }
 
         void addHistogram(long time, byte[] value) {
-            RdbHistogramInfo histo;
+            RdbHistogramInfo histo = (RdbHistogramInfo) table.createAndGetHistogram(time, columnName);
+
+            long sstart = segmentStart(time);
+            int dtime = (int) (time % HistogramSegment.GROUPING_FACTOR);
+            byte[] histoDbKey = histoDbKey(histo.tbsIndex, sstart, value);
+
+            PendingSegment ps = pending.computeIfAbsent(new ByteArrayWrapper(histoDbKey),
+                    k -> new PendingSegment(histo.partitionDir, value, sstart));
+            ps.dtimes.add(dtime);
+            numPending++;
+            if (numPending >= MAX_PENDING) {
+                flush();
+            } else {
+                scheduleFlush();
+            }
+        }
+
+        void flush() {
+            if (pending.isEmpty()) {
+                return;
+            }
+            Map<String, List<ByteArrayWrapper>> byPartition = new HashMap<>();
+            for (Map.Entry<ByteArrayWrapper, PendingSegment> me : pending.entrySet()) {
+                byPartition.computeIfAbsent(me.getValue().partitionDir, d -> new ArrayList<>()).add(me.getKey());
+            }
             try {
-                histo = (RdbHistogramInfo) table.createAndGetHistogram(time, columnName);
-                YRDB rdb = tablespace.getRdb(histo.partitionDir, false);
-
-                long sstart = segmentStart(time);
-                int dtime = (int) (time % HistogramSegment.GROUPING_FACTOR);
-                byte[] histoDbKey = histoDbKey(histo.tbsIndex, sstart, value);
-                ByteArrayWrapper hmkey = new ByteArrayWrapper(histoDbKey);
-                
-                HistogramSegment segment = segments.get(hmkey);
-                if (segment == null) {
-                    byte[] val = rdb.get(histoDbKey);
-                    if (val == null) {
-                        segment = new HistogramSegment(value, sstart);
-                    } else {
-                        segment = new HistogramSegment(value, sstart, val);
-                    }
+                for (Map.Entry<String, List<ByteArrayWrapper>> me : byPartition.entrySet()) {
+                    flushPartition(me.getKey(), me.getValue());
                 }
-                segment.merge(dtime);
-                rdb.put(histoDbKey, segment.val());
-
-                segments.put(hmkey, segment);
             } catch (RocksDBException e) {
                 throw new YarchException(e);
+            } finally {
+                pending.clear();
+                numPending = 0;
+            }
+        }
+
+        private void flushPartition(String partitionDir, List<ByteArrayWrapper> keys) throws RocksDBException {
+            YRDB rdb = tablespace.getRdb(partitionDir, false);
+            try (WriteBatch writeBatch = new WriteBatch(); WriteOptions wo = new WriteOptions()) {
+                for (ByteArrayWrapper hmkey : keys) {
+                    PendingSegment ps = pending.get(hmkey);
+                    HistogramSegment segment = segments.get(hmkey);
+                    if (segment == null) {
+                        byte[] val = rdb.get(hmkey.getData());
+                        if (val == null) {
+                            segment = new HistogramSegment(ps.columnv, ps.sstart);
+                        } else {
+                            segment = new HistogramSegment(ps.columnv, ps.sstart, val);
+                        }
+                    }
+                    for (int i = 0; i < ps.dtimes.size(); i++) {
+                        segment.merge(ps.dtimes.get(i));
+                    }
+                    writeBatch.put(hmkey.getData(), segment.val());
+                    segments.put(hmkey, segment);
+                }
+                rdb.getDb().write(wo, writeBatch);
+            } finally {
+                tablespace.dispose(rdb);
             }
         }
 
@@ -132,4 +233,17 @@ public abstract class HistogramWriter {
             segments.clear();
         }
     }
+
+    static class PendingSegment {
+        final String partitionDir;
+        final byte[] columnv;
+        final long sstart;
+        final IntArray dtimes = new IntArray();
+
+        PendingSegment(String partitionDir, byte[] columnv, long sstart) {
+            this.partitionDir = partitionDir;
+            this.columnv = columnv;
+            this.sstart = sstart;
+        }
+    }
 }
@@ -9,12 +9,17 @@ import java.util.regex.PatternSyntaxException;
 
 import org.rocksdb.BlockBasedTableConfig;
 import org.rocksdb.BloomFilter;
+import org.rocksdb.Cache;
 import org.rocksdb.ColumnFamilyOptions;
 import org.rocksdb.CompressionType;
 import org.rocksdb.DBOptions;
 import org.rocksdb.Env;
 import org.rocksdb.IndexType;
+import org.rocksdb.LRUCache;
 import org.rocksdb.Options;
+import org.rocksdb.ReadOptions;
+import org.rocksdb.Statistics;
+import org.rocksdb.StatsLevel;
 import org.yamcs.ConfigurationException;
 import org.yamcs.YConfiguration;
 
@@ -32,8 +37,20 @@ public class RdbConfig {
     public static final String KEY_OPTIONS = "options";
     public static final String KEY_TABLESPACE_NAME_PATTERN = "tablespaceNamePattern";
     public static final String KEY_TF_CONFIG = "tableFormatConfig";
+    public static final String KEY_TABLE_WRITER_CONFIG = "tableWriterConfig";
+    public static final String KEY_TABLE_NAME_PATTERN = "tableNamePattern";
+    public static final String KEY_SCAN_THREADS = "scanThreads";
+    public static final String KEY_TABLE_READER_CONFIG = "tableReaderConfig";
+    public static final String KEY_BLOCK_CACHE_SIZE = "blockCacheSize";
+    public static final String KEY_STATISTICS = "statistics";
 
     public static final int DEFAULT_MAX_OPEN_FILES = 1000;
+    public static final long DEFAULT_BLOCK_CACHE_SIZE = 128L * 1024 * 1024;// 128MB
+    public static final int DEFAULT_BLOOM_BITS_PER_KEY = 10;
+    static final double HIGH_PRIORITY_POOL_RATIO = 0.1;
+
+    // the keys of all the yarch tables start with the 4 bytes tbsIndex; it is used as prefix for the bloom filters
+    static final int TBS_INDEX_SIZE = 4;
 
     static final Map<String, CompressionType> COMP_TYPES = new HashMap<>();
     static {
@@ -50,10 +67,17 @@ public class RdbConfig {
     static final private RdbConfig INSTANTCE = new RdbConfig();
 
     private List<TablespaceConfig> tblConfigList = new ArrayList<>();
+    private List<TableWriterConfig> twConfigList = new ArrayList<>();
+    private List<TableReaderConfig> trConfigList = new ArrayList<>();
+    private final TableReaderConfig defaultTableReaderConfig = new TableReaderConfig();
+    private int scanThreads = Runtime.getRuntime().availableProcessors();
     final Env env;
     final ColumnFamilyOptions defaultColumnFamilyOptions;
     final Options defaultOptions;
     final DBOptions defaultDBOptions;
+    // block cache shared by all the databases of the tablespaces not having their own cache
+    final Cache sharedBlockCache;
+    final Statistics defaultStatistics;
 
     /**
      * 
@@ -63,46 +87,123 @@ public class RdbConfig {
         return INSTANTCE;
     }
 
-    @SuppressWarnings("unchecked")
     private RdbConfig() {
         YConfiguration config = YConfiguration.getConfiguration("yamcs");
-        if (config.containsKey(KEY_RDB_CONFIG)) {
-            YConfiguration rdbOptions = config.getConfig(KEY_RDB_CONFIG);
-            if (rdbOptions.containsKey(KEY_TABLESPACE_CONFIG)) {
-                List<YConfiguration> tableConfigs = rdbOptions.getConfigList(KEY_TABLESPACE_CONFIG);
-                for (YConfiguration tableConfig : tableConfigs) {
-                    TablespaceConfig tblConf = new TablespaceConfig(tableConfig);
-                    tblConfigList.add(tblConf);
-                }
+        YConfiguration rdbOptions = config.containsKey(KEY_RDB_CONFIG) ? config.getConfig(KEY_RDB_CONFIG)
+                : YConfiguration.emptyConfig();
+
+        long blockCacheSize = rdbOptions.getLong(KEY_BLOCK_CACHE_SIZE, DEFAULT_BLOCK_CACHE_SIZE / 1024);
+        if (blockCacheSize < 1) {
+            throw new ConfigurationException(KEY_BLOCK_CACHE_SIZE + " has to be positive");
+        }
+        sharedBlockCache = newBlockCache(1024L * blockCacheSize);
+        boolean statisticsEnabled = rdbOptions.getBoolean(KEY_STATISTICS, false);
+        defaultStatistics = statisticsEnabled ? newStatistics() : null;
+
+        if (rdbOptions.containsKey(KEY_TABLESPACE_CONFIG)) {
+            List<YConfiguration> tableConfigs = rdbOptions.getConfigList(KEY_TABLESPACE_CONFIG);
+            for (YConfiguration tableConfig : tableConfigs) {
+                TablespaceConfig tblConf = new TablespaceConfig(tableConfig, sharedBlockCache, statisticsEnabled);
+                tblConfigList.add(tblConf);
+            }
+        }
+        if (rdbOptions.containsKey(KEY_TABLE_WRITER_CONFIG)) {
+            for (YConfiguration twConfig : rdbOptions.getConfigList(KEY_TABLE_WRITER_CONFIG)) {
+                twConfigList.add(new TableWriterConfig(twConfig));
             }
         }
+        if (rdbOptions.containsKey(KEY_TABLE_READER_CONFIG)) {
+            for (YConfiguration trConfig : rdbOptions.getConfigList(KEY_TABLE_READER_CONFIG)) {
+                trConfigList.add(new TableReaderConfig(trConfig));
+            }
+        }
+        scanThreads = rdbOptions.getInt(KEY_SCAN_THREADS, scanThreads);
+        if (scanThreads < 1) {
+            throw new ConfigurationException(KEY_SCAN_THREADS + " has to be positive");
+        }
 
         env = Env.getDefault();
         defaultColumnFamilyOptions = new ColumnFamilyOptions();
 
-        BlockBasedTableConfig tableFormatConfig = new BlockBasedTableConfig();
+        BlockBasedTableConfig tableFormatConfig = createTableFormatConfig(YConfiguration.emptyConfig(),
+                sharedBlockCache);
         tableFormatConfig.setBlockSize(256l * 1024);// 256KB
-        tableFormatConfig.setBlockCacheSize(10l * 1024 * 1024);// 1MB
-        tableFormatConfig.setFilter(new BloomFilter());
-        tableFormatConfig.setIndexType(IndexType.kTwoLevelIndexSearch);
 
         defaultOptions = new Options();
         defaultOptions.setWriteBufferSize(50l * 1024 * 1024);// 50MB
         defaultOptions.setEnv(env);
         defaultOptions.setCreateIfMissing(true);
         defaultOptions.setTableFormatConfig(tableFormatConfig);
-        defaultOptions.useFixedLengthPrefixExtractor(4);
+        defaultOptions.useFixedLengthPrefixExtractor(TBS_INDEX_SIZE);
         defaultOptions.setBottommostCompressionType(CompressionType.ZSTD_COMPRESSION);
         defaultOptions.setTargetFileSizeMultiplier(2);
 
         defaultColumnFamilyOptions.setTableFormatConfig(tableFormatConfig);
-        defaultColumnFamilyOptions.useFixedLengthPrefixExtractor(4);
+        defaultColumnFamilyOptions.useFixedLengthPrefixExtractor(TBS_INDEX_SIZE);
         defaultColumnFamilyOptions.setWriteBufferSize(defaultOptions.writeBufferSize());
         defaultColumnFamilyOptions.setBottommostCompressionType(defaultOptions.bottommostCompressionType());
         defaultColumnFamilyOptions.setTargetFileSizeMultiplier(defaultOptions.targetFileSizeMultiplier());
 
         defaultDBOptions = new DBOptions();
         defaultDBOptions.setCreateIfMissing(true);
+        if (defaultStatistics != null) {
+            defaultOptions.setStatistics(defaultStatistics);
+            defaultDBOptions.setStatistics(defaultStatistics);
+        }
+    }
+
+    // the high priority pool holds the index and filter blocks such that they are not evicted by the scans
+    static Cache newBlockCache(long size) {
+        return new LRUCache(size, -1, false, HIGH_PRIORITY_POOL_RATIO);
+    }
+
+    static Statistics newStatistics() {
+        Statistics statistics = new Statistics();
+        statistics.setStatsLevel(StatsLevel.EXCEPT_DETAILED_TIMERS);
+        return statistics;
+    }
+
+    /**
+     * Creates the table format configuration from the tableFormatConfig section of a tablespace configuration.
+     * <p>
+     * The index is partitioned by default; the filters can be partitioned together with it by setting
+     * partitionedFilters (not enabled by default to keep the table format of the existing tablespaces). The top level
+     * index and filter blocks are pinned in the block cache while the partitions are loaded in the cache as needed.
+     * 
+     * @param tfc
+     *            the tableFormatConfig section
+     * @param blockCache
+     *            the block cache used if noBlockCache is not set
+     */
+    static BlockBasedTableConfig createTableFormatConfig(YConfiguration tfc, Cache blockCache) {
+        BlockBasedTableConfig tableFormatConfig = new BlockBasedTableConfig();
+        if (tfc.containsKey("blockSize")) {
+            tableFormatConfig.setBlockSize(1024L * tfc.getLong("blockSize"));
+        }
+        if (tfc.getBoolean("noBlockCache", false)) {
+            tableFormatConfig.setNoBlockCache(true);
+        } else {
+            tableFormatConfig.setBlockCache(blockCache);
+        }
+
+        boolean partitionedIndex = tfc.getBoolean("partitionedIndex", true);
+        tableFormatConfig.setIndexType(partitionedIndex ? IndexType.kTwoLevelIndexSearch : IndexType.kBinarySearch);
+
+        int bitsPerKey = tfc.getInt("bloomFilterBitsPerKey", DEFAULT_BLOOM_BITS_PER_KEY);
+        if (bitsPerKey > 0) {
+            // the partitioned filters require the full (not block based) filters
+            boolean partitionedFilters = partitionedIndex && tfc.getBoolean("partitionedFilters", false);
+            tableFormatConfig.setFilterPolicy(new BloomFilter(bitsPerKey, !partitionedFilters));
+            tableFormatConfig.setPartitionFilters(partitionedFilters);
+            // false for the tablespaces accessed only by scans: the filter contains then only the key prefixes
+            tableFormatConfig.setWholeKeyFiltering(tfc.getBoolean("wholeKeyFiltering", true));
+        }
+        if (partitionedIndex) {
+            tableFormatConfig.setCacheIndexAndFilterBlocks(true);
+            tableFormatConfig.setPinTopLevelIndexAndFilter(true);
+            tableFormatConfig.setCacheIndexAndFilterBlocksWithHighPriority(true);
+        }
+        return tableFormatConfig;
     }
 
     /**
@@ -150,6 +251,151 @@ public class RdbConfig {
         return null;
     }
 
+    /**
+     * 
+     * @param tableName
+     * @return the first table reader config that matches the table name or the default config if no config matches
+     */
+    public TableReaderConfig getTableReaderConfig(String tableName) {
+        for (TableReaderConfig trc : trConfigList) {
+            if (trc.tableNamePattern.matcher(tableName).matches()) {
+                return trc;
+            }
+        }
+        return defaultTableReaderConfig;
+    }
+
+    /**
+     * 
+     * @return the statistics collected for the databases of the tablespaces without specific config or null if the
+     *         statistics are disabled
+     */
+    public Statistics getDefaultStatistics() {
+        return defaultStatistics;
+    }
+
+    /**
+     * 
+     * @return the number of threads used to read table partitions in parallel
+     */
+    public int getScanThreads() {
+        return scanThreads;
+    }
+
+    /**
+     * 
+     * @param tableName
+     * @return the first table writer config that matches the table name or null if no config matches
+     */
+    public TableWriterConfig getTableWriterConfig(String tableName) {
+        for (TableWriterConfig twc : twConfigList) {
+            if (twc.tableNamePattern.matcher(tableName).matches()) {
+                return twc;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Configures the {@link RdbTableWriter} to accumulate the records in batches written at once to the database.
+     * <p>
+     * Used only for the writers in INSERT or LOAD mode.
+     */
+    public static class TableWriterConfig {
+        Pattern tableNamePattern;
+        /**
+         * maximum number of records in a batch
+         */
+        int maxBatchSize;
+        /**
+         * maximum time in milliseconds that a record can stay in the batch before being written
+         */
+        long maxBatchLatency;
+
+        TableWriterConfig(YConfiguration twConfig) throws ConfigurationException {
+            String s = twConfig.getString(KEY_TABLE_NAME_PATTERN);
+            try {
+                tableNamePattern = Pattern.compile(s);
+            } catch (PatternSyntaxException e) {
+                throw new ConfigurationException("Cannot parse regexp " + e);
+            }
+            maxBatchSize = twConfig.getInt("maxBatchSize", 1000);
+            maxBatchLatency = twConfig.getLong("maxBatchLatency", 100);
+            if (maxBatchSize < 1 || maxBatchLatency < 1) {
+                throw new ConfigurationException(
+                        "Exception when reading table writer configuration for '" + tableNamePattern
+                                + "': maxBatchSize and maxBatchLatency have to be positive");
+            }
+        }
+
+        public TableWriterConfig(int maxBatchSize, long maxBatchLatency) {
+            this.tableNamePattern = Pattern.compile(".*");
+            this.maxBatchSize = maxBatchSize;
+            this.maxBatchLatency = maxBatchLatency;
+        }
+
+        public int getMaxBatchSize() {
+            return maxBatchSize;
+        }
+
+        public long getMaxBatchLatency() {
+            return maxBatchLatency;
+        }
+    }
+
+    /**
+     * Hints for the table walkers reading a table.
+     */
+    public static class TableReaderConfig {
+        Pattern tableNamePattern;
+        /**
+         * if null, the blocks read are added to the block cache (the RocksDB default)
+         */
+        Boolean fillCache;
+        /**
+         * readahead size in bytes, 0 for the RocksDB default
+         */
+        long readaheadSize;
+
+        TableReaderConfig(YConfiguration trConfig) throws ConfigurationException {
+            String s = trConfig.getString(KEY_TABLE_NAME_PATTERN);
+            try {
+                tableNamePattern = Pattern.compile(s);
+            } catch (PatternSyntaxException e) {
+                throw new ConfigurationException("Cannot parse regexp " + e);
+            }
+            if (trConfig.containsKey("fillCache")) {
+                fillCache = trConfig.getBoolean("fillCache");
+            }
+            readaheadSize = 1024L * trConfig.getLong("readaheadSize", 0);
+            if (readaheadSize < 0) {
+                throw new ConfigurationException(
+                        "Exception when reading table reader configuration for '" + tableNamePattern
+                                + "': readaheadSize cannot be negative");
+            }
+        }
+
+        TableReaderConfig() {
+            this.tableNamePattern = Pattern.compile(".*");
+        }
+
+        /**
+         * Sets the hints in the read options used to walk through the table.
+         * 
+         * @param readOptions
+         * @param bounded
+         *            false if the whole table is read; the fillCache option applies only to such scans
+         */
+        public void configure(ReadOptions readOptions, boolean bounded) {
+            if (fillCache != null && !bounded) {
+                readOptions.setFillCache(fillCache);
+            }
+            if (readaheadSize > 0) {
+                readOptions.setReadaheadSize(readaheadSize);
+            }
+        }
+    }
+
     public static class TablespaceConfig {
         Pattern tablespaceNamePattern;
         ColumnFamilyOptions cfOptions = new ColumnFamilyOptions();
@@ -157,10 +403,14 @@ public class RdbConfig {
         // for some strange reason we cannot use the cfOptions for that
         Options options = new Options();
         DBOptions dboptions = new DBOptions();
+        // the shared block cache or the cache of this config if it has a blockCacheSize
+        Cache blockCache;
+        Statistics statistics;
 
         long targetFileSizeBase;
 
-        TablespaceConfig(YConfiguration tblspConfig) throws ConfigurationException {
+        TablespaceConfig(YConfiguration tblspConfig, Cache sharedBlockCache, boolean statisticsEnabled)
+                throws ConfigurationException {
             String s = tblspConfig.getString(KEY_TABLESPACE_NAME_PATTERN);
             try {
                 tablespaceNamePattern = Pattern.compile(s);
@@ -237,29 +487,27 @@ public class RdbConfig {
                 cfOptions.setBottommostCompressionType(getCompressionType(tblspConfig.getString("bottommostCompressionType")));
             }
             
-            if (tblspConfig.containsKey(KEY_TF_CONFIG)) {
-                YConfiguration tfc = tblspConfig.getConfig(KEY_TF_CONFIG);
-                BlockBasedTableConfig tableFormatConfig = new BlockBasedTableConfig();
-                if (tfc.containsKey("blockSize")) {
-                    tableFormatConfig.setBlockSize(1024L * tfc.getLong("blockSize"));
-                }
-                if (tfc.containsKey("blockCacheSize")) {
-                    tableFormatConfig.setBlockCacheSize(1024L * tfc.getLong("blockCacheSize"));
-                }
-                if (tfc.containsKey("noBlockCache")) {
-                    tableFormatConfig.setNoBlockCache(tfc.getBoolean("noBlockCache"));
-                }
-
-                boolean partitionedIndex = tfc.getBoolean("partitionedIndex", true);
-                tableFormatConfig
-                        .setIndexType(partitionedIndex ? IndexType.kTwoLevelIndexSearch : IndexType.kBinarySearch);
-
-                options.setTableFormatConfig(tableFormatConfig);
-                cfOptions.useFixedLengthPrefixExtractor(4);
-
-            }
-            options.useFixedLengthPrefixExtractor(4);
-            cfOptions.useFixedLengthPrefixExtractor(4);
+            YConfiguration tfc = tblspConfig.containsKey(KEY_TF_CONFIG) ? tblspConfig.getConfig(KEY_TF_CONFIG)
+                    : YConfiguration.emptyConfig();
+            // the blockCacheSize is the quota of the tablespaces matching this config
+            // they share a cache of that size instead of the shared cache
+            if (tfc.containsKey(KEY_BLOCK_CACHE_SIZE)) {
+                blockCache = newBlockCache(1024L * tfc.getLong(KEY_BLOCK_CACHE_SIZE));
+            } else {
+                blockCache = sharedBlockCache;
+            }
+            BlockBasedTableConfig tableFormatConfig = createTableFormatConfig(tfc, blockCache);
+            options.setTableFormatConfig(tableFormatConfig);
+            cfOptions.setTableFormatConfig(tableFormatConfig);
+
+            options.useFixedLengthPrefixExtractor(TBS_INDEX_SIZE);
+            cfOptions.useFixedLengthPrefixExtractor(TBS_INDEX_SIZE);
+
+            if (statisticsEnabled) {
+                statistics = newStatistics();
+                options.setStatistics(statistics);
+                dboptions.setStatistics(statistics);
+            }
         }
 
         public ColumnFamilyOptions getColumnFamilyOptions() {
@@ -273,6 +521,15 @@ public class RdbConfig {
         public DBOptions getDBOptions() {
             return dboptions;
         }
+
+        /**
+         * 
+         * @return the statistics collected for the databases using this config or null if the statistics are
+         *         disabled
+         */
+        public Statistics getStatistics() {
+            return statistics;
+        }
     }
 
     static CompressionType getCompressionType(String compr) {
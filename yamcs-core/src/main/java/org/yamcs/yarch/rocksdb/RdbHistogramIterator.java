@@ -52,7 +52,13 @@ public class RdbHistogramIterator implements HistogramIterator {
         this.colName = colName;
         this.tablespace = tablespace;
 
-        partMgr = tablespace.getTable(tblDef).getPartitionManager();
+        RdbTable table = tablespace.getTable(tblDef);
+        partMgr = table.getPartitionManager();
+        HistogramWriter histoWriter = table.getHistogramWriter();
+        if (histoWriter != null) {
+            // write the histogram data accumulated in memory such that it is seen by the iterator
+            histoWriter.flush();
+        }
         partitionIterator = partMgr.intervalIterator(interval);
         log = new Log(getClass(), yamcsInstance);
         log.setContext(partMgr.getTableName());
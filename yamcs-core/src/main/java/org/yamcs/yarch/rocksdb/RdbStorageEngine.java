@@ -6,6 +6,9 @@ import java.io.UncheckedIOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.rocksdb.RocksDB;
 import org.rocksdb.RocksDBException;
@@ -28,6 +31,8 @@ import org.yamcs.yarch.YarchDatabase;
 import org.yamcs.yarch.YarchDatabaseInstance;
 import org.yamcs.yarch.YarchException;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
 /**
  * Storage Engine based on RocksDB. Data is stored in multiple {@link Tablespace}.
  * <p>
@@ -50,6 +55,8 @@ public class RdbStorageEngine implements StorageEngine {
     static Log log = new Log(RdbStorageEngine.class);
     boolean ignoreVersionIncompatibility = false;
     static RdbStorageEngine instance = new RdbStorageEngine();
+    // used by the table walkers to read partitions in parallel
+    private ExecutorService scanExecutor;
 
     RdbStorageEngine() {
     }
@@ -256,7 +263,23 @@ public class RdbStorageEngine implements StorageEngine {
         tablespace.close();
     }
 
+    /**
+     * 
+     * @return the executor used by the table walkers to read partitions in parallel
+     */
+    synchronized ExecutorService getScanExecutor() {
+        if (scanExecutor == null) {
+            scanExecutor = Executors.newFixedThreadPool(RdbConfig.getInstance().getScanThreads(),
+                    new ThreadFactoryBuilder().setNameFormat("RdbTableScan-%d").setDaemon(true).build());
+        }
+        return scanExecutor;
+    }
+
     public synchronized void shutdown() {
+        if (scanExecutor != null) {
+            scanExecutor.shutdownNow();
+            scanExecutor = null;
+        }
         for (Tablespace t : tablespaces.values()) {
             t.close();
         }
@@ -324,6 +347,17 @@ public class RdbStorageEngine implements StorageEngine {
         return tblsp.newSecondaryIndexTableWalker(ydb, tableDefinition, ascending, follow);
     }
 
+    @Override
+    public TableWalker newTextIndexTableWalker(YarchDatabaseInstance ydb, TableDefinition tableDefinition,
+            List<String> columns, Set<String> words, boolean ascending) {
+        Tablespace tblsp = getTablespace(ydb, tableDefinition);
+        RdbTable table = tblsp.getTable(tableDefinition);
+        if (table == null || table.getTextIndex() == null || !table.getTextIndex().covers(columns)) {
+            return null;
+        }
+        return tblsp.newTextIndexTableWalker(ydb, tableDefinition, words, ascending);
+    }
+
     @Override
     public List<SequenceInfo> getSequencesInfo(YarchDatabaseInstance ydb) {
         return getTablespace(ydb).getSequencesInfo();
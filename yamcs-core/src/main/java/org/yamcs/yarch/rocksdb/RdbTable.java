@@ -1,6 +1,7 @@
 package org.yamcs.yarch.rocksdb;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 
 import org.rocksdb.RocksDBException;
@@ -8,6 +9,7 @@ import org.yamcs.utils.DatabaseCorruptionException;
 import org.yamcs.yarch.Table;
 import org.yamcs.yarch.TableDefinition;
 import org.yamcs.yarch.YarchException;
+import org.yamcs.yarch.rocksdb.TextIndex.TextExtractor;
 import org.yamcs.yarch.rocksdb.protobuf.Tablespace.TablespaceRecord;
 import org.yamcs.yarch.rocksdb.protobuf.Tablespace.TablespaceRecord.Type;
 
@@ -24,6 +26,8 @@ public class RdbTable extends Table {
     final RdbPartitionManager partitionManager;
     final HistogramWriter histoWriter;
     SecondaryIndexWriter indexWriter;
+    private volatile TextIndex textIndex;
+    private Thread textIndexBuilder;
 
     public RdbTable(String yamcsInstance, Tablespace tablespace, TableDefinition tblDef, int tbsIndex) {
         super(tblDef);
@@ -36,7 +40,7 @@ public class RdbTable extends Table {
         histoWriter = HistogramWriter.newWriter(this);
         if (tblDef.hasSecondaryIndex()) {
             List<TablespaceRecord> trList = tablespace.filter(Type.SECONDARY_INDEX, yamcsInstance,
-                    tr -> tr.getTableName().equals(tblDef.getName()));
+                    tr -> tr.getTableName().equals(getName()));
             if(trList.size()!=1) {
                 throw new DatabaseCorruptionException("Expected to read 1 secondary index record, got "+trList.size());
             }
@@ -74,4 +78,97 @@ public class RdbTable extends Table {
         return (RdbHistogramInfo) partitionManager.createAndGetHistogram(instant, columnName);
     }
 
+    /**
+     * Enables the text index on this table. The index is not part of the table definition and this method has to be
+     * called each time the table is loaded, before the writers are started.
+     * <p>
+     * If the index does not exist yet (or its build has not been finished) the rows already in the table are indexed
+     * in a background thread; the index is used by the queries only after that.
+     * <p>
+     * The columns and the extractor have to be the same each time the index is enabled; to change them, the index has
+     * to be disabled first.
+     *
+     * @param columns
+     *            the names of the columns (or column expressions) covered by the index
+     * @param extractor
+     *            extracts the texts from the tuples written in the table
+     * @return the text index
+     */
+    public synchronized TextIndex enableTextIndex(List<String> columns, TextExtractor extractor) {
+        if (textIndex != null) {
+            return textIndex;
+        }
+        List<TablespaceRecord> trList = tablespace.filter(Type.TEXT_INDEX, yamcsInstance,
+                tr -> tr.getTableName().equals(getName()));
+        if (trList.size() > 1) {
+            throw new DatabaseCorruptionException("Expected to read 1 text index record, got " + trList.size());
+        }
+        try {
+            int idx;
+            if (trList.isEmpty()) {
+                TablespaceRecord.Builder trb = TablespaceRecord.newBuilder().setType(Type.TEXT_INDEX)
+                        .setTableName(getName());
+                idx = tablespace.createMetadataRecord(yamcsInstance, trb).getTbsIndex();
+            } else {
+                idx = trList.get(0).getTbsIndex();
+            }
+            TextIndex ti = new TextIndex(tablespace, getDefinition(), idx, new ArrayList<>(columns), extractor);
+            ti.readComplete();
+            textIndex = ti;
+            if (!ti.isComplete()) {
+                textIndexBuilder = new Thread(() -> ti.build(this), "TextIndexBuilder-" + getName());
+                textIndexBuilder.setDaemon(true);
+                textIndexBuilder.start();
+            }
+            return ti;
+        } catch (RocksDBException e) {
+            throw new YarchException(e);
+        }
+    }
+
+    /**
+     * Disables the text index and removes its data from the tablespace
+     */
+    public synchronized void disableTextIndex() {
+        // the build has to be finished before removing the records, otherwise it may write some after
+        closeTextIndex();
+        try {
+            for (TablespaceRecord tr : tablespace.filter(Type.TEXT_INDEX, yamcsInstance,
+                    tr -> tr.getTableName().equals(getName()))) {
+                tablespace.removeTbsIndex(Type.TEXT_INDEX, tr.getTbsIndex());
+            }
+        } catch (RocksDBException e) {
+            throw new YarchException(e);
+        }
+    }
+
+    /**
+     * Stops using the text index and waits for the background build (if running) to finish writing its current
+     * batch. Called when the tablespace is closed, the index data is kept.
+     */
+    synchronized void closeTextIndex() {
+        if (textIndex == null) {
+            return;
+        }
+        textIndex.close();
+        textIndex = null;
+        if (textIndexBuilder != null) {
+            try {
+                textIndexBuilder.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new YarchException("Interrupted while waiting for the text index build to finish", e);
+            }
+            textIndexBuilder = null;
+        }
+    }
+
+    /**
+     *
+     * @return the text index if enabled or null otherwise
+     */
+    public TextIndex getTextIndex() {
+        return textIndex;
+    }
+
 }
@@ -1,9 +1,16 @@
 package org.yamcs.yarch.rocksdb;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.rocksdb.ReadOptions;
@@ -20,6 +27,7 @@ import org.yamcs.yarch.Partition;
 import org.yamcs.yarch.PartitionManager;
 import org.yamcs.yarch.RawTuple;
 import org.yamcs.yarch.TableDefinition;
+import org.yamcs.yarch.TableRowFilter;
 import org.yamcs.yarch.TableVisitor;
 import org.yamcs.yarch.YarchException;
 import org.yamcs.yarch.streamsql.StreamSqlException;
@@ -33,11 +41,21 @@ public class RdbTableWalker extends AbstractTableWalker {
     boolean batchUpdates = false;
     protected TableVisitor visitor;
 
+    // if not null, only the rows matching it are passed to the visitor
+    private TableRowFilter rowFilter;
+    private final RdbConfig.TableReaderConfig readerConfig;
+
+    // number of records passed at once from the parallel readers to the visitor
+    static final int CHUNK_SIZE = 1024;
+    // number of chunks that each parallel reader can read in advance
+    static final int CHUNK_QUEUE_SIZE = 4;
+
     protected RdbTableWalker(ExecutionContext ctx, TableDefinition tableDefinition,
             boolean ascending, boolean follow) {
         super(ctx, tableDefinition, ascending, follow);
 
         this.tablespace = ctx.getTablespace();
+        this.readerConfig = RdbConfig.getInstance().getTableReaderConfig(tableDefinition.getName());
     }
 
     /**
@@ -84,6 +102,7 @@ public class RdbTableWalker extends AbstractTableWalker {
         }
         ReadOptions readOptions = new ReadOptions();
         readOptions.setTailing(follow);
+        readerConfig.configure(readOptions, isBounded(tableRange));
         if (!follow) {
             Snapshot snapshot = ctx.getSnapshot(rdb);
             readOptions.setSnapshot(snapshot);
@@ -91,29 +110,9 @@ public class RdbTableWalker extends AbstractTableWalker {
         WriteBatch writeBatch = batchUpdates ? new WriteBatch() : null;
 
         try {
-            List<DbIterator> itList = new ArrayList<>(interval.size());
-            // create an iterator for each partitions
-            for (Partition p : interval) {
-                p1 = (RdbPartition) p;
-                if (!ascending) {
-                    readOptions.setTotalOrderSeek(true);
-                }
-                RocksIterator rocksIt = rdb.getDb().newIterator(readOptions);
-                DbIterator it = getPartitionIterator(rocksIt, p1.tbsIndex, ascending, tableRange);
-                if (it.isValid()) {
-                    itList.add(it);
-                } else {
-                    it.close();
-                }
-            }
-
-            if (itList.size() == 0) {
+            iterator = getIntervalIterator(rdb, readOptions, interval, tableRange);
+            if (iterator == null) {
                 return false;
-            } else if (itList.size() == 1) {
-                iterator = itList.get(0);
-            } else {
-                iterator = new MergingIterator(itList,
-                        ascending ? new SuffixAscendingComparator(4) : new SuffixDescendingComparator(4));
             }
             boolean endReached;
             if (ascending) {
@@ -141,6 +140,180 @@ public class RdbTableWalker extends AbstractTableWalker {
         }
     }
 
+    private static boolean isBounded(DbRange tableRange) {
+        return tableRange.rangeStart != null || tableRange.rangeEnd != null;
+    }
+
+    /**
+     * Creates an iterator over all the partitions of the interval, merging them if there are more than one.
+     * 
+     * @return the iterator or null if there is no data in the interval
+     */
+    private DbIterator getIntervalIterator(YRDB rdb, ReadOptions readOptions, PartitionManager.Interval interval,
+            DbRange tableRange) {
+        List<DbIterator> itList = new ArrayList<>(interval.size());
+        // create an iterator for each partitions
+        for (Partition p : interval) {
+            RdbPartition p1 = (RdbPartition) p;
+            if (!ascending) {
+                readOptions.setTotalOrderSeek(true);
+            }
+            RocksIterator rocksIt = rdb.getDb().newIterator(readOptions);
+            DbIterator it = getPartitionIterator(rocksIt, p1.tbsIndex, ascending, tableRange);
+            if (it.isValid()) {
+                itList.add(it);
+            } else {
+                it.close();
+            }
+        }
+
+        if (itList.size() == 0) {
+            return null;
+        } else if (itList.size() == 1) {
+            return itList.get(0);
+        } else {
+            return new MergingIterator(itList,
+                    ascending ? new SuffixAscendingComparator(4) : new SuffixDescendingComparator(4));
+        }
+    }
+
+    /**
+     * Reads up to {@link #parallelism} intervals at the same time using the scan executor of the storage engine.
+     * <p>
+     * The records are read in chunks and passed to the visitor on the calling thread. In ordered mode, the chunks are
+     * consumed interval after interval; in unordered mode, they are consumed as they come.
+     */
+    @Override
+    protected void walkIntervals(Iterator<PartitionManager.Interval> intervals, DbRange range,
+            TableVisitor visitor) throws YarchException, StreamSqlException {
+        if (parallelism <= 1 || follow) {
+            super.walkIntervals(intervals, range, visitor);
+            return;
+        }
+        this.visitor = visitor;
+        ExecutorService executor = RdbStorageEngine.getInstance().getScanExecutor();
+        if (ordered) {
+            walkOrdered(executor, intervals, range);
+        } else {
+            walkUnordered(executor, intervals, range);
+        }
+    }
+
+    private void walkOrdered(ExecutorService executor, Iterator<PartitionManager.Interval> intervals,
+            DbRange range) throws StreamSqlException {
+        Deque<IntervalReader> readers = new ArrayDeque<>();
+        int idx = 0;
+        try {
+            while (readers.size() < parallelism && intervals.hasNext()) {
+                readers.add(startReader(executor, idx++, intervals.next(), range,
+                        new ArrayBlockingQueue<>(CHUNK_QUEUE_SIZE)));
+            }
+            while (isRunning() && !readers.isEmpty()) {
+                IntervalReader reader = readers.peekFirst();
+                Chunk chunk = reader.queue.poll(100, TimeUnit.MILLISECONDS);
+                if (chunk == null) {
+                    continue;
+                }
+                if (!visitChunk(chunk)) {
+                    return;
+                }
+                if (chunk.last) {
+                    readers.removeFirst();
+                    if (chunk.endReached) {
+                        return;
+                    }
+                    if (intervals.hasNext()) {
+                        readers.add(startReader(executor, idx++, intervals.next(), range,
+                                new ArrayBlockingQueue<>(CHUNK_QUEUE_SIZE)));
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            for (IntervalReader r : readers) {
+                r.cancelled = true;
+            }
+        }
+    }
+
+    private void walkUnordered(ExecutorService executor, Iterator<PartitionManager.Interval> intervals,
+            DbRange range) throws StreamSqlException {
+        BlockingQueue<Chunk> queue = new ArrayBlockingQueue<>(parallelism * CHUNK_QUEUE_SIZE);
+        List<IntervalReader> readers = new ArrayList<>();
+        int idx = 0;
+        // the index of the first interval where the end condition has been reached, the following are not needed
+        int endIdx = Integer.MAX_VALUE;
+        try {
+            while (readers.size() < parallelism && intervals.hasNext()) {
+                readers.add(startReader(executor, idx++, intervals.next(), range, queue));
+            }
+            while (isRunning() && !readers.isEmpty()) {
+                Chunk chunk = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (chunk == null || chunk.reader.idx > endIdx) {
+                    continue;
+                }
+                if (!visitChunk(chunk)) {
+                    return;
+                }
+                if (chunk.last) {
+                    readers.remove(chunk.reader);
+                    if (chunk.endReached) {
+                        endIdx = chunk.reader.idx;
+                        for (Iterator<IntervalReader> it = readers.iterator(); it.hasNext();) {
+                            IntervalReader r = it.next();
+                            if (r.idx > endIdx) {
+                                r.cancelled = true;
+                                it.remove();
+                            }
+                        }
+                    } else if (endIdx == Integer.MAX_VALUE && intervals.hasNext()) {
+                        readers.add(startReader(executor, idx++, intervals.next(), range, queue));
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            for (IntervalReader r : readers) {
+                r.cancelled = true;
+            }
+        }
+    }
+
+    private IntervalReader startReader(ExecutorService executor, int idx, PartitionManager.Interval interval,
+            DbRange range, BlockingQueue<Chunk> queue) {
+        IntervalReader reader = new IntervalReader(idx, interval, range, queue);
+        executor.execute(reader);
+        return reader;
+    }
+
+    // returns false if the walk has to be stopped
+    private boolean visitChunk(Chunk chunk) throws StreamSqlException {
+        numRecordsRead += chunk.numRead;
+        for (int i = 0; i < chunk.size; i++) {
+            TableVisitor.Action action = visitor.visit(chunk.keys[i], chunk.values[i]);
+            if (action.action() != TableVisitor.ActionType.NONE) {
+                throw new StreamSqlException(ErrCode.NOT_SUPPORTED,
+                        "Cannot update or delete records when reading partitions in parallel");
+            }
+            if (action.stop()) {
+                close();
+                return false;
+            }
+            if (!isRunning()) {
+                return false;
+            }
+        }
+        if (chunk.error != null) {
+            if (chunk.error instanceof YarchException) {
+                throw (YarchException) chunk.error;
+            }
+            throw new YarchException(chunk.error);
+        }
+        return true;
+    }
+
     // return true if the end condition has been reached
     boolean runAscending(YRDB rdb, DbIterator iterator, WriteBatch writeBatch, byte[] rangeEnd)
             throws RocksDBException, StreamSqlException {
@@ -154,15 +327,17 @@ public class RdbTableWalker extends AbstractTableWalker {
             if (iAscendingFinished(key, value, rangeEnd)) {
                 return true;
             }
-            TableVisitor.Action action = visitor.visit(key, iterator.value());
-            if (writeBatch == null) {
-                executeAction(rdb, action, dbKey);
-            } else {
-                executeAction(rdb, writeBatch, action, dbKey);
-            }
-            if (action.stop()) {
-                close();
-                return false;
+            if (rowFilter == null || rowFilter.matches(key, value)) {
+                TableVisitor.Action action = visitor.visit(key, value);
+                if (writeBatch == null) {
+                    executeAction(rdb, action, dbKey);
+                } else {
+                    executeAction(rdb, writeBatch, action, dbKey);
+                }
+                if (action.stop()) {
+                    close();
+                    return false;
+                }
             }
 
             iterator.next();
@@ -175,22 +350,25 @@ public class RdbTableWalker extends AbstractTableWalker {
         while (isRunning() && iterator.isValid()) {
             byte[] dbKey = iterator.key();
             byte[] key = Arrays.copyOfRange(dbKey, 4, dbKey.length);
+            byte[] value = iterator.value();
             numRecordsRead++;
 
-            if (isDescendingFinished(key, iterator.value(), rangeStart)) {
+            if (isDescendingFinished(key, value, rangeStart)) {
                 return true;
             }
 
-            TableVisitor.Action action = visitor.visit(key, iterator.value());
-            if (writeBatch == null) {
-                executeAction(rdb, action, dbKey);
-            } else {
-                executeAction(rdb, writeBatch, action, dbKey);
-            }
+            if (rowFilter == null || rowFilter.matches(key, value)) {
+                TableVisitor.Action action = visitor.visit(key, value);
+                if (writeBatch == null) {
+                    executeAction(rdb, action, dbKey);
+                } else {
+                    executeAction(rdb, writeBatch, action, dbKey);
+                }
 
-            if (action.stop()) {
-                close();
-                return false;
+                if (action.stop()) {
+                    close();
+                    return false;
+                }
             }
             iterator.prev();
         }
@@ -255,6 +433,30 @@ public class RdbTableWalker extends AbstractTableWalker {
         return numRecordsRead;
     }
 
+    /**
+     * The filter is evaluated in the thread reading the rows, that is in the reader threads when the partitions are
+     * read in parallel.
+     */
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The parallelism is limited to the number of scan threads configured in the {@link RdbConfig}, reading more
+     * partitions at the same time would not make the walk faster.
+     */
+    @Override
+    public void setParallelism(int parallelism, boolean ordered) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("The parallelism has to be at least 1");
+        }
+        super.setParallelism(Math.min(parallelism, RdbConfig.getInstance().getScanThreads()), ordered);
+    }
+
+    @Override
+    public boolean setRowFilter(TableRowFilter rowFilter) {
+        this.rowFilter = rowFilter;
+        return true;
+    }
+
     public boolean isBatchUpdates() {
         return batchUpdates;
     }
@@ -288,6 +490,132 @@ public class RdbTableWalker extends AbstractTableWalker {
         }
     }
 
+    /**
+     * Reads the records of one interval in chunks, stopping when the end condition is reached.
+     */
+    class IntervalReader implements Runnable {
+        final int idx;
+        final PartitionManager.Interval interval;
+        final DbRange tableRange;
+        final BlockingQueue<Chunk> queue;
+        volatile boolean cancelled = false;
+        // the chunk being filled
+        Chunk chunk;
+
+        IntervalReader(int idx, PartitionManager.Interval interval, DbRange tableRange, BlockingQueue<Chunk> queue) {
+            this.idx = idx;
+            this.interval = interval;
+            this.tableRange = tableRange;
+            this.queue = queue;
+        }
+
+        @Override
+        public void run() {
+            if (cancelled) {
+                return;
+            }
+            chunk = new Chunk(this);
+            try {
+                if (!read()) {
+                    return;
+                }
+            } catch (Exception e) {
+                chunk.error = e;
+            }
+            chunk.last = true;
+            put(chunk);
+        }
+
+        // returns false if the reading has been cancelled
+        private boolean read() throws RocksDBException {
+            RdbPartition p1 = (RdbPartition) interval.iterator().next();
+            YRDB rdb = tablespace.getRdb(p1.dir, false);
+            ReadOptions readOptions = new ReadOptions();
+            readOptions.setSnapshot(ctx.getSnapshot(rdb));
+            readerConfig.configure(readOptions, isBounded(tableRange));
+            DbIterator iterator = null;
+            try {
+                iterator = getIntervalIterator(rdb, readOptions, interval, tableRange);
+                if (iterator == null) {
+                    return true;
+                }
+                while (iterator.isValid()) {
+                    byte[] dbKey = iterator.key();
+                    byte[] key = Arrays.copyOfRange(dbKey, 4, dbKey.length);
+                    byte[] value = iterator.value();
+                    if (ascending ? iAscendingFinished(key, value, tableRange.rangeEnd)
+                            : isDescendingFinished(key, value, tableRange.rangeStart)) {
+                        chunk.endReached = true;
+                        break;
+                    }
+                    chunk.numRead++;
+                    if (rowFilter == null || rowFilter.matches(key, value)) {
+                        chunk.add(key, value);
+                    }
+                    if (chunk.isFull()) {
+                        if (!put(chunk)) {
+                            return false;
+                        }
+                        chunk = new Chunk(this);
+                    }
+                    if (ascending) {
+                        iterator.next();
+                    } else {
+                        iterator.prev();
+                    }
+                }
+                return true;
+            } finally {
+                if (iterator != null) {
+                    iterator.close();
+                }
+                readOptions.close();
+                tablespace.dispose(rdb);
+            }
+        }
+
+        // returns false if the reading has been cancelled
+        private boolean put(Chunk chunk) {
+            try {
+                while (!queue.offer(chunk, 100, TimeUnit.MILLISECONDS)) {
+                    if (cancelled || !isRunning()) {
+                        return false;
+                    }
+                }
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+    }
+
+    static class Chunk {
+        final IntervalReader reader;
+        final byte[][] keys = new byte[CHUNK_SIZE][];
+        final byte[][] values = new byte[CHUNK_SIZE][];
+        int size;
+        // number of records read, including the ones discarded by the row filter
+        int numRead;
+        boolean last;
+        boolean endReached;
+        Exception error;
+
+        Chunk(IntervalReader reader) {
+            this.reader = reader;
+        }
+
+        void add(byte[] key, byte[] value) {
+            keys[size] = key;
+            values[size] = value;
+            size++;
+        }
+
+        boolean isFull() {
+            return size == CHUNK_SIZE;
+        }
+    }
+
     static DbRange getDbRange(int tbsIndex, DbRange tableRange) {
         DbRange dbr = new DbRange();
         if (tableRange != null && tableRange.rangeStart != null) {
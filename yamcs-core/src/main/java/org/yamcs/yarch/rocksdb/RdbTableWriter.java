@@ -5,6 +5,15 @@ import static org.yamcs.yarch.rocksdb.RdbStorageEngine.dbKey;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 import org.rocksdb.RocksDBException;
 import org.rocksdb.WriteBatch;
@@ -12,8 +21,15 @@ import org.rocksdb.WriteOptions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.yamcs.YamcsServer;
+import org.yamcs.parameter.ParameterValue;
+import org.yamcs.parameter.SystemParametersProducer;
+import org.yamcs.parameter.SystemParametersService;
+import org.yamcs.protobuf.Yamcs.Value.Type;
+import org.yamcs.utils.ByteArrayWrapper;
 import org.yamcs.utils.StringConverter;
 import org.yamcs.utils.TimeEncoding;
+import org.yamcs.xtce.Parameter;
+import org.yamcs.xtce.UnitType;
 import org.yamcs.yarch.ColumnDefinition;
 import org.yamcs.yarch.DataType;
 import org.yamcs.yarch.PartitioningSpec;
@@ -22,9 +38,11 @@ import org.yamcs.yarch.Stream;
 import org.yamcs.yarch.TableDefinition;
 import org.yamcs.yarch.TableWriter;
 import org.yamcs.yarch.Tuple;
+import org.yamcs.yarch.TupleBatch;
 import org.yamcs.yarch.TupleDefinition;
 import org.yamcs.yarch.YarchDatabaseInstance;
 import org.yamcs.yarch.YarchException;
+import org.yamcs.yarch.rocksdb.RdbConfig.TableWriterConfig;
 
 import static org.yamcs.yarch.rocksdb.RdbStorageEngine.TBS_INDEX_SIZE;;
 
@@ -39,12 +57,18 @@ import static org.yamcs.yarch.rocksdb.RdbStorageEngine.TBS_INDEX_SIZE;;
  * 
  * <p>
  * The histograms are written by the {@link HistogramWriter}.
+ * 
+ * <p>
+ * If a {@link TableWriterConfig} is configured for the table, in INSERT and LOAD modes the records are accumulated in
+ * one {@link WriteBatch} per partition and written when the batch reaches the maximum size, when the oldest record is
+ * older than the maximum latency or when the writer is closed. The records not yet written are lost if the server
+ * crashes.
  *
  * 
  * @author nm
  *
  */
-public class RdbTableWriter extends TableWriter {
+public class RdbTableWriter extends TableWriter implements SystemParametersProducer {
     private final RdbPartitionManager partitionManager;
     private final PartitioningSpec partitioningSpec;
     Logger log = LoggerFactory.getLogger(this.getClass().getName());
@@ -54,10 +78,32 @@ public class RdbTableWriter extends TableWriter {
     WriteOptions wopt;
     final HistogramWriter histoWriter;
     final SecondaryIndexWriter indexWriter;
+    final RdbTable rdbTable;
     TableDefinition tableDefinition;
 
+    // not null if the records are written in batches
+    final TableWriterConfig batchConfig;
+    // the batches being filled, by partition directory (null for the main database of the tablespace)
+    final Map<String, PartitionBatch> batches = new HashMap<>();
+    // the keys of the records in the batches, used in INSERT mode to detect the duplicates not yet written
+    final Set<ByteArrayWrapper> batchKeys = new HashSet<>();
+    int batchSize;
+    long batchStartTime;
+    ScheduledFuture<?> flushFuture;
+
+    // statistics published as system parameters, reset at each collection
+    String streamName;
+    boolean sysParamsRegistered;
+    Parameter spAvgBatchSize, spAvgWriteLatency, spMaxWriteLatency;
+    long numBatches, numBatchedRecords, writeLatencySum, maxWriteLatency;
+
     public RdbTableWriter(YarchDatabaseInstance ydb, RdbTable table, InsertMode mode) {
+        this(ydb, table, mode, RdbConfig.getInstance().getTableWriterConfig(table.getName()));
+    }
+
+    public RdbTableWriter(YarchDatabaseInstance ydb, RdbTable table, InsertMode mode, TableWriterConfig twConfig) {
         super(ydb, table, mode);
+        this.rdbTable = table;
         this.tableDefinition = table.getDefinition();
         this.partitioningSpec = tableDefinition.getPartitioningSpec();
         this.partitionManager = table.getPartitionManager();
@@ -70,10 +116,22 @@ public class RdbTableWriter extends TableWriter {
         }
         histoWriter = table.getHistogramWriter();
         indexWriter = table.getSecondaryIndexWriter();
+
+        if (twConfig != null && (mode == InsertMode.INSERT || mode == InsertMode.LOAD)) {
+            batchConfig = twConfig;
+            flushFuture = tablespace.executor.scheduleAtFixedRate(this::flushIfExpired,
+                    twConfig.getMaxBatchLatency(), twConfig.getMaxBatchLatency(), TimeUnit.MILLISECONDS);
+        } else {
+            batchConfig = null;
+        }
     }
 
     @Override
     public void onTuple(Stream stream, Tuple t) {
+        if (batchConfig != null) {
+            onTupleBatch(stream, t);
+            return;
+        }
         /*
          * since this method is not synchronised to the RdbStorageEngine#dropTable, it could be that one records is
          * still written after the table has been dropped. This happens if the onTuple is already running when dropTable
@@ -117,6 +175,181 @@ public class RdbTableWriter extends TableWriter {
         }
     }
 
+    /**
+     * In INSERT and LOAD modes, the tuples of the batch are written with one {@link WriteBatch} per partition even if
+     * no {@link TableWriterConfig} has been configured.
+     */
+    @Override
+    public void onTuples(Stream stream, TupleBatch tuples) {
+        if (batchConfig == null && mode != InsertMode.INSERT && mode != InsertMode.LOAD) {
+            super.onTuples(stream, tuples);
+            return;
+        }
+        synchronized (this) {
+            for (Tuple t : tuples) {
+                addToBatch(stream, t);
+            }
+            if (batchConfig == null) {
+                flush();
+            }
+        }
+    }
+
+    private synchronized void onTupleBatch(Stream stream, Tuple t) {
+        addToBatch(stream, t);
+    }
+
+    private void addToBatch(Stream stream, Tuple t) {
+        if (closed) {
+            return;
+        }
+        if (streamName == null && stream != null) {
+            streamName = stream.getName();
+        }
+        try {
+            RdbPartition partition = getDbPartition(t);
+            Row row = tableDefinition.generateRow(t);
+            byte[] k = dbKey(partition.tbsIndex, row.getKey());
+            PartitionBatch pb = getBatch(partition.dir);
+
+            if (mode == InsertMode.INSERT) {
+                ByteArrayWrapper bk = new ByteArrayWrapper(k);
+                if (batchKeys.contains(bk) || pb.rdb.get(k) != null) {
+                    return;
+                }
+                batchKeys.add(bk);
+            }
+            byte[] v = tableDefinition.serializeValue(t, row);
+            pb.writeBatch.put(k, v);
+            if (indexWriter != null) {
+                indexWriter.addTuple(getBatch(null).writeBatch, row, partition);
+            }
+            TextIndex textIndex = rdbTable.getTextIndex();
+            if (textIndex != null) {
+                textIndex.addTuple(getBatch(null).writeBatch, row.getKey(), partition, t);
+            }
+            if (histoWriter != null && mode == InsertMode.INSERT) {
+                histoWriter.addHistogram(row);
+            }
+            if (batchSize == 0) {
+                batchStartTime = System.nanoTime();
+            }
+            batchSize++;
+            if (batchConfig != null && batchSize >= batchConfig.getMaxBatchSize()) {
+                flush();
+            }
+        } catch (IOException | RocksDBException | YarchException e) {
+            log.error("failed to insert a record: ", e);
+            YamcsServer.getServer().getCrashHandler(ydb.getYamcsInstance()).handleCrash("Archive",
+                    "failed to insert a record in " + table.getName() + ": " + e);
+        }
+    }
+
+    private PartitionBatch getBatch(String dir) {
+        PartitionBatch pb = batches.get(dir);
+        if (pb == null) {
+            pb = new PartitionBatch(tablespace.getRdb(dir, false));
+            batches.put(dir, pb);
+        }
+        return pb;
+    }
+
+    private synchronized void flushIfExpired() {
+        if (batchSize > 0
+                && System.nanoTime() - batchStartTime >= TimeUnit.MILLISECONDS.toNanos(batchConfig.getMaxBatchLatency())) {
+            flush();
+        }
+    }
+
+    /**
+     * Writes the accumulated batches to the database.
+     * <p>
+     * The main database of the tablespace (containing the secondary index) is written last such that the index does not
+     * point to records not yet written.
+     */
+    private synchronized void flush() {
+        if (batches.isEmpty()) {
+            return;
+        }
+        PartitionBatch mainBatch = batches.remove(null);
+        try {
+            for (PartitionBatch pb : batches.values()) {
+                pb.write();
+            }
+            if (mainBatch != null) {
+                mainBatch.write();
+            }
+        } catch (RocksDBException e) {
+            log.error("failed to write a batch of records: ", e);
+            YamcsServer.getServer().getCrashHandler(ydb.getYamcsInstance()).handleCrash("Archive",
+                    "failed to write a batch of records in " + table.getName() + ": " + e);
+        } finally {
+            for (PartitionBatch pb : batches.values()) {
+                pb.close();
+            }
+            if (mainBatch != null) {
+                mainBatch.close();
+            }
+            batches.clear();
+            batchKeys.clear();
+        }
+        if (batchSize == 0) {
+            return;
+        }
+        if (batchConfig == null) {// batch received from the stream, no statistics
+            batchSize = 0;
+            return;
+        }
+
+        long latency = (System.nanoTime() - batchStartTime) / 1000_000;
+        numBatches++;
+        numBatchedRecords += batchSize;
+        writeLatencySum += latency;
+        maxWriteLatency = Math.max(maxWriteLatency, latency);
+        batchSize = 0;
+
+        if (!sysParamsRegistered) {
+            registerSystemParameters();
+        }
+    }
+
+    private void registerSystemParameters() {
+        sysParamsRegistered = true;
+        SystemParametersService sps = SystemParametersService.getInstance(ydb.getYamcsInstance());
+        if (sps == null) {
+            return;
+        }
+        UnitType msunit = new UnitType("ms");
+        String prefix = "yarch/tableWriters/" + (streamName == null ? "" : streamName + "_") + table.getName() + "/";
+        spAvgBatchSize = sps.createSystemParameter(prefix + "avgBatchSize", Type.UINT64,
+                "Average number of records written in one batch over the last collection interval");
+        spAvgWriteLatency = sps.createSystemParameter(prefix + "avgWriteLatency", Type.UINT64, msunit,
+                "Average time between adding the first record to a batch and writing the batch, "
+                        + "over the last collection interval");
+        spMaxWriteLatency = sps.createSystemParameter(prefix + "maxWriteLatency", Type.UINT64, msunit,
+                "Maximum time between adding the first record to a batch and writing the batch, "
+                        + "over the last collection interval");
+        sps.registerProducer(this);
+    }
+
+    @Override
+    public synchronized Collection<ParameterValue> getSystemParameters(long gentime) {
+        if (spAvgBatchSize == null) {
+            return Collections.emptyList();
+        }
+        List<ParameterValue> pvlist = new ArrayList<>();
+        pvlist.add(SystemParametersService.getPV(spAvgBatchSize, gentime,
+                numBatches == 0 ? 0 : numBatchedRecords / numBatches));
+        pvlist.add(SystemParametersService.getPV(spAvgWriteLatency, gentime,
+                numBatches == 0 ? 0 : writeLatencySum / numBatches));
+        pvlist.add(SystemParametersService.getPV(spMaxWriteLatency, gentime, maxWriteLatency));
+        numBatches = 0;
+        numBatchedRecords = 0;
+        writeLatencySum = 0;
+        maxWriteLatency = 0;
+        return pvlist;
+    }
+
     private boolean load(YRDB db, RdbPartition partition, Tuple t) throws RocksDBException, YarchException {
         Row row = tableDefinition.generateRow(t);
         byte[] k = dbKey(partition.tbsIndex, row.getKey());
@@ -134,7 +367,7 @@ public class RdbTableWriter extends TableWriter {
         }
         byte[] v = tableDefinition.serializeValue(t, row);
 
-        writeToDb(rdb, partition, k, v, row);
+        writeToDb(rdb, partition, k, v, row, t);
 
         if (histoWriter != null) {
             histoWriter.addHistogram(row);
@@ -153,7 +386,7 @@ public class RdbTableWriter extends TableWriter {
         if (rdb.get(k) != null) {
             updated = true;
         }
-        writeToDb(rdb, partition, k, v, row);
+        writeToDb(rdb, partition, k, v, row, t);
 
         if (histoWriter != null) {
             if (updated) {
@@ -190,12 +423,12 @@ public class RdbTableWriter extends TableWriter {
                 if (updated) {
                     oldt.setColumns(cols);
                     v = tableDefinition.serializeValue(oldt, row);
-                    writeToDb(rdb, partition, dbKey, v, row);
+                    writeToDb(rdb, partition, dbKey, v, row, oldt);
                 }
             } else {// new row
                 inserted = true;
                 v = tableDefinition.serializeValue(t, row);
-                writeToDb(rdb, partition, dbKey, v, row);
+                writeToDb(rdb, partition, dbKey, v, row, t);
             }
         } finally {
             rdb.unlock(dbKey);
@@ -240,12 +473,12 @@ public class RdbTableWriter extends TableWriter {
                 if (updated) {
                     oldt.setColumns(cols);
                     v = tableDefinition.serializeValue(oldt, row);
-                    writeToDb(rdb, partition, dbKey, v, row);
+                    writeToDb(rdb, partition, dbKey, v, row, oldt);
                 }
             } else {// new row
                 inserted = true;
                 v = tableDefinition.serializeValue(t, row);
-                writeToDb(rdb, partition, dbKey, v, row);
+                writeToDb(rdb, partition, dbKey, v, row, t);
             }
         } finally {
             rdb.unlock(dbKey);
@@ -258,9 +491,10 @@ public class RdbTableWriter extends TableWriter {
         }
     }
 
-    private void writeToDb(YRDB rdb, RdbPartition partition, byte[] key, byte[] value, Row row)
+    private void writeToDb(YRDB rdb, RdbPartition partition, byte[] key, byte[] value, Row row, Tuple t)
             throws RocksDBException {
-        if (indexWriter == null) {
+        TextIndex textIndex = rdbTable.getTextIndex();
+        if (indexWriter == null && textIndex == null) {
             rdb.put(key, value);
             return;
         }
@@ -268,20 +502,32 @@ public class RdbTableWriter extends TableWriter {
             try (WriteBatch writeBatch = new WriteBatch();
                     WriteOptions writeOpts = new WriteOptions()) {
                 writeBatch.put(key, value);
-                indexWriter.addTuple(writeBatch, row, partition);
+                addToIndices(writeBatch, row, partition, t, textIndex);
                 rdb.write(writeOpts, writeBatch);
             }
-        } else {// secondary index and main data go into different databases, we cannot perform the write in a batch
+        } else {// the indices and main data go into different databases, we cannot perform the write in a batch
             rdb.put(key, value);
             try (WriteBatch writeBatch = new WriteBatch();
                     WriteOptions writeOpts = new WriteOptions()) {
-                writeBatch.put(key, value);
-                indexWriter.addTuple(writeBatch, row, partition);
+                if (indexWriter != null) {
+                    writeBatch.put(key, value);
+                }
+                addToIndices(writeBatch, row, partition, t, textIndex);
                 tablespace.getRdb().write(writeOpts, writeBatch);
             }
         }
     }
 
+    private void addToIndices(WriteBatch writeBatch, Row row, RdbPartition partition, Tuple t, TextIndex textIndex)
+            throws RocksDBException {
+        if (indexWriter != null) {
+            indexWriter.addTuple(writeBatch, row, partition);
+        }
+        if (textIndex != null) {
+            textIndex.addTuple(writeBatch, row.getKey(), partition, t);
+        }
+    }
+
     /**
      * get the filename where the tuple would fit (can be a partition)
      * 
@@ -308,6 +554,21 @@ public class RdbTableWriter extends TableWriter {
     }
 
     protected void doClose() {
+        if (batchConfig != null) {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                flushFuture.cancel(false);
+                flush();
+                closed = true;
+            }
+            SystemParametersService sps = SystemParametersService.getInstance(ydb.getYamcsInstance());
+            if (sps != null && spAvgBatchSize != null) {
+                sps.unregisterProducer(this);
+            }
+            return;
+        }
         if (closed) {
             return;
         }
@@ -319,4 +580,22 @@ public class RdbTableWriter extends TableWriter {
         log.debug("Stream {} closed", stream.getName());
         close();
     }
+
+    class PartitionBatch {
+        final YRDB rdb;
+        final WriteBatch writeBatch = new WriteBatch();
+
+        PartitionBatch(YRDB rdb) {
+            this.rdb = rdb;
+        }
+
+        void write() throws RocksDBException {
+            rdb.write(wopt, writeBatch);
+        }
+
+        void close() {
+            writeBatch.close();
+            tablespace.dispose(rdb);
+        }
+    }
 }
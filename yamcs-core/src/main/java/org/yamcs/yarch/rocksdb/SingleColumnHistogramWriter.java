@@ -27,6 +27,7 @@ public class SingleColumnHistogramWriter extends HistogramWriter {
     public SingleColumnHistogramWriter(RdbTable table, String histoColumn) {
         super(table);
         this.colHistoWriter = new ColumnHistogramWriter(histoColumn);
+        columnWriters.add(colHistoWriter);
     }
 
     boolean printed = false;
@@ -105,6 +106,9 @@ public class SingleColumnHistogramWriter extends HistogramWriter {
         if (wrs.containsKey(dbPartition)) {
             throw new IllegalStateException("Already queing for this partition");
         }
+        // the data accumulated until now is part of the snapshot, it has to be written before the rebuilder deletes
+        // the histograms
+        flush();
         WhileRebuild wr = new WhileRebuild();
         wrs.put(dbPartition, wr);
         tablespace.getExecutor().schedule(() -> {
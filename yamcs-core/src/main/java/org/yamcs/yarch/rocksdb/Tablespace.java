@@ -7,6 +7,7 @@ import static org.yamcs.yarch.rocksdb.RdbStorageEngine.TBS_INDEX_SIZE;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -583,6 +584,9 @@ public class Tablespace {
             if (table == null) {
                 throw new IllegalArgumentException("Unknown table " + tblDef.getName());
             }
+            if (table.histoWriter != null) {
+                table.histoWriter.discard();
+            }
 
             for (Partition p : table.partitionManager.getPartitions()) {
                 RdbPartition rdbp = (RdbPartition) p;
@@ -593,6 +597,7 @@ public class Tablespace {
                 db.getDb().deleteRange(dbKey(tbsIndex), dbKey(tbsIndex + 1));
                 removeTbsIndex(Type.TABLE_PARTITION, tbsIndex);
             }
+            table.disableTextIndex();
             removeTbsIndex(Type.TABLE_DEFINITION, table.tbsIndex);
         }
     }
@@ -676,6 +681,22 @@ public class Tablespace {
     }
 
     public void close() {
+        // flushes the records accumulated by the writers in batches
+        List<RdbTableWriter> writers = new ArrayList<>();
+        synchronized (tableWriters) {
+            tableWriters.values().forEach(writers::addAll);
+        }
+        for (RdbTableWriter w : writers) {
+            w.close();
+        }
+        synchronized (tables) {
+            for (RdbTable table : tables.values()) {
+                if (table.histoWriter != null) {
+                    table.histoWriter.flush();
+                }
+                table.closeTextIndex();
+            }
+        }
         for (TableWalker rrs : walkers.keySet()) {
             rrs.close();
         }
@@ -707,7 +728,7 @@ public class Tablespace {
             }
             String oldName = tblDef.getName();
             List<TablespaceRecord> trList = getTableRecords(yamcsInstance, oldName, Type.TABLE_DEFINITION,
-                    Type.TABLE_PARTITION, Type.HISTOGRAM, Type.SECONDARY_INDEX)
+                    Type.TABLE_PARTITION, Type.HISTOGRAM, Type.SECONDARY_INDEX, Type.TEXT_INDEX)
                             .stream().map(tr -> tr.toBuilder().setTableName(newName).build())
                             .collect(Collectors.toList());
 
@@ -742,6 +763,23 @@ public class Tablespace {
         return tw;
     }
 
+    /**
+     * Creates a walker returning the rows containing all the given words, using the text index of the table.
+     *
+     * @return the walker or null if the text index is not enabled or not complete
+     */
+    public TableWalker newTextIndexTableWalker(YarchDatabaseInstance ydb, TableDefinition tblDef,
+            Collection<String> words, boolean ascending) {
+        RdbTable table = verifyTable(tblDef);
+        TextIndex textIndex = table.getTextIndex();
+        if (textIndex == null || !textIndex.isComplete() || words.isEmpty()) {
+            return null;
+        }
+        TableWalker tw = new TextIndexTableWalker(this, textIndex, words, ascending);
+        walkers.put(tw, DUMMY);
+        return tw;
+    }
+
     private RdbTable verifyTable(TableDefinition tblDef) {
         RdbTable table = tables.get(tblDef);
 
@@ -0,0 +1,208 @@
+package org.yamcs.yarch.rocksdb;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.rocksdb.RocksDBException;
+import org.rocksdb.WriteBatch;
+import org.rocksdb.WriteOptions;
+import org.yamcs.logging.Log;
+import org.yamcs.utils.ByteArray;
+import org.yamcs.yarch.Partition;
+import org.yamcs.yarch.TableDefinition;
+import org.yamcs.yarch.TextTokenizer;
+import org.yamcs.yarch.Tuple;
+import org.yamcs.yarch.YarchException;
+
+import static org.yamcs.yarch.rocksdb.RdbStorageEngine.TBS_INDEX_SIZE;
+
+/**
+ * Inverted index of the words contained in some text fields of the rows of one table.
+ * <p>
+ * The rocksdb key of the index records is composed of:
+ * <ul>
+ * <li>tbsIndex</li>
+ * <li>word (UTF-8) followed by a 0 byte</li>
+ * <li>primary key of the row</li>
+ * </ul>
+ * The value is the tbsIndex of the table partition followed by the partition directory (if any), as for the
+ * {@link SecondaryIndexWriter}. The records of one word are sorted in the primary key order which allows the
+ * {@link TextIndexTableWalker} to intersect the records of multiple words by merging them.
+ * <p>
+ * The index is not part of the table definition, the texts are extracted from the tuples by a {@link TextExtractor}
+ * passed each time the table is loaded, see {@link RdbTable#enableTextIndex(List, TextExtractor)}. The record with
+ * the empty word marks the index as complete; it is written at the end of the build of the index for the rows
+ * existing when the index has been created.
+ * <p>
+ * The index records are not removed when the rows are updated or deleted, so the index can return rows which do not
+ * (or not anymore) contain the words; the condition has to be verified on the rows.
+ */
+public class TextIndex {
+    static final Log log = new Log(TextIndex.class);
+    // number of rows indexed in one write batch when building the index
+    static final int BUILD_BATCH_SIZE = 1000;
+
+    final Tablespace tablespace;
+    final TableDefinition tableDefinition;
+    final int tbsIndex;
+    final List<String> columns;
+    final TextExtractor extractor;
+    private volatile boolean complete;
+    private volatile boolean closed;
+
+    /**
+     * Extracts the texts to be indexed from the tuples of the table
+     */
+    @FunctionalInterface
+    public interface TextExtractor {
+        /**
+         * Adds the texts of the tuple to the list; the texts are split into words by the {@link TextTokenizer}
+         */
+        void getTexts(Tuple tuple, List<String> texts);
+    }
+
+    TextIndex(Tablespace tablespace, TableDefinition tableDefinition, int tbsIndex, List<String> columns,
+            TextExtractor extractor) {
+        this.tablespace = tablespace;
+        this.tableDefinition = tableDefinition;
+        this.tbsIndex = tbsIndex;
+        this.columns = columns;
+        this.extractor = extractor;
+    }
+
+    /**
+     * Adds to the write batch the index records for the given row
+     *
+     * @param writeBatch
+     *            batch written to the main database of the tablespace
+     * @param pk
+     *            serialized primary key of the row
+     * @param partition
+     *            the partition containing the row
+     * @param tuple
+     *            the tuple written to the table
+     */
+    void addTuple(WriteBatch writeBatch, byte[] pk, Partition partition, Tuple tuple) throws RocksDBException {
+        List<String> texts = new ArrayList<>();
+        extractor.getTexts(tuple, texts);
+        if (texts.isEmpty()) {
+            return;
+        }
+        Set<String> words = new HashSet<>();
+        for (String text : texts) {
+            TextTokenizer.tokenize(text, words);
+        }
+        byte[] value = partitionValue((RdbPartition) partition);
+        for (String w : words) {
+            byte[] prefix = prefix(w);
+            byte[] key = Arrays.copyOf(prefix, prefix.length + pk.length);
+            System.arraycopy(pk, 0, key, prefix.length, pk.length);
+            writeBatch.put(key, value);
+        }
+    }
+
+    /**
+     *
+     * @return the key prefix of the index records of the given word
+     */
+    byte[] prefix(String word) {
+        ByteArray ba = new ByteArray();
+        ba.addInt(tbsIndex);
+        ba.add(word.getBytes(StandardCharsets.UTF_8));
+        ba.add((byte) 0);
+        return ba.toArray();
+    }
+
+    private static byte[] partitionValue(RdbPartition rpart) {
+        ByteArray ba = new ByteArray();
+        ba.addInt(rpart.tbsIndex);
+        if (rpart.dir != null) {
+            ba.add(rpart.dir.getBytes(StandardCharsets.US_ASCII));
+        }
+        return ba.toArray();
+    }
+
+    private byte[] completeMarkerKey() {
+        return prefix("");
+    }
+
+    void readComplete() throws RocksDBException {
+        complete = tablespace.getRdb().get(completeMarkerKey()) != null;
+    }
+
+    /**
+     *
+     * @return true if all the rows of the table are indexed
+     */
+    public boolean isComplete() {
+        return complete && !closed;
+    }
+
+    /**
+     *
+     * @return true if the index contains the words of all the given columns
+     */
+    public boolean covers(List<String> columnNames) {
+        return columns.containsAll(columnNames);
+    }
+
+    public int getTbsIndex() {
+        return tbsIndex;
+    }
+
+    /**
+     * Indexes the rows existing in the table. The rows inserted in the meanwhile are indexed by the table writers.
+     */
+    void build(RdbTable table) {
+        log.info("Building the text index of table {}", tableDefinition.getName());
+        long count = 0;
+        YRDB mainDb = tablespace.getRdb();
+        try (WriteOptions wo = new WriteOptions()) {
+            for (Partition p : table.getPartitionManager().getPartitions()) {
+                RdbPartition rpart = (RdbPartition) p;
+                YRDB rdb = tablespace.getRdb(rpart.dir, false);
+                WriteBatch writeBatch = new WriteBatch();
+                int n = 0;
+                try (DbIterator it = rdb.newPrefixIterator(RdbStorageEngine.dbKey(rpart.tbsIndex))) {
+                    while (it.isValid() && !closed) {
+                        byte[] dbKey = it.key();
+                        byte[] pk = Arrays.copyOfRange(dbKey, TBS_INDEX_SIZE, dbKey.length);
+                        addTuple(writeBatch, pk, rpart, tableDefinition.deserialize(pk, it.value()));
+                        if (++n == BUILD_BATCH_SIZE) {
+                            mainDb.write(wo, writeBatch);
+                            writeBatch.close();
+                            writeBatch = new WriteBatch();
+                            count += n;
+                            n = 0;
+                        }
+                        it.next();
+                    }
+                    mainDb.write(wo, writeBatch);
+                    count += n;
+                } finally {
+                    writeBatch.close();
+                    tablespace.dispose(rdb);
+                }
+                if (closed) {
+                    return;
+                }
+            }
+            mainDb.put(completeMarkerKey(), new byte[0]);
+            complete = true;
+            log.info("Text index of table {} built, {} rows indexed", tableDefinition.getName(), count);
+        } catch (RocksDBException | YarchException e) {
+            log.error("Failed to build the text index of table {}", tableDefinition.getName(), e);
+        }
+    }
+
+    /**
+     * Stops using the index; an ongoing build is interrupted.
+     */
+    void close() {
+        closed = true;
+    }
+}
@@ -0,0 +1,249 @@
+package org.yamcs.yarch.rocksdb;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+import org.rocksdb.ReadOptions;
+import org.rocksdb.RocksDBException;
+import org.rocksdb.RocksIterator;
+import org.yamcs.utils.ByteArrayUtils;
+import org.yamcs.yarch.DbRange;
+import org.yamcs.yarch.TableVisitor;
+import org.yamcs.yarch.TableWalker;
+import org.yamcs.yarch.YarchException;
+import org.yamcs.yarch.streamsql.StreamSqlException;
+
+import com.google.common.primitives.UnsignedBytes;
+
+import static org.yamcs.yarch.rocksdb.RdbStorageEngine.TBS_INDEX_SIZE;
+import static org.yamcs.yarch.rocksdb.RdbStorageEngine.tbsIndex;
+
+/**
+ * Iterates through the rows of a table containing all the given words, based on the {@link TextIndex}.
+ * <p>
+ * One iterator is opened for the index records of each word; since the records of one word are sorted by the primary
+ * key, the rows containing all the words are found by advancing the iterators in parallel, each time seeking the
+ * iterators behind to the most advanced primary key. The rows are then retrieved from the table partitions and passed
+ * to the visitor in the primary key order.
+ * <p>
+ * The index does not guarantee that the rows still contain the words so the condition has to be verified by the
+ * caller. The updates and deletions requested by the visitor are executed immediately, the batch updates are not
+ * supported.
+ */
+public class TextIndexTableWalker implements TableWalker {
+    static final Comparator<byte[]> COMPARATOR = UnsignedBytes.lexicographicalComparator();
+
+    private final Tablespace tablespace;
+    private final TextIndex textIndex;
+    private final List<String> words;
+    private final boolean ascending;
+    DbRange pkRange;
+    boolean batchUpdates = false;
+    volatile boolean running = true;
+
+    TextIndexTableWalker(Tablespace tablespace, TextIndex textIndex, Collection<String> words, boolean ascending) {
+        if (words.isEmpty()) {
+            throw new IllegalArgumentException("At least one word is required");
+        }
+        this.tablespace = tablespace;
+        this.textIndex = textIndex;
+        this.words = new ArrayList<>(words);
+        this.ascending = ascending;
+    }
+
+    @Override
+    public void walk(TableVisitor visitor) throws YarchException, StreamSqlException {
+        YRDB rdb = tablespace.getRdb();
+        List<WordCursor> cursors = new ArrayList<>(words.size());
+        try (ReadOptions readOptions = new ReadOptions()) {
+            try {
+                for (String w : words) {
+                    cursors.add(new WordCursor(rdb.getDb().newIterator(readOptions), textIndex.prefix(w)));
+                }
+                for (WordCursor c : cursors) {
+                    c.start();
+                }
+                intersect(visitor, cursors);
+            } finally {
+                for (WordCursor c : cursors) {
+                    c.it.close();
+                }
+            }
+        } catch (RocksDBException e) {
+            throw new YarchException(e);
+        }
+    }
+
+    private void intersect(TableVisitor visitor, List<WordCursor> cursors) throws RocksDBException, StreamSqlException {
+        while (running) {
+            byte[] target = null;
+            for (WordCursor c : cursors) {
+                if (!c.isValid()) {
+                    return;
+                }
+                if (target == null || isAfter(c.pk, target)) {
+                    target = c.pk;
+                }
+            }
+            if (!inRange(target)) {
+                return;
+            }
+            boolean match = true;
+            for (WordCursor c : cursors) {
+                if (COMPARATOR.compare(c.pk, target) != 0) {
+                    c.seek(target);
+                    match = false;
+                }
+            }
+            if (match) {
+                visitRow(visitor, target, cursors.get(0).it.value());
+                for (WordCursor c : cursors) {
+                    c.next();
+                }
+            }
+        }
+    }
+
+    private void visitRow(TableVisitor visitor, byte[] pk, byte[] indexValue)
+            throws RocksDBException, StreamSqlException {
+        String part = null;
+        int rowTbsIndex = tbsIndex(indexValue);
+        if (indexValue.length > TBS_INDEX_SIZE) {
+            part = new String(indexValue, TBS_INDEX_SIZE, indexValue.length - TBS_INDEX_SIZE,
+                    StandardCharsets.US_ASCII);
+        }
+        YRDB rdb = tablespace.getRdb(part);
+        try {
+            byte[] dbKey = RdbStorageEngine.dbKey(rowTbsIndex, pk);
+            byte[] rowValue = rdb.get(dbKey);
+            if (rowValue != null) {// the row might have been deleted since it has been indexed
+                TableVisitor.Action action = visitor.visit(pk, rowValue);
+                RdbTableWalker.executeAction(rdb, action, dbKey);
+                if (action.stop()) {
+                    close();
+                }
+            }
+        } finally {
+            tablespace.dispose(rdb);
+        }
+    }
+
+    // true if pk1 comes after pk2 in the walking order
+    private boolean isAfter(byte[] pk1, byte[] pk2) {
+        int c = COMPARATOR.compare(pk1, pk2);
+        return ascending ? c > 0 : c < 0;
+    }
+
+    // the range limits are inclusive for all the keys starting with them
+    private boolean inRange(byte[] pk) {
+        if (pkRange == null) {
+            return true;
+        }
+        if (ascending) {
+            return pkRange.rangeEnd == null || ByteArrayUtils.compare(pk, pkRange.rangeEnd) <= 0;
+        } else {
+            return pkRange.rangeStart == null || ByteArrayUtils.compare(pk, pkRange.rangeStart) >= 0;
+        }
+    }
+
+    @Override
+    public void setPrimaryIndexRange(DbRange pkRange) {
+        this.pkRange = pkRange;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+    }
+
+    @Override
+    public boolean isBatchUpdates() {
+        return batchUpdates;
+    }
+
+    @Override
+    public void setBatchUpdates(boolean batchUpdates) {
+        this.batchUpdates = batchUpdates;
+    }
+
+    /**
+     * Iterator through the index records of one word
+     */
+    class WordCursor {
+        final RocksIterator it;
+        final byte[] prefix;
+        // primary key of the current record
+        byte[] pk;
+
+        WordCursor(RocksIterator it, byte[] prefix) {
+            this.it = it;
+            this.prefix = prefix;
+        }
+
+        void start() {
+            if (ascending) {
+                if (pkRange != null && pkRange.rangeStart != null) {
+                    it.seek(key(pkRange.rangeStart));
+                } else {
+                    it.seek(prefix);
+                }
+            } else {
+                if (pkRange != null && pkRange.rangeEnd != null) {
+                    it.seekForPrev(ByteArrayUtils.plusOne(key(pkRange.rangeEnd)));
+                } else {
+                    it.seekForPrev(ByteArrayUtils.plusOne(prefix));
+                }
+            }
+            readPk();
+        }
+
+        void seek(byte[] target) {
+            if (ascending) {
+                it.seek(key(target));
+            } else {
+                it.seekForPrev(key(target));
+            }
+            readPk();
+        }
+
+        void next() {
+            if (ascending) {
+                it.next();
+            } else {
+                it.prev();
+            }
+            readPk();
+        }
+
+        boolean isValid() {
+            return pk != null;
+        }
+
+        private void readPk() {
+            pk = null;
+            if (!it.isValid()) {
+                return;
+            }
+            byte[] k = it.key();
+            if (k.length < prefix.length || ByteArrayUtils.compare(k, prefix) != 0) {
+                return;
+            }
+            pk = Arrays.copyOfRange(k, prefix.length, k.length);
+            if (!ascending && pkRange != null && pkRange.rangeEnd != null
+                    && ByteArrayUtils.compare(pk, pkRange.rangeEnd) > 0) {
+                // seekForPrev(plusOne(rangeEnd)) can land exactly on that key
+                next();
+            }
+        }
+
+        private byte[] key(byte[] pk) {
+            byte[] k = Arrays.copyOf(prefix, prefix.length + pk.length);
+            System.arraycopy(pk, 0, k, prefix.length, pk.length);
+            return k;
+        }
+    }
+}
@@ -22,6 +22,8 @@ import org.rocksdb.RocksDB;
 import org.rocksdb.RocksDBException;
 import org.rocksdb.RocksIterator;
 import org.rocksdb.Snapshot;
+import org.rocksdb.Statistics;
+import org.rocksdb.TickerType;
 import org.rocksdb.WriteBatch;
 import org.rocksdb.WriteOptions;
 import org.yamcs.utils.ByteArrayWrapper;
@@ -49,6 +51,8 @@ public class YRDB {
     long lastAccessTime;
 
     private final DBOptions dbOptions;
+    // shared with the other databases using the same config, may be null
+    private final Statistics statistics;
 
     // locks used for row locking
     static final int NUM_LOCKS = 1 << 4;
@@ -85,6 +89,7 @@ public class YRDB {
         cfoptions = (tc == null) ? rdbConfig.getDefaultColumnFamilyOptions() : tc.getColumnFamilyOptions();
         Options opt = (tc == null) ? rdbConfig.getDefaultOptions() : tc.getOptions();
         dbOptions = (tc == null) ? rdbConfig.getDefaultDBOptions() : tc.getDBOptions();
+        statistics = (tc == null) ? rdbConfig.getDefaultStatistics() : tc.getStatistics();
         this.path = dir;
         File current = new File(dir + File.separatorChar + "CURRENT");
         if (current.exists()) {
@@ -248,6 +253,46 @@ public class YRDB {
         return sb.toString();
     }
 
+    /**
+     * Returns the size of the block cache used by this database and the cache hit counts.
+     * <p>
+     * The block cache and the statistics are shared with the other databases using the same tablespace config.
+     */
+    public String getBlockCacheStats() throws RocksDBException {
+        if (isClosed) {
+            throw new IllegalStateException("Database is closed");
+        }
+        StringBuilder sb = new StringBuilder();
+        for (String p : Arrays.asList("rocksdb.block-cache-capacity", "rocksdb.block-cache-usage",
+                "rocksdb.block-cache-pinned-usage")) {
+            sb.append(p).append(": ").append(db.getProperty(p)).append("\n");
+        }
+        if (statistics == null) {
+            sb.append("statistics disabled\n");
+            return sb.toString();
+        }
+        appendHitRate(sb, "block cache", TickerType.BLOCK_CACHE_HIT, TickerType.BLOCK_CACHE_MISS);
+        appendHitRate(sb, "block cache index", TickerType.BLOCK_CACHE_INDEX_HIT, TickerType.BLOCK_CACHE_INDEX_MISS);
+        appendHitRate(sb, "block cache filter", TickerType.BLOCK_CACHE_FILTER_HIT,
+                TickerType.BLOCK_CACHE_FILTER_MISS);
+        appendHitRate(sb, "block cache data", TickerType.BLOCK_CACHE_DATA_HIT, TickerType.BLOCK_CACHE_DATA_MISS);
+        sb.append("bloom filter useful: ").append(statistics.getTickerCount(TickerType.BLOOM_FILTER_USEFUL))
+                .append("\n");
+        sb.append("bloom filter prefix useful: ")
+                .append(statistics.getTickerCount(TickerType.BLOOM_FILTER_PREFIX_USEFUL)).append("\n");
+        return sb.toString();
+    }
+
+    private void appendHitRate(StringBuilder sb, String name, TickerType hitTicker, TickerType missTicker) {
+        long hit = statistics.getTickerCount(hitTicker);
+        long miss = statistics.getTickerCount(missTicker);
+        sb.append(name).append(" hit: ").append(hit).append(", miss: ").append(miss);
+        if (hit + miss > 0) {
+            sb.append(String.format(", hit rate: %.2f%%", 100.0 * hit / (hit + miss)));
+        }
+        sb.append("\n");
+    }
+
     static public String cfNameToString(byte[] cfname) {
         for (byte b : cfname) {
             if (b == 0) {
@@ -1,14 +1,12 @@
 package org.yamcs.yarch.streamsql;
 
-import java.io.StringReader;
 import java.lang.reflect.Constructor;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
-import java.util.concurrent.atomic.AtomicInteger;
 
-import org.codehaus.janino.SimpleCompiler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.yamcs.utils.StringConverter;
@@ -158,63 +156,76 @@ public abstract class Expression {
 
     public abstract void fillCode_getValueReturn(StringBuilder code) throws StreamSqlException;
 
-    private static AtomicInteger counter = new AtomicInteger();
+    /**
+     * Assigns to each literal of the expression an index in the list of literals passed to the compiled class such
+     * that the expressions differing only in their literal values share the same compiled class.
+     * <p>
+     * Called with null to unassign the indices after the code has been generated.
+     */
+    protected void assignLiterals(List<Object> literals) {
+        if (children != null) {
+            for (Expression c : children) {
+                c.assignLiterals(literals);
+            }
+        }
+    }
 
     // TODO: when adding support for PreparedStatements we should remember the result of the compilation
     // and create new instances of that class with different arguments
     // (currently the arguments are passed from the parser.)
     // additional code should be added to verify that the arguments match the expected type
     public CompiledExpression compile() throws StreamSqlException {
-        String className = "Expression" + counter.incrementAndGet();
+        String className = ExpressionClassCache.CLASS_NAME_PLACEHOLDER;
+        List<Object> literals = new ArrayList<>();
         StringBuilder source = new StringBuilder();
-        source.append("package org.yamcs.yarch;\n")
-                .append("import org.yamcs.parameter.ParameterValue;\n")
-                .append("import org.yamcs.yarch.utils.*;\n")
-                .append("import java.util.Objects;\n")
-                .append("public class " + className + " implements CompiledExpression {\n")
-                .append("\tColumnDefinition cdef;\n")
-                .append("\tObject[] __sql_args;\n")
-                .append("\n");
-        fillCode_Declarations(source);
-
-        source.append("\tpublic " + className + "(ColumnDefinition cdef, Object[] args) {\n")
-                .append("\t\tthis.cdef = cdef;\n")
-                .append("\t\tthis.__sql_args = args;\n");
-        fillCode_Constructor(source);
-        source.append("\t}\n");
-
-        source.append("\tpublic Object getValue(Tuple tuple) {\n");
-        if (!isConstant()) {
-            Set<ColumnDefinition> inputs = new HashSet<ColumnDefinition>();
-            collectRequiredInputs(inputs);
-
-            fillCode_InputDefVars(inputs, source);
+        assignLiterals(literals);
+        try {
+            source.append("package org.yamcs.yarch;\n")
+                    .append("import org.yamcs.parameter.ParameterValue;\n")
+                    .append("import org.yamcs.yarch.utils.*;\n")
+                    .append("import java.util.Objects;\n")
+                    .append("public class " + className + " implements CompiledExpression {\n")
+                    .append("\tColumnDefinition cdef;\n")
+                    .append("\tObject[] __sql_args;\n")
+                    .append("\tObject[] __sql_literals;\n")
+                    .append("\n");
+            fillCode_Declarations(source);
+
+            source.append("\tpublic " + className + "(ColumnDefinition cdef, Object[] args, Object[] literals) {\n")
+                    .append("\t\tthis.cdef = cdef;\n")
+                    .append("\t\tthis.__sql_args = args;\n")
+                    .append("\t\tthis.__sql_literals = literals;\n");
+            fillCode_Constructor(source);
+            source.append("\t}\n");
+
+            source.append("\tpublic Object getValue(Tuple tuple) {\n");
+            if (!isConstant()) {
+                Set<ColumnDefinition> inputs = new HashSet<ColumnDefinition>();
+                collectRequiredInputs(inputs);
+
+                fillCode_InputDefVars(inputs, source);
+            }
+            fillCode_getValueBody(source);
+
+            source.append("\n\t\treturn ");
+            fillCode_getValueReturn(source);
+            source.append(";\n");
+            source.append("\t}\n")
+                    .append("\tpublic ColumnDefinition getDefinition() {\n")
+                    .append("\t\treturn cdef;\n")
+                    .append("\t}\n")
+                    .append("}\n");
+        } finally {
+            assignLiterals(null);
         }
-        fillCode_getValueBody(source);
-
-        // source.append("Value colid=t.getColumn(\"id\");\n");
-        source.append("\n\t\treturn ");
-        fillCode_getValueReturn(source);
-        source.append(";\n");
-        source.append("\t}\n")
-                .append("\tpublic ColumnDefinition getDefinition() {\n")
-                .append("\t\treturn cdef;\n")
-                .append("\t}\n")
-                .append("}\n");
-
-        // System.out.println("source: " + source);
+
+        Constructor<CompiledExpression> cexprConstructor = ExpressionClassCache.getInstance()
+                .getConstructor(source.toString());
         try {
-            SimpleCompiler compiler = new SimpleCompiler();
-            compiler.cook(new StringReader(source.toString()));
-            @SuppressWarnings("unchecked")
-            Class<CompiledExpression> cexprClass = (Class<CompiledExpression>) compiler.getClassLoader()
-                    .loadClass("org.yamcs.yarch." + className);
-            Constructor<CompiledExpression> cexprConstructor = cexprClass.getConstructor(ColumnDefinition.class,
-                    Object[].class);
             ColumnDefinition cdef = new ColumnDefinition(colName, type);
-            return cexprConstructor.newInstance(cdef, args);
+            return cexprConstructor.newInstance(cdef, args, literals.toArray());
         } catch (Exception e) {
-            log.warn("Got exception when compiling {} ", source.toString(), e);
+            log.warn("Got exception when instantiating {} ", source.toString(), e);
             throw new StreamSqlException(ErrCode.COMPILE_ERROR, e.toString());
         }
     }
@@ -0,0 +1,161 @@
+package org.yamcs.yarch.streamsql;
+
+import java.io.StringReader;
+import java.lang.reflect.Constructor;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.codehaus.janino.SimpleCompiler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.yamcs.yarch.ColumnDefinition;
+import org.yamcs.yarch.CompiledExpression;
+import org.yamcs.yarch.streamsql.StreamSqlException.ErrCode;
+
+/**
+ * Caches the classes generated for the compiled expressions such that the queries which differ only in the values of
+ * their arguments or literals do not have to be compiled again.
+ * <p>
+ * The key is the generated source, normalized by replacing the unique identifiers generated by the expressions with
+ * identifiers numbered in order of appearance.
+ * <p>
+ * The cache is bounded, the least recently used classes are evicted. Each class is loaded by its own class loader
+ * such that it can be garbage collected once evicted and not used anymore.
+ */
+public class ExpressionClassCache {
+    static final String CLASS_NAME_PLACEHOLDER = "__ExpressionClass__";
+    public static final int DEFAULT_MAX_SIZE = 1000;
+
+    // identifiers which are unique for each expression instance, see InExpression and Expression#colName
+    static final Pattern UNIQUE_IDENTIFIER = Pattern.compile("\\binSet\\d+\\b|\\bconst_\\w+?0x[0-9a-f]+d\\b");
+
+    static final private ExpressionClassCache INSTANCE = new ExpressionClassCache(DEFAULT_MAX_SIZE);
+    static Logger log = LoggerFactory.getLogger(ExpressionClassCache.class);
+
+    private final AtomicInteger counter = new AtomicInteger();
+    private final Map<String, Constructor<CompiledExpression>> cache;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong compileTime = new AtomicLong();
+
+    ExpressionClassCache(int maxSize) {
+        cache = new LinkedHashMap<String, Constructor<CompiledExpression>>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Constructor<CompiledExpression>> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    public static ExpressionClassCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the constructor of the class compiled from the given source, compiling it if not already in the cache.
+     * <p>
+     * The source has to use {@link #CLASS_NAME_PLACEHOLDER} as class name and the class has to have a constructor
+     * taking as arguments the column definition, the query arguments and the literals.
+     */
+    Constructor<CompiledExpression> getConstructor(String source) throws StreamSqlException {
+        String key = normalize(source);
+        Constructor<CompiledExpression> constructor;
+        synchronized (cache) {
+            constructor = cache.get(key);
+        }
+        if (constructor != null) {
+            hits.incrementAndGet();
+            return constructor;
+        }
+        misses.incrementAndGet();
+
+        String className = "Expression" + counter.incrementAndGet();
+        String classSource = key.replace(CLASS_NAME_PLACEHOLDER, className);
+        long t0 = System.nanoTime();
+        try {
+            SimpleCompiler compiler = new SimpleCompiler();
+            compiler.cook(new StringReader(classSource));
+            @SuppressWarnings("unchecked")
+            Class<CompiledExpression> cexprClass = (Class<CompiledExpression>) compiler.getClassLoader()
+                    .loadClass("org.yamcs.yarch." + className);
+            constructor = cexprClass.getConstructor(ColumnDefinition.class, Object[].class, Object[].class);
+        } catch (Exception e) {
+            log.warn("Got exception when compiling {} ", classSource, e);
+            throw new StreamSqlException(ErrCode.COMPILE_ERROR, e.toString());
+        }
+        long dt = System.nanoTime() - t0;
+        compileTime.addAndGet(dt);
+        if (log.isDebugEnabled()) {
+            log.debug("Compiled {} in {} ms; cache hit ratio: {}", className, dt / 1000_000,
+                    String.format("%.2f", getHitRatio()));
+        }
+
+        synchronized (cache) {
+            Constructor<CompiledExpression> c = cache.putIfAbsent(key, constructor);
+            if (c != null) {// compiled in parallel by another thread
+                constructor = c;
+            }
+        }
+        return constructor;
+    }
+
+    static String normalize(String source) {
+        Map<String, String> names = new HashMap<>();
+        Matcher m = UNIQUE_IDENTIFIER.matcher(source);
+        StringBuilder sb = new StringBuilder(source.length());
+        while (m.find()) {
+            String name = names.computeIfAbsent(m.group(), k -> "__id" + names.size());
+            m.appendReplacement(sb, name);
+        }
+        m.appendTail(sb);
+        return sb.toString();
+    }
+
+    /**
+     *
+     * @return the number of expressions for which a compiled class has been found in the cache
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     *
+     * @return the number of expressions which had to be compiled
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     *
+     * @return the ratio of hits over all requests, or 0 if there has been no request
+     */
+    public double getHitRatio() {
+        long h = hits.get();
+        long total = h + misses.get();
+        return total == 0 ? 0 : (double) h / total;
+    }
+
+    /**
+     *
+     * @return the total time in milliseconds spent compiling expressions
+     */
+    public long getCompileTime() {
+        return compileTime.get() / 1000_000;
+    }
+
+    public int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+}
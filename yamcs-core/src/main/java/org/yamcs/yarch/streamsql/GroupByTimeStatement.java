@@ -0,0 +1,334 @@
+package org.yamcs.yarch.streamsql;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+import org.yamcs.utils.TimeEncoding;
+import org.yamcs.utils.TimeInterval;
+import org.yamcs.utils.parser.ParseException;
+import org.yamcs.yarch.ColumnDefinition;
+import org.yamcs.yarch.CompiledExpression;
+import org.yamcs.yarch.DataType;
+import org.yamcs.yarch.ExecutionContext;
+import org.yamcs.yarch.TableDefinition;
+import org.yamcs.yarch.TableRowFilter;
+import org.yamcs.yarch.TableVisitor;
+import org.yamcs.yarch.TableWalker;
+import org.yamcs.yarch.Tuple;
+import org.yamcs.yarch.TupleDefinition;
+import org.yamcs.yarch.YarchDatabaseInstance;
+import org.yamcs.yarch.YarchException;
+
+/**
+ * Counts the rows of a table grouped by time buckets and by the values of a list of expressions, equivalent to:
+ *
+ * <pre>
+ * select bucket(timeColumn), groupBy1, groupBy2,..., count(*) from &lt;table&gt; where &lt;cond&gt; group by bucket(timeColumn), groupBy1, groupBy2,...
+ * </pre>
+ *
+ * The result contains one tuple for each non empty (bucket, group) with the columns: bucket (the start of the time
+ * bucket), one column for each group by expression and count. The buckets are aligned to multiples of the bucket size
+ * and are returned in ascending order. For TIMESTAMP columns the alignment is done in UTC (i.e. on the UNIX time, not
+ * counting the leap seconds) such that for example the hour buckets start at the full UTC hours; for LONG columns the
+ * values are used as they are.
+ * <p>
+ * The aggregation is performed directly in the table visitor, deserializing only the columns used by the query. One
+ * counter is kept for each group; if the time column is the first column of the primary key, the rows are visited in
+ * time order and each bucket is passed on and released as soon as the walker goes past it such that the memory
+ * depends only on the number of groups in one bucket. Otherwise all the buckets are kept until the end of the walk.
+ * <p>
+ * The table partitions can be read in parallel (see {@link #setScanParallelism(int)}); if the rows are not visited in
+ * time order anyway, the partitions are read in unordered mode since the counts do not depend on the order of the
+ * rows.
+ */
+public class GroupByTimeStatement extends SimpleStreamSqlStatement {
+    final String tblName;
+    final String timeColumn;
+    final long bucketSize;
+    final List<Expression> groupBy;
+    final Expression whereClause;
+    TimeInterval timeInterval = new TimeInterval();
+    int scanParallelism = 1;
+
+    // after binding
+    private TableDefinition tblDef;
+    private TupleDefinition resultDef;
+    private List<CompiledExpression> cgroupBy;
+    private boolean utcBuckets;
+
+    /**
+     *
+     * @param tableName
+     *            the table to be queried
+     * @param timeColumn
+     *            column of type TIMESTAMP or LONG whose value determines the bucket of each row
+     * @param bucketSize
+     *            size of the buckets in milliseconds
+     * @param groupBy
+     *            expressions whose values determine the groups inside each bucket; can be empty
+     * @param whereClause
+     *            condition selecting the rows; can be null
+     */
+    public GroupByTimeStatement(String tableName, String timeColumn, long bucketSize, List<Expression> groupBy,
+            Expression whereClause) {
+        if (bucketSize <= 0) {
+            throw new IllegalArgumentException("The bucket size has to be strictly positive");
+        }
+        this.tblName = tableName;
+        this.timeColumn = timeColumn;
+        this.bucketSize = bucketSize;
+        this.groupBy = groupBy;
+        this.whereClause = whereClause;
+    }
+
+    /**
+     * Restricts the query to the rows having the time column in the interval [start, end)
+     */
+    public void setTimeInterval(TimeInterval timeInterval) {
+        this.timeInterval = timeInterval;
+    }
+
+    /**
+     * Sets the number of table partitions read in parallel.
+     *
+     * @param scanParallelism
+     *            the maximum number of partitions read at the same time; 1 (default) means sequential read
+     * @see ExecutionContext#setScanParallelism(int, boolean)
+     */
+    public void setScanParallelism(int scanParallelism) {
+        if (scanParallelism < 1) {
+            throw new IllegalArgumentException("The parallelism has to be at least 1");
+        }
+        this.scanParallelism = scanParallelism;
+    }
+
+    /**
+     * Parses one expression which can be used as a group by expression or as a where clause.
+     */
+    public static Expression parseExpression(String s) throws ParseException, StreamSqlException {
+        StreamSqlParser parser = new StreamSqlParser(new StringReader(s));
+        try {
+            Expression expr = parser.Expression();
+            if (parser.getNextToken().kind != StreamSqlParserConstants.EOF) {
+                throw new ParseException("Unexpected input after the expression '" + s + "'");
+            }
+            return expr;
+        } catch (TokenMgrError e) {
+            throw new ParseException(e.getMessage());
+        }
+    }
+
+    @Override
+    public void execute(ExecutionContext c, ResultListener resultListener, long limit) throws StreamSqlException {
+        bind(c.getDb());
+        super.execute(c, resultListener, limit);
+    }
+
+    private void bind(YarchDatabaseInstance ydb) throws StreamSqlException {
+        if (resultDef != null) {
+            return;
+        }
+        tblDef = ydb.getTable(tblName);
+        if (tblDef == null) {
+            throw new GenericStreamSqlException(String.format("Object %s does not exist or is not a table", tblName));
+        }
+        ColumnDefinition tcd = tblDef.getColumnDefinition(timeColumn);
+        if (tcd == null) {
+            throw new GenericStreamSqlException(String.format("Table %s does not have a column %s", tblName,
+                    timeColumn));
+        }
+        if (tcd.getType() != DataType.TIMESTAMP && tcd.getType() != DataType.LONG) {
+            throw new GenericStreamSqlException(String.format("Column %s of type %s cannot be used as time column",
+                    timeColumn, tcd.getType()));
+        }
+        utcBuckets = tcd.getType() == DataType.TIMESTAMP;
+        TupleDefinition tdef = tblDef.getTupleDefinition();
+        TupleDefinition rdef = new TupleDefinition();
+        rdef.addColumn("bucket", tcd.getType());
+        cgroupBy = new ArrayList<>();
+        for (int i = 0; i < groupBy.size(); i++) {
+            Expression expr = groupBy.get(i);
+            expr.bind(tdef);
+            DataType type = expr.getType();
+            if (type == DataType.BINARY || type.val == DataType._type.PROTOBUF) {
+                throw new GenericStreamSqlException("Cannot group by values of type " + type);
+            }
+            String name = expr instanceof ColumnExpression ? ((ColumnExpression) expr).getName() : "group" + i;
+            rdef.addColumn(name, type);
+            cgroupBy.add(expr.compile());
+        }
+        rdef.addColumn("count", DataType.LONG);
+        if (whereClause != null) {
+            whereClause.bind(tdef);
+        }
+        resultDef = rdef;
+    }
+
+    @Override
+    protected void execute(ExecutionContext context, Consumer<Tuple> consumer) throws StreamSqlException {
+        bind(context.getDb());
+
+        Set<String> columns = new HashSet<>();
+        columns.add(timeColumn);
+        for (Expression expr : groupBy) {
+            addRequiredColumns(expr, columns);
+        }
+
+        TableWalkerBuilder twb = new TableWalkerBuilder(context, tblDef);
+        boolean timeOrdered = tblDef.getKeyDefinition().get(0).getName().equals(timeColumn);
+        if (scanParallelism > 1) {
+            context.setScanParallelism(scanParallelism, timeOrdered);
+        }
+        if (timeOrdered) {
+            addTimeFilter(twb);
+        }
+        CompiledExpression cwhere = null;
+        if (whereClause != null) {
+            if (!timeOrdered) {
+                // when walking in time order, the where clause shall not select a secondary index walker
+                whereClause.addFilter(twb);
+            }
+            cwhere = whereClause.compile();
+            Set<String> whereColumns = new HashSet<>();
+            addRequiredColumns(whereClause, whereColumns);
+            TableRowFilter rowFilter = new TableRowFilter(tblDef);
+            rowFilter.addCondition(cwhere, whereColumns);
+            twb.setRowFilter(rowFilter);
+        }
+        TableWalker tblIt = twb.build();
+        if (context.getScanParallelism() > 1) {
+            // the buckets are emitted during the walk only if the rows come in time order
+            tblIt.setParallelism(context.getScanParallelism(), timeOrdered || context.isScanOrdered());
+        }
+        if (cwhere != null && !twb.isRowFilterApplied()) {
+            addRequiredColumns(whereClause, columns);
+        } else {
+            cwhere = null;
+        }
+
+        Aggregator aggregator = new Aggregator(timeOrdered, cwhere, columns, consumer);
+        try {
+            tblIt.walk(aggregator);
+        } catch (YarchException e) {
+            throw new GenericStreamSqlException(e.getMessage());
+        }
+        aggregator.emitBefore(Long.MAX_VALUE);
+    }
+
+    private void addTimeFilter(TableWalkerBuilder twb) throws StreamSqlException {
+        ColumnExpression cexpr;
+        try {
+            cexpr = new ColumnExpression(timeColumn);
+        } catch (ParseException e) {
+            throw new GenericStreamSqlException(e.getMessage());
+        }
+        if (timeInterval.hasStart()) {
+            twb.addRelOpFilter(cexpr, RelOp.GREATER_OR_EQUAL, timeInterval.getStart());
+        }
+        if (timeInterval.hasEnd()) {
+            twb.addRelOpFilter(cexpr, RelOp.LESS, timeInterval.getEnd());
+        }
+    }
+
+    private void addRequiredColumns(Expression expr, Set<String> columns) throws StreamSqlException {
+        Set<ColumnDefinition> inputs = new HashSet<>();
+        expr.collectRequiredInputs(inputs);
+        for (ColumnDefinition cd : inputs) {
+            if (cd == null || tblDef.getColumnDefinition(cd.getName()) == null) {
+                throw new GenericStreamSqlException("Only the table columns can be used in the expressions");
+            }
+            columns.add(cd.getName());
+        }
+    }
+
+    @Override
+    protected TupleDefinition getResultDefinition() {
+        return resultDef;
+    }
+
+    /**
+     * Counts the rows visited; the counters are kept in a map per bucket.
+     */
+    class Aggregator implements TableVisitor {
+        final boolean timeOrdered;
+        final CompiledExpression cwhere;
+        final Set<String> columns;
+        final Consumer<Tuple> consumer;
+        final TreeMap<Long, Map<List<Object>, long[]>> buckets = new TreeMap<>();
+
+        Aggregator(boolean timeOrdered, CompiledExpression cwhere, Set<String> columns, Consumer<Tuple> consumer) {
+            this.timeOrdered = timeOrdered;
+            this.cwhere = cwhere;
+            this.columns = columns;
+            this.consumer = consumer;
+        }
+
+        @Override
+        public Action visit(byte[] key, byte[] value) {
+            Tuple tuple = tblDef.deserialize(key, value, columns);
+            Long t = tuple.getColumn(timeColumn);
+            if (t == null) {
+                return ACTION_CONTINUE;
+            }
+            if (timeInterval.hasEnd() && t >= timeInterval.getEnd()) {
+                return timeOrdered ? ACTION_STOP : ACTION_CONTINUE;
+            }
+            if (timeInterval.hasStart() && t < timeInterval.getStart()) {
+                return ACTION_CONTINUE;
+            }
+            if (cwhere != null && !Boolean.TRUE.equals(cwhere.getValue(tuple))) {
+                return ACTION_CONTINUE;
+            }
+            long bucket = getBucket(t);
+            if (timeOrdered) {
+                emitBefore(bucket);
+            }
+            Object[] groupValues = new Object[cgroupBy.size()];
+            for (int i = 0; i < groupValues.length; i++) {
+                groupValues[i] = cgroupBy.get(i).getValue(tuple);
+            }
+            buckets.computeIfAbsent(bucket, b -> new LinkedHashMap<>())
+                    .computeIfAbsent(Arrays.asList(groupValues), g -> new long[1])[0]++;
+            return ACTION_CONTINUE;
+        }
+
+        private long getBucket(long t) {
+            if (utcBuckets) {
+                long unixTime = TimeEncoding.toUnixMillisec(t);
+                return TimeEncoding.fromUnixMillisec(Math.floorDiv(unixTime, bucketSize) * bucketSize);
+            } else {
+                return Math.floorDiv(t, bucketSize) * bucketSize;
+            }
+        }
+
+        /**
+         * Passes on and removes the buckets starting before the given time
+         */
+        void emitBefore(long time) {
+            Iterator<Map.Entry<Long, Map<List<Object>, long[]>>> it = buckets.headMap(time).entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<Long, Map<List<Object>, long[]>> e = it.next();
+                for (Map.Entry<List<Object>, long[]> g : e.getValue().entrySet()) {
+                    Object[] values = new Object[resultDef.size()];
+                    values[0] = e.getKey();
+                    List<Object> groupValues = g.getKey();
+                    for (int i = 0; i < groupValues.size(); i++) {
+                        values[i + 1] = groupValues.get(i);
+                    }
+                    values[values.length - 1] = g.getValue()[0];
+                    consumer.accept(new Tuple(resultDef, values));
+                }
+                it.remove();
+            }
+        }
+    }
+}
@@ -5,6 +5,7 @@ import java.math.BigDecimal;
 import org.yamcs.yarch.Stream;
 import org.yamcs.yarch.StreamSubscriber;
 import org.yamcs.yarch.Tuple;
+import org.yamcs.yarch.TupleBatch;
 import org.yamcs.yarch.TupleDefinition;
 import org.yamcs.yarch.YarchDatabaseInstance;
 
@@ -38,14 +39,30 @@ public class LimitedStream extends Stream implements StreamSubscriber {
     // Called when the input stream received a tuple
     @Override
     public void onTuple(Stream stream, Tuple tuple) {
-        long inputDataCount = stream.getDataCount();
+        processTuple(stream.getDataCount(), tuple);
+    }
+
+    // Called when the input stream received a batch of tuples
+    @Override
+    public void onTuples(Stream stream, TupleBatch tuples) {
+        long inputDataCount = stream.getDataCount() - tuples.size();
+        for (Tuple tuple : tuples) {
+            if (stream.isClosed() || !processTuple(++inputDataCount, tuple)) {
+                return;
+            }
+        }
+    }
+
+    private boolean processTuple(long inputDataCount, Tuple tuple) {
         if (inputDataCount < offset + 1) {
-            return;
+            return true;
         }
         if (getDataCount() < limit) {
             emitTuple(tuple);
+            return true;
         } else {
             input.close();
+            return false;
         }
     }
 
@@ -230,12 +230,18 @@ public class SelectExpression implements StreamExpression {
 
     @Override
     public Stream execute(ExecutionContext c) throws StreamSqlException {
+        CompiledExpression cWhereClause = null;
         if (whereClause != null) {
             whereClause.addFilter(tupleSourceExpression);
+            cWhereClause = whereClause.compile();
+            tupleSourceExpression.setRowFilter(whereClause, cWhereClause);
         }
 
         Stream stream = tupleSourceExpression.execute(c);
-        CompiledExpression cWhereClause = (whereClause == null) ? null : whereClause.compile();
+        if (tupleSourceExpression.isRowFilterApplied()) {
+            // the table walker passes only the rows matching the where clause
+            cWhereClause = null;
+        }
 
         List<CompiledExpression> caggInputList = null;
         if (aggInputList != null) {
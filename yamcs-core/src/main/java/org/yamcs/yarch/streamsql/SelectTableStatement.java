@@ -10,6 +10,7 @@ import org.yamcs.yarch.ExecutionContext;
 import org.yamcs.yarch.Stream;
 import org.yamcs.yarch.StreamSubscriber;
 import org.yamcs.yarch.Tuple;
+import org.yamcs.yarch.TupleBatch;
 import org.yamcs.yarch.TupleDefinition;
 import org.yamcs.yarch.YarchDatabaseInstance;
 
@@ -39,6 +40,21 @@ public class SelectTableStatement implements StreamSqlStatement {
                 }
             }
 
+            @Override
+            public void onTuples(Stream stream, TupleBatch tuples) {
+                long count = stream.getDataCount() - tuples.size();
+                for (Tuple tuple : tuples) {
+                    if (stream.isClosed()) {
+                        return;
+                    }
+                    resultListener.next(tuple);
+                    if (++count >= limit) {
+                        stream.close();
+                        return;
+                    }
+                }
+            }
+
             @Override
             public void streamClosed(Stream stream) {
                 resultListener.complete();
@@ -14,6 +14,7 @@ import org.yamcs.yarch.FilterableTarget;
 import org.yamcs.yarch.PartitioningSpec;
 import org.yamcs.yarch.TableColumnDefinition;
 import org.yamcs.yarch.TableDefinition;
+import org.yamcs.yarch.TableRowFilter;
 import org.yamcs.yarch.TableWalker;
 import org.yamcs.yarch.YarchDatabaseInstance;
 import org.yamcs.yarch.streamsql.StreamSqlException.ErrCode;
@@ -36,9 +37,17 @@ public class TableWalkerBuilder implements FilterableTarget {
     // filter on secondary key
     private DbRange skRange;
 
+    // words searched in the text index
+    private List<String> textColumns;
+    private Set<String> textWords;
+
     private boolean ascending = true;
     private boolean follow = false;
 
+    // condition evaluated on the serialized rows
+    private TableRowFilter rowFilter;
+    private boolean rowFilterApplied = false;
+
     public TableWalkerBuilder(ExecutionContext ctx, TableDefinition tableDefinition) {
         this.ctx = ctx;
         this.ydb = ctx.getDb();
@@ -185,6 +194,18 @@ public class TableWalkerBuilder implements FilterableTarget {
         return;
     }
 
+    /**
+     * Records the words to be searched in the text index. If there are multiple text_match conditions, only the last
+     * one is used.
+     */
+    @Override
+    public void addTextFilter(List<String> columns, Set<String> words) {
+        if (!words.isEmpty()) {
+            textColumns = columns;
+            textWords = words;
+        }
+    }
+
     // if the value partitioning column is of type Enum, we have to convert all
     // the values (used in the query for filtering) from String to Short
     // the values that do not have an enum are eliminated (because they cannot be possibly matching the query)
@@ -217,8 +238,14 @@ public class TableWalkerBuilder implements FilterableTarget {
         if (!ascending) {
             follow = false;
         }
-        TableWalker tw;
-        if (skRange == null) {
+        TableWalker tw = null;
+        if (skRange == null && textWords != null && !follow) {
+            tw = ydb.getStorageEngine(tableDefinition).newTextIndexTableWalker(ydb, tableDefinition, textColumns,
+                    textWords, ascending);
+        }
+        if (tw != null) {
+            log.debug("Using the text index of table {} for {}", tableDefinition.getName(), textWords);
+        } else if (skRange == null) {
             tw = ydb.getStorageEngine(tableDefinition).newTableWalker(ctx, tableDefinition, ascending, follow);
             tw.setPartitionFilter(partitionTimeFilter, partitionValueFilter);
         } else {
@@ -230,6 +257,9 @@ public class TableWalkerBuilder implements FilterableTarget {
         if (pkRange != null) {
             tw.setPrimaryIndexRange(pkRange);
         }
+        if (rowFilter != null) {
+            rowFilterApplied = tw.setRowFilter(rowFilter);
+        }
         return tw;
     }
 
@@ -241,6 +271,18 @@ public class TableWalkerBuilder implements FilterableTarget {
         this.follow = follow;
     }
 
+    public void setRowFilter(TableRowFilter rowFilter) {
+        this.rowFilter = rowFilter;
+    }
+
+    /**
+     * 
+     * @return true if the row filter has been accepted by the last built table walker
+     */
+    public boolean isRowFilterApplied() {
+        return rowFilterApplied;
+    }
+
     public TableDefinition getTableDefinition() {
         return tableDefinition;
     }
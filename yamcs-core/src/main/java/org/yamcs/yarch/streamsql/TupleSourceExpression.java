@@ -1,14 +1,20 @@
 package org.yamcs.yarch.streamsql;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import org.yamcs.logging.Log;
+import org.yamcs.yarch.ColumnDefinition;
+import org.yamcs.yarch.CompiledExpression;
 import org.yamcs.yarch.ExecutionContext;
 import org.yamcs.yarch.FilterableTarget;
 import org.yamcs.yarch.HistogramReaderStream;
 import org.yamcs.yarch.Stream;
 import org.yamcs.yarch.TableDefinition;
+import org.yamcs.yarch.TableRowFilter;
 import org.yamcs.yarch.TableWalker;
 import org.yamcs.yarch.TableReaderStream;
 import org.yamcs.yarch.TupleDefinition;
@@ -143,6 +149,78 @@ public class TupleSourceExpression implements FilterableTarget {
         }
     }
 
+    @Override
+    public void addTextFilter(List<String> columns, Set<String> words) throws StreamSqlException {
+        if (type == Type.TABLE) {
+            tableWalkerBuilder.addTextFilter(columns, words);
+        }
+    }
+
+    /**
+     * If the source is a table, the condition is passed to the table walker to be evaluated directly on the serialized
+     * rows, see {@link TableRowFilter}. The terms of a top level AND are compiled separately such that each of them
+     * deserializes only the columns it requires.
+     * <p>
+     * Whether the walker supports it is known only after {@link #execute(ExecutionContext)}, see
+     * {@link #isRowFilterApplied()}.
+     * 
+     * @param expr
+     *            the bound condition
+     * @param cexpr
+     *            the compiled condition
+     */
+    void setRowFilter(Expression expr, CompiledExpression cexpr) throws StreamSqlException {
+        if (type != Type.TABLE) {
+            return;
+        }
+        TableDefinition tableDefinition = tableWalkerBuilder.getTableDefinition();
+        List<Expression> terms = new ArrayList<>();
+        collectAndTerms(expr, terms);
+
+        TableRowFilter rowFilter = new TableRowFilter(tableDefinition);
+        for (Expression term : terms) {
+            Set<String> columns = getRequiredColumns(tableDefinition, term);
+            if (columns == null) { // not a table column, cannot be evaluated on the rows
+                return;
+            }
+            rowFilter.addCondition(terms.size() == 1 ? cexpr : term.compile(), columns);
+        }
+        tableWalkerBuilder.setRowFilter(rowFilter);
+    }
+
+    private static void collectAndTerms(Expression expr, List<Expression> terms) {
+        if (expr instanceof AndExpression) {
+            for (Expression c : expr.children) {
+                collectAndTerms(c, terms);
+            }
+        } else {
+            terms.add(expr);
+        }
+    }
+
+    // returns null if the expression uses an input which is not a table column
+    private static Set<String> getRequiredColumns(TableDefinition tableDefinition, Expression expr) {
+        Set<ColumnDefinition> inputs = new HashSet<>();
+        expr.collectRequiredInputs(inputs);
+        Set<String> columns = new HashSet<>();
+        for (ColumnDefinition cd : inputs) {
+            if (cd == null || tableDefinition.getColumnDefinition(cd.getName()) == null) {
+                return null;
+            }
+            columns.add(cd.getName());
+        }
+        return columns;
+    }
+
+    /**
+     * 
+     * @return true if the condition passed in {@link #setRowFilter(Expression, CompiledExpression)} is applied by the
+     *         table walker and does not need to be evaluated again on the resulting tuples
+     */
+    boolean isRowFilterApplied() {
+        return type == Type.TABLE && tableWalkerBuilder.isRowFilterApplied();
+    }
+
     Stream execute(ExecutionContext c) throws StreamSqlException, YarchException {
         Stream stream;
         YarchDatabaseInstance ydb = c.getDb();
@@ -159,6 +237,9 @@ public class TupleSourceExpression implements FilterableTarget {
             break;
         case TABLE:
             TableWalker tblit = tableWalkerBuilder.build();
+            if (c.getScanParallelism() > 1) {
+                tblit.setParallelism(c.getScanParallelism(), c.isScanOrdered());
+            }
             stream = new TableReaderStream(ydb, tableWalkerBuilder.getTableDefinition(), tblit);
             break;
         case TABLE_HISTOGRAM:
@@ -19,6 +19,9 @@ import org.yamcs.utils.parser.ParseException;
  *
  */
 public class ValueExpression extends Expression {
+    // index in the literals array of the compiled expression, -1 if the value is written in the generated code
+    int literalIdx = -1;
+
     ValueExpression(Object value) {
         super(null);
         this.constantValue = value;
@@ -75,9 +78,31 @@ public class ValueExpression extends Expression {
         }
     }
 
+    @Override
+    protected void assignLiterals(List<Object> literals) {
+        if (literals == null) {
+            literalIdx = -1;
+        } else if ((constantValue instanceof Byte) || (constantValue instanceof Short)
+                || (constantValue instanceof Integer) || (constantValue instanceof Long)
+                || (constantValue instanceof String)) {
+            literalIdx = literals.size();
+            literals.add(constantValue);
+        }
+    }
+
     @Override
     public void fillCode_getValueReturn(StringBuilder code) throws StreamSqlException {
-        if ((constantValue instanceof Byte) || (constantValue instanceof Short) || (constantValue instanceof Integer)) {
+        if (literalIdx >= 0) {
+            // same java types as the literals written below
+            String lit = "__sql_literals[" + literalIdx + "]";
+            if (constantValue instanceof Long) {
+                code.append("((Number) ").append(lit).append(").longValue()");
+            } else if (constantValue instanceof String) {
+                code.append("((String) ").append(lit).append(")");
+            } else {
+                code.append("((Number) ").append(lit).append(").intValue()");
+            }
+        } else if ((constantValue instanceof Byte) || (constantValue instanceof Short) || (constantValue instanceof Integer)) {
             code.append(constantValue.toString());
         } else if (constantValue instanceof Long) {
             code.append(constantValue.toString()).append("l");
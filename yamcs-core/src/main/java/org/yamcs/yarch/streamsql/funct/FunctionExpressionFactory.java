@@ -27,6 +27,7 @@ public class FunctionExpressionFactory {
 
         addFunction("unhex", UnhexExpression.class);
         addFunction("coalesce", CoalesceExpression.class);
+        addFunction("text_match", TextMatchExpression.class);
     }
 
     static void addFunction(String name, Class<? extends Expression> c) {
@@ -0,0 +1,88 @@
+package org.yamcs.yarch.streamsql.funct;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.yamcs.utils.parser.ParseException;
+import org.yamcs.yarch.DataType;
+import org.yamcs.yarch.FilterableTarget;
+import org.yamcs.yarch.TextTokenizer;
+import org.yamcs.yarch.streamsql.ColumnExpression;
+import org.yamcs.yarch.streamsql.Expression;
+import org.yamcs.yarch.streamsql.StreamSqlException;
+import org.yamcs.yarch.streamsql.StreamSqlException.ErrCode;
+
+/**
+ * <code>text_match(col1, col2,..., 'terms')</code> is true if all the words of the terms are found among the words
+ * of the given columns (the words are split and compared case insensitive by the {@link TextTokenizer}).
+ * <p>
+ * If the table has a text index covering the columns, the condition is used to select the rows via the index.
+ */
+public class TextMatchExpression extends Expression {
+
+    public TextMatchExpression(Expression[] args, boolean star) throws ParseException {
+        super(args);
+        if (args.length < 2) {
+            throw new ParseException("Invalid number of arguments, expected at least 2 (column..., terms)");
+        }
+    }
+
+    @Override
+    protected void doBind() throws StreamSqlException {
+        for (int i = 0; i < children.length - 1; i++) {
+            DataType dt = children[i].getType();
+            if (dt != DataType.STRING && dt != DataType.ENUM) {
+                throw new StreamSqlException(ErrCode.BAD_ARG_TYPE, "expected string instead of " + dt);
+            }
+        }
+        Expression terms = children[children.length - 1];
+        if (terms.getType() != DataType.STRING || !terms.isConstant()) {
+            throw new StreamSqlException(ErrCode.BAD_ARG_TYPE, "expected constant string as last argument");
+        }
+        type = DataType.BOOLEAN;
+    }
+
+    @Override
+    public void addFilter(FilterableTarget tableStream) throws StreamSqlException {
+        List<String> columns = new ArrayList<>();
+        for (int i = 0; i < children.length - 1; i++) {
+            if (!(children[i] instanceof ColumnExpression)) {
+                return;
+            }
+            columns.add(((ColumnExpression) children[i]).getName());
+        }
+        String terms = (String) children[children.length - 1].getConstantValue();
+        tableStream.addTextFilter(columns, TextTokenizer.tokenize(terms));
+    }
+
+    @Override
+    public void fillCode_getValueReturn(StringBuilder code) throws StreamSqlException {
+        code.append("org.yamcs.yarch.streamsql.funct.TextMatchExpression.match(");
+        children[children.length - 1].fillCode_getValueReturn(code);
+        for (int i = 0; i < children.length - 1; i++) {
+            code.append(", ");
+            children[i].fillCode_getValueReturn(code);
+        }
+        code.append(")");
+    }
+
+    /**
+     *
+     * @return true if all the words of the terms are contained in the values
+     */
+    public static boolean match(String terms, Object... values) {
+        Set<String> words = TextTokenizer.tokenize(terms);
+        if (words.isEmpty()) {
+            return true;
+        }
+        Set<String> found = new HashSet<>();
+        for (Object v : values) {
+            if (v != null) {
+                TextTokenizer.tokenize(v.toString(), found);
+            }
+        }
+        return found.containsAll(words);
+    }
+}
@@ -0,0 +1,122 @@
+package org.yamcs.http;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.yamcs.protobuf.ServerMessage;
+import org.yamcs.protobuf.SubscribeParametersData;
+import org.yamcs.protobuf.links.LinkEvent;
+
+import com.google.protobuf.Any;
+import com.google.protobuf.StringValue;
+import com.google.protobuf.Timestamp;
+import com.google.protobuf.util.JsonFormat;
+import com.google.protobuf.util.JsonFormat.TypeRegistry;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.UnpooledByteBufAllocator;
+
+public class EncodedMessageCacheTest {
+    JsonFormat.Printer printer;
+    JsonFormat.Parser parser;
+    EncodedMessageCache cache;
+
+    @BeforeEach
+    public void setup() {
+        TypeRegistry typeRegistry = TypeRegistry.newBuilder().add(StringValue.getDescriptor()).build();
+        printer = JsonFormat.printer().usingTypeRegistry(typeRegistry);
+        parser = JsonFormat.parser().usingTypeRegistry(typeRegistry);
+        cache = new EncodedMessageCache(printer, new UnpooledByteBufAllocator(false));
+    }
+
+    static ServerMessage expected(String type, int call, int seq, String value) {
+        return ServerMessage.newBuilder().setType(type).setCall(call).setSeq(seq)
+                .setData(Any.pack(StringValue.of(value), HttpServer.TYPE_URL_PREFIX)).build();
+    }
+
+    @Test
+    public void testBinary() throws Exception {
+        StringValue abc = StringValue.of("abc");
+        ByteBuf buf1 = cache.encodeBinary("time", 3, 1, abc);
+        ByteBuf buf2 = cache.encodeBinary("time", 5, 7, abc);
+        ByteBuf buf3 = cache.encodeBinary("time", 5, 8, StringValue.of("def"));
+        ByteBuf buf4 = cache.encodeBinary("time", 6, 2, abc);
+
+        assertEquals(expected("time", 3, 1, "abc"), ServerMessage.parseFrom(ByteBufUtil.getBytes(buf1)));
+        assertEquals(expected("time", 5, 7, "abc"), ServerMessage.parseFrom(ByteBufUtil.getBytes(buf2)));
+        assertEquals(expected("time", 5, 8, "def"), ServerMessage.parseFrom(ByteBufUtil.getBytes(buf3)));
+        assertEquals(expected("time", 6, 2, "abc"), ServerMessage.parseFrom(ByteBufUtil.getBytes(buf4)));
+        // the message is cached when seen the second time
+        assertEquals(1, cache.getHits());
+        assertEquals(3, cache.getMisses());
+
+        buf1.release();
+        buf2.release();
+        buf3.release();
+        buf4.release();
+        cache.clear();
+        ByteBuf buf5 = cache.encodeBinary("time", 3, 1, abc);
+        assertEquals(expected("time", 3, 1, "abc"), ServerMessage.parseFrom(ByteBufUtil.getBytes(buf5)));
+        assertEquals(4, cache.getMisses());
+        buf5.release();
+    }
+
+    @Test
+    public void testEqualMessagesNotShared() throws Exception {
+        // the messages are looked up by identity, not by content
+        for (int i = 0; i < 3; i++) {
+            cache.encodeBinary("time", i, 1, StringValue.of("abc")).release();
+        }
+        assertEquals(0, cache.getHits());
+        assertEquals(3, cache.getMisses());
+        cache.clear();
+    }
+
+    @Test
+    public void testJson() throws Exception {
+        StringValue abc = StringValue.of("abc");
+        ByteBuf buf1 = cache.encodeJson("time", 3, 1, abc);
+        ByteBuf buf2 = cache.encodeJson("ti\"me", 0, 0, abc);
+        ByteBuf buf3 = cache.encodeJson("time", 4, 2, abc);
+
+        assertEquals(expected("time", 3, 1, "abc"), parse(buf1));
+        assertEquals(expected("ti\"me", 0, 0, "abc"), parse(buf2));
+        assertEquals(expected("time", 4, 2, "abc"), parse(buf3));
+        assertEquals(1, cache.getHits());
+
+        // the json and binary encodings are cached separately
+        ByteBuf buf4 = cache.encodeBinary("time", 3, 1, abc);
+        ByteBuf buf5 = cache.encodeBinary("time", 4, 2, abc);
+        assertEquals(3, cache.getMisses());
+        assertEquals(2, cache.getHits());
+        assertEquals(expected("time", 4, 2, "abc"), ServerMessage.parseFrom(ByteBufUtil.getBytes(buf5)));
+
+        buf1.release();
+        buf2.release();
+        buf3.release();
+        buf4.release();
+        buf5.release();
+        cache.clear();
+    }
+
+    @Test
+    public void testSharedTypes() {
+        assertTrue(EncodedMessageCache.isShared(Timestamp.newBuilder().setSeconds(10).build()));
+        assertTrue(EncodedMessageCache.isShared(LinkEvent.getDefaultInstance()));
+        // built separately for each subscription, never found in the cache
+        assertFalse(EncodedMessageCache.isShared(SubscribeParametersData.getDefaultInstance()));
+        assertFalse(EncodedMessageCache.isShared(StringValue.of("abc")));
+    }
+
+    ServerMessage parse(ByteBuf buf) throws Exception {
+        ServerMessage.Builder msgb = ServerMessage.newBuilder();
+        parser.merge(buf.toString(StandardCharsets.UTF_8), msgb);
+        return msgb.build();
+    }
+}
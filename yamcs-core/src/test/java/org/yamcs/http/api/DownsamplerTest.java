@@ -63,6 +63,23 @@ public class DownsamplerTest {
         assertEquals(1, samples.size());
     }
 
+    @Test
+    public void testAggregates() {
+        Downsampler sampler = new Downsampler(0, 100, 2);
+        sampler.process(10, 1, 3, 2 + 3 + 1, 3);
+        sampler.process(20, 5, 5, 5, 1);
+        sampler.process(60, 7, -1);
+
+        List<Sample> samples = sampler.collect();
+        assertEquals(2, samples.size());
+        Sample sample0 = samples.get(0);
+        assertEquals(4, sample0.n);
+        assertEquals(1, sample0.min, 1e-10);
+        assertEquals(5, sample0.max, 1e-10);
+        assertEquals(11 / 4., sample0.avg, 1e-10);
+        assertEquals(7, samples.get(1).avg, 1e-10);
+    }
+
     @Test
     public void testSamplingInvalid() {
         assertThrows(IllegalArgumentException.class, () -> {
@@ -0,0 +1,153 @@
+package org.yamcs.mdb;
+
+import java.io.FileWriter;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+import org.yamcs.YConfiguration;
+import org.yamcs.utils.TimeEncoding;
+import org.yamcs.xtce.Comparison;
+import org.yamcs.xtce.IntegerDataEncoding;
+import org.yamcs.xtce.IntegerParameterType;
+import org.yamcs.xtce.OperatorType;
+import org.yamcs.xtce.Parameter;
+import org.yamcs.xtce.ParameterEntry;
+import org.yamcs.xtce.ParameterInstanceRef;
+import org.yamcs.xtce.SequenceContainer;
+import org.yamcs.xtce.SequenceEntry.ReferenceLocationType;
+import org.yamcs.xtce.SpaceSystem;
+import org.yamcs.xtce.XtceDb;
+
+/**
+ * Compares the interpretive and the compiled extraction (see {@link ContainerExtractorCompiler}) using a MDB similar
+ * with the one used by the perftest1 instance of the simulator: 100 packets inheriting from a common header, each
+ * packet containing 32 bits unsigned integer parameters.
+ */
+@Disabled
+public class CompiledExtractorPerfTest {
+    static final int NUM_PACKETS = 100;
+    static final int PACKET_SIZE = 1476;
+    static final int FIRST_PACKET_ID = 1000;
+
+    static final int WARMUP_ROUNDS = 200;
+    static final int ROUNDS = 1000;
+
+    static XtceDb mdb;
+    static SequenceContainer header;
+    static List<byte[]> packets = new ArrayList<>();
+
+    @BeforeAll
+    public static void beforeClass() throws Exception {
+        YConfiguration.setupTest(null);
+        Map<String, Object> m = new HashMap<>();
+        m.put("type", PerfLoader.class.getName());
+        mdb = XtceDbFactory.createInstance(List.of(YConfiguration.wrap(m)), false, false);
+        header = mdb.getSequenceContainer("/perf-data/header");
+
+        Random random = new Random(0);
+        for (int i = 0; i < NUM_PACKETS; i++) {
+            byte[] b = new byte[16 + PACKET_SIZE];
+            random.nextBytes(b);
+            ByteBuffer.wrap(b).putInt(0, FIRST_PACKET_ID + i);
+            packets.add(b);
+        }
+    }
+
+    @Test
+    public void testInterpreted() {
+        run(false);
+    }
+
+    @Test
+    public void testCompiled() {
+        run(true);
+    }
+
+    private void run(boolean compileExtractors) {
+        XtceTmExtractor extractor = new XtceTmExtractor(mdb);
+        ContainerProcessingOptions options = new ContainerProcessingOptions();
+        options.setCompileExtractors(compileExtractors);
+        extractor.setOptions(options);
+        extractor.provideAll();
+
+        long now = TimeEncoding.getWallclockTime();
+        int numParams = 0;
+        for (int k = 0; k < WARMUP_ROUNDS; k++) {
+            for (byte[] b : packets) {
+                numParams += extractor.processPacket(b, now, now, header).getParameterResult().size();
+            }
+        }
+
+        long t0 = System.nanoTime();
+        for (int k = 0; k < ROUNDS; k++) {
+            for (byte[] b : packets) {
+                numParams += extractor.processPacket(b, now, now, header).getParameterResult().size();
+            }
+        }
+        long t1 = System.nanoTime();
+
+        long numPackets = (long) ROUNDS * packets.size();
+        System.out.printf("%s: processed %d packets in %d ms: %.0f ns/packet (%d parameters extracted in total)%n",
+                compileExtractors ? "compiled" : "interpreted", numPackets, (t1 - t0) / 1000_000,
+                (t1 - t0) / (double) numPackets, numParams);
+    }
+
+    public static class PerfLoader implements SpaceSystemLoader {
+        @Override
+        public boolean needsUpdate(RandomAccessFile consistencyDateFile) {
+            return true;
+        }
+
+        @Override
+        public String getConfigName() {
+            return "perf-data";
+        }
+
+        @Override
+        public void writeConsistencyDate(FileWriter consistencyDateFile) {
+        }
+
+        @Override
+        public SpaceSystem load() {
+            SpaceSystem ss = new SpaceSystem("perf-data");
+            IntegerParameterType.Builder ptypeb = new IntegerParameterType.Builder().setName("uint32");
+            ptypeb.setSizeInBits(32);
+            ptypeb.setSigned(false);
+            ptypeb.setEncoding(new IntegerDataEncoding.Builder().setSizeInBits(32));
+            IntegerParameterType uint32 = ptypeb.build();
+            ss.addParameterType(uint32);
+
+            Parameter packetId = new Parameter("packet-id");
+            packetId.setParameterType(uint32);
+            ss.addParameter(packetId);
+            SequenceContainer header = new SequenceContainer("header");
+            header.addEntry(new ParameterEntry(0, ReferenceLocationType.CONTAINER_START, packetId));
+            ss.addSequenceContainer(header);
+
+            int numParam = PACKET_SIZE * 8 / 32;
+            for (int j = 0; j < NUM_PACKETS; j++) {
+                int pktId = FIRST_PACKET_ID + j;
+                SequenceContainer sc = new SequenceContainer("pkt_" + pktId);
+                sc.setBaseContainer(header);
+                sc.setRestrictionCriteria(new Comparison(new ParameterInstanceRef(packetId),
+                        Integer.toString(pktId), OperatorType.EQUALITY));
+                for (int i = 0; i < numParam; i++) {
+                    Parameter p = new Parameter("p_" + pktId + "_uint32_" + i);
+                    p.setParameterType(uint32);
+                    sc.addEntry(new ParameterEntry(128 + 32 * i, ReferenceLocationType.CONTAINER_START, p));
+                    ss.addParameter(p);
+                }
+                ss.addSequenceContainer(sc);
+            }
+            return ss;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package org.yamcs.mdb;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.yamcs.YConfiguration;
+import org.yamcs.parameter.ContainerParameterValue;
+import org.yamcs.parameter.ParameterValue;
+import org.yamcs.utils.TimeEncoding;
+import org.yamcs.xtce.SequenceContainer;
+import org.yamcs.xtce.XtceDb;
+
+public class ContainerExtractorCompilerTest {
+    long now = TimeEncoding.getWallclockTime();
+
+    @BeforeAll
+    public static void beforeClass() {
+        YConfiguration.setupTest(null);
+    }
+
+    @Test
+    public void testRefMdb() throws Exception {
+        XtceDb mdb = XtceDbFactory.createInstanceByConfig("refmdb");
+        int numCompiled = 0;
+        for (SequenceContainer sc : mdb.getSequenceContainers()) {
+            if (ContainerExtractorCompiler.getExtractor(sc, sc.getEntryList()) != null) {
+                numCompiled++;
+            }
+        }
+        assertTrue(numCompiled > 0);
+        compare(mdb);
+    }
+
+    @Test
+    public void testRefXtce() throws Exception {
+        XtceDb mdb = XtceDbFactory.createInstanceByConfig("refxtce");
+        // packet1 has a binary parameter with leading size
+        SequenceContainer sc = mdb.getSequenceContainer("/RefXtce/packet1");
+        assertNull(ContainerExtractorCompiler.getExtractor(sc, sc.getEntryList()));
+        compare(mdb);
+    }
+
+    @Test
+    public void testBogusSat() throws Exception {
+        compare(XtceDbFactory.createInstanceByConfig("BogusSAT"));
+    }
+
+    /**
+     * Extracts random packets from all the containers with and without compiled extractors and verifies that the
+     * results are the same
+     */
+    private void compare(XtceDb mdb) {
+        Random random = new Random(0);
+        XtceTmExtractor interpreted = new XtceTmExtractor(mdb);
+        interpreted.provideAll();
+
+        XtceTmExtractor compiled = new XtceTmExtractor(mdb);
+        ContainerProcessingOptions options = new ContainerProcessingOptions();
+        options.setCompileExtractors(true);
+        compiled.setOptions(options);
+        compiled.provideAll();
+
+        int n = 0;
+        for (SequenceContainer sc : mdb.getSequenceContainers()) {
+            for (int i = 0; i < 20; i++) {
+                byte[] b = new byte[random.nextInt(300)];
+                random.nextBytes(b);
+                ContainerProcessingResult cpr1 = interpreted.processPacket(b, now, now, sc);
+                ContainerProcessingResult cpr2 = compiled.processPacket(b, now, now, sc);
+                assertEquals(String.valueOf(cpr1.exception), String.valueOf(cpr2.exception));
+                assertEquals(cpr1.getContainerResult().size(), cpr2.getContainerResult().size());
+
+                List<ParameterValue> pvl1 = cpr1.getParameterResult().listView();
+                List<ParameterValue> pvl2 = cpr2.getParameterResult().listView();
+                assertEquals(pvl1.size(), pvl2.size());
+                for (int k = 0; k < pvl1.size(); k++) {
+                    ParameterValue pv1 = pvl1.get(k);
+                    ParameterValue pv2 = pvl2.get(k);
+                    assertEquals(pv1.getParameter(), pv2.getParameter());
+                    assertEquals(String.valueOf(pv1.getRawValue()), String.valueOf(pv2.getRawValue()));
+                    assertEquals(String.valueOf(pv1.getEngValue()), String.valueOf(pv2.getEngValue()));
+                    assertEquals(pv1.getAcquisitionStatus(), pv2.getAcquisitionStatus());
+                    assertEquals(((ContainerParameterValue) pv1).getBitSize(),
+                            ((ContainerParameterValue) pv2).getBitSize());
+                }
+                n += pvl1.size();
+            }
+        }
+        assertTrue(n > 0);
+    }
+}
@@ -0,0 +1,88 @@
+package org.yamcs.mdb;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.yamcs.YConfiguration;
+import org.yamcs.http.api.MdbSearchHelpers;
+import org.yamcs.http.api.NameDescriptionSearchMatcher;
+import org.yamcs.xtce.NameDescription;
+import org.yamcs.xtce.Parameter;
+import org.yamcs.xtce.XtceDb;
+
+public class MdbSearchIndexTest {
+    static final List<String> TERMS = List.of("param", "PARA", "a", "m1", "ccsds", "packet", "/REFMDB/SUBSYS1/",
+            "float", "pa ram", "1 para", "_", "x", "ref par", "[2]", "size", "nonexistent", "_type");
+
+    @BeforeAll
+    public static void beforeClass() {
+        YConfiguration.setupTest(null);
+    }
+
+    @Test
+    public void testRefMdb() {
+        compare(XtceDbFactory.createInstanceByConfig("refmdb"));
+    }
+
+    @Test
+    public void testRefXtce() {
+        compare(XtceDbFactory.createInstanceByConfig("refxtce"));
+    }
+
+    private void compare(XtceDb mdb) {
+        MdbSearchIndex index = MdbSearchIndex.getInstance(mdb);
+        for (String term : TERMS) {
+            check(term, mdb.getParameters(), index::searchParameters);
+            check(term, mdb.getSequenceContainers(), index::searchContainers);
+            check(term, mdb.getMetaCommands(), index::searchCommands);
+            check(term, mdb.getAlgorithms(), index::searchAlgorithms);
+        }
+    }
+
+    // the index has to return all the objects found by the linear search
+    private <T extends NameDescription> void check(String term, Collection<T> all,
+            Function<String, List<T>> search) {
+        NameDescriptionSearchMatcher matcher = new NameDescriptionSearchMatcher(term);
+        Set<T> expected = all.stream().filter(matcher::matches).collect(Collectors.toSet());
+        List<T> candidates = search.apply(term);
+        Set<T> found = candidates.stream().filter(matcher::matches).collect(Collectors.toSet());
+        assertEquals(expected, found, "term: '" + term + "'");
+        assertEquals(candidates.size(), Set.copyOf(candidates).size());
+    }
+
+    @Test
+    public void testMembers() {
+        XtceDb mdb = XtceDbFactory.createInstanceByConfig("refxtce");
+        Parameter param2 = mdb.getParameter("/RefXtce/param2");
+        for (String term : List.of("param2.m1", "m2", "RefXtce/param2.M")) {
+            assertFalse(MdbSearchHelpers.searchEntries(param2, term).isEmpty());
+            assertTrue(MdbSearchIndex.getInstance(mdb).searchParameters(term).contains(param2));
+        }
+    }
+
+    @Test
+    public void testIncrementalUpdate() {
+        XtceDb mdb = XtceDbFactory.createInstanceByConfig("refxtce");
+        MdbSearchIndex index = MdbSearchIndex.getInstance(mdb);
+        Parameter p1 = mdb.getParameter("/RefXtce/param1");
+        assertTrue(index.searchParameters("wxyzzy").isEmpty());
+
+        Parameter p = mdb.createSystemParameter("/yamcs/test/wxyzzy", p1.getParameterType(), "first description");
+        assertEquals(List.of(p), index.searchParameters("wxyzzy"));
+        assertEquals(List.of(p), index.searchParameters("first wxyz"));
+
+        mdb.createSystemParameter("/yamcs/test/wxyzzy", p1.getParameterType(), "second description");
+        assertEquals(List.of(p), index.searchParameters("wxyzzy"));
+        assertEquals(List.of(p), index.searchParameters("second wxyz"));
+        assertTrue(index.searchParameters("first wxyz").isEmpty());
+    }
+}
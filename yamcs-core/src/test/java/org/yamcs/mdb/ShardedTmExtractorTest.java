@@ -0,0 +1,101 @@
+package org.yamcs.mdb;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.yamcs.ProcessorConfig;
+import org.yamcs.TmPacket;
+import org.yamcs.YConfiguration;
+import org.yamcs.mdb.ContainerProcessingOptions.ShardKey;
+import org.yamcs.parameter.ParameterValue;
+import org.yamcs.protobuf.TmStatistics;
+import org.yamcs.xtce.SequenceContainer;
+import org.yamcs.xtce.XtceDb;
+
+public class ShardedTmExtractorTest {
+    static XtceDb mdb;
+
+    @BeforeAll
+    public static void beforeClass() {
+        YConfiguration.setupTest(null);
+        mdb = XtceDbFactory.createInstanceByConfig("refmdb");
+    }
+
+    @Test
+    public void testApid() {
+        verify(ShardKey.APID);
+    }
+
+    @Test
+    public void testContainer() {
+        verify(ShardKey.CONTAINER);
+    }
+
+    /**
+     * Extracts random packets starting with random containers with the sharded and with the serial extractor and
+     * verifies that the results are the same and delivered in the same order
+     */
+    private void verify(ShardKey shardKey) {
+        ProcessorConfig pconfig = new ProcessorConfig();
+        pconfig.getContainerProcessingOptions().setExtractionThreads(4);
+        pconfig.getContainerProcessingOptions().setShardKey(shardKey);
+        ProcessorData pdata = new ProcessorData(null, "test", mdb, pconfig);
+
+        List<ContainerProcessingResult> results = new ArrayList<>();
+        ShardedTmExtractor sharded = new ShardedTmExtractor(mdb, pdata, new ContainerProcessingOptions(),
+                r -> results.add(r));
+        sharded.provideAll();
+        sharded.start();
+
+        XtceTmExtractor serial = new XtceTmExtractor(mdb);
+        serial.provideAll();
+
+        List<SequenceContainer> containers = new ArrayList<>(mdb.getSequenceContainers());
+        List<TmPacket> packets = new ArrayList<>();
+        List<SequenceContainer> startContainers = new ArrayList<>();
+        Random random = new Random(0);
+        for (int i = 0; i < 2000; i++) {
+            byte[] b = new byte[random.nextInt(200)];
+            random.nextBytes(b);
+            SequenceContainer sc = containers.get(random.nextInt(containers.size()));
+            TmPacket pkt = new TmPacket(i, i, i, b);
+            packets.add(pkt);
+            startContainers.add(sc);
+            sharded.process(pkt, sc, i);
+        }
+        sharded.stop();
+
+        assertEquals(packets.size(), results.size());
+        for (int i = 0; i < packets.size(); i++) {
+            ContainerProcessingResult cpr1 = serial.processPacket(packets.get(i).getPacket(), i, i,
+                    startContainers.get(i));
+            ContainerProcessingResult cpr2 = results.get(i);
+            assertEquals(i, cpr2.acquisitionTime);
+
+            List<ParameterValue> pvl1 = cpr1.getParameterResult().listView();
+            List<ParameterValue> pvl2 = cpr2.getParameterResult().listView();
+            assertEquals(pvl1.size(), pvl2.size());
+            for (int k = 0; k < pvl1.size(); k++) {
+                assertEquals(pvl1.get(k).getParameter(), pvl2.get(k).getParameter());
+                assertEquals(String.valueOf(pvl1.get(k).getEngValue()), String.valueOf(pvl2.get(k).getEngValue()));
+            }
+        }
+
+        // the statistics of the shards are aggregated
+        assertEquals(receivedPackets(serial.getStatistics()), receivedPackets(sharded.getStatistics()));
+        sharded.resetStatistics();
+        assertEquals(Map.of(), receivedPackets(sharded.getStatistics()));
+    }
+
+    private static Map<String, Integer> receivedPackets(ProcessingStatistics stats) {
+        return stats.snapshot().stream()
+                .collect(Collectors.toMap(TmStatistics::getQualifiedName, TmStatistics::getReceivedPackets));
+    }
+}
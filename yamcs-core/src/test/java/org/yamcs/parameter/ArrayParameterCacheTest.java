@@ -198,6 +198,30 @@ public class ArrayParameterCacheTest {
 
     }
 
+    @Test
+    public void testMaxMemory() {
+        // one uint64 parameter takes 32 bytes per row and the table starts with 16 rows
+        // so the memory is enough for doubling the capacity only once
+        ParameterCacheConfig pcc = new ParameterCacheConfig(true, true, 2000, 4096, 1024);
+        ArrayParameterCache pcache = new ArrayParameterCache("test", pcc);
+        List<ParameterValue> expectedPVlist = new ArrayList<>();
+        for (int i = 0; i < 256; i++) {
+            ParameterValue pv = getUint64ParameterValue(p1, i * 10L);
+            expectedPVlist.add(pv);
+            pcache.update(Arrays.asList(pv));
+        }
+        assertEquals(1024, pcache.getMemoryUsage());
+
+        List<ParameterValue> pvlist = pcache.getAllValues(p1);
+        assertEquals(32, pvlist.size());
+        for (int i = 0; i < 32; i++) {
+            TestUtils.checkEquals(expectedPVlist.get(255 - i), pvlist.get(i));
+        }
+
+        pcache.clear();
+        assertEquals(0, pcache.getMemoryUsage());
+    }
+
     ParameterValue getUint64ParameterValue(Parameter p, long t) {
         ParameterValue pv = new ParameterValue(p);
         pv.setGenerationTime(t);
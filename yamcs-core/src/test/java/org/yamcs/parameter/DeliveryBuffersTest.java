@@ -0,0 +1,62 @@
+package org.yamcs.parameter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+
+import org.junit.jupiter.api.Test;
+import org.yamcs.xtce.Parameter;
+
+public class DeliveryBuffersTest {
+
+    @Test
+    public void testReuse() {
+        DeliveryBuffers buffers = new DeliveryBuffers();
+        ParameterValue pv = new ParameterValue(new Parameter("p1"));
+
+        ArrayList<ParameterValue> al3 = buffers.get(3);
+        al3.add(pv);
+        buffers.get(7).add(pv);
+        buffers.get(3).add(pv);
+
+        assertEquals(2, buffers.numTouched());
+        assertEquals(3, buffers.touched(0));
+        assertEquals(7, buffers.touched(1));
+        assertEquals(2, buffers.peek(3).size());
+
+        buffers.reset();
+        assertEquals(0, buffers.numTouched());
+        assertTrue(buffers.peek(3).isEmpty());
+
+        buffers.get(7).add(pv);
+        assertSame(al3, buffers.get(3));
+        assertEquals(2, buffers.numTouched());
+        assertEquals(7, buffers.touched(0));
+    }
+
+    @Test
+    public void testGrowAndRetain() {
+        DeliveryBuffers buffers = new DeliveryBuffers(2);
+        ParameterValue pv = new ParameterValue(new Parameter("p1"));
+        int n = 1000;
+        for (int i = 1; i <= n; i++) {
+            buffers.get(i).add(pv);
+        }
+        assertEquals(n, buffers.size());
+        assertEquals(n, buffers.numTouched());
+        buffers.reset();
+
+        buffers.retainAll(id -> id % 3 == 0);
+        assertEquals(n / 3, buffers.size());
+        for (int i = 1; i <= n; i++) {
+            if (i % 3 == 0) {
+                assertTrue(buffers.peek(i).isEmpty());
+            } else {
+                assertNull(buffers.peek(i));
+            }
+        }
+    }
+}
@@ -3,6 +3,7 @@ package org.yamcs.parameter;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.Arrays;
 
@@ -112,4 +113,52 @@ public class LastValueCacheTest {
         assertEquals(p1v1, lvc.getValue(p1, -2));
         assertEquals(p1v0, lvc.getValue(p1, -3));
     }
+
+    @Test
+    public void testEnableBufferingAfterAdd() {
+        LastValueCache lvc = new LastValueCache();
+        lvc.add(p1v0);
+        lvc.add(p1v1);
+        assertEquals(p1v1, lvc.getValue(p1));
+
+        // the last value is kept when switching from the single value to the buffer
+        lvc.enableBuffering(p1, 3);
+        assertEquals(p1v1, lvc.getValue(p1, 0));
+        assertNull(lvc.getValue(p1, -1));
+
+        lvc.add(p1v2);
+        assertEquals(p1v2, lvc.getValue(p1, 0));
+        assertEquals(p1v1, lvc.getValue(p1, -1));
+        assertNull(lvc.getValue(p1, -2));
+    }
+
+    @Test
+    public void testConcurrent() throws Exception {
+        LastValueCache lvc = new LastValueCache();
+        lvc.enableBuffering(p1, 3);
+        int n = 100000;
+        ParameterValue[] values = new ParameterValue[n];
+        for (int i = 0; i < n; i++) {
+            values[i] = new ParameterValue(p1);
+            values[i].setGenerationTime(i);
+        }
+        Thread writer = new Thread(() -> {
+            for (ParameterValue pv : values) {
+                lvc.add(pv);
+            }
+        });
+        writer.start();
+        while (writer.isAlive()) {
+            ParameterValue pv2 = lvc.getValue(p1, -2);
+            ParameterValue pv0 = lvc.getValue(p1, 0);
+            if (pv0 != null && pv2 != null) {
+                assertTrue(pv2.getGenerationTime() <= pv0.getGenerationTime());
+            }
+        }
+        writer.join();
+        assertEquals(n - 1, lvc.getValue(p1).getGenerationTime());
+        assertEquals(n - 2, lvc.getValue(p1, -1).getGenerationTime());
+        assertEquals(n - 3, lvc.getValue(p1, -2).getGenerationTime());
+        assertEquals(1, lvc.getValues().size());
+    }
 }
@@ -0,0 +1,127 @@
+package org.yamcs.parameter;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+import org.yamcs.Processor;
+import org.yamcs.ProcessorConfig;
+import org.yamcs.ProcessorFactory;
+import org.yamcs.YConfiguration;
+import org.yamcs.events.EventProducerFactory;
+import org.yamcs.mdb.XtceDbFactory;
+import org.yamcs.xtce.Parameter;
+
+/**
+ * Compares the allocation per delivery of the subscription fan-out done by
+ * {@link ParameterRequestManager#update(ParameterValueList)} with the former HashMap based one.
+ * <p>
+ * The delivery is similar to perftest1: packets of 100 parameters, 10 subscriptions each containing 10 parameters of
+ * the packet and two subscribe all consumers.
+ */
+@Disabled
+public class ParameterDeliveryPerfTest {
+    static final int NUM_PARAMS = 100;
+    static final int NUM_SUBSCRIPTIONS = 10;
+    static final int NUM_SUBSCRIBE_ALL = 2;
+    static final int NUM_DELIVERIES = 1_000_000;
+
+    static ParameterValueList pvlist;
+    static ParameterRequestManager prm;
+    // the subscriptions of the prm, used by the HashMap based delivery
+    static Map<Parameter, SubscriptionArray> param2RequestMap = new HashMap<>();
+    static SubscriptionArray subscribeAll = new SubscriptionArray();
+    static long sink;
+
+    @BeforeAll
+    public static void beforeClass() throws Exception {
+        YConfiguration.setupTest("refxtce");
+        EventProducerFactory.setMockup(false);
+        XtceDbFactory.reset();
+        // with subscribeAll the parameters do not need a provider
+        ProcessorConfig config = new ProcessorConfig(YConfiguration.wrap(Map.of("subscribeAll", true)));
+        Processor processor = ProcessorFactory.create("refxtce", "ParameterDeliveryPerfTest", "test", List.of(),
+                "test", config, null);
+        prm = processor.getParameterRequestManager();
+
+        List<List<Parameter>> subscriptions = new ArrayList<>();
+        for (int i = 0; i < NUM_SUBSCRIPTIONS; i++) {
+            subscriptions.add(new ArrayList<>());
+        }
+        pvlist = new ParameterValueList();
+        for (int i = 0; i < NUM_PARAMS; i++) {
+            Parameter p = new Parameter("p" + i);
+            pvlist.add(new ParameterValue(p));
+            subscriptions.get(i % NUM_SUBSCRIPTIONS).add(p);
+        }
+        for (List<Parameter> plist : subscriptions) {
+            int id = prm.addRequest(plist, ParameterDeliveryPerfTest::consume);
+            for (Parameter p : plist) {
+                param2RequestMap.computeIfAbsent(p, k -> new SubscriptionArray()).add(id);
+            }
+        }
+        for (int i = 0; i < NUM_SUBSCRIBE_ALL; i++) {
+            subscribeAll.add(prm.subscribeAll(ParameterDeliveryPerfTest::consume));
+        }
+    }
+
+    @Test
+    public void testHashMap() {
+        run("HashMap fan-out", this::deliverHashMap);
+    }
+
+    @Test
+    public void testParameterRequestManager() {
+        run("ParameterRequestManager fan-out", () -> prm.update(pvlist));
+    }
+
+    void run(String name, Runnable delivery) {
+        // warm up
+        for (int i = 0; i < NUM_DELIVERIES / 10; i++) {
+            delivery.run();
+        }
+        com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory
+                .getThreadMXBean();
+        long tid = Thread.currentThread().getId();
+        long b0 = bean.getThreadAllocatedBytes(tid);
+        long t0 = System.nanoTime();
+        for (int i = 0; i < NUM_DELIVERIES; i++) {
+            delivery.run();
+        }
+        long t1 = System.nanoTime();
+        long b1 = bean.getThreadAllocatedBytes(tid);
+        System.out.println(name + ": " + (t1 - t0) / NUM_DELIVERIES + " ns/delivery, "
+                + (b1 - b0) / NUM_DELIVERIES + " bytes/delivery");
+    }
+
+    // the algorithm used by the ParameterRequestManager before the introduction of the DeliveryBuffers
+    void deliverHashMap() {
+        HashMap<Integer, ArrayList<ParameterValue>> subscription = new HashMap<>();
+        for (ParameterValue pv : pvlist) {
+            SubscriptionArray cowal = param2RequestMap.get(pv.getParameter());
+            for (int s : cowal.getArray()) {
+                subscription.computeIfAbsent(s, k -> new ArrayList<>()).add(pv);
+            }
+        }
+        for (int id : subscribeAll.getArray()) {
+            ArrayList<ParameterValue> al = subscription.computeIfAbsent(id, k -> new ArrayList<>());
+            for (ParameterValue pv : pvlist) {
+                al.add(pv);
+            }
+        }
+        for (Map.Entry<Integer, ArrayList<ParameterValue>> entry : subscription.entrySet()) {
+            consume(entry.getKey(), entry.getValue());
+        }
+    }
+
+    static void consume(int subscriptionId, List<ParameterValue> items) {
+        for (ParameterValue pv : items) {
+            sink += subscriptionId + pv.getGenerationTime();
+        }
+    }
+}
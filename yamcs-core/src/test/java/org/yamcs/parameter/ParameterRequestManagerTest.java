@@ -0,0 +1,123 @@
+package org.yamcs.parameter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.yamcs.Processor;
+import org.yamcs.ProcessorConfig;
+import org.yamcs.ProcessorFactory;
+import org.yamcs.YConfiguration;
+import org.yamcs.events.EventProducerFactory;
+import org.yamcs.mdb.XtceDbFactory;
+import org.yamcs.xtce.Parameter;
+
+public class ParameterRequestManagerTest {
+    static final int NUM_PARAMS = 20;
+    ParameterRequestManager prm;
+    List<Parameter> params;
+
+    @BeforeAll
+    public static void beforeClass() {
+        YConfiguration.setupTest("refxtce");
+        EventProducerFactory.setMockup(false);
+        XtceDbFactory.reset();
+    }
+
+    @BeforeEach
+    public void before() throws Exception {
+        // with subscribeAll the parameters do not need a provider
+        ProcessorConfig config = new ProcessorConfig(YConfiguration.wrap(Map.of("subscribeAll", true)));
+        Processor processor = ProcessorFactory.create("refxtce", "ParameterRequestManagerTest", "test", List.of(),
+                "test", config, null);
+        prm = processor.getParameterRequestManager();
+        params = new ArrayList<>();
+        for (int i = 0; i < NUM_PARAMS; i++) {
+            params.add(new Parameter("p" + i));
+        }
+    }
+
+    ParameterValueList delivery(long genTime) {
+        ParameterValueList pvlist = new ParameterValueList();
+        for (Parameter p : params) {
+            ParameterValue pv = new ParameterValue(p);
+            pv.setGenerationTime(genTime);
+            pvlist.add(pv);
+        }
+        return pvlist;
+    }
+
+    /**
+     * The subscribe all consumers share the same view of the delivered list; each of them has to see the whole list
+     * regardless of the order in which the previous consumers have accessed it.
+     */
+    @Test
+    public void testSubscribeAllConsumers() {
+        List<List<ParameterValue>> received = new ArrayList<>();
+        // reverse random access
+        prm.subscribeAll((id, items) -> {
+            List<ParameterValue> l = new ArrayList<>();
+            for (int i = items.size() - 1; i >= 0; i--) {
+                l.add(0, items.get(i));
+            }
+            received.add(l);
+        });
+        // random access stopping in the middle
+        prm.subscribeAll((id, items) -> {
+            items.get(NUM_PARAMS / 2);
+            List<ParameterValue> l = new ArrayList<>();
+            for (int i = 0; i < items.size(); i++) {
+                l.add(items.get(i));
+            }
+            received.add(l);
+        });
+        // iterator interleaved with random access
+        prm.subscribeAll((id, items) -> {
+            List<ParameterValue> l = new ArrayList<>();
+            int i = 0;
+            for (ParameterValue pv : items) {
+                assertEquals(pv, items.get(i++));
+                l.add(pv);
+            }
+            received.add(l);
+        });
+        List<List<ParameterValue>> subscribed = new ArrayList<>();
+        prm.addRequest(List.of(params.get(3), params.get(7)), (id, items) -> subscribed.add(new ArrayList<>(items)));
+
+        for (int k = 0; k < 3; k++) {
+            received.clear();
+            subscribed.clear();
+            ParameterValueList pvlist = delivery(k);
+            prm.update(pvlist);
+
+            List<ParameterValue> expected = new ArrayList<>(pvlist);
+            assertEquals(3, received.size());
+            for (List<ParameterValue> l : received) {
+                assertEquals(expected, l);
+            }
+            assertEquals(List.of(List.of(expected.get(3), expected.get(7))), subscribed);
+        }
+    }
+
+    @Test
+    public void testRemoveRequest() {
+        List<Integer> delivered = new ArrayList<>();
+        int id1 = prm.addRequest(List.of(params.get(0), params.get(1)), (id, items) -> delivered.add(id));
+        int id2 = prm.addRequest(List.of(params.get(1)), (id, items) -> delivered.add(id));
+
+        prm.update(delivery(0));
+        assertEquals(2, delivered.size());
+        assertTrue(delivered.containsAll(List.of(id1, id2)));
+
+        delivered.clear();
+        prm.removeRequest(id1);
+        prm.update(delivery(1));
+        assertEquals(List.of(id2), delivered);
+    }
+}
@@ -254,4 +254,24 @@ public class ParameterValueListTest {
 
         assertFalse(it.hasNext());
     }
+
+    @Test
+    public void testListView() {
+        int n = 100;
+        List<ParameterValue> pvalues = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            pvalues.add(new ParameterValue(new Parameter("parameter" + i)));
+        }
+        ParameterValueList pvlist = new ParameterValueList(pvalues);
+        List<ParameterValue> view = pvlist.listView();
+        assertEquals(n, view.size());
+        assertEquals(pvalues, view);
+        assertEquals(pvalues.get(50), view.get(50));
+        assertEquals(pvalues.get(3), view.get(3));
+
+        ParameterValue pv = new ParameterValue(new Parameter("parameter" + n));
+        pvlist.add(pv);
+        assertEquals(n + 1, view.size());
+        assertEquals(pv, view.get(n));
+    }
 }
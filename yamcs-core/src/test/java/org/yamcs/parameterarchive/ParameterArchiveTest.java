@@ -705,6 +705,47 @@ public class ParameterArchiveTest {
         checkEquals(l2a.get(0), 100, pv1_0, pv1_1);
     }
 
+    @ParameterizedTest
+    @ValueSource(strings = { "none", "YYYY" })
+    public void testRollups(String partitioningSchema) throws Exception {
+        openDb(partitioningSchema);
+        // first minute of an interval
+        long t0 = ParameterArchive.getIntervalStart(TimeEncoding.parse("2018-03-19T10:00:00"));
+        t0 += Math.floorMod(-t0, 60_000L);
+
+        int p1id = pidMap.createAndGet(p1.getQualifiedName(), Type.DOUBLE);
+        int pg1id = pgidMap.createAndGet(IntArray.wrap(p1id));
+
+        // two segments, the second one written without rollups
+        for (int k = 0; k < 2; k++) {
+            long segStart = t0 + k * 600_000;
+            PGSegment pgs = new PGSegment(pg1id, segStart, IntArray.wrap(p1id));
+            for (int i = 0; i < 60; i++) {
+                ParameterValue pv = new ParameterValue(p1);
+                pv.setGenerationTime(segStart + i * 10_000);
+                pv.setEngValue(ValueUtility.getDoubleValue(i));
+                pgs.addRecord(segStart + i * 10_000, Arrays.asList(pv));
+            }
+            parchive.rollupsEnabled = (k == 0);
+            parchive.writeToArchive(pgs);
+        }
+
+        List<RollupSegment> l = new ArrayList<>();
+        RollupRetrieval rr = new RollupRetrieval(parchive, p1.getQualifiedName(), t0, t0 + 1_200_000, 0);
+        assertTrue(rr.isNumeric());
+        rr.retrieve(l::add);
+        assertEquals(2, l.size());
+        for (RollupSegment rs : l) {
+            assertEquals(10, rs.size());
+            for (int j = 0; j < 10; j++) {
+                assertEquals(6, rs.getCount(j));
+                assertEquals(6 * j, rs.getMin(j), 1e-10);
+                assertEquals(6 * j + 5, rs.getMax(j), 1e-10);
+            }
+        }
+        assertEquals(t0 + 600_000, l.get(1).getBucketStart(0));
+    }
+
     List<ParameterIdValueList> retrieveMultipleParameters(long start, long stop, int[] parameterIds,
             int[] parameterGroupIds, boolean ascending) throws Exception {
         return retrieveMultipleParameters(start, stop, parameterIds, parameterGroupIds, ascending, -1);
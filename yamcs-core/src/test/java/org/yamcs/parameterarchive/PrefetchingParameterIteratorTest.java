@@ -0,0 +1,165 @@
+package org.yamcs.parameterarchive;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.yamcs.utils.ValueUtility;
+
+public class PrefetchingParameterIteratorTest {
+    ExecutorService pool;
+
+    @BeforeEach
+    public void before() {
+        pool = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterEach
+    public void after() throws InterruptedException {
+        pool.shutdownNow();
+        pool.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testAllValues() {
+        int n = 3 * PrefetchingParameterIterator.BATCH_SIZE + 7;
+        ListIterator lit = new ListIterator(n, -1);
+        PrefetchingParameterIterator pit = new PrefetchingParameterIterator(null, 3, () -> lit, pool, 2);
+
+        assertEquals(3, pit.getParameterGroupId());
+        for (int i = 0; i < n; i++) {
+            assertTrue(pit.isValid());
+            assertEquals(i, pit.value().instant);
+            pit.next();
+        }
+        assertFalse(pit.isValid());
+        pit.close();
+        assertTrue(lit.closed);
+    }
+
+    @Test
+    public void testEmpty() {
+        ListIterator lit = new ListIterator(0, -1);
+        PrefetchingParameterIterator pit = new PrefetchingParameterIterator(null, 1, () -> lit, pool, 2);
+        assertFalse(pit.isValid());
+        pit.close();
+        assertTrue(lit.closed);
+    }
+
+    @Test
+    public void testPrefetchLimit() throws InterruptedException {
+        int n = 10 * PrefetchingParameterIterator.BATCH_SIZE;
+        ListIterator lit = new ListIterator(n, -1);
+        PrefetchingParameterIterator pit = new PrefetchingParameterIterator(null, 1, () -> lit, pool, 2);
+        assertTrue(pit.isValid());
+        Thread.sleep(100);
+        // one batch taken by the consumer and two read in advance
+        assertEquals(3 * PrefetchingParameterIterator.BATCH_SIZE, lit.pos);
+
+        pit.close();
+        waitClosed(lit);
+    }
+
+    @Test
+    public void testError() {
+        ListIterator lit = new ListIterator(10, 5);
+        PrefetchingParameterIterator pit = new PrefetchingParameterIterator(null, 1, () -> lit, pool, 2);
+        ParameterArchiveException e = assertThrows(ParameterArchiveException.class, () -> pit.isValid());
+        assertSame(lit.exception, e);
+        assertTrue(lit.closed);
+    }
+
+    @Test
+    public void testBoundedExecutor() throws InterruptedException {
+        BoundedExecutor executor = new BoundedExecutor(pool, 2);
+        AtomicInteger maxRunning = new AtomicInteger();
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger count = new AtomicInteger();
+        for (int i = 0; i < 20; i++) {
+            executor.execute(() -> {
+                int r = running.incrementAndGet();
+                maxRunning.accumulateAndGet(r, Math::max);
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                running.decrementAndGet();
+                count.incrementAndGet();
+            });
+        }
+        for (int i = 0; i < 100 && count.get() < 20; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(20, count.get());
+        assertEquals(2, maxRunning.get());
+        assertEquals(0, executor.numRunning());
+    }
+
+    private void waitClosed(ListIterator lit) throws InterruptedException {
+        for (int i = 0; i < 100 && !lit.closed; i++) {
+            Thread.sleep(10);
+        }
+        assertTrue(lit.closed);
+    }
+
+    static class ListIterator implements ParameterIterator {
+        final List<TimedValue> values = new ArrayList<>();
+        final int failPos;
+        final ParameterArchiveException exception = new ParameterArchiveException("test");
+        volatile int pos;
+        volatile boolean closed;
+
+        ListIterator(int n, int failPos) {
+            for (int i = 0; i < n; i++) {
+                values.add(new TimedValue(i, ValueUtility.getSint32Value(i), null, null));
+            }
+            this.failPos = failPos;
+        }
+
+        @Override
+        public boolean isValid() {
+            return pos < values.size();
+        }
+
+        @Override
+        public TimedValue value() {
+            if (pos == failPos) {
+                throw exception;
+            }
+            return values.get(pos);
+        }
+
+        @Override
+        public void next() {
+            pos++;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+
+        @Override
+        public ParameterId getParameterId() {
+            return null;
+        }
+
+        @Override
+        public int getParameterGroupId() {
+            return 0;
+        }
+    }
+}
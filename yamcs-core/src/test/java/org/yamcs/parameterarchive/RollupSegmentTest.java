@@ -0,0 +1,70 @@
+package org.yamcs.parameterarchive;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.nio.ByteBuffer;
+
+import org.junit.jupiter.api.Test;
+import org.yamcs.parameter.ValueArray;
+import org.yamcs.protobuf.Yamcs.Value.Type;
+import org.yamcs.utils.DecodingException;
+
+public class RollupSegmentTest {
+
+    @Test
+    public void testBuckets() throws DecodingException {
+        long segStart = 1_000_030_000L;
+        SortedTimeSegment timeSegment = new SortedTimeSegment(segStart);
+        double[] values = new double[10];
+        for (int i = 0; i < 10; i++) {
+            timeSegment.add(segStart + i * 20_000L);
+            values[i] = i;
+        }
+        RollupSegment rs = RollupSegment.build(timeSegment, new ValueArray(values), 60_000);
+        // the first bucket starts before the segment
+        checkBuckets(rs);
+
+        ByteBuffer bb = ByteBuffer.allocate(rs.getMaxSerializedSize());
+        rs.writeTo(bb);
+        bb.rewind();
+        RollupSegment rs1 = RollupSegment.parseFrom(bb, segStart);
+        assertEquals(60_000, rs1.getBucketSize());
+        checkBuckets(rs1);
+    }
+
+    private void checkBuckets(RollupSegment rs) {
+        assertEquals(4, rs.size());
+        assertEquals(1_000_020_000L, rs.getBucketStart(0));
+        assertEquals(3, rs.getCount(0));
+        assertEquals(0, rs.getMin(0), 1e-10);
+        assertEquals(2, rs.getMax(0), 1e-10);
+        assertEquals(0 + 1 + 2, rs.getSum(0), 1e-10);
+
+        assertEquals(1_000_080_000L, rs.getBucketStart(1));
+        assertEquals(3, rs.getCount(1));
+        assertEquals(3 + 4 + 5, rs.getSum(1), 1e-10);
+
+        assertEquals(1_000_200_000L, rs.getBucketStart(3));
+        assertEquals(1, rs.getCount(3));
+        assertEquals(9, rs.getMin(3), 1e-10);
+        assertEquals(9, rs.getMax(3), 1e-10);
+    }
+
+    @Test
+    public void testNotNumeric() {
+        SortedTimeSegment timeSegment = new SortedTimeSegment(0);
+        timeSegment.add(0);
+        assertNull(RollupSegment.build(timeSegment, new ValueArray(new String[] { "a" }), 60_000));
+    }
+
+    @Test
+    public void testTier() {
+        assertEquals(-1, RollupSegment.getTier(1000));
+        assertEquals(0, RollupSegment.getTier(60_000));
+        assertEquals(0, RollupSegment.getTier(600_000));
+        assertEquals(1, RollupSegment.getTier(86_400_000));
+        assertEquals(true, RollupSegment.isNumeric(Type.UINT32));
+        assertEquals(false, RollupSegment.isNumeric(Type.STRING));
+    }
+}
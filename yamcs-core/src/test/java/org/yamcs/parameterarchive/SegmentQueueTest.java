@@ -4,8 +4,10 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import org.junit.jupiter.api.Test;
 import org.yamcs.parameter.BasicParameterValue;
@@ -109,6 +111,27 @@ public class SegmentQueueTest {
         assertEquals(SegmentQueue.QSIZE - 1, sq.getPVSegments(1, true).size());
     }
 
+    @Test
+    public void testAddRecordBlocking() throws InterruptedException {
+        SegmentQueue sq = new SegmentQueue(1, IntArray.wrap(1), 2);
+        for (int i = 0; i < SegmentQueue.QSIZE - 1; ++i) {
+            assertTrue(sq.addRecord(i * INTERVAL_SIZE_MILLIS, getParaList(i * INTERVAL_SIZE_MILLIS)));
+        }
+        long t = SegmentQueue.QSIZE * INTERVAL_SIZE_MILLIS;
+        assertFalse(sq.addRecord(t, getParaList(t)));
+
+        // the oldest segment is sent to the archive to make room
+        List<PGSegment> archived = new ArrayList<>();
+        assertTrue(sq.addRecordBlocking(t, getParaList(t), pgs -> {
+            archived.add(pgs);
+            return CompletableFuture.completedFuture(null);
+        }, 1000));
+        assertEquals(1, archived.size());
+        assertEquals(0, archived.get(0).getSegmentStart());
+        assertEquals(SegmentQueue.QSIZE - 1, sq.size());
+        assertEquals(SegmentQueue.QSIZE - 1, sq.getPVSegments(1, true).size());
+    }
+
     private void testEquals(List<ParameterValueSegment> pvsegList, List<List<Long>> l) {
         assertEquals(l.size(), pvsegList.size());
         for (int i = 0; i < l.size(); i++) {
@@ -12,7 +12,9 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Random;
 import java.util.zip.CRC32;
 
@@ -269,6 +271,53 @@ public class ReplicationFileTest {
 
     }
 
+    @Test
+    public void testBatch() throws Exception {
+        Path file1 = dir.resolve("t7");
+
+        // header + 10 transactions of 30 bytes
+        ReplicationFile rf = ReplicationFile.newFile("test", file1, 0, 10, 17,
+                ReplicationFile.headerSize(10, 17) + 300);
+        ReplicationTail rt = rf.tail(0);
+
+        MyTransaction meta = new MyTransaction(STREAM_INFO, 6);
+        List<Transaction> batch = new ArrayList<>();
+        batch.add(meta);
+        for (int i = 0; i < 3; i++) {
+            batch.add(new MyTransaction(DATA, 10));
+        }
+        assertEquals(4, rf.writeData(batch, false));
+        assertEquals(4, rf.numTx());
+        meta.txid = 0;
+        verifyMetadata(rf, meta);
+
+        rf.getNewData(rt);
+        assertEquals(4, rt.nextTxId);
+        assertEquals(120, rt.buf.remaining());
+        assertFalse(rt.eof);
+
+        batch.clear();
+        for (int i = 0; i < 8; i++) {
+            batch.add(new MyTransaction(DATA, 10));
+        }
+        // only 6 fit
+        assertEquals(6, rf.writeData(batch, true));
+        assertEquals(10, rf.numTx());
+        assertTrue(rf.isFull());
+        assertEquals(0, rf.writeData(batch.subList(6, 8), false));
+
+        rf.getNewData(rt);
+        assertEquals(10, rt.nextTxId);
+        assertEquals(300, rt.buf.remaining());
+        assertTrue(rt.eof);
+        rf.close();
+
+        ReplicationFile rf1 = ReplicationFile.openReadOnly("test", file1, 0);
+        assertEquals(10, rf1.numTx());
+        verifyMetadata(rf1, meta);
+        rf1.close();
+    }
+
     void verifyMetadata(ReplicationFile rf, MyTransaction... metaRecords) {
         Iterator<ByteBuffer> it = rf.metadataIterator();
 
@@ -0,0 +1,179 @@
+package org.yamcs.replication;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+import org.yamcs.utils.FileUtils;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+
+/**
+ * Measures the throughput and the CPU usage of sending a backlog of full replication files to a local slave, from the
+ * memory mapped buffer and using file regions (see {@link MasterChannelHandler}).
+ * <p>
+ * The total size of the backlog can be configured with the system property {@code replication.perf.sizeMB} (default
+ * 4096).
+ */
+@Disabled
+public class ReplicationPerfTest {
+    static final int MAX_FILE_SIZE = 1024 * 1024 * 1024;
+    static final int TX_DATA_SIZE = 1000;
+
+    Path dir;
+    List<ReplicationFile> files = new ArrayList<>();
+    long totalBytes;
+    EventLoopGroup group;
+
+    @BeforeEach
+    public void before() throws IOException {
+        dir = Files.createTempDirectory("replperf");
+        group = new NioEventLoopGroup(2);
+
+        long size = Long.getLong("replication.perf.sizeMB", 4096) * 1024 * 1024;
+        byte[] b = new byte[TX_DATA_SIZE];
+        ThreadLocalRandom.current().nextBytes(b);
+        Transaction tx = new Transaction() {
+            @Override
+            public byte getType() {
+                return Message.DATA;
+            }
+
+            @Override
+            public void marshall(ByteBuffer buf) {
+                buf.put(b);
+            }
+
+            @Override
+            public int getInstanceId() {
+                return 0;
+            }
+        };
+
+        long txId = 0;
+        while (totalBytes < size) {
+            ReplicationFile rf = ReplicationFile.newFile("test", dir.resolve(String.format("RPL_%016x.dat", txId)),
+                    txId, 1000, 1000, (int) Math.min(MAX_FILE_SIZE, size - totalBytes + 8192));
+            while (rf.writeData(tx) != -1) {
+                txId++;
+            }
+            rf.close();
+            ReplicationFile rf1 = ReplicationFile.openReadOnly("test", rf.getPath(), rf.getFirstId());
+            totalBytes += rf1.tail(rf1.getFirstId()).buf.remaining();
+            files.add(rf1);
+        }
+        System.out.println("Created " + files.size() + " files with " + txId + " transactions, " + (totalBytes >> 20)
+                + " MB");
+    }
+
+    @AfterEach
+    public void after() throws Exception {
+        for (ReplicationFile rf : files) {
+            rf.close();
+        }
+        group.shutdownGracefully().await();
+        FileUtils.deleteRecursivelyIfExists(dir);
+    }
+
+    @Test
+    public void testMappedBuffer() throws Exception {
+        run(false);
+    }
+
+    @Test
+    public void testFileRegion() throws Exception {
+        run(true);
+    }
+
+    private void run(boolean fileRegion) throws Exception {
+        CompletableFuture<Long> received = new CompletableFuture<>();
+        ServerBootstrap sb = new ServerBootstrap().group(group).channel(NioServerSocketChannel.class)
+                .childHandler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(SocketChannel ch) {
+                        ch.pipeline().addLast(new SinkHandler(received));
+                    }
+                });
+        Channel serverChannel = sb.bind("127.0.0.1", 0).sync().channel();
+        int port = ((java.net.InetSocketAddress) serverChannel.localAddress()).getPort();
+
+        Channel ch = new Bootstrap().group(group).channel(NioSocketChannel.class)
+                .handler(new ChannelInboundHandlerAdapter())
+                .connect("127.0.0.1", port).sync().channel();
+
+        long cpu0 = getProcessCpuTime();
+        long t0 = System.nanoTime();
+
+        ChannelFuture lastFuture = null;
+        for (ReplicationFile rf : files) {
+            ReplicationTail tail = rf.tail(rf.getFirstId());
+            Object data = fileRegion ? rf.newFileRegion(tail) : Unpooled.wrappedBuffer(tail.buf);
+            lastFuture = ch.writeAndFlush(data);
+        }
+        lastFuture.sync();
+        ch.close().sync();
+        long n = received.get(60, TimeUnit.SECONDS);
+
+        long t1 = System.nanoTime();
+        long cpu1 = getProcessCpuTime();
+        serverChannel.close().sync();
+
+        assertEquals(totalBytes, n);
+        double sec = (t1 - t0) / 1e9;
+        System.out.printf("%s: sent %d MB in %.2f seconds: %.1f MB/s, process CPU time %.2f seconds (%.0f%%)%n",
+                fileRegion ? "file region" : "mapped buffer", n >> 20, sec, (n >> 20) / sec, (cpu1 - cpu0) / 1e9,
+                100 * (cpu1 - cpu0) / 1e9 / sec);
+    }
+
+    static long getProcessCpuTime() {
+        return ((com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean())
+                .getProcessCpuTime();
+    }
+
+    static class SinkHandler extends ChannelInboundHandlerAdapter {
+        final CompletableFuture<Long> received;
+        long n;
+
+        SinkHandler(CompletableFuture<Long> received) {
+            this.received = received;
+        }
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            ByteBuf buf = (ByteBuf) msg;
+            n += buf.readableBytes();
+            buf.release();
+        }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) {
+            received.complete(n);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package org.yamcs.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class SpscArrayQueueTest {
+
+    @Test
+    public void testCapacity() {
+        SpscArrayQueue<Integer> q = new SpscArrayQueue<>(5);
+        assertEquals(8, q.capacity());
+        assertTrue(q.isEmpty());
+        for (int i = 0; i < 8; i++) {
+            assertTrue(q.offer(i));
+        }
+        assertFalse(q.offer(8));
+        assertEquals(8, q.size());
+
+        assertEquals(0, q.peek());
+        assertEquals(0, q.poll());
+        assertTrue(q.offer(8));
+        for (int i = 1; i < 9; i++) {
+            assertEquals(i, q.poll());
+        }
+        assertNull(q.poll());
+        assertTrue(q.isEmpty());
+    }
+
+    @Test
+    public void testTwoThreads() throws Exception {
+        int n = 1_000_000;
+        SpscArrayQueue<Integer> q = new SpscArrayQueue<>(16);
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < n; i++) {
+                while (!q.offer(i)) {
+                    Thread.yield();
+                }
+            }
+        });
+        producer.start();
+        for (int i = 0; i < n; i++) {
+            Integer x;
+            while ((x = q.poll()) == null) {
+                Thread.yield();
+            }
+            assertEquals(i, x.intValue());
+        }
+        producer.join();
+        assertTrue(q.isEmpty());
+    }
+}
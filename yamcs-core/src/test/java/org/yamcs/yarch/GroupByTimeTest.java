@@ -0,0 +1,213 @@
+package org.yamcs.yarch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.yamcs.protobuf.Event.EventSeverity;
+import org.yamcs.utils.TimeEncoding;
+import org.yamcs.utils.TimeInterval;
+import org.yamcs.yarch.TableWriter.InsertMode;
+import org.yamcs.yarch.protobuf.Db.Event;
+import org.yamcs.yarch.streamsql.Expression;
+import org.yamcs.yarch.streamsql.GroupByTimeStatement;
+import org.yamcs.yarch.streamsql.StreamSqlException;
+import org.yamcs.yarch.streamsql.StreamSqlResult;
+
+public class GroupByTimeTest extends YarchTestCase {
+    static final int N = 1000;
+    static final EventSeverity[] SEVERITIES = { EventSeverity.INFO, EventSeverity.WARNING, EventSeverity.ERROR };
+
+    @BeforeAll
+    public static void setUpTime() {
+        TimeEncoding.setUp();
+    }
+
+    @BeforeEach
+    public void populate() throws Exception {
+        execute("create table events(gentime timestamp, source enum, seqNum int, body PROTOBUF('"
+                + Event.class.getName() + "'), primary key(gentime, source, seqNum))");
+        execute("create table events_by_seq(seqNum int, gentime timestamp, source enum, primary key(seqNum))");
+        TableDefinition tblDef = ydb.getTable("events");
+        TableWriter tw = ydb.getStorageEngine(tblDef).newTableWriter(ydb, tblDef, InsertMode.INSERT);
+        TableDefinition tblDef2 = ydb.getTable("events_by_seq");
+        TableWriter tw2 = ydb.getStorageEngine(tblDef2).newTableWriter(ydb, tblDef2, InsertMode.INSERT);
+
+        TupleDefinition tdef = new TupleDefinition();
+        tdef.addColumn("gentime", DataType.TIMESTAMP);
+        tdef.addColumn("source", DataType.ENUM);
+        tdef.addColumn("seqNum", DataType.INT);
+        tdef.addColumn("body", DataType.protobuf(Event.class.getName()));
+        for (int i = 0; i < N; i++) {
+            String source = "source" + (i % 7);
+            Event event = Event.newBuilder().setSource(source).setSeqNumber(i).setGenerationTime(i)
+                    .setMessage("message" + i).setSeverity(SEVERITIES[i % SEVERITIES.length]).build();
+            Tuple t = new Tuple(tdef, new Object[] { (long) i, source, N - i, event });
+            tw.onTuple(null, t);
+            tw2.onTuple(null, t);
+        }
+        tw.close();
+        tw2.close();
+    }
+
+    Map<String, Long> aggregate(String table, long bucketSize, String where, TimeInterval interval,
+            String... groupBy) throws Exception {
+        return aggregate(table, 1, bucketSize, where, interval, groupBy);
+    }
+
+    Map<String, Long> aggregate(String table, int scanParallelism, long bucketSize, String where,
+            TimeInterval interval, String... groupBy) throws Exception {
+        List<Expression> exprs = new ArrayList<>();
+        for (String s : groupBy) {
+            exprs.add(GroupByTimeStatement.parseExpression(s));
+        }
+        GroupByTimeStatement stmt = new GroupByTimeStatement(table, "gentime", bucketSize, exprs,
+                where == null ? null : GroupByTimeStatement.parseExpression(where));
+        if (interval != null) {
+            stmt.setTimeInterval(interval);
+        }
+        stmt.setScanParallelism(scanParallelism);
+        Map<String, Long> result = new TreeMap<>();
+        long prevBucket = Long.MIN_VALUE;
+        StreamSqlResult r = ydb.execute(stmt);
+        while (r.hasNext()) {
+            Tuple t = r.next();
+            long bucket = t.getLongColumn("bucket");
+            assertEquals(true, bucket >= prevBucket);
+            prevBucket = bucket;
+            List<Object> key = new ArrayList<>();
+            key.add(bucket);
+            for (int i = 1; i < t.size() - 1; i++) {
+                key.add(t.getColumn(i));
+            }
+            result.put(key.toString(), t.getLongColumn("count"));
+        }
+        r.close();
+        return result;
+    }
+
+    void add(Map<String, Long> expected, Object... key) {
+        expected.merge(Arrays.asList(key).toString(), 1L, Long::sum);
+    }
+
+    @Test
+    public void testBuckets() throws Exception {
+        Map<String, Long> result = aggregate("events", 100, null, null);
+        assertEquals(10, result.size());
+        for (int i = 0; i < 10; i++) {
+            assertEquals(100, result.get(Collections.singletonList((long) i * 100).toString()));
+        }
+    }
+
+    @Test
+    public void testGroupByWithInterval() throws Exception {
+        Map<String, Long> result = aggregate("events", 100, null, new TimeInterval(250, 500), "source");
+        Map<String, Long> expected = new TreeMap<>();
+        for (int i = 250; i < 500; i++) {
+            add(expected, (long) i / 100 * 100, "source" + (i % 7));
+        }
+        assertEquals(expected, result);
+    }
+
+    @Test
+    public void testGroupByWithWhere() throws Exception {
+        Map<String, Long> result = aggregate("events", 300, "body.severity != 'INFO'", null, "source",
+                "body.severity");
+        Map<String, Long> expected = new TreeMap<>();
+        for (int i = 0; i < N; i++) {
+            EventSeverity sev = SEVERITIES[i % SEVERITIES.length];
+            if (sev != EventSeverity.INFO) {
+                add(expected, (long) i / 300 * 300, "source" + (i % 7), sev.name());
+            }
+        }
+        assertEquals(expected, result);
+    }
+
+    @Test
+    public void testTimeNotInKey() throws Exception {
+        Map<String, Long> result = aggregate("events_by_seq", 100, "source = 'source3'",
+                new TimeInterval(0, 700), "source");
+        Map<String, Long> expected = new TreeMap<>();
+        for (int i = 0; i < 700; i++) {
+            if (i % 7 == 3) {
+                add(expected, (long) i / 100 * 100, "source3");
+            }
+        }
+        assertEquals(expected, result);
+    }
+
+    @Test
+    public void testUtcBuckets() throws Exception {
+        execute("create table utc_events(gentime timestamp, seqNum int, primary key(gentime))");
+        TableDefinition tblDef = ydb.getTable("utc_events");
+        TableWriter tw = ydb.getStorageEngine(tblDef).newTableWriter(ydb, tblDef, InsertMode.INSERT);
+        TupleDefinition tdef = new TupleDefinition();
+        tdef.addColumn("gentime", DataType.TIMESTAMP);
+        tdef.addColumn("seqNum", DataType.INT);
+        // one row per minute from 2016-12-31T22:30:00Z to 2017-01-01T01:29:00Z, around a leap second
+        for (int i = -90; i < 90; i++) {
+            long t = TimeEncoding.parse("2017-01-01T00:00:00Z") + i * 60_000L;
+            if (i < 0) {
+                t -= 1000; // the minute 2016-12-31T23:59 has 61 seconds
+            }
+            tw.onTuple(null, new Tuple(tdef, new Object[] { t, i }));
+        }
+        tw.close();
+
+        Map<String, Long> result = aggregate("utc_events", 3600_000, null, null);
+        Map<String, Long> expected = new TreeMap<>();
+        expected.put(List.of(TimeEncoding.parse("2016-12-31T22:00:00Z")).toString(), 30L);
+        expected.put(List.of(TimeEncoding.parse("2016-12-31T23:00:00Z")).toString(), 60L);
+        expected.put(List.of(TimeEncoding.parse("2017-01-01T00:00:00Z")).toString(), 60L);
+        expected.put(List.of(TimeEncoding.parse("2017-01-01T01:00:00Z")).toString(), 30L);
+        assertEquals(expected, result);
+    }
+
+    @Test
+    public void testScanParallelism() throws Exception {
+        execute("create table events_part(gentime timestamp, source enum, seqNum int, "
+                + "primary key(gentime, source, seqNum)) partition by time(gentime('YYYY/DOY'))");
+        // partitioned by the reception time, the gentime buckets are not visited in order
+        execute("create table events_part_by_rectime(rectime timestamp, seqNum int, gentime timestamp, source enum, "
+                + "primary key(rectime, seqNum)) partition by time(rectime('YYYY/DOY'))");
+        long t0 = TimeEncoding.parse("2021-01-01T00:00:00Z");
+        TupleDefinition tdef = new TupleDefinition();
+        tdef.addColumn("gentime", DataType.TIMESTAMP);
+        tdef.addColumn("rectime", DataType.TIMESTAMP);
+        tdef.addColumn("source", DataType.ENUM);
+        tdef.addColumn("seqNum", DataType.INT);
+        for (String tblName : List.of("events_part", "events_part_by_rectime")) {
+            TableDefinition tblDef = ydb.getTable(tblName);
+            TableWriter tw = ydb.getStorageEngine(tblDef).newTableWriter(ydb, tblDef, InsertMode.INSERT);
+            // 100 rows per day -> 20 partitions
+            for (int i = 0; i < 2000; i++) {
+                tw.onTuple(null, new Tuple(tdef, new Object[] { t0 + i * 864_000L, t0 + (1999 - i) * 864_000L,
+                        "source" + (i % 7), i }));
+            }
+            tw.close();
+        }
+        TimeInterval interval = new TimeInterval(t0 + 250 * 864_000L, t0 + 1750 * 864_000L);
+        for (String tblName : List.of("events_part", "events_part_by_rectime")) {
+            Map<String, Long> expected = aggregate(tblName, 1, 3600_000, null, interval, "source");
+            assertEquals(1500, expected.values().stream().mapToLong(Long::longValue).sum());
+            assertEquals(expected, aggregate(tblName, 4, 3600_000, null, interval, "source"));
+            assertEquals(aggregate(tblName, 1, 7200_000, "source != 'source1'", null),
+                    aggregate(tblName, 4, 7200_000, "source != 'source1'", null));
+        }
+    }
+
+    @Test
+    public void testInvalidTimeColumn() throws Exception {
+        GroupByTimeStatement stmt = new GroupByTimeStatement("events", "seqNum", 100, Collections.emptyList(), null);
+        assertThrows(StreamSqlException.class, () -> ydb.execute(stmt));
+    }
+}
@@ -0,0 +1,123 @@
+package org.yamcs.yarch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class SpeedLimitStreamTest extends YarchTestCase {
+    TupleDefinition tdef;
+    InternalStream input;
+    List<Tuple> received;
+    Semaphore closed;
+
+    @BeforeEach
+    public void createInput() {
+        tdef = new TupleDefinition();
+        tdef.addColumn("gentime", DataType.TIMESTAMP);
+        tdef.addColumn("x", DataType.INT);
+        input = new InternalStream(ydb, "sls_input", tdef);
+        received = new CopyOnWriteArrayList<>();
+        closed = new Semaphore(0);
+    }
+
+    SpeedLimitStream createStream(SpeedSpec speedSpec) {
+        SpeedLimitStream sls = new SpeedLimitStream(ydb, "sls", tdef, speedSpec);
+        sls.setSubscribedStream(input);
+        input.addSubscriber(sls);
+        sls.addSubscriber(new StreamSubscriber() {
+            @Override
+            public void onTuple(Stream s, Tuple t) {
+                received.add(t);
+            }
+
+            @Override
+            public void streamClosed(Stream s) {
+                closed.release();
+            }
+        });
+        sls.start();
+        return sls;
+    }
+
+    void emit(int n, long timeStep) {
+        for (int i = 0; i < n; i++) {
+            input.emitTuple(new Tuple(tdef, new Object[] { i * timeStep, i }));
+        }
+    }
+
+    void verifyOrder(int n) {
+        assertEquals(n, received.size());
+        for (int i = 0; i < n; i++) {
+            assertEquals(i, received.get(i).getIntColumn("x"));
+        }
+    }
+
+    @Test
+    public void testOriginal() throws Exception {
+        SpeedLimitStream sls = createStream(new SpeedSpec(SpeedSpec.Type.ORIGINAL, "gentime", 10));
+        long t0 = System.nanoTime();
+        emit(21, 100); // 2 seconds of data at 10x
+        input.close();
+        assertTrue(closed.tryAcquire(10, TimeUnit.SECONDS));
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t0);
+
+        verifyOrder(21);
+        assertTrue(elapsed >= 190, "elapsed: " + elapsed);
+        assertEquals(21, sls.getStats().getNumReleased());
+    }
+
+    @Test
+    public void testFixedDelay() throws Exception {
+        createStream(new SpeedSpec(SpeedSpec.Type.FIXED_DELAY, 20));
+        long t0 = System.nanoTime();
+        emit(6, 1);
+        input.close();
+        assertTrue(closed.tryAcquire(10, TimeUnit.SECONDS));
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t0);
+
+        verifyOrder(6);
+        assertTrue(elapsed >= 95, "elapsed: " + elapsed);
+    }
+
+    @Test
+    public void testPause() throws Exception {
+        SpeedLimitStream sls = createStream(new SpeedSpec(SpeedSpec.Type.FIXED_DELAY, 1));
+        sls.pause();
+        emit(10, 1);
+        input.close();
+        assertTrue(!closed.tryAcquire(200, TimeUnit.MILLISECONDS));
+        assertEquals(0, received.size());
+        assertEquals(10, sls.getStats().getQueueSize());
+
+        sls.resume();
+        assertTrue(closed.tryAcquire(10, TimeUnit.SECONDS));
+        verifyOrder(10);
+    }
+
+    @Test
+    public void testAfapBackpressure() throws Exception {
+        SpeedLimitStream sls = createStream(new SpeedSpec(SpeedSpec.Type.AFAP));
+        int n = 3 * SpeedLimitStream.MAX_QUEUE_SIZE;
+        sls.pause();
+        Thread producer = new Thread(() -> {
+            emit(n, 1);
+            input.close();
+        });
+        producer.start();
+        Thread.sleep(200);
+        // the producer is blocked by the full queue
+        assertEquals(SpeedLimitStream.MAX_QUEUE_SIZE, sls.getStats().getQueueSize());
+
+        sls.resume();
+        assertTrue(closed.tryAcquire(10, TimeUnit.SECONDS));
+        producer.join();
+        verifyOrder(n);
+    }
+}
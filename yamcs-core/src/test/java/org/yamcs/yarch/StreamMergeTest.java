@@ -3,6 +3,9 @@ package org.yamcs.yarch;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -157,6 +160,77 @@ public class StreamMergeTest extends YarchTestCase {
         execute("drop table tm3");
     }
 
+    @Test
+    public void testTableMerge4() throws Exception {
+        // five interleaved inputs, the loser tree is not complete
+        for (int k = 0; k < 5; k++) {
+            populate("tm" + k, k, 1000, 5, 1000 * k);
+        }
+
+        verify("merge tm0,tm1,tm2,tm3,tm4 using \"time\"",
+                (i, time, apidSeqCount) -> {
+                    assertEquals(1000 * i, time);
+                    assertEquals(1000 * (i % 5), apidSeqCount);
+                });
+        for (int k = 0; k < 5; k++) {
+            execute("drop table tm" + k);
+        }
+    }
+
+    @Test
+    public void testStreamMergeMultipleProducers() throws Exception {
+        // each input stream receives tuples from several threads concurrently
+        int numThreads = 4;
+        int n = 5000;
+        Stream[] inputs = new Stream[2];
+        for (int k = 0; k < inputs.length; k++) {
+            ydb.execute("create stream tm_in" + k + "(\"time\" timestamp, apidSeqCount int)");
+            inputs[k] = ydb.getStream("tm_in" + k);
+        }
+        MergeStream merge = new MergeStream(ydb, inputs, "time", true);
+        BitSet received = new BitSet();
+        AtomicInteger count = new AtomicInteger();
+        Semaphore semaphore = new Semaphore(0);
+        merge.addSubscriber(new StreamSubscriber() {
+            @Override
+            public void streamClosed(Stream stream) {
+                semaphore.release();
+            }
+
+            @Override
+            public void onTuple(Stream stream, Tuple tuple) {
+                // the merge emits from one thread at a time
+                received.set((Integer) tuple.getColumn(1));
+                count.incrementAndGet();
+            }
+        });
+        merge.start();
+
+        List<Thread> threads = new ArrayList<>();
+        for (int k = 0; k < inputs.length; k++) {
+            Stream s = inputs[k];
+            for (int j = 0; j < numThreads; j++) {
+                int first = (k * numThreads + j) * n;
+                Thread t = new Thread(() -> {
+                    for (int i = 0; i < n; i++) {
+                        s.emitTuple(new Tuple(s.getDefinition(), new Object[] { (long) i, first + i }));
+                    }
+                });
+                threads.add(t);
+                t.start();
+            }
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+        for (Stream s : inputs) {
+            s.close();
+        }
+        semaphore.tryAcquire(30, TimeUnit.SECONDS);
+        assertEquals(inputs.length * numThreads * n, count.get());
+        assertEquals(inputs.length * numThreads * n, received.cardinality());
+    }
+
     interface Checker {
         public void check(int i, long time, int apidSeqCount);
     }
@@ -0,0 +1,119 @@
+package org.yamcs.yarch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.yamcs.protobuf.Event.EventSeverity;
+import org.yamcs.yarch.TableWriter.InsertMode;
+import org.yamcs.yarch.protobuf.Db.Event;
+import org.yamcs.yarch.streamsql.StreamSqlResult;
+
+public class TableRowFilterTest extends YarchTestCase {
+    static final int N = 1000;
+    static final EventSeverity[] SEVERITIES = { EventSeverity.INFO, EventSeverity.WARNING, EventSeverity.ERROR };
+    List<Tuple> rows = new ArrayList<>();
+
+    @BeforeEach
+    public void populate() throws Exception {
+        execute("create table events(gentime timestamp, source enum, seqNum int, extra string, body PROTOBUF('"
+                + Event.class.getName() + "'), primary key(gentime, source, seqNum))");
+        TableDefinition tblDef = ydb.getTable("events");
+        TableWriter tw = ydb.getStorageEngine(tblDef).newTableWriter(ydb, tblDef, InsertMode.INSERT);
+
+        for (int i = 0; i < N; i++) {
+            String source = "source" + (i % 7);
+            Event event = Event.newBuilder().setSource(source).setSeqNumber(i).setGenerationTime(i)
+                    .setMessage("message" + i).setSeverity(SEVERITIES[i % SEVERITIES.length]).build();
+            TupleDefinition tdef = new TupleDefinition();
+            tdef.addColumn("gentime", DataType.TIMESTAMP);
+            tdef.addColumn("source", DataType.ENUM);
+            tdef.addColumn("seqNum", DataType.INT);
+            List<Object> values = new ArrayList<>(Arrays.asList((long) i, source, i));
+            if (i % 2 == 0) { // half of the rows do not have the extra column
+                tdef.addColumn("extra", DataType.STRING);
+                values.add("extra" + i % 5);
+            }
+            tdef.addColumn("body", DataType.protobuf(Event.class.getName()));
+            values.add(event);
+            Tuple t = new Tuple(tdef, values);
+            tw.onTuple(null, t);
+            rows.add(t);
+        }
+        tw.close();
+    }
+
+    List<Tuple> select(String query) throws Exception {
+        List<Tuple> l = new ArrayList<>();
+        StreamSqlResult r = ydb.execute(query);
+        while (r.hasNext()) {
+            l.add(r.next());
+        }
+        r.close();
+        return l;
+    }
+
+    @Test
+    public void testKeyAndProtobuf() throws Exception {
+        List<Tuple> l = select("select * from events where source = 'source3' and body.severity = 'WARNING'");
+        int n = 0;
+        for (Tuple t : rows) {
+            Event ev = (Event) t.getColumn("body");
+            if ("source3".equals(t.getColumn("source")) && ev.getSeverity() == EventSeverity.WARNING) {
+                n++;
+            }
+        }
+        assertEquals(n, l.size());
+        for (Tuple t : l) {
+            assertEquals("source3", t.getColumn("source"));
+            assertEquals(EventSeverity.WARNING, ((Event) t.getColumn("body")).getSeverity());
+            // the output tuples are complete
+            assertEquals("message" + t.getIntColumn("seqNum"), ((Event) t.getColumn("body")).getMessage());
+        }
+    }
+
+    @Test
+    public void testMissingColumn() throws Exception {
+        List<Tuple> l = select("select * from events where extra is not null and seqNum < 100");
+        assertEquals(50, l.size());
+        for (Tuple t : l) {
+            assertEquals(0, t.getIntColumn("seqNum") % 2);
+        }
+    }
+
+    @Test
+    public void testPartialDeserialize() throws Exception {
+        TableDefinition tblDef = ydb.getTable("events");
+        TupleDefinition tdef = new TupleDefinition();
+        tdef.addColumn("gentime", DataType.TIMESTAMP);
+        tdef.addColumn("source", DataType.ENUM);
+        tdef.addColumn("seqNum", DataType.INT);
+        tdef.addColumn("extra", DataType.STRING);
+        tdef.addColumn("body", DataType.protobuf(Event.class.getName()));
+        Event event = Event.newBuilder().setSource("source1").setMessage("m").build();
+        Tuple t = new Tuple(tdef, new Object[] { 10L, "source1", 5, "x", event });
+
+        Row row = tblDef.generateRow(t);
+        byte[] k = row.getKey();
+        byte[] v = tblDef.serializeValue(t, row);
+
+        Tuple t1 = tblDef.deserialize(k, v, new HashSet<>(Arrays.asList("seqNum", "extra")));
+        assertEquals(2, t1.size());
+        assertEquals(5, t1.getIntColumn("seqNum"));
+        assertEquals("x", t1.getColumn("extra"));
+        assertNull(t1.getColumn("body"));
+
+        Tuple t2 = tblDef.deserialize(k, v, new HashSet<>(Arrays.asList("source", "body")));
+        assertEquals(2, t2.size());
+        assertEquals("source1", t2.getColumn("source"));
+        assertEquals(event, t2.getColumn("body"));
+        assertTrue(t2.hasColumn("body"));
+    }
+}
@@ -0,0 +1,181 @@
+package org.yamcs.yarch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.yamcs.protobuf.Event.EventSeverity;
+import org.yamcs.yarch.TableWriter.InsertMode;
+import org.yamcs.yarch.protobuf.Db.Event;
+import org.yamcs.yarch.rocksdb.RdbStorageEngine;
+import org.yamcs.yarch.rocksdb.RdbTable;
+import org.yamcs.yarch.rocksdb.TextIndex;
+import org.yamcs.yarch.rocksdb.TextIndexTableWalker;
+import org.yamcs.yarch.streamsql.StreamSqlResult;
+import org.yamcs.yarch.streamsql.TableWalkerBuilder;
+import org.yamcs.yarch.streamsql.funct.TextMatchExpression;
+
+public class TextIndexTest extends YarchTestCase {
+    static final int N = 300;
+    static final List<String> COLUMNS = List.of("body.message");
+    TableDefinition tblDef;
+    TupleDefinition tdef;
+
+    @BeforeEach
+    public void createTable() throws Exception {
+        execute("create table events(gentime timestamp, source enum, seqNum int, body PROTOBUF('"
+                + Event.class.getName() + "'), primary key(gentime, source, seqNum))");
+        tblDef = ydb.getTable("events");
+        tdef = new TupleDefinition();
+        tdef.addColumn("gentime", DataType.TIMESTAMP);
+        tdef.addColumn("source", DataType.ENUM);
+        tdef.addColumn("seqNum", DataType.INT);
+        tdef.addColumn("body", DataType.protobuf(Event.class.getName()));
+    }
+
+    static String message(int i) {
+        StringBuilder sb = new StringBuilder("Message-" + i);
+        if (i % 2 == 0) {
+            sb.append(" alpha");
+        }
+        if (i % 3 == 0) {
+            sb.append(", BETA");
+        }
+        if (i % 5 == 0) {
+            sb.append(" gamma/delta");
+        }
+        return sb.toString();
+    }
+
+    void insert(int from, int to) {
+        TableWriter tw = ydb.getStorageEngine(tblDef).newTableWriter(ydb, tblDef, InsertMode.INSERT);
+        for (int i = from; i < to; i++) {
+            Event event = Event.newBuilder().setSource("src" + (i % 4)).setSeqNumber(i).setGenerationTime(i)
+                    .setMessage(message(i)).setSeverity(EventSeverity.INFO).build();
+            tw.onTuple(null, new Tuple(tdef, new Object[] { (long) i, "src" + (i % 4), i, event }));
+        }
+        tw.close();
+    }
+
+    RdbTable getTable() {
+        return RdbStorageEngine.getInstance().getTablespace(ydb).getTable(tblDef);
+    }
+
+    TextIndex enableIndex() throws Exception {
+        TextIndex textIndex = getTable().enableTextIndex(COLUMNS, (tuple, texts) -> {
+            Event ev = tuple.getColumn("body");
+            texts.add(ev.getMessage());
+        });
+        for (int i = 0; i < 100 && !textIndex.isComplete(); i++) {
+            Thread.sleep(100);
+        }
+        assertTrue(textIndex.isComplete());
+        return textIndex;
+    }
+
+    List<Integer> select(String query, Object... args) throws Exception {
+        List<Integer> result = new ArrayList<>();
+        StreamSqlResult r = ydb.execute(query, args);
+        while (r.hasNext()) {
+            result.add(r.next().getIntColumn("seqNum"));
+        }
+        r.close();
+        return result;
+    }
+
+    List<Integer> expected(int from, int to, boolean ascending, int... divisors) {
+        List<Integer> l = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            boolean match = true;
+            for (int d : divisors) {
+                match &= (i % d == 0);
+            }
+            if (match) {
+                l.add(i);
+            }
+        }
+        if (!ascending) {
+            Collections.reverse(l);
+        }
+        return l;
+    }
+
+    @Test
+    public void testTokenizer() {
+        assertEquals(List.of("message", "12", "alpha", "beta"),
+                new ArrayList<>(TextTokenizer.tokenize("Message-12 alpha, BETA alpha")));
+        assertTrue(TextMatchExpression.match("beta ALPHA", message(6)));
+        assertFalse(TextMatchExpression.match("beta alpha", message(3)));
+        assertTrue(TextMatchExpression.match(" ", message(1)));
+    }
+
+    @Test
+    public void testSearch() throws Exception {
+        insert(0, N / 2);
+        enableIndex();
+        insert(N / 2, N);
+
+        TableWalkerBuilder twb = new TableWalkerBuilder(context, tblDef);
+        twb.addTextFilter(COLUMNS, Set.of("alpha"));
+        assertTrue(twb.build() instanceof TextIndexTableWalker);
+
+        assertEquals(expected(0, N, true, 2, 3),
+                select("select * from events where text_match(body.message, ?)", "Alpha beta"));
+        assertEquals(expected(0, N, false, 3, 5),
+                select("select * from events where text_match(body.message, 'gamma beta') order desc"));
+        assertEquals(expected(100, 200, true, 2, 5), select(
+                "select * from events where gentime >= 100 and gentime < 200 and text_match(body.message, 'delta alpha')"));
+        assertEquals(expected(100, 200, false, 2, 5), select(
+                "select * from events where gentime >= 100 and gentime < 200 and text_match(body.message, 'delta alpha') order desc"));
+        assertEquals(List.of(), select("select * from events where text_match(body.message, 'epsilon alpha')"));
+        assertEquals(List.of(42), select("select * from events where text_match(body.message, 'message 42')"));
+    }
+
+    @Test
+    public void testReloadAndDisable() throws Exception {
+        insert(0, N);
+        enableIndex();
+
+        reloadDb();
+        tblDef = ydb.getTable("events");
+        // the index is complete from the previous run
+        TextIndex textIndex = getTable().enableTextIndex(COLUMNS, (tuple, texts) -> {
+        });
+        assertTrue(textIndex.isComplete());
+        assertEquals(expected(0, N, true, 2, 3, 5),
+                select("select * from events where text_match(body.message, 'alpha beta gamma')"));
+
+        getTable().disableTextIndex();
+        assertNull(getTable().getTextIndex());
+        TableWalkerBuilder twb = new TableWalkerBuilder(context, tblDef);
+        twb.addTextFilter(COLUMNS, Set.of("alpha"));
+        assertFalse(twb.build() instanceof TextIndexTableWalker);
+        assertEquals(expected(0, N, true, 2, 3, 5),
+                select("select * from events where text_match(body.message, 'alpha beta gamma')"));
+    }
+
+    @Test
+    public void testDisableWhileBuilding() throws Exception {
+        insert(0, 10 * N);
+        getTable().enableTextIndex(COLUMNS, (tuple, texts) -> {
+            Event ev = tuple.getColumn("body");
+            texts.add(ev.getMessage());
+        });
+        // waits for the build to stop before removing the index data
+        getTable().disableTextIndex();
+        assertFalse(Thread.getAllStackTraces().keySet().stream()
+                .anyMatch(t -> t.getName().equals("TextIndexBuilder-events")));
+
+        enableIndex();
+        assertEquals(expected(0, 10 * N, true, 2, 3, 5),
+                select("select * from events where text_match(body.message, 'alpha beta gamma')"));
+    }
+}
@@ -0,0 +1,81 @@
+package org.yamcs.yarch;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class TupleBatchTest extends YarchTestCase {
+
+    @Test
+    public void testColumns() {
+        TupleDefinition tdef1 = new TupleDefinition();
+        tdef1.addColumn("x", DataType.INT);
+        tdef1.addColumn("t", DataType.TIMESTAMP);
+        TupleDefinition tdef2 = new TupleDefinition();
+        tdef2.addColumn("t", DataType.TIMESTAMP);
+        tdef2.addColumn("d", DataType.DOUBLE);
+
+        TupleBatch batch = new TupleBatch(3);
+        batch.add(new Tuple(tdef1, new Object[] { 1, 100L }));
+        batch.add(new Tuple(tdef2, new Object[] { 200L, 2.5 }));
+        assertFalse(batch.isFull());
+        batch.add(new Tuple(tdef1, new Object[] { null, 300L }));
+        assertTrue(batch.isFull());
+
+        assertArrayEquals(new int[] { 1, 0, 0 }, batch.getIntColumn("x"));
+        assertArrayEquals(new long[] { 100, 200, 300 }, batch.getLongColumn("t"));
+        assertArrayEquals(new double[] { 0, 2.5, 0 }, batch.getDoubleColumn("d"));
+
+        BitSet bs = new BitSet();
+        bs.set(1, 3);
+        assertEquals(bs, batch.getNullMask("x"));
+        assertTrue(batch.getNullMask("t").isEmpty());
+    }
+
+    @Test
+    public void testAdapter() {
+        List<Tuple> received = new ArrayList<>();
+        StreamSubscriber s = (stream, tuple) -> received.add(tuple);
+
+        TupleDefinition tdef = new TupleDefinition();
+        tdef.addColumn("x", DataType.INT);
+        TupleBatch batch = new TupleBatch();
+        for (int i = 0; i < 5; i++) {
+            batch.add(new Tuple(tdef, new Object[] { i }));
+        }
+        Stream stream = new Stream(ydb, "test", tdef) {
+            @Override
+            public void doStart() {
+            }
+
+            @Override
+            protected void doClose() {
+            }
+        };
+        stream.addSubscriber(s);
+        stream.emitTuples(batch);
+
+        assertEquals(batch.getTuples(), received);
+        assertEquals(5, stream.getDataCount());
+    }
+
+    @Test
+    public void testTableLimit() throws Exception {
+        execute("create table test1(x int, primary key(x))");
+        for (int i = 0; i < 1000; i++) {
+            execute("insert into test1(x) values(" + i + ")");
+        }
+        ydb.execute("create stream test1_out as select * from test1 limit 300, 400");
+        List<Tuple> tlist = fetchAll("test1_out");
+        assertEquals(400, tlist.size());
+        assertEquals(300, (int) (Integer) tlist.get(0).getColumn("x"));
+        assertEquals(699, (int) (Integer) tlist.get(399).getColumn("x"));
+    }
+}
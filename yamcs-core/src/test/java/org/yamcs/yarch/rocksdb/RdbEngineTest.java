@@ -65,6 +65,20 @@ public class RdbEngineTest extends YarchTestCase {
         iter.close();
     }
 
+    @Test
+    public void testHistogramWrittenAtClose() throws Exception {
+        // the histograms accumulated in memory have to be written when the tablespace is closed
+        TableDefinition tblDef = populate();
+        RdbStorageEngine rse = RdbStorageEngine.getInstance();
+        rse.shutdown();
+
+        rse.loadTablespaces(false);
+        tblDef = rse.loadTables(ydb).get(0);
+        HistogramIterator iter = rse.getHistogramIterator(ydb, tblDef, "name", new TimeInterval());
+        assertNumElementsEqual(iter, 3);
+        iter.close();
+    }
+
     @Test
     public void testOpenCloseWithTableDrop() throws Exception {
         TableDefinition tblDef = populate();
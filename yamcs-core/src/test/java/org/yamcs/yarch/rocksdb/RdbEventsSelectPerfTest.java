@@ -0,0 +1,106 @@
+package org.yamcs.yarch.rocksdb;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+import org.yamcs.protobuf.Event.EventSeverity;
+import org.yamcs.utils.TimeEncoding;
+import org.yamcs.yarch.TableDefinition;
+import org.yamcs.yarch.TableWriter;
+import org.yamcs.yarch.TableWriter.InsertMode;
+import org.yamcs.yarch.Tuple;
+import org.yamcs.yarch.TupleDefinition;
+import org.yamcs.yarch.YarchTestCase;
+import org.yamcs.yarch.protobuf.Db.Event;
+import org.yamcs.yarch.streamsql.StreamSqlResult;
+
+/**
+ * Compares selecting events filtered by source and severity with the filter evaluated by the table walker on the
+ * serialized rows against the same filter evaluated on the fully deserialized tuples.
+ */
+@Disabled
+public class RdbEventsSelectPerfTest extends YarchTestCase {
+    static final int NUM_EVENTS = 2_000_000;
+    static final int NUM_SOURCES = 20;
+    static final EventSeverity[] SEVERITIES = { EventSeverity.INFO, EventSeverity.INFO, EventSeverity.INFO,
+            EventSeverity.WARNING, EventSeverity.ERROR };
+
+    void populate() throws Exception {
+        execute("create table events(gentime timestamp, source enum, seqNum int, body PROTOBUF('"
+                + Event.class.getName() + "'), primary key(gentime, source, seqNum)) histogram(source)"
+                + " partition by time(gentime)");
+        TableDefinition tblDef = ydb.getTable("events");
+        TableWriter tw = ydb.getStorageEngine(tblDef).newTableWriter(ydb, tblDef, InsertMode.INSERT);
+        TupleDefinition tdef = tblDef.getTupleDefinition();
+
+        long baseTime = TimeEncoding.parse("2021-01-01T00:00:00");
+        ThreadLocalRandom r = ThreadLocalRandom.current();
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 20; i++) {
+            sb.append("Lorem ipsum dolor sit amet ");
+        }
+        String text = sb.toString();
+
+        long t0 = System.currentTimeMillis();
+        for (int i = 0; i < NUM_EVENTS; i++) {
+            String source = "source" + r.nextInt(NUM_SOURCES);
+            long gentime = baseTime + i * 100L;
+            Event ev = Event.newBuilder().setSource(source).setGenerationTime(gentime).setReceptionTime(gentime)
+                    .setSeqNumber(i).setType("type" + (i % 50)).setMessage(text + i)
+                    .setSeverity(SEVERITIES[r.nextInt(SEVERITIES.length)]).build();
+            tw.onTuple(null, new Tuple(tdef, new Object[] { gentime, source, i, ev }));
+        }
+        tw.close();
+        System.out.println("populated " + NUM_EVENTS + " events in " + (System.currentTimeMillis() - t0) + " ms");
+    }
+
+    // the filter is passed to the table walker
+    int selectPushdown(String source, String severity) throws Exception {
+        StreamSqlResult res = ydb.execute("select * from events where source = '" + source
+                + "' and body.severity = '" + severity + "'");
+        int n = 0;
+        while (res.hasNext()) {
+            res.next();
+            n++;
+        }
+        res.close();
+        return n;
+    }
+
+    // the rows are fully deserialized before being filtered
+    int selectAll(String source, String severity) throws Exception {
+        StreamSqlResult res = ydb.execute("select * from events");
+        int n = 0;
+        while (res.hasNext()) {
+            Tuple t = res.next();
+            Event ev = (Event) t.getColumn("body");
+            if (source.equals(t.getColumn("source")) && severity.equals(ev.getSeverity().name())) {
+                n++;
+            }
+        }
+        res.close();
+        return n;
+    }
+
+    @Test
+    public void test() throws Exception {
+        populate();
+        String[][] queries = { { "source3", "WARNING" }, { "source7", "ERROR" }, { "source11", "INFO" } };
+
+        for (int k = 0; k < 3; k++) { // the first round is a warm-up
+            for (String[] q : queries) {
+                long t0 = System.nanoTime();
+                int n1 = selectAll(q[0], q[1]);
+                long t1 = System.nanoTime();
+                int n2 = selectPushdown(q[0], q[1]);
+                long t2 = System.nanoTime();
+                assertEquals(n1, n2);
+                System.out.println(String.format("source=%s severity=%s: %d events; full deserialization: %d ms, "
+                        + "row filter: %d ms", q[0], q[1], n2, (t1 - t0) / 1000_000, (t2 - t1) / 1000_000));
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package org.yamcs.yarch.rocksdb;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.yamcs.utils.TimeEncoding;
+import org.yamcs.yarch.ExecutionContext;
+import org.yamcs.yarch.TableWriter.InsertMode;
+import org.yamcs.yarch.Tuple;
+import org.yamcs.yarch.YarchTestCase;
+import org.yamcs.yarch.streamsql.StreamSqlResult;
+import org.yamcs.yarch.streamsql.StreamSqlStatement;
+
+public class RdbTableWalkerTest extends YarchTestCase {
+    static final int N = 5000;
+    long t0 = TimeEncoding.parse("2021-01-01T00:00:00");
+
+    @BeforeEach
+    public void populate() throws Exception {
+        execute("create table test1(gentime timestamp, seqNum int, primary key(gentime, seqNum)) "
+                + "partition by time(gentime('YYYY/DOY'))");
+        RdbStorageEngine rse = RdbStorageEngine.getInstance();
+        RdbTable table = rse.getTablespace(ydb).getTable(ydb.getTable("test1"));
+        RdbTableWriter tw = new RdbTableWriter(ydb, table, InsertMode.INSERT);
+        for (int i = 0; i < N; i++) {
+            // 100 records per day -> 50 partitions
+            tw.onTuple(null, new Tuple(ydb.getTable("test1").getTupleDefinition(),
+                    new Object[] { t0 + i * 864_000L, i }));
+        }
+        tw.close();
+    }
+
+    List<Integer> select(String query, int parallelism, boolean ordered) throws Exception {
+        List<Integer> l = new ArrayList<>();
+        try (ExecutionContext ctx = new ExecutionContext(ydb)) {
+            ctx.setScanParallelism(parallelism, ordered);
+            StreamSqlStatement stmt = ydb.createStatement(query);
+            StreamSqlResult r = stmt.execute(ctx);
+            while (r.hasNext()) {
+                l.add(r.next().getIntColumn("seqNum"));
+            }
+            r.close();
+        }
+        return l;
+    }
+
+    @Test
+    public void testOrdered() throws Exception {
+        List<Integer> expected = select("select * from test1", 1, true);
+        assertEquals(N, expected.size());
+
+        assertEquals(expected, select("select * from test1", 4, true));
+        List<Integer> desc = select("select * from test1 order desc", 4, true);
+        Collections.reverse(desc);
+        assertEquals(expected, desc);
+    }
+
+    @Test
+    public void testUnordered() throws Exception {
+        List<Integer> l = select("select * from test1", 8, false);
+        l.sort(Comparator.naturalOrder());
+        assertEquals(select("select * from test1", 1, true), l);
+    }
+
+    @Test
+    public void testParallelismLimited() throws Exception {
+        // limited to the number of scan threads, the queues are not allocated for the requested parallelism
+        List<Integer> l = select("select * from test1", Integer.MAX_VALUE, false);
+        l.sort(Comparator.naturalOrder());
+        assertEquals(select("select * from test1", 1, true), l);
+    }
+
+    @Test
+    public void testRange() throws Exception {
+        String query = "select * from test1 where gentime >= " + (t0 + 1000 * 864_000L) + " and gentime < "
+                + (t0 + 3000 * 864_000L);
+        List<Integer> expected = select(query, 1, true);
+        assertEquals(2000, expected.size());
+        assertEquals(expected, select(query, 3, true));
+
+        List<Integer> l = select(query, 3, false);
+        l.sort(Comparator.naturalOrder());
+        assertEquals(expected, l);
+    }
+
+    @Test
+    public void testLimit() throws Exception {
+        List<Integer> l = select("select * from test1 limit 10", 4, true);
+        assertEquals(10, l.size());
+        assertEquals(0, (int) l.get(0));
+    }
+}
@@ -0,0 +1,70 @@
+package org.yamcs.yarch.rocksdb;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.yamcs.utils.TimeEncoding;
+import org.yamcs.yarch.TableDefinition;
+import org.yamcs.yarch.TableWriter.InsertMode;
+import org.yamcs.yarch.Tuple;
+import org.yamcs.yarch.YarchTestCase;
+import org.yamcs.yarch.rocksdb.RdbConfig.TableWriterConfig;
+
+public class RdbTableWriterTest extends YarchTestCase {
+
+    RdbTableWriter createWriter(String tblName, InsertMode mode, TableWriterConfig twConfig) throws Exception {
+        execute("create table " + tblName
+                + "(gentime timestamp, seqNum int, name string, primary key(gentime, seqNum)) histogram(name) "
+                + "partition by time(gentime) engine rocksdb2");
+        TableDefinition tblDef = ydb.getTable(tblName);
+        RdbStorageEngine rse = (RdbStorageEngine) ydb.getStorageEngine(tblDef);
+        RdbTable table = rse.getTablespace(ydb).getTable(tblDef);
+        return new RdbTableWriter(ydb, table, mode, twConfig);
+    }
+
+    Tuple tuple(String tblName, long gentime, int seqNum) {
+        TableDefinition tblDef = ydb.getTable(tblName);
+        return new Tuple(tblDef.getTupleDefinition(), new Object[] { gentime, seqNum, "p" + (seqNum % 3) });
+    }
+
+    @Test
+    public void testBatchSize() throws Exception {
+        RdbTableWriter tw = createWriter("test1", InsertMode.INSERT, new TableWriterConfig(10, 3600_000));
+        long t0 = TimeEncoding.parse("2021-06-01T00:00:00");
+        for (int i = 0; i < 25; i++) {
+            // each 30 days such that the records end up in different partitions
+            tw.onTuple(null, tuple("test1", t0 + i * 30 * 86400_000L, i));
+        }
+        // duplicate of a record still in the batch, should be ignored
+        tw.onTuple(null, tuple("test1", t0 + 24 * 30 * 86400_000L, 24));
+        assertEquals(20, fetchAllFromTable("test1").size());
+
+        // duplicate of a record already written
+        tw.onTuple(null, tuple("test1", t0, 0));
+        tw.close();
+
+        List<Tuple> tlist = fetchAllFromTable("test1");
+        assertEquals(25, tlist.size());
+        for (int i = 0; i < 25; i++) {
+            assertEquals(i, (int) (Integer) tlist.get(i).getColumn("seqNum"));
+        }
+    }
+
+    @Test
+    public void testBatchLatency() throws Exception {
+        RdbTableWriter tw = createWriter("test2", InsertMode.LOAD, new TableWriterConfig(1000, 50));
+        long t0 = TimeEncoding.parse("2021-06-01T00:00:00");
+        for (int i = 0; i < 3; i++) {
+            tw.onTuple(null, tuple("test2", t0 + i, i));
+        }
+        int n = 0;
+        for (int k = 0; k < 100 && n < 3; k++) {
+            Thread.sleep(20);
+            n = fetchAllFromTable("test2").size();
+        }
+        assertEquals(3, n);
+        tw.close();
+    }
+}
@@ -0,0 +1,94 @@
+package org.yamcs.yarch.streamsql;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.yamcs.yarch.CompiledExpression;
+import org.yamcs.yarch.DataType;
+import org.yamcs.yarch.Tuple;
+import org.yamcs.yarch.TupleDefinition;
+
+public class ExpressionClassCacheTest {
+    TupleDefinition tdef = new TupleDefinition();
+    {
+        tdef.addColumn("x", DataType.INT);
+        tdef.addColumn("s", DataType.STRING);
+    }
+
+    CompiledExpression compile(Expression expr) throws Exception {
+        expr.bind(tdef);
+        return expr.compile();
+    }
+
+    Expression greaterThan(int v) throws Exception {
+        return new RelationalExpression(new ColumnExpression("x"), new ValueExpression(v, DataType.INT),
+                RelOp.GREATER);
+    }
+
+    Expression in(String... values) throws Exception {
+        List<Expression> list = new ArrayList<>();
+        for (String v : values) {
+            list.add(new ValueExpression(v, DataType.STRING));
+        }
+        InClause inClause = new InClause();
+        inClause.setList(list);
+        return new InExpression(new ColumnExpression("s"), inClause);
+    }
+
+    @Test
+    public void testLiterals() throws Exception {
+        ExpressionClassCache cache = ExpressionClassCache.getInstance();
+        Tuple t = new Tuple(tdef, new Object[] { 5, "a" });
+
+        CompiledExpression ce1 = compile(greaterThan(3));
+        long hits = cache.getHits();
+        CompiledExpression ce2 = compile(greaterThan(7));
+
+        assertSame(ce1.getClass(), ce2.getClass());
+        assertEquals(hits + 1, cache.getHits());
+        assertEquals(true, ce1.getValue(t));
+        assertEquals(false, ce2.getValue(t));
+    }
+
+    @Test
+    public void testUniqueIdentifiers() throws Exception {
+        Tuple t = new Tuple(tdef, new Object[] { 5, "b" });
+
+        CompiledExpression ce1 = compile(in("a", "b"));
+        CompiledExpression ce2 = compile(in("c", "d"));
+        CompiledExpression ce3 = compile(in("c", "d", "e"));
+
+        assertSame(ce1.getClass(), ce2.getClass());
+        assertNotEquals(ce1.getClass(), ce3.getClass());
+        assertEquals(true, ce1.getValue(t));
+        assertEquals(false, ce2.getValue(t));
+        assertEquals(false, ce3.getValue(t));
+    }
+
+    @Test
+    public void testEviction() throws Exception {
+        ExpressionClassCache cache = new ExpressionClassCache(2);
+        String source = "package org.yamcs.yarch;\n"
+                + "public class " + ExpressionClassCache.CLASS_NAME_PLACEHOLDER + " implements CompiledExpression {\n"
+                + "\tpublic " + ExpressionClassCache.CLASS_NAME_PLACEHOLDER
+                + "(ColumnDefinition cdef, Object[] args, Object[] literals) {}\n"
+                + "\tpublic ColumnDefinition getDefinition() { return null; }\n"
+                + "\tpublic Object getValue(Tuple tuple) { return \"%d\"; }\n"
+                + "}\n";
+        for (int i = 0; i < 3; i++) {
+            cache.getConstructor(String.format(source, i));
+        }
+        assertEquals(2, cache.size());
+        assertEquals(3, cache.getMisses());
+
+        cache.getConstructor(String.format(source, 2));
+        assertEquals(1, cache.getHits());
+        cache.getConstructor(String.format(source, 0));
+        assertEquals(4, cache.getMisses());
+    }
+}
@@ -176,6 +176,15 @@ export interface HttpTraffic {
   readThroughput: number;
   writeThroughput: number;
   connections: ClientConnectionInfo[];
+  transport?: string;
+  eventLoops?: EventLoopInfo[];
+}
+
+export interface EventLoopInfo {
+  name?: string;
+  utilization: number;
+  pendingTasks: number;
+  taskLatency: number;
 }
 
 export interface ClientConnectionInfo {
@@ -225,6 +234,7 @@ export interface SessionInfo {
 export interface ResultSet {
   columns: any;
   rows: any;
+  truncated?: boolean;
 }
 
 export interface HttpRequestInfo {
@@ -0,0 +1,23 @@
+package org.yamcs.xtce;
+
+/**
+ * Receives notifications about the objects added or modified in the {@link XtceDb} after it has been loaded (for
+ * example the system parameters created on the fly).
+ * <p>
+ * The methods are called with the write lock of the XtceDb held, they should return quickly and not call back into the
+ * XtceDb.
+ */
+public interface MdbChangeListener {
+
+    /**
+     * Called when a parameter has been added or when its description has changed
+     */
+    default void parameterChanged(Parameter parameter) {
+    }
+
+    /**
+     * Called when a command has been added
+     */
+    default void metaCommandAdded(MetaCommand command) {
+    }
+}
@@ -11,7 +11,9 @@ import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
@@ -88,6 +90,9 @@ public class XtceDb implements Serializable {
      */
     private HashMap<SequenceContainer, ArrayList<SequenceContainer>> sequenceContainer2InheritingContainerMap;
 
+    // notified when objects are added or modified after the loading; not serialized
+    private transient volatile List<MdbChangeListener> changeListeners;
+
     public XtceDb(SpaceSystem spaceSystem) {
         this.rootSystem = spaceSystem;
     }
@@ -576,6 +581,7 @@ public class XtceDb implements Serializable {
             if (aliases != null) {
                 aliases.getNamespaces().forEach(ns -> namespaces.add(ns));
             }
+            fireParameterChanged(p);
         } finally {
             rwLock.writeLock().unlock();
         }
@@ -658,6 +664,7 @@ public class XtceDb implements Serializable {
             if (p == null) {
                 p = SystemParameter.getForFullyQualifiedName(parameterQualifiedNamed);
                 p.setParameterType(ptype);
+                p.setShortDescription(shortDescription);
                 addParameter(p, true);
             } else {
                 if (p.getParameterType() != ptype) {
@@ -665,8 +672,11 @@ public class XtceDb implements Serializable {
                             + " already exists but has a different type: " + p.getParameterType()
                             + " The type in the request was: " + ptype);
                 }
+                if (!Objects.equals(p.getShortDescription(), shortDescription)) {
+                    p.setShortDescription(shortDescription);
+                    fireParameterChanged(p);
+                }
             }
-            p.setShortDescription(shortDescription);
             return p;
         } finally {
             rwLock.writeLock().unlock();
@@ -747,6 +757,10 @@ public class XtceDb implements Serializable {
             if (aliases != null) {
                 namespaces.addAll(aliases.getNamespaces());
             }
+            List<MdbChangeListener> listeners = changeListeners;
+            if (listeners != null) {
+                listeners.forEach(l -> l.metaCommandAdded(c));
+            }
         } finally {
             rwLock.writeLock().unlock();
         }
@@ -806,6 +820,37 @@ public class XtceDb implements Serializable {
         }
     }
 
+    /**
+     * Registers a listener to be notified when objects are added or modified in this XtceDb.
+     * <p>
+     * The listeners are not serialized with the XtceDb.
+     */
+    public void addChangeListener(MdbChangeListener listener) {
+        rwLock.writeLock().lock();
+        try {
+            if (changeListeners == null) {
+                changeListeners = new CopyOnWriteArrayList<>();
+            }
+            changeListeners.add(listener);
+        } finally {
+            rwLock.writeLock().unlock();
+        }
+    }
+
+    public void removeChangeListener(MdbChangeListener listener) {
+        List<MdbChangeListener> listeners = changeListeners;
+        if (listeners != null) {
+            listeners.remove(listener);
+        }
+    }
+
+    private void fireParameterChanged(Parameter p) {
+        List<MdbChangeListener> listeners = changeListeners;
+        if (listeners != null) {
+            listeners.forEach(l -> l.parameterChanged(p));
+        }
+    }
+
     /**
      * Checks if the named object refers to a system parameter:
      * <ul>